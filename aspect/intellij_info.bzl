@@ -40,7 +40,19 @@ def _collect_targets_from_toolchains(ctx, toolchain_types):
 
     return result
 
+# TEMPLATE-INCLUDE-BEGIN
+##IDE_INFO_FORMAT = "${ideInfoFormat}"
+##IDE_INFO_BUNDLE = ${ideInfoBundle}
+# TEMPLATE-INCLUDE-END
+
+# TEMPLATE-IGNORE-BEGIN
+IDE_INFO_FORMAT = "text"
+IDE_INFO_BUNDLE = False
+# TEMPLATE-IGNORE-END
+
 semantics = struct(
+    ide_info_format = IDE_INFO_FORMAT,
+    ide_info_bundle = IDE_INFO_BUNDLE,
     toolchains_propagation = struct(
         toolchain_types = TOOLCHAIN_TYPE_DEPS,
         collect_toolchain_deps = _collect_targets_from_toolchains,
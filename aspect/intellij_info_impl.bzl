@@ -24,6 +24,9 @@ load(":python_info.bzl", "get_py_info", "py_info_in_target")
 IntelliJInfo = provider(
     doc = "Collected information about the targets visited by the aspect.",
     fields = [
+        "foreign_ide_info_bundles",
+        "ide_info_bundle",
+        "ide_info_entries",
         "kind",
         "output_groups",
         "target_key",
@@ -585,7 +588,16 @@ def intellij_info_aspect_impl(target, ctx, semantics):
     if aspect_ids:
         aspect_hash = hash(".".join(aspect_ids))
         file_name = file_name + "-" + str(aspect_hash)
-    file_name = file_name + ".intellij-info.txt"
+    bundle_file_name = file_name + ".intellij-info.bundle"
+    entry_file_name = file_name + ".intellij-info.entry"
+
+    # the IDE info is written as proto text format unless the semantics request JSON, which the
+    # IDE can decode considerably faster
+    ide_info_format = getattr(semantics, "ide_info_format", "text")
+    if ide_info_format == "json":
+        file_name = file_name + ".intellij-info.json"
+    else:
+        file_name = file_name + ".intellij-info.txt"
     ide_info_file = ctx.actions.declare_file(file_name)
 
     target_key = make_target_key(ctx, target.label, aspect_ids)
@@ -619,18 +631,112 @@ def intellij_info_aspect_impl(target, ctx, semantics):
 
     # Output the ide information file.
     info = struct_omit_none(**ide_info)
-    ctx.actions.write(ide_info_file, proto.encode_text(info))
+    if ide_info_format == "json":
+        ctx.actions.write(ide_info_file, json.encode(info))
+    else:
+        ctx.actions.write(ide_info_file, proto.encode_text(info))
+
+    ide_info_entries = None
+    ide_info_bundle = None
+    foreign_ide_info_bundles = None
+    top_level_output_groups = output_groups
+    if getattr(semantics, "ide_info_bundle", False):
+        ide_info_entries = _collect_ide_info_entries(
+            target,
+            _write_ide_info_entry(ctx, entry_file_name, ide_info_file, info),
+            prerequisites,
+        )
+        ide_info_bundle = _write_ide_info_bundle(ctx, bundle_file_name, ide_info_entries)
+        foreign_ide_info_bundles = _collect_foreign_ide_info_bundles(target, prerequisites)
+        top_level_output_groups = dict(output_groups)
+        top_level_output_groups["intellij-info-bundle"] = depset(
+            [ide_info_bundle],
+            transitive = [foreign_ide_info_bundles],
+        )
 
     # Return providers.
     return [
         IntelliJInfo(
+            foreign_ide_info_bundles = foreign_ide_info_bundles,
+            ide_info_bundle = ide_info_bundle,
+            ide_info_entries = ide_info_entries,
             kind = ctx.rule.kind,
             output_groups = output_groups,
             target_key = target_key,
         ),
-        OutputGroupInfo(**output_groups),
+        OutputGroupInfo(**top_level_output_groups),
     ]
 
+def _same_package(a, b):
+    return a.label.workspace_root == b.label.workspace_root and a.label.package == b.label.package
+
+def _write_ide_info_entry(ctx, entry_file_name, ide_info_file, info):
+    """Writes the bundle entry of a target to a file of its own.
+
+    The entry is a single line holding the path the target's own IDE info file has and the JSON
+    encoded IDE info. The IDE digests the JSON itself, so it can tell which entries of a bundle
+    changed before decoding them. Each entry is encoded and written once, however many bundles it
+    ends up in, and only the file is passed on in providers.
+    """
+    entry = ctx.actions.declare_file(entry_file_name)
+    ctx.actions.write(entry, "%s\t%s\n" % (ide_info_file.path, json.encode(info)))
+    return entry
+
+def _collect_ide_info_entries(target, entry, prerequisites):
+    """Returns the entry files of a target and the targets of its package it depends on.
+
+    Dependencies in other packages are not included; their entries are in bundles of their own
+    package, see _collect_foreign_ide_info_bundles.
+    """
+    return depset(
+        [entry],
+        transitive = [
+            dep[IntelliJInfo].ide_info_entries
+            for dep in prerequisites
+            if dep[IntelliJInfo].ide_info_entries != None and _same_package(target, dep)
+        ],
+    )
+
+def _collect_foreign_ide_info_bundles(target, prerequisites):
+    """Returns the bundles of all packages, other than the target's own, reachable from it.
+
+    A dependency in another package contributes its own bundle, which holds the entries of its
+    package reachable from it. Since bundles never span packages, an entry is only repeated in the
+    bundles of other targets of its own package, rather than in that of every dependent target.
+    """
+    direct = []
+    transitive = []
+    for dep in prerequisites:
+        dep_info = dep[IntelliJInfo]
+        if dep_info.ide_info_bundle == None:
+            continue
+        if not _same_package(target, dep):
+            direct.append(dep_info.ide_info_bundle)
+        transitive.append(dep_info.foreign_ide_info_bundles)
+    return depset(direct, transitive = transitive)
+
+def _write_ide_info_bundle(ctx, bundle_file_name, ide_info_entries):
+    """Concatenates the entry files of a target and its package's dependencies.
+
+    The bundle is only exposed through OutputGroupInfo and the bundles of dependent targets, so it
+    is only built for requested targets and their dependencies in other packages, while the
+    per-target IDE info files are not built at all.
+    """
+    bundle = ctx.actions.declare_file(bundle_file_name)
+    entry_paths = ctx.actions.args()
+    entry_paths.set_param_file_format("multiline")
+    entry_paths.use_param_file("%s", use_always = True)
+    entry_paths.add_all(ide_info_entries)
+    ctx.actions.run_shell(
+        inputs = ide_info_entries,
+        outputs = [bundle],
+        arguments = [bundle.path, entry_paths],
+        command = "tr '\\n' '\\0' < \"$2\" | xargs -0 cat > \"$1\"",
+        mnemonic = "IntelliJInfoBundle",
+        progress_message = "Bundling IDE info of %{label}",
+    )
+    return bundle
+
 def semantics_extra_deps(base, semantics, name):
     if not hasattr(semantics, name):
         return base
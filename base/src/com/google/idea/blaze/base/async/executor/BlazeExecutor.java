@@ -30,4 +30,7 @@ public abstract class BlazeExecutor {
   public abstract <T> ListenableFuture<T> submit(Callable<T> callable);
 
   public abstract ListeningExecutorService getExecutor();
+
+  /** The executor for the given kind of work. */
+  public abstract ListeningExecutorService getExecutor(ExecutionLane lane);
 }
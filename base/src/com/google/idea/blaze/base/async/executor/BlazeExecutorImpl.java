@@ -38,4 +38,9 @@ public class BlazeExecutorImpl extends BlazeExecutor {
     return executorService;
   }
 
+  @Override
+  public ListeningExecutorService getExecutor(ExecutionLane lane) {
+    return lane.getExecutor();
+  }
+
 }
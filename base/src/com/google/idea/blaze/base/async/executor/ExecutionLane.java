@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.async.executor;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Application-wide executors for different kinds of work, so that one kind of work can't starve
+ * another. For example, a large download doesn't delay parsing the target map, and neither delays
+ * editor features.
+ *
+ * <p>Code should usually get these from {@link BlazeExecutor#getExecutor(ExecutionLane)}, so tests
+ * can replace them.
+ */
+public enum ExecutionLane {
+  /** CPU-bound work, such as parsing and processing aspect outputs. One thread per core. */
+  CPU {
+    @Override
+    InstrumentedExecutorService create() {
+      ForkJoinPool pool =
+          new ForkJoinPool(
+              Runtime.getRuntime().availableProcessors(),
+              ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+              /* handler= */ null,
+              /* asyncMode= */ true);
+      return new InstrumentedExecutorService(pool);
+    }
+  },
+
+  /**
+   * Blocking I/O, such as reading file attributes, copying files and downloading outputs. Each
+   * task runs on its own virtual thread, so blocked tasks don't hold on to platform threads.
+   */
+  IO {
+    @Override
+    InstrumentedExecutorService create() {
+      return new InstrumentedExecutorService(
+          Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("Blaze-IO-", 0).factory()),
+          MAX_CONCURRENT_IO_TASKS);
+    }
+  },
+
+  /**
+   * Work an editor feature is waiting for, such as finding the test target of a file. Kept apart
+   * from sync work so that it isn't queued behind it.
+   */
+  INTERACTIVE {
+    @Override
+    InstrumentedExecutorService create() {
+      return new InstrumentedExecutorService(
+          AppExecutorUtil.createBoundedApplicationPoolExecutor(
+              "Blaze-Interactive",
+              Math.max(2, Runtime.getRuntime().availableProcessors() / 2)));
+    }
+  };
+
+  /** Limits concurrent file system and network operations, which don't scale indefinitely. */
+  private static final int MAX_CONCURRENT_IO_TASKS = 64;
+
+  private final Supplier<InstrumentedExecutorService> executor = Suppliers.memoize(this::create);
+
+  private final Supplier<ListeningExecutorService> listeningExecutor =
+      Suppliers.memoize(() -> MoreExecutors.listeningDecorator(executor.get()));
+
+  abstract InstrumentedExecutorService create();
+
+  /**
+   * The executor of this lane. Prefer {@link BlazeExecutor#getExecutor(ExecutionLane)}, unless the
+   * application may not be available.
+   */
+  public ListeningExecutorService getExecutor() {
+    return listeningExecutor.get();
+  }
+
+  /** The current load and task latencies of this lane. */
+  public LaneStatistics getStatistics() {
+    return executor.get().getStatistics();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.async.executor;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.annotation.Nullable;
+
+/**
+ * Wraps an executor, recording how many tasks are queued and running, and how long they wait and
+ * run. Optionally limits the number of tasks running at once.
+ */
+final class InstrumentedExecutorService extends AbstractExecutorService {
+
+  private final ExecutorService delegate;
+  @Nullable private final Semaphore permits;
+  private final Ticker ticker;
+
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicLongArray queueTimes = new AtomicLongArray(LaneStatistics.BUCKETS);
+  private final AtomicLongArray runTimes = new AtomicLongArray(LaneStatistics.BUCKETS);
+
+  InstrumentedExecutorService(ExecutorService delegate) {
+    this(delegate, Ticker.systemTicker(), /* maxConcurrentTasks= */ 0);
+  }
+
+  InstrumentedExecutorService(ExecutorService delegate, int maxConcurrentTasks) {
+    this(delegate, Ticker.systemTicker(), maxConcurrentTasks);
+  }
+
+  @VisibleForTesting
+  InstrumentedExecutorService(ExecutorService delegate, Ticker ticker, int maxConcurrentTasks) {
+    this.delegate = delegate;
+    this.ticker = ticker;
+    this.permits = maxConcurrentTasks > 0 ? new Semaphore(maxConcurrentTasks) : null;
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    long submitted = ticker.read();
+    queued.incrementAndGet();
+    try {
+      delegate.execute(() -> run(command, submitted));
+    } catch (RuntimeException e) {
+      queued.decrementAndGet();
+      throw e;
+    }
+  }
+
+  private void run(Runnable command, long submitted) {
+    boolean acquired = false;
+    try {
+      if (permits != null) {
+        permits.acquire();
+        acquired = true;
+      }
+    } catch (InterruptedException e) {
+      queued.decrementAndGet();
+      Thread.currentThread().interrupt();
+      return;
+    }
+    long started = ticker.read();
+    queued.decrementAndGet();
+    active.incrementAndGet();
+    LaneStatistics.record(queueTimes, started - submitted);
+    try {
+      command.run();
+    } finally {
+      active.decrementAndGet();
+      LaneStatistics.record(runTimes, ticker.read() - started);
+      if (acquired) {
+        permits.release();
+      }
+    }
+  }
+
+  LaneStatistics getStatistics() {
+    return new LaneStatistics(queued.get(), active.get(), snapshot(queueTimes), snapshot(runTimes));
+  }
+
+  private static long[] snapshot(AtomicLongArray histogram) {
+    long[] counts = new long[histogram.length()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = histogram.get(i);
+    }
+    return counts;
+  }
+
+  @Override
+  public void shutdown() {
+    delegate.shutdown();
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    return delegate.shutdownNow();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return delegate.isShutdown();
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return delegate.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return delegate.awaitTermination(timeout, unit);
+  }
+}
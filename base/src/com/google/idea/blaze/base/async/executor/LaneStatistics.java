@@ -0,0 +1,128 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.async.executor;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A snapshot of the load of an {@link ExecutionLane}, with histograms of how long its tasks waited
+ * in the queue and ran.
+ *
+ * <p>Histogram bucket {@code i} counts tasks which took less than {@code 2^i} milliseconds; the
+ * last bucket counts all longer tasks.
+ */
+public final class LaneStatistics {
+
+  static final int BUCKETS = 18;
+
+  private final int queued;
+  private final int active;
+  private final long[] queueTimes;
+  private final long[] runTimes;
+
+  LaneStatistics(int queued, int active, long[] queueTimes, long[] runTimes) {
+    this.queued = queued;
+    this.active = active;
+    this.queueTimes = queueTimes;
+    this.runTimes = runTimes;
+  }
+
+  static void record(AtomicLongArray histogram, long nanos) {
+    histogram.incrementAndGet(bucket(TimeUnit.NANOSECONDS.toMillis(nanos)));
+  }
+
+  static int bucket(long millis) {
+    int bucket = 64 - Long.numberOfLeadingZeros(Math.max(0, millis));
+    return Math.min(bucket, BUCKETS - 1);
+  }
+
+  /** The number of tasks submitted, but not yet started. */
+  public int getQueueDepth() {
+    return queued;
+  }
+
+  /** The number of tasks currently running. */
+  public int getActiveCount() {
+    return active;
+  }
+
+  /** The number of tasks per queue time bucket. */
+  public long[] getQueueTimeHistogram() {
+    return queueTimes.clone();
+  }
+
+  /** The number of tasks per run time bucket. */
+  public long[] getRunTimeHistogram() {
+    return runTimes.clone();
+  }
+
+  /** The number of tasks run so far. */
+  public long getCompletedCount() {
+    long count = 0;
+    for (long bucketCount : runTimes) {
+      count += bucketCount;
+    }
+    return count;
+  }
+
+  /**
+   * The upper bound in milliseconds of the bucket containing the given percentile of queue times,
+   * or -1 if no task was run.
+   */
+  public long getQueueTimePercentileMillis(double percentile) {
+    return percentileMillis(queueTimes, percentile);
+  }
+
+  /** As {@link #getQueueTimePercentileMillis}, for run times. */
+  public long getRunTimePercentileMillis(double percentile) {
+    return percentileMillis(runTimes, percentile);
+  }
+
+  private static long percentileMillis(long[] histogram, double percentile) {
+    long total = 0;
+    for (long count : histogram) {
+      total += count;
+    }
+    if (total == 0) {
+      return -1;
+    }
+    long threshold = (long) Math.ceil(total * percentile / 100);
+    long seen = 0;
+    for (int i = 0; i < histogram.length; i++) {
+      seen += histogram[i];
+      if (seen >= threshold) {
+        return 1L << i;
+      }
+    }
+    return 1L << (histogram.length - 1);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        Locale.ROOT,
+        "queued=%d, active=%d, completed=%d, queue p50/p99=%d/%dms, run p50/p99=%d/%dms",
+        queued,
+        active,
+        getCompletedCount(),
+        getQueueTimePercentileMillis(50),
+        getQueueTimePercentileMillis(99),
+        getRunTimePercentileMillis(50),
+        getRunTimePercentileMillis(99));
+  }
+}
@@ -17,11 +17,19 @@ package com.google.idea.blaze.base.async.process;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Arrays;
 
-/** An base output stream which marshals output into newline-delimited segments for processing. */
+/**
+ * An base output stream which marshals output into newline-delimited segments for processing.
+ *
+ * <p>Output is split into lines at the byte level, and each line is decoded once it's complete, so
+ * multi-byte characters written across several calls are decoded correctly. Lines longer than
+ * {@link #MAX_LINE_LENGTH} bytes are passed on in several parts.
+ */
 public final class LineProcessingOutputStream extends OutputStream {
 
   /** A line processor */
@@ -34,7 +42,19 @@ public final class LineProcessingOutputStream extends OutputStream {
     boolean processLine(String line);
   }
 
-  private final StringBuffer stringBuffer = new StringBuffer();
+  /** The maximum number of bytes passed on as a single line. */
+  @VisibleForTesting static final int MAX_LINE_LENGTH = 1 << 20;
+
+  private static final int INITIAL_BUFFER_SIZE = 1024;
+
+  /** The start of the current line, if it was written in earlier calls. Guarded by this. */
+  private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+  private int bufferLength;
+
+  /** Whether the last byte was a '\r', in which case a following '\n' ends no further line. */
+  private boolean afterCarriageReturn;
+
   private volatile boolean closed;
   private final ImmutableList<LineProcessor> lineProcessors;
 
@@ -52,49 +72,94 @@ public final class LineProcessingOutputStream extends OutputStream {
 
   @Override
   public synchronized void write(byte[] b, int off, int len) {
-    if (!closed) {
-      String text = new String(b, off, len, UTF_8);
-      stringBuffer.append(text);
-
-      while (true) {
-        int lineBreakIndex = -1;
-        int lineBreakLength = 0;
-        for (int i = 0; i < stringBuffer.length(); ++i) {
-          char c = stringBuffer.charAt(i);
-          if (c == '\r' || c == '\n') {
-            lineBreakIndex = i;
-            lineBreakLength = 1;
-            if (c == '\r'
-                && (i + 1) < stringBuffer.length()
-                && stringBuffer.charAt(i + 1) == '\n') {
-              ++lineBreakLength;
-            }
-            break;
-          }
-        }
-
-        if (lineBreakIndex == -1) {
-          return;
-        }
-
-        String line = stringBuffer.substring(0, lineBreakIndex);
-
-        stringBuffer.delete(0, lineBreakIndex + lineBreakLength);
-
-        for (LineProcessor lineProcessor : lineProcessors) {
-          if (!lineProcessor.processLine(line)) {
-            break;
-          }
-        }
+    if (closed) {
+      return;
+    }
+    int end = off + len;
+    int lineStart = off;
+    for (int i = off; i < end; i++) {
+      byte c = b[i];
+      if (c != '\n' && c != '\r') {
+        afterCarriageReturn = false;
+        continue;
+      }
+      boolean skip = c == '\n' && afterCarriageReturn && i == lineStart && bufferLength == 0;
+      afterCarriageReturn = c == '\r';
+      if (!skip) {
+        endLine(b, lineStart, i);
       }
+      lineStart = i + 1;
+    }
+    if (lineStart < end) {
+      append(b, lineStart, end);
     }
   }
 
   @Override
-  public void write(int b) throws IOException {
+  public synchronized void write(int b) {
     write(new byte[] {(byte) b}, 0, 1);
   }
 
+  /** Processes the buffered start of a line followed by the given bytes. */
+  private void endLine(byte[] b, int from, int to) {
+    String line;
+    if (bufferLength == 0 && to - from <= MAX_LINE_LENGTH) {
+      // the common case: the whole line was written in one call
+      line = new String(b, from, to - from, UTF_8);
+    } else {
+      append(b, from, to);
+      line = new String(buffer, 0, bufferLength, UTF_8);
+      bufferLength = 0;
+      if (buffer.length > INITIAL_BUFFER_SIZE * 64) {
+        // don't hold on to the buffer of an unusually long line
+        buffer = new byte[INITIAL_BUFFER_SIZE];
+      }
+    }
+    processLine(line);
+  }
+
+  /** Buffers the start of a line, passing on a part of it if it gets too long. */
+  private void append(byte[] b, int from, int to) {
+    int length = to - from;
+    if (bufferLength + length > buffer.length) {
+      buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, bufferLength + length));
+    }
+    System.arraycopy(b, from, buffer, bufferLength, length);
+    bufferLength += length;
+    int start = 0;
+    while (bufferLength - start > MAX_LINE_LENGTH) {
+      int split = characterBoundary(buffer, start, start + MAX_LINE_LENGTH);
+      processLine(new String(buffer, start, split - start, UTF_8));
+      start = split;
+    }
+    if (start > 0) {
+      System.arraycopy(buffer, start, buffer, 0, bufferLength - start);
+      bufferLength -= start;
+    }
+  }
+
+  /**
+   * Returns the last index in {@code (start, index]} which doesn't split a UTF-8 character, or
+   * {@code index} if there is none.
+   */
+  private static int characterBoundary(byte[] bytes, int start, int index) {
+    for (int i = index; i > index - 4 && i > start; i--) {
+      // UTF-8 continuation bytes have the form 10xxxxxx
+      if ((bytes[i] & 0xC0) != 0x80) {
+        return i;
+      }
+    }
+    return index;
+  }
+
+  private void processLine(String line) {
+    for (LineProcessor lineProcessor : lineProcessors) {
+      if (!lineProcessor.processLine(line)) {
+        break;
+      }
+    }
+  }
+
   @Override
   public void close() throws IOException {
     closed = true;
@@ -91,6 +91,24 @@ public interface BuildSystem {
     @MustBeClosed
     InputStream invokeQuery(BlazeCommand.Builder blazeCommandBuilder, BlazeContext blazeContext) throws BuildException;
 
+    /**
+     * Runs a blaze query command, returning its stdout while the command is still running.
+     *
+     * <p>Unlike {@link #invokeQuery}, the output isn't buffered: the stream yields output as soon
+     * as it's emitted, and a slow reader slows down the command. Closing the stream early
+     * discards the rest of the output. If the query fails, reading the end of the stream throws
+     * an {@link java.io.IOException} caused by a {@link BuildException}.
+     *
+     * <p>The default implementation falls back to {@link #invokeQuery}.
+     *
+     * @throws BuildException if the query can't be started
+     */
+    @MustBeClosed
+    default InputStream invokeQueryStreaming(
+        BlazeCommand.Builder blazeCommandBuilder, BlazeContext blazeContext) throws BuildException {
+      return invokeQuery(blazeCommandBuilder, blazeContext);
+    }
+
     /**
      * Runs a blaze info command.
      *
@@ -15,8 +15,10 @@
  */
 package com.google.idea.blaze.base.bazel;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Closer;
+import com.google.errorprone.annotations.MustBeClosed;
 import com.google.idea.blaze.base.async.process.ExternalTask;
 import com.google.idea.blaze.base.async.process.LineProcessingOutputStream;
 import com.google.idea.blaze.base.async.process.PrintOutputLineProcessor;
@@ -38,10 +40,12 @@ import com.google.idea.blaze.base.projectview.ProjectViewManager;
 import com.google.idea.blaze.base.projectview.ProjectViewSet;
 import com.google.idea.blaze.base.projectview.section.sections.BazelBinarySection;
 import com.google.idea.blaze.base.scope.BlazeContext;
+import com.google.idea.blaze.base.scope.OutputSink;
 import com.google.idea.blaze.base.scope.output.IssueOutput;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.google.idea.blaze.base.settings.BlazeUserSettings;
 import com.google.idea.blaze.base.settings.BuildBinaryType;
+import com.google.idea.blaze.common.Output;
 import com.google.idea.blaze.common.PrintOutput;
 import com.google.idea.blaze.exception.BuildException;
 import com.intellij.openapi.application.ApplicationManager;
@@ -51,18 +55,23 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Function;
 import javax.annotation.Nullable;
+import org.jetbrains.ide.PooledThreadExecutor;
 
 /** A local Blaze/Bazel invoker that issues commands via CLI. */
 public class LocalInvoker extends AbstractBuildInvoker {
   private static Logger logger = Logger.getInstance(LocalInvoker.class);
+  private static final int STREAMING_QUERY_BUFFER_SIZE = 1 << 20;
   private final BuildBinaryType buildBinaryType;
 
   public LocalInvoker(
@@ -122,27 +131,12 @@ public class LocalInvoker extends AbstractBuildInvoker {
               String.format("intellij-bazel-%s-", blazeCommand.name()), ".stdout");
       OutputStream out = closer.register(Files.newOutputStream(tempFile));
       WorkspaceRoot workspaceRoot = WorkspaceRoot.fromProject(project);
-      Function<String, String> rootReplacement =
-          WorkspaceRootReplacement.create(workspaceRoot.path(), blazeCommand);
-      boolean isUnitTestMode = ApplicationManager.getApplication().isUnitTestMode();
       int retVal =
           ExternalTask.builder(workspaceRoot)
               .addBlazeCommand(blazeCommand)
               .context(blazeContext)
               .stdout(out)
-              .stderr(
-                  LineProcessingOutputStream.of(
-                      line -> {
-                        line = rootReplacement.apply(line);
-                        // errors are expected, so limit logging to info level
-                        if (isUnitTestMode) {
-                          // This is essential output in bazel-in-bazel tests if they fail.
-                          System.out.println(line.stripTrailing());
-                        }
-                        Logger.getInstance(this.getClass()).info(line.stripTrailing());
-                        blazeContext.output(PrintOutput.output(line.stripTrailing()));
-                        return true;
-                      }))
+              .stderr(queryStderr(workspaceRoot, blazeCommand, blazeContext))
               .ignoreExitCode(true)
               .build()
               .run();
@@ -155,6 +149,120 @@ public class LocalInvoker extends AbstractBuildInvoker {
     }
   }
 
+  @Override
+  @MustBeClosed
+  public InputStream invokeQueryStreaming(
+      BlazeCommand.Builder blazeCommandBuilder, BlazeContext blazeContext) throws BuildException {
+    try {
+      performGuardCheck(project, blazeContext);
+    } catch (ExecutionDeniedException e) {
+      throw new BuildException("Execution denied: " + e.getMessage(), e);
+    }
+
+    BlazeCommand blazeCommand = blazeCommandBuilder.build();
+    WorkspaceRoot workspaceRoot = WorkspaceRoot.fromProject(project);
+    return streamQuery(
+        blazeContext,
+        PooledThreadExecutor.INSTANCE,
+        (queryContext, stdout) -> {
+          int retVal =
+              ExternalTask.builder(workspaceRoot)
+                  .addBlazeCommand(blazeCommand)
+                  .context(queryContext)
+                  .stdout(stdout)
+                  .stderr(queryStderr(workspaceRoot, blazeCommand, blazeContext))
+                  .ignoreExitCode(true)
+                  .build()
+                  .run();
+          BazelExitCodeException.throwIfFailed(
+              blazeCommand, retVal, BazelExitCodeException.ThrowOption.ALLOW_PARTIAL_SUCCESS);
+        });
+  }
+
+  /** Runs a query command, writing its stdout to the given stream. */
+  @VisibleForTesting
+  interface StreamingQuery {
+    void run(BlazeContext queryContext, OutputStream stdout) throws BuildException;
+  }
+
+  /**
+   * Runs the query on the given executor, returning its output as it's produced. Closing the
+   * returned stream early stops the query.
+   *
+   * <p>The query runs in a context of its own, which only forwards its output to the caller's.
+   * Stopping the query interrupts its thread, which {@link ExternalTask} reports by cancelling its
+   * context; cancellation spreads to parent contexts, so in a child context an early close would
+   * cancel the caller's whole operation. Cancelling the caller's context still stops the query.
+   */
+  @VisibleForTesting
+  @MustBeClosed
+  static InputStream streamQuery(
+      BlazeContext blazeContext, ExecutorService executor, StreamingQuery streamingQuery) {
+    QueryOutputPipe pipe = new QueryOutputPipe(STREAMING_QUERY_BUFFER_SIZE);
+    BlazeContext queryContext = BlazeContext.create();
+    forwardOutput(queryContext, PrintOutput.class, blazeContext);
+    forwardOutput(queryContext, IssueOutput.class, blazeContext);
+    Future<?> query =
+        executor.submit(
+            () -> {
+              Throwable failure = null;
+              try {
+                streamingQuery.run(queryContext, pipe.sink());
+              } catch (BuildException | RuntimeException e) {
+                failure = e;
+              } catch (Error e) {
+                failure = e;
+                throw e;
+              } finally {
+                // never leave the consumer blocked
+                pipe.finish(failure);
+                queryContext.close();
+              }
+            });
+    blazeContext.addCancellationHandler(() -> query.cancel(/* mayInterruptIfRunning= */ true));
+    return new FilterInputStream(pipe.source()) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          // the consumer is done early; interrupting the query thread kills the process
+          query.cancel(/* mayInterruptIfRunning= */ true);
+        }
+      }
+    };
+  }
+
+  private static <T extends Output> void forwardOutput(
+      BlazeContext from, Class<T> outputClass, BlazeContext to) {
+    from.addOutputSink(
+        outputClass,
+        output -> {
+          to.output(output);
+          return OutputSink.Propagation.Stop;
+        });
+  }
+
+  /** Logs the query's stderr and prints it to the context, with the workspace root replaced. */
+  private static OutputStream queryStderr(
+      WorkspaceRoot workspaceRoot, BlazeCommand blazeCommand, BlazeContext blazeContext) {
+    Function<String, String> rootReplacement =
+        WorkspaceRootReplacement.create(workspaceRoot.path(), blazeCommand);
+    boolean isUnitTestMode = ApplicationManager.getApplication().isUnitTestMode();
+    return LineProcessingOutputStream.of(
+        line -> {
+          line = rootReplacement.apply(line);
+          // errors are expected, so limit logging to info level
+          if (isUnitTestMode) {
+            // This is essential output in bazel-in-bazel tests if they fail.
+            System.out.println(line.stripTrailing());
+          }
+          logger.info(line.stripTrailing());
+          blazeContext.output(PrintOutput.output(line.stripTrailing()));
+          return true;
+        });
+  }
+
   @Override
   public InputStream invokeInfo(BlazeCommand.Builder blazeCommandBuilder, BlazeContext blazeContext) throws BuildException {
     try {
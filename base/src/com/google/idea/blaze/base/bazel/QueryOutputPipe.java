@@ -0,0 +1,166 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.bazel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import javax.annotation.Nullable;
+
+/**
+ * A bounded in-memory pipe connecting the stdout of a running command to a consumer on another
+ * thread.
+ *
+ * <p>Writes block while the buffer is full, so a slow consumer applies backpressure to the command
+ * rather than the output being buffered in full. If the consumer closes its end early, the rest of
+ * the output is discarded without blocking the command.
+ *
+ * <p>Unlike {@link java.io.PipedInputStream}, the end of the stream is signalled explicitly via
+ * {@link #finish}, so the producer can report a failed command after its output was written.
+ */
+final class QueryOutputPipe {
+
+  private final byte[] buffer;
+  private int readPos;
+  private int size;
+  private boolean finished;
+  private boolean sourceClosed;
+  @Nullable private Throwable failure;
+
+  QueryOutputPipe(int bufferSize) {
+    this.buffer = new byte[bufferSize];
+  }
+
+  /**
+   * The producer side. Closing it has no effect; the producer must call {@link #finish} once it
+   * is done.
+   */
+  OutputStream sink() {
+    return new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        writeBytes(b, off, len);
+      }
+    };
+  }
+
+  /** The consumer side. Reading blocks until data is available or the producer is finished. */
+  InputStream source() {
+    return new InputStream() {
+      @Override
+      public int read() throws IOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n == -1 ? -1 : b[0] & 0xff;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        return readBytes(b, off, len);
+      }
+
+      @Override
+      public int available() {
+        synchronized (QueryOutputPipe.this) {
+          return size;
+        }
+      }
+
+      @Override
+      public void close() {
+        closeSource();
+      }
+    };
+  }
+
+  /**
+   * Marks the end of the output. If {@code failure} is non-null, the consumer gets an {@link
+   * IOException} caused by it once it has read all preceding output.
+   */
+  synchronized void finish(@Nullable Throwable failure) {
+    if (finished) {
+      return;
+    }
+    this.finished = true;
+    this.failure = failure;
+    notifyAll();
+  }
+
+  private synchronized void writeBytes(byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      if (sourceClosed) {
+        // the consumer isn't interested in the remaining output
+        return;
+      }
+      if (size == buffer.length) {
+        awaitChange();
+        continue;
+      }
+      int writePos = (readPos + size) % buffer.length;
+      int chunk = Math.min(len, Math.min(buffer.length - size, buffer.length - writePos));
+      System.arraycopy(b, off, buffer, writePos, chunk);
+      size += chunk;
+      off += chunk;
+      len -= chunk;
+      notifyAll();
+    }
+  }
+
+  private synchronized int readBytes(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    while (size == 0) {
+      if (sourceClosed) {
+        throw new IOException("Stream closed");
+      }
+      if (finished) {
+        if (failure != null) {
+          throw new IOException(failure.getMessage(), failure);
+        }
+        return -1;
+      }
+      awaitChange();
+    }
+    int chunk = Math.min(len, Math.min(size, buffer.length - readPos));
+    System.arraycopy(buffer, readPos, b, off, chunk);
+    readPos = (readPos + chunk) % buffer.length;
+    size -= chunk;
+    notifyAll();
+    return chunk;
+  }
+
+  private synchronized void closeSource() {
+    sourceClosed = true;
+    size = 0;
+    notifyAll();
+  }
+
+  private void awaitChange() throws InterruptedIOException {
+    try {
+      wait();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+  }
+}
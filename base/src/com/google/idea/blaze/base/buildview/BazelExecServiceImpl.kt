@@ -27,6 +27,7 @@ import com.google.idea.blaze.base.command.buildresult.BuildResultHelperBep
 import com.google.idea.blaze.base.command.buildresult.BuildResultParser
 import com.google.idea.blaze.base.execution.BazelGuard
 import com.google.idea.blaze.base.execution.ExecutionDeniedException
+import com.google.idea.blaze.base.logging.EventLoggingService
 import com.google.idea.blaze.base.model.primitives.WorkspaceRoot
 import com.google.idea.blaze.base.projectview.ProjectViewManager
 import com.google.idea.blaze.base.projectview.section.sections.BazelBinarySection
@@ -52,6 +53,7 @@ import java.io.BufferedInputStream
 import java.io.FileInputStream
 import java.io.OutputStream
 import java.nio.file.Files
+import java.time.Duration
 import java.util.*
 import kotlin.io.path.pathString
 import kotlin.time.Duration.Companion.milliseconds
@@ -136,6 +138,7 @@ class BazelExecServiceImpl(private val project: Project, private val scope: Coro
 
     ctx.println("Executing: ${cmdLine.commandLineString}")
 
+    val startTime = System.nanoTime()
     val process = withContext(Dispatchers.IO) {
       cmdLine.createProcess()
     }
@@ -173,6 +176,18 @@ class BazelExecServiceImpl(private val project: Project, private val scope: Coro
       process.destroy()
     }
 
+    EventLoggingService.getInstance().logCommand(
+      BazelExecServiceImpl::class.java,
+      EventLoggingService.Command.builder()
+        .setExecutable(cmdLine.exePath)
+        .setArguments(cmd.toArgumentList())
+        .setSubcommandName(cmd.name().toString())
+        .setWorkingDirectory(root.pathString)
+        .setExitCode(exitCode)
+        .setDuration(Duration.ofNanos(System.nanoTime() - startTime))
+        .build(),
+    )
+
     if (exitCode != 0) {
       ctx.setHasError()
     }
@@ -16,10 +16,12 @@
 package com.google.idea.blaze.base.command.buildresult;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Interner;
 import com.google.idea.blaze.base.command.buildresult.bepparser.BepParser;
 import com.google.idea.blaze.base.command.buildresult.bepparser.BuildEventStreamProvider;
 import com.google.idea.blaze.base.command.buildresult.bepparser.ParsedBepOutput;
+import com.google.idea.blaze.base.logging.EventLoggingService;
 import com.google.idea.blaze.base.run.testlogs.BlazeTestResults;
 import com.google.idea.blaze.base.sync.aspects.BlazeBuildOutputs;
 import java.io.File;
@@ -44,8 +46,16 @@ public final class BuildResultParser {
   public static ParsedBepOutput getBuildOutput(
     BuildEventStreamProvider bepStream, Interner<String> stringInterner)
     throws GetArtifactsException {
+    long startTime = System.nanoTime();
     try {
-      return BepParser.parseBepArtifacts(bepStream, stringInterner);
+      ParsedBepOutput output = BepParser.parseBepArtifacts(bepStream, stringInterner);
+      EventLoggingService.getInstance()
+        .logEvent(
+          BuildResultParser.class,
+          "bep_outputs",
+          ImmutableMap.of("bytes", String.valueOf(output.getBepBytesConsumed())),
+          System.nanoTime() - startTime);
+      return output;
     }
     catch (BuildEventStreamProvider.BuildEventStreamException e) {
       BuildResultHelper.logger.error(e);
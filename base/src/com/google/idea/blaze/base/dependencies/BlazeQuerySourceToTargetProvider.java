@@ -20,11 +20,14 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.io.CharStreams;
 import com.google.common.util.concurrent.Futures;
-import com.google.errorprone.annotations.MustBeClosed;
+import com.google.devtools.build.lib.query2.proto.proto2api.Build.QueryResult;
+import com.google.devtools.build.lib.query2.proto.proto2api.Build.Rule;
+import com.google.devtools.build.lib.query2.proto.proto2api.Build.Target;
 import com.google.idea.blaze.base.buildview.BazelExecService;
-import com.google.idea.blaze.base.buildview.ExecResult;
 import com.google.idea.blaze.base.command.BlazeCommand;
 import com.google.idea.blaze.base.command.BlazeCommandName;
 import com.google.idea.blaze.base.command.BlazeInvocationContext.ContextType;
@@ -33,7 +36,6 @@ import com.google.idea.blaze.base.model.primitives.WorkspacePath;
 import com.google.idea.blaze.base.query.BlazeQueryLabelKindParser;
 import com.google.idea.blaze.base.query.BlazeQueryOutputBaseProvider;
 import com.google.idea.blaze.base.scope.BlazeContext;
-import com.google.idea.blaze.base.scope.Scope;
 import com.google.idea.blaze.base.scope.scopes.IdeaLogScope;
 import com.google.idea.blaze.base.sync.workspace.WorkspaceHelper;
 import com.google.idea.blaze.base.sync.workspace.WorkspacePathResolver;
@@ -45,7 +47,6 @@ import com.intellij.execution.ExecutionException;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import com.intellij.util.ObjectUtils;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -57,17 +58,18 @@ import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Future;
 import javax.annotation.Nullable;
 
 import com.intellij.openapi.util.registry.Registry;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.ide.PooledThreadExecutor;
 
 /**
  * Given a source file, runs a blaze query invocation to find the direct rdeps of that file.
  *
- * <p>This is expected to be slow, so should be asynchronous and/or cancellable.
+ * <p>This is expected to be slow, so should be asynchronous and/or cancellable. Background
+ * requests are batched and cached by {@link SourceToTargetQueryBroker}.
  */
 public class BlazeQuerySourceToTargetProvider implements SourceToTargetProvider {
 
@@ -111,25 +113,7 @@ public class BlazeQuerySourceToTargetProvider implements SourceToTargetProvider
     if (label == null) {
       return Futures.immediateFuture(null);
     }
-    return PooledThreadExecutor.INSTANCE.submit(
-        () ->
-            Scope.root(
-                context -> {
-                  context.push(new IdeaLogScope());
-                  try {
-                    ImmutableList<TargetInfo> targetInfos =
-                        runDirectRdepsQuery(
-                            project, ImmutableList.of(label), context, ContextType.Other);
-                    if (shouldRunRecursiveRdepsQuery(
-                        ImmutableList.of(label), ContextType.Other, targetInfos)) {
-                      return runRecursiveRdepsQuery(
-                          project, ImmutableList.of(label), context, ContextType.Other);
-                    }
-                    return targetInfos;
-                  } catch (BlazeQuerySourceToTargetException ex) {
-                    return null;
-                  }
-                }));
+    return SourceToTargetQueryBroker.getInstance(project).getTargetsBuildingSource(label);
   }
 
   /** Synchronously runs a blaze query to find the direct rdeps of the given source files. */
@@ -183,6 +167,61 @@ public class BlazeQuerySourceToTargetProvider implements SourceToTargetProvider
     return getTargetInfoList(project, context, type, directRdepsQuery);
   }
 
+  /**
+   * Runs a single direct rdeps query for all the given source files, attributing each resulting
+   * target to the sources it takes as inputs.
+   */
+  static ImmutableListMultimap<Label, TargetInfo> runBatchedDirectRdepsQuery(
+      Project project, Collection<Label> sources) throws BlazeQuerySourceToTargetException {
+    if (sources.isEmpty()) {
+      return ImmutableListMultimap.of();
+    }
+    String expr = "\"" + Joiner.on("\"+\"").join(sources) + "\"";
+    String directRdepsQuery = String.format("same_pkg_direct_rdeps(%s)", expr);
+    ImmutableSet<Label> requested = ImmutableSet.copyOf(sources);
+    try (BlazeContext context = BlazeContext.create()) {
+      context.push(new IdeaLogScope());
+      return runQuery(
+          project,
+          context,
+          ContextType.Other,
+          directRdepsQuery,
+          "--output=proto",
+          stdout -> parseRuleInputs(QueryResult.parseFrom(stdout), requested));
+    }
+  }
+
+  private static ImmutableListMultimap<Label, TargetInfo> parseRuleInputs(
+      QueryResult result, Set<Label> sources) {
+    ImmutableListMultimap.Builder<Label, TargetInfo> targets = ImmutableListMultimap.builder();
+    for (Target target : result.getTargetList()) {
+      if (!target.hasRule()) {
+        continue;
+      }
+      Rule rule = target.getRule();
+      Label label = Label.createIfValid(rule.getName());
+      if (label == null) {
+        continue;
+      }
+      TargetInfo info = TargetInfo.builder(label, rule.getRuleClass()).build();
+      for (String input : rule.getRuleInputList()) {
+        Label inputLabel = Label.createIfValid(stripMainRepository(input));
+        if (inputLabel != null && sources.contains(inputLabel)) {
+          targets.put(inputLabel, info);
+        }
+      }
+    }
+    return targets.build();
+  }
+
+  /** Bazel may print main repository labels as '@//pkg:target' or '@@//pkg:target'. */
+  private static String stripMainRepository(String label) {
+    if (label.startsWith("@@//")) {
+      return label.substring(2);
+    }
+    return label.startsWith("@//") ? label.substring(1) : label;
+  }
+
   @Nullable
   private static ImmutableList<TargetInfo> runRecursiveRdepsQuery(
       Project project, Collection<Label> sources, BlazeContext context, ContextType type)
@@ -201,25 +240,44 @@ public class BlazeQuerySourceToTargetProvider implements SourceToTargetProvider
       ContextType type,
       String rdepsQuery
   ) throws BlazeQuerySourceToTargetException {
-    final var queryFile = prepareQueryFile(project, rdepsQuery);
+    return runQuery(
+        project,
+        context,
+        type,
+        rdepsQuery,
+        "--output=label_kind",
+        stdout -> {
+          final var blazeQueryLabelKindParser = new BlazeQueryLabelKindParser(t -> true);
+          blazeQueryLabelKindParser.processOutput(stdout);
+          return blazeQueryLabelKindParser.getTargets();
+        });
+  }
+
+  /** Parses the stdout of a query. */
+  private interface QueryOutputParser<T> {
+    T parse(InputStream stdout) throws IOException;
+  }
+
+  private static <T> T runQuery(
+      Project project,
+      BlazeContext context,
+      ContextType type,
+      String query,
+      String outputFlag,
+      QueryOutputParser<T> parser
+  ) throws BlazeQuerySourceToTargetException {
+    final var queryFile = prepareQueryFile(project, query);
     final var command = getBlazeCommandBuilder(
         /* project = */ project,
         /* type = */ type,
         /* query = */ "--query_file=" + queryFile.toAbsolutePath(),
-        /* additionalBlazeFlags = */ ImmutableList.of("--output=label_kind")
+        /* additionalBlazeFlags = */ ImmutableList.of(outputFlag)
     );
 
     try (final var result = BazelExecService.of(project).exec(context, command)) {
       result.throwOnFailure();
-
-      final var blazeQueryLabelKindParser = new BlazeQueryLabelKindParser(t -> true);
-
-      new BufferedReader(new InputStreamReader(result.getStdout(), UTF_8))
-          .lines()
-          .forEach(blazeQueryLabelKindParser::processLine);
-
-      return blazeQueryLabelKindParser.getTargets();
-    } catch (ExecutionException | BuildException e) {
+      return parser.parse(result.getStdout());
+    } catch (ExecutionException | BuildException | IOException e) {
       throw new BlazeQuerySourceToTargetException("Failed to get target info list", e);
     } finally {
       if (!Registry.is("bazel.sync.keep.query.files")) {
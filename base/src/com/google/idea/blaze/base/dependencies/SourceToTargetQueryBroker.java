@@ -0,0 +1,316 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.dependencies;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.idea.blaze.base.bazel.BuildSystemProvider;
+import com.google.idea.blaze.base.dependencies.BlazeQuerySourceToTargetProvider.BlazeQuerySourceToTargetException;
+import com.google.idea.blaze.base.logging.EventLoggingService;
+import com.google.idea.blaze.base.model.primitives.Label;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
+import com.google.idea.blaze.base.settings.Blaze;
+import com.google.idea.common.experiments.IntExperiment;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileCreateEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jetbrains.ide.PooledThreadExecutor;
+
+/**
+ * Runs the background source-to-target queries of {@link BlazeQuerySourceToTargetProvider}.
+ *
+ * <p>Requests arriving within a short window of each other are coalesced into a single blaze
+ * query, rather than each spawning its own invocation and contending for the blaze server lock.
+ * Results are cached per source file until a BUILD file in the source's package, or any .bzl
+ * file, changes. A new BUILD file also drops the results of the packages enclosing it, since some
+ * of their sources move to the new package.
+ */
+public final class SourceToTargetQueryBroker implements Disposable {
+
+  private static final Logger logger = Logger.getInstance(SourceToTargetQueryBroker.class);
+
+  private static final IntExperiment coalescingWindowMillis =
+      new IntExperiment("blaze.query.source.to.target.coalescing.window.ms", 200);
+
+  /** Upper bound on the number of source files passed to a single query. */
+  @VisibleForTesting static final int MAX_BATCH_SIZE = 200;
+
+  /** Runs a single direct rdeps query for a batch of source files. */
+  @VisibleForTesting
+  interface BatchQueryRunner {
+    /** Returns the targets building each of the given sources. */
+    ImmutableListMultimap<Label, TargetInfo> run(Collection<Label> sources)
+        throws BlazeQuerySourceToTargetException;
+  }
+
+  public static SourceToTargetQueryBroker getInstance(Project project) {
+    return project.getService(SourceToTargetQueryBroker.class);
+  }
+
+  private final BatchQueryRunner runner;
+  private final ScheduledExecutorService scheduler;
+  private final Executor queryExecutor;
+  private final long windowMillis;
+
+  private final Map<Label, ImmutableList<TargetInfo>> cache = new ConcurrentHashMap<>();
+
+  /** Requests waiting for the next batch, guarded by 'this'. */
+  private final Map<Label, SettableFuture<List<TargetInfo>>> pending = new LinkedHashMap<>();
+
+  /** Requests whose batch is currently running. Added to while holding 'this'. */
+  private final Map<Label, SettableFuture<List<TargetInfo>>> running = new ConcurrentHashMap<>();
+
+  private boolean flushScheduled;
+
+  /** Incremented on each cache invalidation, so results of in-flight queries aren't cached. */
+  private final AtomicLong generation = new AtomicLong();
+
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong queries = new AtomicLong();
+
+  SourceToTargetQueryBroker(Project project) {
+    this(
+        sources -> BlazeQuerySourceToTargetProvider.runBatchedDirectRdepsQuery(project, sources),
+        AppExecutorUtil.getAppScheduledExecutorService(),
+        PooledThreadExecutor.INSTANCE,
+        coalescingWindowMillis.getValue());
+    project
+        .getMessageBus()
+        .connect(this)
+        .subscribe(VirtualFileManager.VFS_CHANGES, new BuildFileListener(project));
+  }
+
+  @VisibleForTesting
+  SourceToTargetQueryBroker(
+      BatchQueryRunner runner,
+      ScheduledExecutorService scheduler,
+      Executor queryExecutor,
+      long windowMillis) {
+    this.runner = runner;
+    this.scheduler = scheduler;
+    this.queryExecutor = queryExecutor;
+    this.windowMillis = windowMillis;
+  }
+
+  /**
+   * Returns the targets directly building the given source file. The future resolves to null if
+   * the query fails.
+   */
+  public ListenableFuture<List<TargetInfo>> getTargetsBuildingSource(Label source) {
+    requests.incrementAndGet();
+    ImmutableList<TargetInfo> cached = cache.get(source);
+    if (cached != null) {
+      return Futures.immediateFuture(cached);
+    }
+    synchronized (this) {
+      SettableFuture<List<TargetInfo>> existing = running.get(source);
+      if (existing == null) {
+        existing = pending.get(source);
+      }
+      if (existing != null) {
+        return Futures.nonCancellationPropagating(existing);
+      }
+      SettableFuture<List<TargetInfo>> future = SettableFuture.create();
+      pending.put(source, future);
+      if (pending.size() >= MAX_BATCH_SIZE) {
+        queryExecutor.execute(this::flush);
+      } else if (!flushScheduled) {
+        flushScheduled = true;
+        scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+      }
+      return Futures.nonCancellationPropagating(future);
+    }
+  }
+
+  /** Drops all cached results. */
+  public void invalidateAll() {
+    generation.incrementAndGet();
+    cache.clear();
+  }
+
+  /** Drops the cached results for sources in the given packages. */
+  @VisibleForTesting
+  void invalidatePackages(Collection<WorkspacePath> packages) {
+    if (packages.isEmpty()) {
+      return;
+    }
+    generation.incrementAndGet();
+    cache.keySet().removeIf(label -> packages.contains(label.blazePackage()));
+  }
+
+  /**
+   * Drops the cached results for sources in the packages enclosing the given new packages. Sources
+   * below a new BUILD file used to belong to one of them.
+   */
+  @VisibleForTesting
+  void invalidateEnclosingPackages(Collection<WorkspacePath> newPackages) {
+    if (newPackages.isEmpty()) {
+      return;
+    }
+    generation.incrementAndGet();
+    cache
+        .keySet()
+        .removeIf(
+            label ->
+                newPackages.stream().anyMatch(pkg -> isAncestor(label.blazePackage(), pkg)));
+  }
+
+  private static boolean isAncestor(WorkspacePath ancestor, WorkspacePath path) {
+    return !ancestor.equals(path)
+        && (ancestor.isWorkspaceRoot()
+            || path.relativePath().startsWith(ancestor.relativePath() + "/"));
+  }
+
+  private void flush() {
+    Map<Label, SettableFuture<List<TargetInfo>>> batch;
+    synchronized (this) {
+      flushScheduled = false;
+      if (pending.isEmpty()) {
+        return;
+      }
+      batch = new LinkedHashMap<>(pending);
+      pending.clear();
+      running.putAll(batch);
+    }
+    queryExecutor.execute(() -> runBatch(batch));
+  }
+
+  private void runBatch(Map<Label, SettableFuture<List<TargetInfo>>> batch) {
+    long startGeneration = generation.get();
+    long start = System.nanoTime();
+    ImmutableListMultimap<Label, TargetInfo> results = null;
+    try {
+      results = runner.run(batch.keySet());
+    } catch (BlazeQuerySourceToTargetException e) {
+      logger.warn("Failed to query targets building " + batch.size() + " source file(s)", e);
+    } catch (RuntimeException e) {
+      logger.error(e);
+    } finally {
+      long durationNanos = System.nanoTime() - start;
+      // results are only cached if no relevant file changed while the query was running
+      boolean cacheable = results != null && generation.get() == startGeneration;
+      for (Map.Entry<Label, SettableFuture<List<TargetInfo>>> entry : batch.entrySet()) {
+        ImmutableList<TargetInfo> targets = results != null ? results.get(entry.getKey()) : null;
+        if (cacheable) {
+          cache.put(entry.getKey(), targets);
+        }
+        running.remove(entry.getKey());
+        entry.getValue().set(targets);
+      }
+      logBatch(batch.size(), durationNanos);
+    }
+  }
+
+  private void logBatch(int batchSize, long durationNanos) {
+    long queryCount = queries.incrementAndGet();
+    long requestCount = requests.get();
+    long queriesSaved = Math.max(0, requestCount - queryCount);
+    logger.info(
+        String.format(
+            "Source-to-target query for %d file(s) took %d ms (%d queries saved in total)",
+            batchSize, TimeUnit.NANOSECONDS.toMillis(durationNanos), queriesSaved));
+    EventLoggingService.getInstance()
+        .logEvent(
+            SourceToTargetQueryBroker.class,
+            "SourceToTargetQuery",
+            ImmutableMap.of(
+                "batchSize", Integer.toString(batchSize),
+                "totalRequests", Long.toString(requestCount),
+                "totalQueries", Long.toString(queryCount),
+                "queriesSaved", Long.toString(queriesSaved)),
+            durationNanos);
+  }
+
+  @Override
+  public void dispose() {}
+
+  /** Invalidates cached results when BUILD or .bzl files change. */
+  private class BuildFileListener implements BulkFileListener {
+
+    private final Project project;
+
+    BuildFileListener(Project project) {
+      this.project = project;
+    }
+
+    @Override
+    public void after(List<? extends VFileEvent> events) {
+      if (cache.isEmpty() || !Blaze.isBlazeProject(project)) {
+        return;
+      }
+      BuildSystemProvider buildSystem = Blaze.getBuildSystemProvider(project);
+      WorkspaceRoot workspaceRoot = WorkspaceRoot.fromProjectSafe(project);
+      Set<WorkspacePath> packages = new HashSet<>();
+      Set<WorkspacePath> newPackages = new HashSet<>();
+      for (VFileEvent event : events) {
+        String name = fileName(event);
+        if (name.endsWith(".bzl")) {
+          invalidateAll();
+          return;
+        }
+        if (!buildSystem.isBuildFile(name)) {
+          continue;
+        }
+        VirtualFile file = event.getFile();
+        VirtualFile parent = file != null ? file.getParent() : null;
+        WorkspacePath pkg =
+            parent != null && workspaceRoot != null
+                ? workspaceRoot.workspacePathForSafe(parent)
+                : null;
+        if (pkg == null) {
+          // can't tell which package is affected
+          invalidateAll();
+          return;
+        }
+        packages.add(pkg);
+        if (event instanceof VFileCreateEvent) {
+          newPackages.add(pkg);
+        }
+      }
+      invalidatePackages(new ArrayList<>(packages));
+      invalidateEnclosingPackages(new ArrayList<>(newPackages));
+    }
+
+    private String fileName(VFileEvent event) {
+      String path = event.getPath();
+      return path.substring(path.lastIndexOf('/') + 1);
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.filecache;
+
+import com.google.idea.blaze.common.artifact.ArtifactState;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * An immutable mapping from artifact key to {@link ArtifactState}, kept as two parallel arrays
+ * sorted by key.
+ *
+ * <p>The IDE info state of a large project has hundreds of thousands of entries. Unlike a hash map,
+ * this needs no entry objects, and two tables can be diffed or merged in a single pass over each.
+ */
+public final class ArtifactStateTable {
+
+  public static final ArtifactStateTable EMPTY =
+      new ArtifactStateTable(new String[0], new ArtifactState[0]);
+
+  private final String[] keys;
+  private final ArtifactState[] states;
+
+  private ArtifactStateTable(String[] keys, ArtifactState[] states) {
+    this.keys = keys;
+    this.states = states;
+  }
+
+  /** Wraps arrays which are already sorted by key, without duplicates. The arrays aren't copied. */
+  static ArtifactStateTable ofSorted(String[] keys, ArtifactState[] states) {
+    return keys.length == 0 ? EMPTY : new ArtifactStateTable(keys, states);
+  }
+
+  public static ArtifactStateTable copyOf(Map<String, ? extends ArtifactState> states) {
+    Builder builder = builder(states.size());
+    states.forEach(builder::put);
+    return builder.build();
+  }
+
+  public static Builder builder(int expectedSize) {
+    return new Builder(expectedSize);
+  }
+
+  public int size() {
+    return keys.length;
+  }
+
+  public boolean isEmpty() {
+    return keys.length == 0;
+  }
+
+  @Nullable
+  public ArtifactState get(String key) {
+    int index = Arrays.binarySearch(keys, key);
+    return index >= 0 ? states[index] : null;
+  }
+
+  public boolean containsKey(String key) {
+    return Arrays.binarySearch(keys, key) >= 0;
+  }
+
+  /** The keys, in sorted order. */
+  public List<String> keys() {
+    return Collections.unmodifiableList(Arrays.asList(keys));
+  }
+
+  /** The states, in the order of their keys. */
+  public List<ArtifactState> states() {
+    return Collections.unmodifiableList(Arrays.asList(states));
+  }
+
+  String key(int index) {
+    return keys[index];
+  }
+
+  ArtifactState state(int index) {
+    return states[index];
+  }
+
+  /** Returns the entries whose state passes the given filter. */
+  public ArtifactStateTable filter(Predicate<? super ArtifactState> filter) {
+    int count = 0;
+    boolean[] keep = new boolean[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      keep[i] = filter.test(states[i]);
+      count += keep[i] ? 1 : 0;
+    }
+    if (count == keys.length) {
+      return this;
+    }
+    String[] filteredKeys = new String[count];
+    ArtifactState[] filteredStates = new ArtifactState[count];
+    for (int i = 0, j = 0; i < keys.length; i++) {
+      if (keep[i]) {
+        filteredKeys[j] = keys[i];
+        filteredStates[j++] = states[i];
+      }
+    }
+    return ofSorted(filteredKeys, filteredStates);
+  }
+
+  /**
+   * Returns the union of this table and the given one. Where both have a key, the state of the
+   * given table is kept.
+   */
+  public ArtifactStateTable overriddenBy(ArtifactStateTable other) {
+    if (other.isEmpty()) {
+      return this;
+    }
+    if (isEmpty()) {
+      return other;
+    }
+    String[] mergedKeys = new String[keys.length + other.keys.length];
+    ArtifactState[] mergedStates = new ArtifactState[mergedKeys.length];
+    int i = 0;
+    int j = 0;
+    int n = 0;
+    while (i < keys.length || j < other.keys.length) {
+      int cmp =
+          i == keys.length ? 1 : j == other.keys.length ? -1 : keys[i].compareTo(other.keys[j]);
+      if (cmp < 0) {
+        mergedKeys[n] = keys[i];
+        mergedStates[n++] = states[i++];
+      } else {
+        if (cmp == 0) {
+          i++;
+        }
+        mergedKeys[n] = other.keys[j];
+        mergedStates[n++] = other.states[j++];
+      }
+    }
+    return ofSorted(
+        n == mergedKeys.length ? mergedKeys : Arrays.copyOf(mergedKeys, n),
+        n == mergedStates.length ? mergedStates : Arrays.copyOf(mergedStates, n));
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ArtifactStateTable)) {
+      return false;
+    }
+    ArtifactStateTable that = (ArtifactStateTable) o;
+    return Arrays.equals(keys, that.keys) && Arrays.equals(states, that.states);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(keys);
+  }
+
+  /** Collects entries in any order. Where a key is added more than once, the last state is kept. */
+  public static final class Builder {
+    private final List<String> keys;
+    private final List<ArtifactState> states;
+
+    private Builder(int expectedSize) {
+      keys = new ArrayList<>(expectedSize);
+      states = new ArrayList<>(expectedSize);
+    }
+
+    public Builder put(String key, ArtifactState state) {
+      keys.add(key);
+      states.add(state);
+      return this;
+    }
+
+    public ArtifactStateTable build() {
+      int size = keys.size();
+      if (isStrictlySorted(keys)) {
+        return ofSorted(keys.toArray(new String[0]), states.toArray(new ArtifactState[0]));
+      }
+      Integer[] order = new Integer[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = i;
+      }
+      // the sort is stable, so the last of several equal keys stays last
+      Arrays.sort(order, Comparator.comparing(keys::get));
+      String[] sortedKeys = new String[size];
+      ArtifactState[] sortedStates = new ArtifactState[size];
+      int n = 0;
+      for (int i = 0; i < size; i++) {
+        String key = keys.get(order[i]);
+        if (n > 0 && sortedKeys[n - 1].equals(key)) {
+          n--;
+        }
+        sortedKeys[n] = key;
+        sortedStates[n++] = states.get(order[i]);
+      }
+      return ofSorted(Arrays.copyOf(sortedKeys, n), Arrays.copyOf(sortedStates, n));
+    }
+
+    private static boolean isStrictlySorted(List<String> keys) {
+      for (int i = 1; i < keys.size(); i++) {
+        if (keys.get(i - 1).compareTo(keys.get(i)) >= 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -15,23 +15,19 @@
  */
 package com.google.idea.blaze.base.filecache;
 
-import static com.google.common.collect.ImmutableList.toImmutableList;
-import static com.google.common.collect.ImmutableMap.toImmutableMap;
-
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
 import com.google.idea.blaze.base.command.buildresult.LocalFileArtifact;
 import com.google.idea.blaze.base.io.FileAttributeScanner;
 import com.google.idea.blaze.base.prefetch.FetchExecutor;
 import com.google.idea.blaze.common.artifact.ArtifactState;
 import com.google.idea.blaze.common.artifact.OutputArtifactInfo;
 import com.google.idea.blaze.common.artifact.OutputArtifactWithoutDigest;
+import java.io.File;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.Comparator;
 import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
 
@@ -44,62 +40,87 @@ import javax.annotation.Nullable;
 @AutoValue
 public abstract class ArtifactsDiff {
 
-  public abstract ImmutableMap<String, ArtifactState> getNewState();
+  public abstract ArtifactStateTable getNewState();
 
+  /** The new and changed outputs, sorted by key. */
   public abstract ImmutableList<OutputArtifactWithoutDigest> getUpdatedOutputs();
 
-  public abstract ImmutableSet<ArtifactState> getRemovedOutputs();
+  /** The states of the outputs which are no longer present, sorted by key. */
+  public abstract ImmutableList<ArtifactState> getRemovedOutputs();
 
+  /**
+   * Diffs the given outputs against the previous state. Both sides are sorted by key, so the new
+   * state, the updated outputs and the removed outputs are all found in one merge pass.
+   */
   public static ArtifactsDiff diffArtifacts(
-      @Nullable ImmutableMap<String, ArtifactState> oldState,
+      @Nullable ArtifactStateTable oldState,
       Collection<? extends OutputArtifactWithoutDigest> newArtifacts)
       throws InterruptedException, ExecutionException {
-    return diffArtifacts(
-        oldState,
-        newArtifacts.stream().collect(toImmutableMap(OutputArtifactInfo::getBazelOutRelativePath, a -> a)));
-  }
-
-  public static ArtifactsDiff diffArtifacts(
-      @Nullable ImmutableMap<String, ArtifactState> oldState,
-      ImmutableMap<String, OutputArtifactWithoutDigest> newArtifacts)
-      throws InterruptedException, ExecutionException {
-    ImmutableMap<String, ArtifactState> newState = computeState(newArtifacts.values());
-    // Find new/updated
-    final ImmutableMap<String, ArtifactState> previous =
-        oldState != null ? oldState : ImmutableMap.of();
-    ImmutableList<OutputArtifactWithoutDigest> updated =
-        newState.entrySet().stream()
-            .filter(
-                e -> {
-                  ArtifactState old = previous.get(e.getKey());
-                  return old == null || old.isMoreRecent(e.getValue());
-                })
-            .map(e -> newArtifacts.get(e.getKey()))
-            .collect(toImmutableList());
+    OutputArtifactWithoutDigest[] artifacts =
+        newArtifacts.toArray(new OutputArtifactWithoutDigest[0]);
+    Arrays.sort(artifacts, Comparator.comparing(OutputArtifactInfo::getBazelOutRelativePath));
+    ArtifactState[] states = computeStates(artifacts);
 
-    // Find removed
-    Set<ArtifactState> removed = new HashSet<>(previous.values());
-    newState.forEach((k, v) -> removed.remove(v));
+    // outputs without a state, such as deleted local files, are left out of the new state
+    int size = 0;
+    String[] keys = new String[artifacts.length];
+    for (int i = 0; i < artifacts.length; i++) {
+      if (states[i] == null) {
+        continue;
+      }
+      String key = artifacts[i].getBazelOutRelativePath();
+      if (size > 0 && keys[size - 1].equals(key)) {
+        throw new IllegalArgumentException("Multiple outputs with key " + key);
+      }
+      keys[size] = key;
+      artifacts[size] = artifacts[i];
+      states[size++] = states[i];
+    }
+    ArtifactStateTable newState =
+        ArtifactStateTable.ofSorted(Arrays.copyOf(keys, size), Arrays.copyOf(states, size));
 
-    return new AutoValue_ArtifactsDiff(newState, updated, ImmutableSet.copyOf(removed));
+    ArtifactStateTable previous = oldState != null ? oldState : ArtifactStateTable.EMPTY;
+    ImmutableList.Builder<OutputArtifactWithoutDigest> updated = ImmutableList.builder();
+    ImmutableList.Builder<ArtifactState> removed = ImmutableList.builder();
+    int i = 0;
+    int j = 0;
+    while (i < size || j < previous.size()) {
+      int cmp = i == size ? 1 : j == previous.size() ? -1 : keys[i].compareTo(previous.key(j));
+      if (cmp < 0) {
+        updated.add(artifacts[i++]);
+      } else if (cmp > 0) {
+        removed.add(previous.state(j++));
+      } else {
+        if (previous.state(j).isMoreRecent(states[i])) {
+          updated.add(artifacts[i]);
+        }
+        i++;
+        j++;
+      }
+    }
+    return new AutoValue_ArtifactsDiff(newState, updated.build(), removed.build());
   }
 
-  private static ImmutableMap<String, ArtifactState> computeState(
-      Collection<OutputArtifactWithoutDigest> artifacts)
+  /** Returns the state of each artifact, or null where it has none. */
+  private static ArtifactState[] computeStates(OutputArtifactWithoutDigest[] artifacts)
       throws InterruptedException, ExecutionException {
-    boolean hasLocalFiles = artifacts.stream().anyMatch(a -> a instanceof LocalFileArtifact);
+    ArtifactState[] states = new ArtifactState[artifacts.length];
+    boolean hasLocalFiles =
+        Arrays.stream(artifacts).anyMatch(a -> a instanceof LocalFileArtifact);
     if (!hasLocalFiles) {
-      return artifacts.stream()
-          .collect(
-              toImmutableMap(
-                  OutputArtifactInfo::getBazelOutRelativePath,
-                  OutputArtifactWithoutDigest::toArtifactState));
+      for (int i = 0; i < artifacts.length; i++) {
+        states[i] = artifacts[i].toArtifactState();
+      }
+      return states;
     }
     // for local files, diffing requires checking the timestamps, which we multi-thread
-    return FileAttributeScanner.readAttributes(artifacts, TO_ARTIFACT_STATE, FetchExecutor.EXECUTOR)
-        .entrySet()
-        .stream()
-        .collect(toImmutableMap(e -> e.getKey().getBazelOutRelativePath(), Map.Entry::getValue));
+    ImmutableMap<OutputArtifactWithoutDigest, ArtifactState> read =
+        FileAttributeScanner.readAttributes(
+            Arrays.asList(artifacts), TO_ARTIFACT_STATE, FetchExecutor.EXECUTOR);
+    for (int i = 0; i < artifacts.length; i++) {
+      states[i] = read.get(artifacts[i]);
+    }
+    return states;
   }
 
   private static FileAttributeScanner.AttributeReader<OutputArtifactWithoutDigest, ArtifactState>
@@ -115,5 +136,13 @@ public abstract class ArtifactsDiff {
             public boolean isValid(ArtifactState attribute) {
               return true;
             }
+
+            @Nullable
+            @Override
+            public File getLocalFile(OutputArtifactWithoutDigest file) {
+              return file instanceof LocalFileArtifact
+                  ? ((LocalFileArtifact) file).getFile()
+                  : null;
+            }
           };
 }
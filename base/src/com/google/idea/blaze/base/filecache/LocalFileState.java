@@ -40,6 +40,10 @@ public class LocalFileState implements ArtifactState, SerializableArtifactState
     return blazeOutPath;
   }
 
+  public long getTimestamp() {
+    return timestamp;
+  }
+
   @Override
   public boolean isMoreRecent(ArtifactState output) {
     return !(output instanceof LocalFileState) || timestamp < ((LocalFileState) output).timestamp;
@@ -31,7 +31,12 @@ import java.util.Collection;
 import java.util.Objects;
 import javax.annotation.Nullable;
 
-/** Simple implementation of TargetIdeInfo. */
+/**
+ * Simple implementation of TargetIdeInfo.
+ *
+ * <p>Dependencies and tags are interned both element-wise and as whole lists, so targets with the
+ * same tags or dependencies share a single list instance.
+ */
 public final class TargetIdeInfo implements ProtoWrapper<IntellijIdeInfo.TargetIdeInfo> {
   private final TargetKey key;
   private final Kind kind;
@@ -431,7 +436,7 @@ public final class TargetIdeInfo implements ProtoWrapper<IntellijIdeInfo.TargetI
           kind,
           buildFile,
           dependencies.build(),
-          tags.build(),
+          ProtoWrapper.internStrings(tags.build()),
           sources.build(),
           cIdeInfo,
           cToolchainIdeInfo,
@@ -24,11 +24,17 @@ import com.intellij.openapi.application.ApplicationManager;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.CopyOption;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileAttribute;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiPredicate;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
@@ -69,6 +75,59 @@ public class FileOperationProvider {
     return file.listFiles();
   }
 
+  /**
+   * Lists the subdirectories of a directory in a single walk of depth one, taking each entry's type
+   * from the attributes read by the walk rather than checking each entry separately. Returns null
+   * if the directory can't be read.
+   */
+  @Nullable
+  public List<File> listSubdirectories(File file) {
+    Path directory = file.toPath();
+    List<File> result = new ArrayList<>();
+    AtomicBoolean listed = new AtomicBoolean();
+    try {
+      Files.walkFileTree(
+          directory,
+          EnumSet.of(FileVisitOption.FOLLOW_LINKS),
+          /* maxDepth= */ 1,
+          new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+              listed.set(true);
+              return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path child, BasicFileAttributes attrs) {
+              if (attrs.isDirectory() && !child.equals(directory)) {
+                result.add(child.toFile());
+              }
+              return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path child, IOException e) throws IOException {
+              if (child.equals(directory)) {
+                throw e;
+              }
+              return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, @Nullable IOException e)
+                throws IOException {
+              if (e != null) {
+                throw e;
+              }
+              return FileVisitResult.CONTINUE;
+            }
+          });
+    } catch (IOException e) {
+      return null;
+    }
+    return listed.get() ? result : null;
+  }
+
   public void createSymbolicLink(File link, File target) throws IOException {
     Files.createSymbolicLink(link.toPath(), target.toPath());
   }
@@ -29,7 +29,8 @@ public final class VfsUtils {
   /**
    * Attempts to resolve the given file path to a {@link VirtualFile}.
    *
-   * <p>WARNING: Refreshing files on the EDT may freeze the IDE.
+   * <p>WARNING: Refreshing files on the EDT may freeze the IDE. To resolve many files, use {@link
+   * VirtualFileBatchResolver}, which refreshes them asynchronously in a single batch.
    *
    * @param refreshIfNeeded whether to refresh the file in the VFS, if it is not already cached.
    *     Will only refresh if called on the EDT.
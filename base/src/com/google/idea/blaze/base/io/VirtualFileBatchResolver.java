@@ -0,0 +1,240 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.io;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.newvfs.RefreshQueue;
+import java.io.File;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Resolves many files to {@link VirtualFile}s at once.
+ *
+ * <p>Files already known to the VFS are resolved right away. The remaining files are grouped by
+ * their nearest directory known to the VFS, and all those directories are refreshed with a single
+ * asynchronous, non-recursive refresh, instead of one synchronous refresh per file as {@link
+ * VfsUtils#resolveVirtualFile} does. Safe to call from any thread.
+ */
+public final class VirtualFileBatchResolver {
+
+  private static final Logger logger = Logger.getInstance(VirtualFileBatchResolver.class);
+
+  /** Refreshes directories in the VFS, calling back once all of them are refreshed. */
+  @VisibleForTesting
+  interface Refresher {
+    void refresh(List<VirtualFile> directories, Runnable onFinish);
+  }
+
+  private static final VirtualFileBatchResolver INSTANCE =
+      new VirtualFileBatchResolver(
+          () -> VirtualFileSystemProvider.getInstance().getSystem(),
+          (directories, onFinish) ->
+              RefreshQueue.getInstance()
+                  .refresh(/* async= */ true, /* recursive= */ false, onFinish, directories));
+
+  public static VirtualFileBatchResolver getInstance() {
+    return INSTANCE;
+  }
+
+  private final Supplier<LocalFileSystem> fileSystem;
+  private final Refresher refresher;
+
+  private final AtomicLong cachedHits = new AtomicLong();
+  private final AtomicLong lookups = new AtomicLong();
+  private final AtomicLong refreshedDirectories = new AtomicLong();
+  private final AtomicLong resolvedAfterRefresh = new AtomicLong();
+  private final AtomicLong unresolved = new AtomicLong();
+
+  @VisibleForTesting
+  VirtualFileBatchResolver(Supplier<LocalFileSystem> fileSystem, Refresher refresher) {
+    this.fileSystem = fileSystem;
+    this.refresher = refresher;
+  }
+
+  /** The outcome of resolving a batch of files. */
+  public static final class ResolvedFiles {
+    private final ImmutableMap<File, VirtualFile> resolved;
+    private final ListenableFuture<ImmutableMap<File, VirtualFile>> refreshed;
+
+    private ResolvedFiles(
+        ImmutableMap<File, VirtualFile> resolved,
+        ListenableFuture<ImmutableMap<File, VirtualFile>> refreshed) {
+      this.resolved = resolved;
+      this.refreshed = refreshed;
+    }
+
+    /** Files that were resolved without a refresh. */
+    public ImmutableMap<File, VirtualFile> getResolved() {
+      return resolved;
+    }
+
+    /**
+     * Files that were only found after refreshing their directories. Completes immediately if no
+     * refresh was necessary or requested. Files that don't exist are missing from both maps.
+     */
+    public ListenableFuture<ImmutableMap<File, VirtualFile>> getRefreshed() {
+      return refreshed;
+    }
+
+    /** All resolved files, once the refresh (if any) finished. */
+    public ListenableFuture<ImmutableMap<File, VirtualFile>> getAll() {
+      return Futures.transform(
+          refreshed,
+          files ->
+              ImmutableMap.<File, VirtualFile>builder().putAll(resolved).putAll(files).build(),
+          MoreExecutors.directExecutor());
+    }
+  }
+
+  /**
+   * Resolves the given files to {@link VirtualFile}s.
+   *
+   * @param refreshIfNeeded whether to asynchronously refresh the directories of files not yet
+   *     known to the VFS. If false, such files are not resolved.
+   */
+  public ResolvedFiles resolve(Collection<File> files, boolean refreshIfNeeded) {
+    LocalFileSystem fs = fileSystem.get();
+    Map<File, VirtualFile> resolved = new LinkedHashMap<>();
+    Set<File> missing = new LinkedHashSet<>();
+    int cached = 0;
+    for (File file : files) {
+      VirtualFile vf = fs.findFileByPathIfCached(file.getPath());
+      if (vf != null) {
+        cached++;
+        resolved.put(file, vf);
+        continue;
+      }
+      vf = fs.findFileByIoFile(file);
+      if (vf != null && vf.isValid()) {
+        resolved.put(file, vf);
+      } else {
+        missing.add(file);
+      }
+    }
+    cachedHits.addAndGet(cached);
+    lookups.addAndGet(files.size() - cached);
+
+    if (missing.isEmpty() || !refreshIfNeeded) {
+      unresolved.addAndGet(missing.size());
+      return new ResolvedFiles(
+          ImmutableMap.copyOf(resolved), Futures.immediateFuture(ImmutableMap.of()));
+    }
+
+    Set<VirtualFile> directories = new LinkedHashSet<>();
+    for (File file : missing) {
+      VirtualFile directory = findNearestDirectory(fs, file.getParentFile());
+      if (directory != null) {
+        directories.add(directory);
+      }
+    }
+    if (directories.isEmpty()) {
+      unresolved.addAndGet(missing.size());
+      return new ResolvedFiles(
+          ImmutableMap.copyOf(resolved), Futures.immediateFuture(ImmutableMap.of()));
+    }
+    refreshedDirectories.addAndGet(directories.size());
+
+    SettableFuture<ImmutableMap<File, VirtualFile>> refreshed = SettableFuture.create();
+    refresher.refresh(
+        ImmutableList.copyOf(directories),
+        () -> {
+          try {
+            refreshed.set(resolveAfterRefresh(fs, missing));
+          } catch (RuntimeException e) {
+            refreshed.setException(e);
+          }
+        });
+    logger.debug(
+        String.format(
+            "Resolving %d files: %d cached, %d refreshing in %d directories",
+            files.size(), resolved.size(), missing.size(), directories.size()));
+    return new ResolvedFiles(ImmutableMap.copyOf(resolved), refreshed);
+  }
+
+  private ImmutableMap<File, VirtualFile> resolveAfterRefresh(
+      LocalFileSystem fs, Collection<File> files) {
+    ImmutableMap.Builder<File, VirtualFile> result = ImmutableMap.builder();
+    int found = 0;
+    for (File file : files) {
+      VirtualFile vf = fs.findFileByIoFile(file);
+      if (vf != null && vf.isValid()) {
+        result.put(file, vf);
+        found++;
+      }
+    }
+    resolvedAfterRefresh.addAndGet(found);
+    unresolved.addAndGet(files.size() - found);
+    return result.buildOrThrow();
+  }
+
+  /**
+   * The closest ancestor known to the VFS. Refreshing it non-recursively makes the next path
+   * element visible, and anything below a newly found directory is looked up on disk.
+   */
+  @Nullable
+  private static VirtualFile findNearestDirectory(LocalFileSystem fs, @Nullable File directory) {
+    for (File dir = directory; dir != null; dir = dir.getParentFile()) {
+      VirtualFile vf = fs.findFileByIoFile(dir);
+      if (vf != null && vf.isValid()) {
+        return vf;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Counters of how files were resolved since startup. Logged once the external libraries of a
+   * sync have been resolved, see {@link
+   * com.google.idea.blaze.base.sync.libraries.ExternalLibraryManager}.
+   */
+  public String getStatistics() {
+    return String.format(
+        "cached: %d, looked up: %d, refreshed directories: %d, resolved after refresh: %d,"
+            + " unresolved: %d",
+        cachedHits.get(),
+        lookups.get(),
+        refreshedDirectories.get(),
+        resolvedAfterRefresh.get(),
+        unresolved.get());
+  }
+
+  @VisibleForTesting
+  long getCachedHits() {
+    return cachedHits.get();
+  }
+
+  @VisibleForTesting
+  long getResolvedAfterRefresh() {
+    return resolvedAfterRefresh.get();
+  }
+}
@@ -36,7 +36,7 @@ public interface EventLoggingService {
   static EventLoggingService getInstance() {
     EventLoggingService service =
         ApplicationManager.getApplication().getService(EventLoggingService.class);
-    return service != null ? service : new NoopEventLoggingService();
+    return service != null ? service : ForwardingEventLoggingService.INSTANCE;
   }
 
   void log(SyncStats syncStats);
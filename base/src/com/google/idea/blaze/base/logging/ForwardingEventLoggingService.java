@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.logging;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.logging.utils.BuildPhaseSyncStats;
+import com.google.idea.blaze.base.logging.utils.HighlightStats;
+import com.google.idea.blaze.base.logging.utils.SyncStats;
+import com.google.idea.blaze.base.scope.scopes.TimingScopeListener.TimedEvent;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * An {@link EventLoggingService} which passes everything on to the {@link EventLogger}s, turning
+ * the structured stats into events. Used in case there isn't another service registered.
+ */
+public final class ForwardingEventLoggingService implements EventLoggingService {
+
+  static final ForwardingEventLoggingService INSTANCE = new ForwardingEventLoggingService();
+
+  @Override
+  public void log(SyncStats syncStats) {
+    String mode = syncStats.syncMode().name();
+    forward(
+        SyncStats.class,
+        "sync",
+        ImmutableMap.of(
+            "mode", mode,
+            "result", syncStats.syncResult().name(),
+            "targets", String.valueOf(syncStats.targetMapSize()),
+            "libraries", String.valueOf(syncStats.libraryCount())),
+        syncStats.totalClockTime().toNanos());
+    for (TimedEvent event : syncStats.timedEvents()) {
+      if (event.isLeafEvent) {
+        forward(
+            SyncStats.class,
+            "sync_phase",
+            ImmutableMap.of("mode", mode, "phase", event.name, "type", event.type.name()),
+            event.duration.toNanos());
+      }
+    }
+    for (BuildPhaseSyncStats buildPhase : syncStats.buildPhaseStats()) {
+      forward(
+          SyncStats.class,
+          "sync_build",
+          ImmutableMap.of(
+              "mode", mode,
+              "result", buildPhase.buildResult().status.name(),
+              "shards", String.valueOf(buildPhase.shardCount())),
+          buildPhase.totalTime().toNanos());
+    }
+    syncStats
+        .networkUsage()
+        .forEach(
+            (reason, bytes) ->
+                forward(
+                    SyncStats.class,
+                    "sync_network",
+                    ImmutableMap.of("reason", reason, "bytes", String.valueOf(bytes)),
+                    null));
+  }
+
+  @Override
+  public void logCommand(Class<?> loggingClass, Command command) {
+    forward(
+        loggingClass,
+        "command",
+        ImmutableMap.of(
+            "command", command.subcommandName().orElse(""),
+            "exit_code", String.valueOf(command.exitCode())),
+        command.duration().toNanos());
+  }
+
+  @Override
+  public void logEvent(
+      Class<?> loggingClass,
+      String eventType,
+      Map<String, String> keyValues,
+      @Nullable Long durationInNanos) {
+    forward(loggingClass, eventType, keyValues, durationInNanos);
+  }
+
+  @Override
+  public void logHighlightStats(HighlightStats highlightStats) {
+    forward(
+        HighlightStats.class,
+        "highlights",
+        ImmutableMap.of(
+            "group", highlightStats.group().name(),
+            "files", String.valueOf(highlightStats.fileHighlights().size())),
+        null);
+  }
+
+  private static void forward(
+      Class<?> loggingClass,
+      String eventType,
+      Map<String, String> keyValues,
+      @Nullable Long durationInNanos) {
+    for (EventLogger logger : EventLogger.EP_NAME.getExtensionsIfPointIsRegistered()) {
+      logger.log(loggingClass, eventType, keyValues, durationInNanos);
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.logging.metrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of durations, with buckets laid out like HdrHistogram's: each power of
+ * two of microseconds is split into {@link #SUB_BUCKETS} equal buckets, so any duration from a
+ * microsecond to days is kept with a relative error below 25%, in a fixed amount of memory.
+ */
+final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 2;
+  @VisibleForTesting static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /** Durations of {@code 2^MAX_EXPONENT} microseconds (about 12 days) or more share a bucket. */
+  private static final int MAX_EXPONENT = 40;
+
+  @VisibleForTesting static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder sumMicros = new LongAdder();
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  void record(long nanos) {
+    long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos));
+    counts.incrementAndGet(bucket(micros));
+    sumMicros.add(micros);
+    maxMicros.accumulateAndGet(micros, Math::max);
+  }
+
+  Snapshot snapshot() {
+    long[] snapshot = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+    }
+    return new Snapshot(snapshot, sumMicros.sum(), maxMicros.get());
+  }
+
+  @VisibleForTesting
+  static int bucket(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return Math.min((exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket, BUCKETS - 1);
+  }
+
+  /** The smallest duration in microseconds counted in the given bucket. */
+  @VisibleForTesting
+  static long lowerBoundMicros(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long subBucket = bucket % SUB_BUCKETS;
+    return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+  }
+
+  /** An immutable copy of the state of a {@link LatencyHistogram}. */
+  static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sumMicros;
+    private final long maxMicros;
+
+    private Snapshot(long[] counts, long sumMicros, long maxMicros) {
+      this.counts = counts;
+      long total = 0;
+      for (long bucketCount : counts) {
+        total += bucketCount;
+      }
+      this.count = total;
+      this.sumMicros = sumMicros;
+      this.maxMicros = maxMicros;
+    }
+
+    long getCount() {
+      return count;
+    }
+
+    long getSumMicros() {
+      return sumMicros;
+    }
+
+    long getMaxMicros() {
+      return maxMicros;
+    }
+
+    /**
+     * An upper bound of the given percentile of the recorded durations, in microseconds, or 0 if
+     * nothing was recorded.
+     */
+    long getPercentileMicros(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long threshold = Math.max(1, (long) Math.ceil(count * percentile / 100));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= threshold) {
+          return i + 1 < counts.length
+              ? Math.min(lowerBoundMicros(i + 1) - 1, maxMicros)
+              : maxMicros;
+        }
+      }
+      return maxMicros;
+    }
+
+    /**
+     * The number of recorded durations below the given power of two of microseconds. Powers of two
+     * are bucket boundaries, so the count is exact.
+     */
+    long getCountBelow(int powerOfTwo) {
+      long limit = 1L << powerOfTwo;
+      long result = 0;
+      for (int i = 0; i < counts.length && lowerBoundMicros(i) < limit; i++) {
+        result += counts[i];
+      }
+      return result;
+    }
+  }
+}
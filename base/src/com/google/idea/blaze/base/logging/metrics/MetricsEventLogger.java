@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.logging.metrics;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Longs;
+import com.google.idea.blaze.base.logging.EventLogger;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Aggregates logged events into the {@link MetricsRegistry}.
+ *
+ * <p>Each event increments {@link #EVENTS}, and its duration, if any, goes into the {@link
+ * #DURATION} histogram. Key values with a numeric value are added to the {@link #VALUES} counter
+ * and set as the {@link #LAST_VALUE} gauge, labelled with their key. All other key values, and
+ * numeric ones which identify rather than measure, such as exit codes, become labels of these
+ * series.
+ */
+public final class MetricsEventLogger implements EventLogger {
+
+  @VisibleForTesting static final String EVENTS = "blaze_events";
+  @VisibleForTesting static final String DURATION = "blaze_event_duration_seconds";
+  @VisibleForTesting static final String VALUES = "blaze_event_value";
+  @VisibleForTesting static final String LAST_VALUE = "blaze_event_last_value";
+
+  /** Keys whose numeric values are identifiers, which are meaningless when summed. */
+  private static final ImmutableSet<String> IDENTIFIER_KEYS =
+      ImmutableSet.of("exit_code", "shards");
+
+  private final MetricsRegistry registry;
+
+  public MetricsEventLogger() {
+    this(MetricsRegistry.getInstance());
+  }
+
+  @VisibleForTesting
+  MetricsEventLogger(MetricsRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void log(
+      Class<?> loggingClass,
+      String eventType,
+      Map<String, String> keyValues,
+      @Nullable Long durationInNanos) {
+    ImmutableMap.Builder<String, String> labels = ImmutableMap.builder();
+    labels.put("event", eventType);
+    ImmutableMap.Builder<String, Long> values = ImmutableMap.builder();
+    keyValues.forEach(
+        (key, value) -> {
+          Long number =
+              value != null && !IDENTIFIER_KEYS.contains(key) ? Longs.tryParse(value) : null;
+          if (number != null) {
+            values.put(key, number);
+          } else if (!key.equals("event") && value != null) {
+            labels.put(key, value);
+          }
+        });
+    ImmutableMap<String, String> eventLabels = labels.buildKeepingLast();
+    registry.increment(EVENTS, eventLabels, 1);
+    if (durationInNanos != null) {
+      registry.recordDuration(DURATION, eventLabels, durationInNanos);
+    }
+    values
+        .buildKeepingLast()
+        .forEach(
+            (key, value) -> {
+              ImmutableMap<String, String> valueLabels =
+                  ImmutableMap.<String, String>builder()
+                      .putAll(eventLabels)
+                      .put("key", key)
+                      .buildKeepingLast();
+              registry.increment(VALUES, valueLabels, value);
+              registry.setGauge(LAST_VALUE, valueLabels, value);
+            });
+  }
+
+  @Override
+  public void logSerializedProto(byte[] serializedIntellijLogEntry) {}
+}
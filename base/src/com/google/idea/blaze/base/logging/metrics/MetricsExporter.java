@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.logging.metrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.logging.metrics.MetricsRegistry.Sample;
+import com.google.idea.common.experiments.EnumExperiment;
+import com.google.idea.common.experiments.IntExperiment;
+import com.google.idea.common.experiments.StringExperiment;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Periodically writes the {@link MetricsRegistry} to a local file, so that the metrics of a fleet
+ * of workstations can be collected by a file scraper.
+ *
+ * <p>By default the metrics are written in the OpenMetrics format to {@code blaze-metrics.prom} in
+ * the IDE log directory, once a minute. The file is replaced atomically, so a scraper never sees
+ * a partially written file.
+ */
+public final class MetricsExporter implements Disposable {
+
+  private static final Logger logger = Logger.getInstance(MetricsExporter.class);
+
+  /** The file to write to. Defaults to a file in the IDE log directory. */
+  private static final StringExperiment exportFile =
+      new StringExperiment("blaze.metrics.export.file");
+
+  private static final EnumExperiment<MetricsFormat> exportFormat =
+      new EnumExperiment<>("blaze.metrics.export.format", MetricsFormat.OPENMETRICS);
+
+  /** The time between writes. Zero or less turns exporting off. */
+  private static final IntExperiment exportIntervalSeconds =
+      new IntExperiment("blaze.metrics.export.interval.seconds", 60);
+
+  @Nullable private ScheduledFuture<?> task;
+
+  public static MetricsExporter getInstance() {
+    return ApplicationManager.getApplication().getService(MetricsExporter.class);
+  }
+
+  /** Starts writing the metrics periodically, unless already started or turned off. */
+  synchronized void start() {
+    int interval = exportIntervalSeconds.getValue();
+    if (task != null || interval <= 0) {
+      return;
+    }
+    task =
+        AppExecutorUtil.getAppScheduledExecutorService()
+            .scheduleWithFixedDelay(this::exportSafely, interval, interval, TimeUnit.SECONDS);
+  }
+
+  private void exportSafely() {
+    try {
+      export();
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to export metrics", e);
+    }
+  }
+
+  /** Writes the current metrics, returning the file written. */
+  public synchronized Path export() throws IOException {
+    MetricsFormat format = exportFormat.getValue();
+    Path file = getFile(format).toAbsolutePath();
+    ImmutableList<Sample> samples = MetricsRegistry.getInstance().snapshot();
+    Files.createDirectories(file.getParent());
+    Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+    try {
+      try (Writer writer = Files.newBufferedWriter(temp, UTF_8)) {
+        format.write(samples, writer);
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    return file;
+  }
+
+  /** The file the metrics are written to in the given format. */
+  public static Path getFile(MetricsFormat format) {
+    String file = exportFile.getValue();
+    return Strings.isNullOrEmpty(file)
+        ? Paths.get(PathManager.getLogPath(), "blaze-metrics." + format.getExtension())
+        : Paths.get(file);
+  }
+
+  /** The format metrics are written in. */
+  public static MetricsFormat getFormat() {
+    return exportFormat.getValue();
+  }
+
+  @Override
+  public synchronized void dispose() {
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+    }
+  }
+
+  /** Starts exporting metrics once a project is opened. */
+  public static final class Starter implements StartupActivity.DumbAware {
+    @Override
+    public void runActivity(Project project) {
+      getInstance().start();
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.logging.metrics;
+
+import com.google.gson.stream.JsonWriter;
+import com.google.idea.blaze.base.logging.metrics.MetricsRegistry.Sample;
+import com.google.idea.blaze.base.logging.metrics.MetricsRegistry.Type;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/** The file formats {@link MetricsExporter} can write. */
+public enum MetricsFormat {
+  /**
+   * The OpenMetrics text format, as scraped by Prometheus. Histograms are exported in seconds, with
+   * bucket bounds at powers of four microseconds from about a millisecond to about an hour.
+   */
+  OPENMETRICS("prom") {
+    @Override
+    void write(List<Sample> samples, Writer out) throws IOException {
+      String family = null;
+      for (Sample sample : samples) {
+        String name = sanitizeName(sample.getName());
+        if (!name.equals(family)) {
+          family = name;
+          out.write(
+              String.format(
+                  "# TYPE %s %s\n", name, sample.getType().name().toLowerCase(Locale.ROOT)));
+        }
+        switch (sample.getType()) {
+          case COUNTER:
+            writeSample(out, name + "_total", sample.getLabels(), null, sample.getValue());
+            break;
+          case GAUGE:
+            writeSample(out, name, sample.getLabels(), null, sample.getValue());
+            break;
+          case HISTOGRAM:
+            writeHistogram(out, name, sample);
+            break;
+        }
+      }
+      out.write("# EOF\n");
+    }
+
+    private void writeHistogram(Writer out, String name, Sample sample) throws IOException {
+      LatencyHistogram.Snapshot histogram = sample.getHistogram();
+      for (int power = FIRST_BUCKET_POWER; power <= LAST_BUCKET_POWER; power += 2) {
+        String bound = BigDecimal.valueOf(1L << power, 6).stripTrailingZeros().toPlainString();
+        writeSample(
+            out, name + "_bucket", sample.getLabels(), bound, histogram.getCountBelow(power));
+      }
+      writeSample(out, name + "_bucket", sample.getLabels(), "+Inf", histogram.getCount());
+      writeSample(out, name + "_count", sample.getLabels(), null, histogram.getCount());
+      out.write(name + "_sum" + labels(sample.getLabels(), null) + " ");
+      out.write(BigDecimal.valueOf(histogram.getSumMicros(), 6).toPlainString());
+      out.write('\n');
+    }
+
+    private void writeSample(
+        Writer out, String name, Map<String, String> labels, @Nullable String bound, long value)
+        throws IOException {
+      out.write(name + labels(labels, bound) + " " + value + "\n");
+    }
+
+    private String labels(Map<String, String> labels, @Nullable String bound) {
+      if (labels.isEmpty() && bound == null) {
+        return "";
+      }
+      StringBuilder result = new StringBuilder("{");
+      labels.forEach(
+          (key, value) ->
+              result
+                  .append(result.length() > 1 ? "," : "")
+                  .append(sanitizeName(key))
+                  .append("=\"")
+                  .append(escape(value))
+                  .append('"'));
+      if (bound != null) {
+        result.append(result.length() > 1 ? "," : "").append("le=\"").append(bound).append('"');
+      }
+      return result.append('}').toString();
+    }
+  },
+
+  /**
+   * A JSON object with a list of metrics, each with its name, type, labels and value. Histograms
+   * have their count, sum, maximum and percentiles in milliseconds instead of a value.
+   */
+  JSON("json") {
+    @Override
+    void write(List<Sample> samples, Writer out) throws IOException {
+      JsonWriter json = new JsonWriter(out);
+      json.setIndent(" ");
+      json.beginObject();
+      json.name("timestamp").value(System.currentTimeMillis());
+      json.name("metrics").beginArray();
+      for (Sample sample : samples) {
+        json.beginObject();
+        json.name("name").value(sample.getName());
+        json.name("type").value(sample.getType().name().toLowerCase(Locale.ROOT));
+        json.name("labels").beginObject();
+        for (Map.Entry<String, String> label : sample.getLabels().entrySet()) {
+          json.name(label.getKey()).value(label.getValue());
+        }
+        json.endObject();
+        if (sample.getType() == Type.HISTOGRAM) {
+          LatencyHistogram.Snapshot histogram = sample.getHistogram();
+          json.name("count").value(histogram.getCount());
+          json.name("sumMillis").value(histogram.getSumMicros() / 1000.0);
+          json.name("maxMillis").value(histogram.getMaxMicros() / 1000.0);
+          json.name("p50Millis").value(sample.getPercentileMillis(50));
+          json.name("p90Millis").value(sample.getPercentileMillis(90));
+          json.name("p99Millis").value(sample.getPercentileMillis(99));
+        } else {
+          json.name("value").value(sample.getValue());
+        }
+        json.endObject();
+      }
+      json.endArray();
+      json.endObject();
+      json.flush();
+    }
+  };
+
+  /** The first and last histogram bucket bounds, as powers of two microseconds. */
+  private static final int FIRST_BUCKET_POWER = 10;
+
+  private static final int LAST_BUCKET_POWER = 32;
+
+  private final String extension;
+
+  MetricsFormat(String extension) {
+    this.extension = extension;
+  }
+
+  /** The usual file extension of this format. */
+  public String getExtension() {
+    return extension;
+  }
+
+  abstract void write(List<Sample> samples, Writer out) throws IOException;
+
+  private static String sanitizeName(String name) {
+    String sanitized = name.replaceAll("[^a-zA-Z0-9_]", "_");
+    return sanitized.isEmpty() || Character.isDigit(sanitized.charAt(0))
+        ? "_" + sanitized
+        : sanitized;
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.logging.metrics;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.intellij.openapi.application.ApplicationManager;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+/**
+ * The counters, gauges and latency histograms of this IDE session, as reported by {@link
+ * MetricsEventLogger}.
+ *
+ * <p>Each metric has a name and any number of time series, told apart by their labels. The number
+ * of series per metric is capped, so that a label with unbounded values (a path, say) can't grow
+ * the registry indefinitely: once the cap is reached, new label combinations are recorded in a
+ * single overflow series.
+ */
+public final class MetricsRegistry {
+
+  /** The kinds of metrics, as in OpenMetrics. */
+  public enum Type {
+    COUNTER,
+    GAUGE,
+    HISTOGRAM
+  }
+
+  @VisibleForTesting static final int MAX_SERIES_PER_METRIC = 200;
+
+  private static final ImmutableSortedMap<String, String> OVERFLOW_LABELS =
+      ImmutableSortedMap.of("overflow", "true");
+
+  private final ConcurrentMap<SeriesKey, LongAdder> counters = new ConcurrentHashMap<>();
+  private final ConcurrentMap<SeriesKey, AtomicLong> gauges = new ConcurrentHashMap<>();
+  private final ConcurrentMap<SeriesKey, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AtomicInteger> seriesCounts = new ConcurrentHashMap<>();
+
+  public static MetricsRegistry getInstance() {
+    return ApplicationManager.getApplication().getService(MetricsRegistry.class);
+  }
+
+  /** Adds to a counter. */
+  public void increment(String name, Map<String, String> labels, long delta) {
+    get(counters, name, labels, key -> new LongAdder()).add(delta);
+  }
+
+  /** Sets a gauge to its latest value. */
+  public void setGauge(String name, Map<String, String> labels, long value) {
+    get(gauges, name, labels, key -> new AtomicLong()).set(value);
+  }
+
+  /** Records a duration in a latency histogram. */
+  public void recordDuration(String name, Map<String, String> labels, long nanos) {
+    get(histograms, name, labels, key -> new LatencyHistogram()).record(nanos);
+  }
+
+  private <T> T get(
+      ConcurrentMap<SeriesKey, T> series,
+      String name,
+      Map<String, String> labels,
+      Function<SeriesKey, T> factory) {
+    SeriesKey key = SeriesKey.create(name, ImmutableSortedMap.copyOf(labels));
+    T existing = series.get(key);
+    if (existing != null) {
+      return existing;
+    }
+    AtomicInteger count = seriesCounts.computeIfAbsent(name, n -> new AtomicInteger());
+    if (count.get() >= MAX_SERIES_PER_METRIC) {
+      key = SeriesKey.create(name, OVERFLOW_LABELS);
+    }
+    return series.computeIfAbsent(
+        key,
+        k -> {
+          count.incrementAndGet();
+          return factory.apply(k);
+        });
+  }
+
+  /** Returns the current value of all series, sorted by name and labels. */
+  public ImmutableList<Sample> snapshot() {
+    ImmutableList.Builder<Sample> samples = ImmutableList.builder();
+    counters.forEach(
+        (key, value) -> samples.add(new Sample(key, Type.COUNTER, value.sum(), null)));
+    gauges.forEach((key, value) -> samples.add(new Sample(key, Type.GAUGE, value.get(), null)));
+    histograms.forEach(
+        (key, value) -> {
+          LatencyHistogram.Snapshot histogram = value.snapshot();
+          samples.add(new Sample(key, Type.HISTOGRAM, histogram.getCount(), histogram));
+        });
+    return ImmutableList.sortedCopyOf(Sample.ORDER, samples.build());
+  }
+
+  @VisibleForTesting
+  void clear() {
+    counters.clear();
+    gauges.clear();
+    histograms.clear();
+    seriesCounts.clear();
+  }
+
+  /** Identifies a time series. */
+  @AutoValue
+  abstract static class SeriesKey {
+    abstract String name();
+
+    abstract ImmutableSortedMap<String, String> labels();
+
+    static SeriesKey create(String name, ImmutableSortedMap<String, String> labels) {
+      return new AutoValue_MetricsRegistry_SeriesKey(name, labels);
+    }
+  }
+
+  /** The value of a time series at the time of a {@link #snapshot}. */
+  public static final class Sample {
+    private static final Comparator<Sample> ORDER =
+        Comparator.comparing(Sample::getName)
+            .thenComparing(Sample::getType)
+            .thenComparing(sample -> sample.getLabels().toString());
+
+    private final SeriesKey key;
+    private final Type type;
+    private final long value;
+    @Nullable private final LatencyHistogram.Snapshot histogram;
+
+    private Sample(
+        SeriesKey key,
+        Type type,
+        long value,
+        @Nullable LatencyHistogram.Snapshot histogram) {
+      this.key = key;
+      this.type = type;
+      this.value = value;
+      this.histogram = histogram;
+    }
+
+    public String getName() {
+      return key.name();
+    }
+
+    public ImmutableSortedMap<String, String> getLabels() {
+      return key.labels();
+    }
+
+    public Type getType() {
+      return type;
+    }
+
+    /** The value of a counter or gauge, or the number of durations recorded in a histogram. */
+    public long getValue() {
+      return value;
+    }
+
+    /** An upper bound of the given percentile of a histogram, in milliseconds. */
+    public double getPercentileMillis(double percentile) {
+      return histogram != null ? histogram.getPercentileMicros(percentile) / 1000.0 : 0;
+    }
+
+    /** The sum of the durations recorded in a histogram, in milliseconds. */
+    public double getSumMillis() {
+      return histogram != null ? histogram.getSumMicros() / 1000.0 : 0;
+    }
+
+    @Nullable
+    LatencyHistogram.Snapshot getHistogram() {
+      return histogram;
+    }
+  }
+}
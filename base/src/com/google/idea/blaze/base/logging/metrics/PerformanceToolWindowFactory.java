@@ -0,0 +1,187 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.logging.metrics;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.logging.metrics.MetricsRegistry.Sample;
+import com.google.idea.blaze.base.logging.metrics.MetricsRegistry.Type;
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.ActionToolbar;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.ui.SimpleToolWindowPanel;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.table.JBTable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+/** A "Bazel Performance" tool window showing the metrics in the {@link MetricsRegistry}. */
+public final class PerformanceToolWindowFactory implements DumbAware, ToolWindowFactory {
+
+  /** Tool window ID that matches the one in blaze-base.xml. */
+  public static final String ID = "Bazel Performance";
+
+  private static final int REFRESH_INTERVAL_MILLIS = 5000;
+
+  @Override
+  public void createToolWindowContent(Project project, ToolWindow toolWindow) {
+    MetricsTableModel model = new MetricsTableModel();
+    JBTable table = new JBTable(model);
+    table.setAutoCreateRowSorter(true);
+    table.getEmptyText().setText("No events recorded yet");
+
+    SimpleToolWindowPanel panel = new SimpleToolWindowPanel(/* vertical= */ true);
+    panel.setContent(ScrollPaneFactory.createScrollPane(table));
+    DefaultActionGroup actions = new DefaultActionGroup();
+    actions.add(
+        new DumbAwareAction("Refresh", "Show the latest metrics", AllIcons.Actions.Refresh) {
+          @Override
+          public void actionPerformed(AnActionEvent e) {
+            model.refresh();
+          }
+        });
+    actions.add(
+        new DumbAwareAction(
+            "Export Now", "Write the metrics to a file", AllIcons.ToolbarDecorator.Export) {
+          @Override
+          public void actionPerformed(AnActionEvent e) {
+            export(project);
+          }
+        });
+    ActionToolbar toolbar =
+        ActionManager.getInstance().createActionToolbar("BazelPerformance", actions, false);
+    toolbar.setTargetComponent(table);
+    panel.setToolbar(toolbar.getComponent());
+
+    Content content = ContentFactory.getInstance().createContent(panel, "", false);
+    toolWindow.getContentManager().addContent(content);
+
+    Timer timer =
+        new Timer(
+            REFRESH_INTERVAL_MILLIS,
+            e -> {
+              if (toolWindow.isVisible()) {
+                model.refresh();
+              }
+            });
+    timer.start();
+    Disposer.register(content, timer::stop);
+    model.refresh();
+  }
+
+  /** Writes the metrics in the background, reporting the result once done. */
+  private static void export(Project project) {
+    ProgressManager.getInstance()
+        .run(
+            new Task.Backgroundable(project, "Exporting metrics", /* canBeCancelled= */ false) {
+              @Override
+              public void run(ProgressIndicator indicator) {
+                Runnable report;
+                try {
+                  Path file = MetricsExporter.getInstance().export();
+                  report =
+                      () -> Messages.showInfoMessage(project, "Metrics written to " + file, ID);
+                } catch (IOException e) {
+                  report =
+                      () ->
+                          Messages.showErrorDialog(
+                              project, "Failed to write metrics: " + e.getMessage(), ID);
+                }
+                ApplicationManager.getApplication().invokeLater(report, project.getDisposed());
+              }
+            });
+  }
+
+  /** One row per series; histogram rows show their percentiles. */
+  private static final class MetricsTableModel extends AbstractTableModel {
+    private static final String[] COLUMNS = {
+      "Metric", "Labels", "Count / Value", "p50 (ms)", "p90 (ms)", "p99 (ms)", "Total (ms)"
+    };
+
+    private ImmutableList<Sample> samples = ImmutableList.of();
+
+    void refresh() {
+      samples = MetricsRegistry.getInstance().snapshot();
+      fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+      return samples.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+      return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+      return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+      return column < 2 ? String.class : column == 2 ? Long.class : Double.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+      Sample sample = samples.get(row);
+      boolean histogram = sample.getType() == Type.HISTOGRAM;
+      switch (column) {
+        case 0:
+          return sample.getName();
+        case 1:
+          return Joiner.on(", ").withKeyValueSeparator("=").join(sample.getLabels());
+        case 2:
+          return sample.getValue();
+        case 3:
+          return histogram ? round(sample.getPercentileMillis(50)) : null;
+        case 4:
+          return histogram ? round(sample.getPercentileMillis(90)) : null;
+        case 5:
+          return histogram ? round(sample.getPercentileMillis(99)) : null;
+        case 6:
+          return histogram ? round(sample.getSumMillis()) : null;
+        default:
+          throw new IllegalArgumentException(String.format(Locale.ROOT, "column %d", column));
+      }
+    }
+
+    private static double round(double millis) {
+      return Math.round(millis * 10) / 10.0;
+    }
+  }
+}
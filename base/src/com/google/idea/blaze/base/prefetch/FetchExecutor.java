@@ -16,13 +16,10 @@
 package com.google.idea.blaze.base.prefetch;
 
 import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.MoreExecutors;
-import com.intellij.util.concurrency.AppExecutorUtil;
+import com.google.idea.blaze.base.async.executor.ExecutionLane;
 
 /** Shared executors for any prefetch/copy operations. */
 public class FetchExecutor {
-  private static final int MAX_THREADS = Runtime.getRuntime().availableProcessors();
-  public static final ListeningExecutorService EXECUTOR =
-      MoreExecutors.listeningDecorator(
-          AppExecutorUtil.createBoundedApplicationPoolExecutor("FetchExecutor", MAX_THREADS));
+  /** Runs on the {@link ExecutionLane#IO} lane, since fetching mostly blocks on I/O. */
+  public static final ListeningExecutorService EXECUTOR = ExecutionLane.IO.getExecutor();
 }
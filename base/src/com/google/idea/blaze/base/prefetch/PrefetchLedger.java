@@ -0,0 +1,177 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.prefetch;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records which files have recently been prefetched, keyed by canonical path.
+ *
+ * <p>Each entry remembers the modification time and size of the file at the time it was fetched,
+ * so a file is only considered up to date while those are unchanged and the entry hasn't expired.
+ * Directories aren't recorded: they're prefetched recursively, and their modification time doesn't
+ * change when a file further down is edited.
+ */
+final class PrefetchLedger {
+
+  private static final int FORMAT_VERSION = 2;
+
+  /** The state of a single file when it was last prefetched. */
+  @VisibleForTesting
+  static final class Entry {
+    final long modifiedTime;
+    final long size;
+    final long fetchTimeMillis;
+
+    Entry(long modifiedTime, long size, long fetchTimeMillis) {
+      this.modifiedTime = modifiedTime;
+      this.size = size;
+      this.fetchTimeMillis = fetchTimeMillis;
+    }
+
+    boolean matches(long modifiedTime, long size) {
+      return this.modifiedTime == modifiedTime && this.size == size;
+    }
+  }
+
+  private final long refetchPeriodMillis;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  PrefetchLedger(long refetchPeriodMillis) {
+    this.refetchPeriodMillis = refetchPeriodMillis;
+  }
+
+  /**
+   * Returns true if the file with the given canonical path needs to be prefetched, and records it
+   * as fetched at {@code nowMillis}. Returns false if it was fetched within the refetch period and
+   * hasn't changed since.
+   */
+  boolean checkAndRecord(String canonicalPath, long modifiedTime, long size, long nowMillis) {
+    Entry previous = entries.get(canonicalPath);
+    if (previous != null
+        && nowMillis - previous.fetchTimeMillis < refetchPeriodMillis
+        && previous.matches(modifiedTime, size)) {
+      return false;
+    }
+    entries.put(canonicalPath, new Entry(modifiedTime, size, nowMillis));
+    return true;
+  }
+
+  /**
+   * Returns true if the file with the given canonical path was fetched within the refetch period,
+   * without checking whether it changed since.
+   */
+  boolean isFresh(String canonicalPath, long nowMillis) {
+    Entry entry = entries.get(canonicalPath);
+    return entry != null && nowMillis - entry.fetchTimeMillis < refetchPeriodMillis;
+  }
+
+  /** Adds all entries from {@code other} which are more recent than the ones in this ledger. */
+  void mergeFrom(PrefetchLedger other) {
+    other.entries.forEach(
+        (path, entry) ->
+            entries.merge(
+                path, entry, (a, b) -> a.fetchTimeMillis >= b.fetchTimeMillis ? a : b));
+  }
+
+  /**
+   * Returns a new ledger containing only the unexpired entries for the given canonical paths.
+   * Used to prune the ledger persisted for a project down to the files of the latest sync.
+   */
+  PrefetchLedger retainOnly(Collection<String> canonicalPaths, long nowMillis) {
+    PrefetchLedger pruned = new PrefetchLedger(refetchPeriodMillis);
+    for (String path : canonicalPaths) {
+      Entry entry = entries.get(path);
+      if (entry != null && nowMillis - entry.fetchTimeMillis < refetchPeriodMillis) {
+        pruned.entries.put(path, entry);
+      }
+    }
+    return pruned;
+  }
+
+  void clear() {
+    entries.clear();
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * Writes the ledger to a temporary file next to {@code file}, then moves it into place, so a
+   * crash or a concurrent writer never leaves a partially written ledger behind.
+   */
+  void save(File file) throws IOException {
+    Path target = file.toPath();
+    Path parent = target.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path temp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(FORMAT_VERSION);
+        Map<String, Entry> snapshot = Map.copyOf(entries);
+        out.writeInt(snapshot.size());
+        for (Map.Entry<String, Entry> e : snapshot.entrySet()) {
+          out.writeUTF(e.getKey());
+          out.writeLong(e.getValue().modifiedTime);
+          out.writeLong(e.getValue().size);
+          out.writeLong(e.getValue().fetchTimeMillis);
+        }
+      }
+      Files.move(
+          temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Reads a ledger previously written by {@link #save}. Returns an empty ledger if the file
+   * doesn't exist or was written in an incompatible format.
+   */
+  static PrefetchLedger load(File file, long refetchPeriodMillis) throws IOException {
+    PrefetchLedger ledger = new PrefetchLedger(refetchPeriodMillis);
+    if (!file.exists()) {
+      return ledger;
+    }
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != FORMAT_VERSION) {
+        return ledger;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        String path = in.readUTF();
+        ledger.entries.put(path, new Entry(in.readLong(), in.readLong(), in.readLong()));
+      }
+    }
+    return ledger;
+  }
+}
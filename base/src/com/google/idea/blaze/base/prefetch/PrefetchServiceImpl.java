@@ -17,7 +17,6 @@ package com.google.idea.blaze.base.prefetch;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
@@ -29,6 +28,7 @@ import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
 import com.google.idea.blaze.base.projectview.ProjectViewSet;
 import com.google.idea.blaze.base.settings.BlazeImportSettings;
 import com.google.idea.blaze.base.settings.BlazeImportSettingsManager;
+import com.google.idea.blaze.base.sync.data.BlazeDataStorage;
 import com.google.idea.blaze.base.sync.projectview.ImportRoots;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
@@ -42,7 +42,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
@@ -52,46 +54,93 @@ public class PrefetchServiceImpl implements PrefetchService {
   private static final Logger logger = Logger.getInstance(PrefetchServiceImpl.class);
 
   private static final long REFETCH_PERIOD_MILLIS = TimeUnit.HOURS.toMillis(6);
-  private final Map<Integer, Long> fileToLastFetchTimeMillis = Maps.newConcurrentMap();
+  private static final String LEDGER_FILE_NAME = "prefetch_ledger.dat";
+
+  private final PrefetchLedger ledger = new PrefetchLedger(REFETCH_PERIOD_MILLIS);
+  // ledger files which have already been merged into the in-memory ledger this session
+  private final Set<File> loadedLedgerFiles = ConcurrentHashMap.newKeySet();
+  // the canonical paths of files requested this session, so their ledger entries can be checked
+  // without touching the file system
+  private final Map<String, String> canonicalPaths = new ConcurrentHashMap<>();
 
   private PrefetchServiceImpl() {
     LowMemoryWatcher.register(
-        fileToLastFetchTimeMillis::clear, ApplicationManager.getApplication());
+        () -> {
+          ledger.clear();
+          canonicalPaths.clear();
+          // read the persisted ledgers again, rather than refetching all files
+          loadedLedgerFiles.clear();
+        },
+        ApplicationManager.getApplication());
   }
 
   @Override
   public void clearPrefetchCache() {
-    fileToLastFetchTimeMillis.clear();
+    ledger.clear();
+    canonicalPaths.clear();
   }
 
   @Override
   public ListenableFuture<PrefetchStats> prefetchFiles(
       Collection<File> files, boolean refetchCachedFiles, boolean fetchFileTypes) {
-    return prefetchFiles(ImmutableSet.of(), files, refetchCachedFiles, fetchFileTypes);
+    return prefetchFiles(
+        ImmutableSet.of(), files, refetchCachedFiles, fetchFileTypes, /* requestedPaths= */ null);
   }
 
+  /**
+   * Prefetches the given files, skipping those which were recently fetched and haven't changed
+   * since, unless {@code refetchCachedFiles} is set.
+   *
+   * @param requestedPaths if non-null, collects the canonical paths of all files which exist
+   */
   private ListenableFuture<PrefetchStats> prefetchFiles(
       Set<File> excludeDirectories,
       Collection<File> files,
       boolean refetchCachedFiles,
-      boolean fetchFileTypes) {
+      boolean fetchFileTypes,
+      @Nullable Set<String> requestedPaths) {
     if (files.isEmpty()) {
       return Futures.immediateFuture(PrefetchStats.NONE);
     }
-    if (!refetchCachedFiles) {
-      long startTime = System.currentTimeMillis();
-      // ignore recently fetched files
-      files =
-          files
-              .stream()
-              .filter(file -> shouldPrefetch(file, startTime))
-              .collect(Collectors.toList());
-    }
+    long startTime = System.currentTimeMillis();
+    AtomicInteger ledgerHits = new AtomicInteger();
+    AtomicInteger skipped = new AtomicInteger();
     FileOperationProvider provider = FileOperationProvider.getInstance();
     List<ListenableFuture<File>> canonicalFiles =
-        files
-            .stream()
-            .map(file -> FetchExecutor.EXECUTOR.submit(() -> toCanonicalFile(provider, file)))
+        files.stream()
+            .map(
+                file ->
+                    FetchExecutor.EXECUTOR.submit(
+                        () -> {
+                          // files fetched earlier this session are skipped without any file
+                          // system calls until their entry expires
+                          String knownPath = canonicalPaths.get(file.getPath());
+                          if (!refetchCachedFiles
+                              && knownPath != null
+                              && ledger.isFresh(knownPath, startTime)) {
+                            if (requestedPaths != null) {
+                              requestedPaths.add(knownPath);
+                            }
+                            ledgerHits.incrementAndGet();
+                            return null;
+                          }
+                          File canonicalFile = toCanonicalFile(provider, file);
+                          if (canonicalFile == null) {
+                            skipped.incrementAndGet();
+                            return null;
+                          }
+                          canonicalPaths.put(file.getPath(), canonicalFile.getPath());
+                          if (requestedPaths != null) {
+                            requestedPaths.add(canonicalFile.getPath());
+                          }
+                          // ignore recently fetched files, unless they changed
+                          if (!refetchCachedFiles
+                              && !shouldPrefetch(provider, canonicalFile, startTime)) {
+                            ledgerHits.incrementAndGet();
+                            return null;
+                          }
+                          return canonicalFile;
+                        }))
             .collect(Collectors.toList());
     List<ListenableFuture<PrefetchStats>> futures = Lists.newArrayList();
     for (Prefetcher prefetcher : Prefetcher.EP_NAME.getExtensions()) {
@@ -99,14 +148,26 @@ public class PrefetchServiceImpl implements PrefetchService {
           prefetcher.prefetchFiles(
               excludeDirectories, canonicalFiles, FetchExecutor.EXECUTOR, fetchFileTypes));
     }
-    return Futures.transform(
-        Futures.allAsList(futures),
-        stats ->
-            stats.stream()
-                .filter(Objects::nonNull)
-                .reduce(PrefetchStats::combine)
-                .orElse(PrefetchStats.NONE),
-        FetchExecutor.EXECUTOR);
+    ListenableFuture<PrefetchStats> prefetched =
+        Futures.transform(
+            Futures.allAsList(futures),
+            stats ->
+                stats.stream()
+                    .filter(Objects::nonNull)
+                    .reduce(PrefetchStats::combine)
+                    .orElse(PrefetchStats.NONE),
+            FetchExecutor.EXECUTOR);
+    ListenableFuture<List<File>> resolved = Futures.successfulAsList(canonicalFiles);
+    return Futures.whenAllSucceed(prefetched, resolved)
+        .call(
+            () -> {
+              int fetched =
+                  (int) Futures.getDone(resolved).stream().filter(Objects::nonNull).count();
+              return Futures.getDone(prefetched)
+                  .combine(
+                      PrefetchStats.create(0L, fetched, ledgerHits.get(), skipped.get()));
+            },
+            MoreExecutors.directExecutor());
   }
 
   @Nullable
@@ -122,15 +183,18 @@ public class PrefetchServiceImpl implements PrefetchService {
     return null;
   }
 
-  /** Returns false if this file has been recently prefetched. */
-  private boolean shouldPrefetch(File file, long startTime) {
-    // Filter files that have been recently fetched
-    Long lastFetchTime = fileToLastFetchTimeMillis.get(file.hashCode());
-    if (lastFetchTime != null && (startTime - lastFetchTime < REFETCH_PERIOD_MILLIS)) {
-      return false;
+  /**
+   * Returns false if this file has been recently prefetched and hasn't changed since. Directories
+   * are always prefetched, since they're walked recursively and their own modification time says
+   * nothing about the files below them.
+   */
+  private boolean shouldPrefetch(FileOperationProvider provider, File canonicalFile, long now) {
+    if (provider.isDirectory(canonicalFile)) {
+      return true;
     }
-    fileToLastFetchTimeMillis.put(file.hashCode(), startTime);
-    return true;
+    long modifiedTime = provider.getFileModifiedTime(canonicalFile);
+    long size = provider.getFileSize(canonicalFile);
+    return ledger.checkAndRecord(canonicalFile.getPath(), modifiedTime, size, now);
   }
 
   @Override
@@ -141,6 +205,22 @@ public class PrefetchServiceImpl implements PrefetchService {
     if (importSettings == null) {
       return Futures.immediateFuture(PrefetchStats.NONE);
     }
+    File ledgerFile = getLedgerFile(project, importSettings);
+    return Futures.submitAsync(
+        () -> {
+          loadLedger(ledgerFile);
+          return prefetchProjectFiles(
+              project, importSettings, projectViewSet, blazeProjectData, ledgerFile);
+        },
+        FetchExecutor.EXECUTOR);
+  }
+
+  private ListenableFuture<PrefetchStats> prefetchProjectFiles(
+      Project project,
+      BlazeImportSettings importSettings,
+      ProjectViewSet projectViewSet,
+      @Nullable BlazeProjectData blazeProjectData,
+      @Nullable File ledgerFile) {
     WorkspaceRoot workspaceRoot = WorkspaceRoot.fromImportSettings(importSettings);
     if (!FileOperationProvider.getInstance().exists(workspaceRoot.directory())) {
       // quick sanity check before trying to prefetch each individual file
@@ -158,13 +238,15 @@ public class PrefetchServiceImpl implements PrefetchService {
     for (WorkspacePath workspacePath : importRoots.excludeDirectories()) {
       excludeDirectories.add(workspaceRoot.fileForPath(workspacePath));
     }
+    Set<String> requestedPaths = ConcurrentHashMap.newKeySet();
     ListenableFuture<PrefetchStats> sourceFilesFuture =
         prefetchFiles(
             excludeDirectories,
             sourceDirectories,
             /* refetchCachedFiles= */ false,
             // PushedFilePropertiesUpdaterImpl will eventually want the file types of module roots.
-            /* fetchFileTypes= */ true);
+            /* fetchFileTypes= */ true,
+            requestedPaths);
     Set<File> externalFiles = new HashSet<>();
     if (blazeProjectData != null) {
       for (PrefetchFileSource fileSource : PrefetchFileSource.EP_NAME.getExtensions()) {
@@ -173,14 +255,54 @@ public class PrefetchServiceImpl implements PrefetchService {
       }
     }
     ListenableFuture<PrefetchStats> externalFilesFuture =
-        prefetchFiles(externalFiles, false, false);
+        prefetchFiles(
+            ImmutableSet.of(),
+            externalFiles,
+            /* refetchCachedFiles= */ false,
+            /* fetchFileTypes= */ false,
+            requestedPaths);
     return Futures.transform(
         Futures.allAsList(sourceFilesFuture, externalFilesFuture),
-        list ->
-            list.stream()
-                .filter(Objects::nonNull)
-                .reduce(PrefetchStats::combine)
-                .orElse(PrefetchStats.NONE),
-        MoreExecutors.directExecutor());
+        list -> {
+          // only keep the files requested by this prefetch, so the persisted ledger is pruned on
+          // every sync
+          saveLedger(ledgerFile, requestedPaths);
+          return list.stream()
+              .filter(Objects::nonNull)
+              .reduce(PrefetchStats::combine)
+              .orElse(PrefetchStats.NONE);
+        },
+        FetchExecutor.EXECUTOR);
+  }
+
+  @Nullable
+  private static File getLedgerFile(Project project, BlazeImportSettings importSettings) {
+    if (ApplicationManager.getApplication().isUnitTestMode()) {
+      return null;
+    }
+    return new File(BlazeDataStorage.getProjectCacheDir(project, importSettings), LEDGER_FILE_NAME);
+  }
+
+  /** Merges the ledger persisted for a project into the in-memory ledger, once per session. */
+  private void loadLedger(@Nullable File ledgerFile) {
+    if (ledgerFile == null || !loadedLedgerFiles.add(ledgerFile)) {
+      return;
+    }
+    try {
+      ledger.mergeFrom(PrefetchLedger.load(ledgerFile, REFETCH_PERIOD_MILLIS));
+    } catch (IOException e) {
+      logger.warn("Couldn't read prefetch ledger " + ledgerFile, e);
+    }
+  }
+
+  private void saveLedger(@Nullable File ledgerFile, Set<String> requestedPaths) {
+    if (ledgerFile == null) {
+      return;
+    }
+    try {
+      ledger.retainOnly(requestedPaths, System.currentTimeMillis()).save(ledgerFile);
+    } catch (IOException e) {
+      logger.warn("Couldn't write prefetch ledger " + ledgerFile, e);
+    }
   }
 }
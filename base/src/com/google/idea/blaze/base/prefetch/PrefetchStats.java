@@ -24,13 +24,34 @@ public abstract class PrefetchStats {
   public static final PrefetchStats NONE = create(0L);
 
   public static PrefetchStats create(long bytesPrefetched) {
-    return new AutoValue_PrefetchStats(bytesPrefetched);
+    return create(bytesPrefetched, 0, 0, 0);
+  }
+
+  public static PrefetchStats create(
+      long bytesPrefetched, int filesFetched, int ledgerHits, int filesSkipped) {
+    return new AutoValue_PrefetchStats(bytesPrefetched, filesFetched, ledgerHits, filesSkipped);
   }
 
   public PrefetchStats combine(PrefetchStats that) {
-    return create(this.bytesPrefetched() + that.bytesPrefetched());
+    return create(
+        this.bytesPrefetched() + that.bytesPrefetched(),
+        this.filesFetched() + that.filesFetched(),
+        this.ledgerHits() + that.ledgerHits(),
+        this.filesSkipped() + that.filesSkipped());
   }
 
   /** Returns the number of bytes downloaded over the network. */
   public abstract long bytesPrefetched();
+
+  /** Returns the number of files and directories handed to the prefetchers. */
+  public abstract int filesFetched();
+
+  /**
+   * Returns the number of files which weren't fetched because they had been fetched recently and
+   * hadn't changed since.
+   */
+  public abstract int ledgerHits();
+
+  /** Returns the number of files which were skipped because they don't exist. */
+  public abstract int filesSkipped();
 }
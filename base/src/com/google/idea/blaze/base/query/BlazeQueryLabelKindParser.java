@@ -16,12 +16,17 @@
 package com.google.idea.blaze.base.query;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.collect.ImmutableList;
 import com.google.idea.blaze.base.async.process.LineProcessingOutputStream;
 import com.google.idea.blaze.base.dependencies.TargetInfo;
 import com.google.idea.blaze.base.model.primitives.Label;
 import com.google.idea.blaze.base.model.primitives.TargetExpression;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -71,6 +76,21 @@ public class BlazeQueryLabelKindParser implements LineProcessingOutputStream.Lin
     return true;
   }
 
+  /**
+   * Parses 'blaze query --output=label_kind' output line by line as it's read from the stream,
+   * without buffering it in full. Stops reading early if {@link #processLine} returns false.
+   */
+  public void processOutput(InputStream stream) throws IOException {
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!processLine(line)) {
+          return;
+        }
+      }
+    }
+  }
+
   /** Returns all targets parsed to this point. */
   public ImmutableList<TargetInfo> getTargets() {
     return outputList.build();
@@ -19,6 +19,8 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.util.stream.Collectors.joining;
 
 import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.async.executor.BlazeExecutor;
+import com.google.idea.blaze.base.async.executor.ExecutionLane;
 import com.google.idea.blaze.base.lang.buildfile.psi.BuildFile;
 import com.google.idea.blaze.base.lang.buildfile.psi.BuildFile.BlazeFileType;
 import com.google.idea.blaze.base.lang.buildfile.psi.FuncallExpression;
@@ -51,7 +53,6 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import javax.annotation.Nullable;
-import org.jetbrains.ide.PooledThreadExecutor;
 
 /** A line marker provider for BUILD files, showing the list of targets generated by a macro. */
 public class MacroLineMarkerProvider implements LineMarkerProvider {
@@ -252,8 +253,10 @@ public class MacroLineMarkerProvider implements LineMarkerProvider {
     @Nullable
     private FileData getDataWithTimeout(Label buildLabel) {
       Future<ImmutableList<GeneratedTarget>> future =
-          PooledThreadExecutor.INSTANCE.submit(
-              () -> MacroTargetProvider.findTargetsGeneratedByMacros(project, buildLabel));
+          BlazeExecutor.getInstance()
+              .getExecutor(ExecutionLane.INTERACTIVE)
+              .submit(
+                  () -> MacroTargetProvider.findTargetsGeneratedByMacros(project, buildLabel));
       long startTimeMillis = System.currentTimeMillis();
       while (true) {
         ProgressManager.checkCanceled();
@@ -18,6 +18,8 @@ package com.google.idea.blaze.base.run;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.idea.blaze.base.async.executor.BlazeExecutor;
+import com.google.idea.blaze.base.async.executor.ExecutionLane;
 import com.google.idea.blaze.base.dependencies.TargetInfo;
 import com.google.idea.blaze.base.dependencies.TestSize;
 import com.google.idea.blaze.base.model.primitives.RuleType;
@@ -37,7 +39,6 @@ import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
-import org.jetbrains.ide.PooledThreadExecutor;
 
 /** Heuristic to match test targets to source files. */
 public interface TestTargetHeuristic {
@@ -106,7 +107,7 @@ public interface TestTargetHeuristic {
     Executor executor =
         ApplicationManager.getApplication().isUnitTestMode()
             ? MoreExecutors.directExecutor()
-            : PooledThreadExecutor.INSTANCE;
+            : BlazeExecutor.getInstance().getExecutor(ExecutionLane.INTERACTIVE);
     return Futures.transform(
         targets,
         list ->
@@ -58,6 +58,10 @@ public class BlazeTargetFilter implements Filter {
   @Nullable
   @Override
   public Result applyFilter(String line, int entireLength) {
+    // every label has a '//', and most lines don't
+    if (!line.contains("//")) {
+      return null;
+    }
     Matcher matcher = TARGET_PATTERN.matcher(line);
     List<ResultItem> results = new ArrayList<>();
     while (matcher.find()) {
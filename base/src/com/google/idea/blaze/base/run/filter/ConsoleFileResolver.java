@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.run.filter;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.idea.blaze.base.io.FileOperationProvider;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import java.io.File;
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * Resolves the file paths printed to one console through the {@link FileResolver}s, remembering
+ * the result for each path.
+ *
+ * <p>Test and build output mentions the same few files over and over, so a console filter owning
+ * one of these only resolves each of them once per run. Paths which don't resolve to an existing
+ * file are only remembered briefly, as the file may still be created while the console is open.
+ */
+public final class ConsoleFileResolver {
+
+  private static final int MAX_CACHED_PATHS = 4096;
+
+  /** How long a path which didn't resolve is ignored before it's looked up again. */
+  @VisibleForTesting static final Duration MISS_EXPIRY = Duration.ofSeconds(5);
+
+  private final Lookups<File> files;
+  private final Lookups<VirtualFile> virtualFiles;
+
+  public ConsoleFileResolver(Project project) {
+    this(project, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  ConsoleFileResolver(Project project, Ticker ticker) {
+    // a file found to exist is trusted for the rest of the run, like the resolution itself
+    this.files =
+        new Lookups<>(
+            ticker,
+            path -> FileResolver.resolveToFile(project, path),
+            file -> FileOperationProvider.getInstance().exists(file),
+            file -> true);
+    this.virtualFiles =
+        new Lookups<>(
+            ticker,
+            path -> FileResolver.resolveToVirtualFile(project, path),
+            VirtualFile::isValid,
+            VirtualFile::isValid);
+  }
+
+  /**
+   * Like {@link FileResolver#resolveToFile}, which doesn't touch the VFS, but only returns files
+   * which exist.
+   */
+  @Nullable
+  public File resolveToFile(String fileString) {
+    return files.resolve(fileString);
+  }
+
+  /** Like {@link FileResolver#resolveToVirtualFile}. */
+  @Nullable
+  public VirtualFile resolveToVirtualFile(String fileString) {
+    return virtualFiles.resolve(fileString);
+  }
+
+  /** Files found for each path, and the paths recently found not to resolve. */
+  private static final class Lookups<T> {
+    private final Function<String, T> resolver;
+    private final Predicate<T> exists;
+    private final Predicate<T> stillValid;
+    private final Cache<String, T> found =
+        CacheBuilder.newBuilder().maximumSize(MAX_CACHED_PATHS).build();
+    private final Cache<String, Boolean> missed;
+
+    Lookups(
+        Ticker ticker,
+        Function<String, T> resolver,
+        Predicate<T> exists,
+        Predicate<T> stillValid) {
+      this.resolver = resolver;
+      this.exists = exists;
+      this.stillValid = stillValid;
+      this.missed =
+          CacheBuilder.newBuilder()
+              .maximumSize(MAX_CACHED_PATHS)
+              .expireAfterWrite(MISS_EXPIRY)
+              .ticker(ticker)
+              .build();
+    }
+
+    @Nullable
+    T resolve(String path) {
+      T file = found.getIfPresent(path);
+      if (file != null && stillValid.test(file)) {
+        return file;
+      }
+      if (missed.getIfPresent(path) != null) {
+        return null;
+      }
+      file = resolver.apply(path);
+      if (file != null && exists.test(file)) {
+        found.put(path, file);
+        return file;
+      }
+      found.invalidate(path);
+      missed.put(path, true);
+      return null;
+    }
+  }
+}
@@ -15,13 +15,12 @@
  */
 package com.google.idea.blaze.base.run.filter;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.intellij.execution.filters.ConsoleFilterProvider;
 import com.intellij.execution.filters.Filter;
-import com.intellij.execution.filters.OpenFileHyperlinkInfo;
+import com.intellij.execution.filters.HyperlinkInfo;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.vfs.VirtualFile;
+import java.io.File;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
@@ -32,14 +31,20 @@ class GenericFileMessageFilter implements Filter {
   private static final Pattern FILE_LINE_COLUMN =
       Pattern.compile("^([^:\\s]+):([0-9]+):([0-9]+): ");
   private final Project project;
+  private final ConsoleFileResolver fileResolver;
 
   GenericFileMessageFilter(Project project) {
     this.project = project;
+    this.fileResolver = new ConsoleFileResolver(project);
   }
 
   @Nullable
   @Override
   public Result applyFilter(String line, int entireLength) {
+    // cheap checks first: most lines don't look like 'path:line:column: ' at all
+    if (line.isEmpty() || Character.isWhitespace(line.charAt(0)) || !line.contains(": ")) {
+      return null;
+    }
     Matcher matcher = FILE_LINE_COLUMN.matcher(line);
     if (!matcher.find()) {
       return null;
@@ -48,14 +53,15 @@ class GenericFileMessageFilter implements Filter {
     if (filePath == null) {
       return null;
     }
-    VirtualFile file = FileResolver.resolveToVirtualFile(project, filePath);
+    // the file is only looked up in the VFS once the link is followed
+    File file = fileResolver.resolveToFile(filePath);
     if (file == null) {
       return null;
     }
     int lineNumber = parseNumber(matcher.group(2));
     int columnNumber = parseNumber(matcher.group(3));
-    OpenFileHyperlinkInfo hyperlink =
-        new CustomOpenFileHyperlinkInfo(project, file, lineNumber - 1, columnNumber - 1);
+    HyperlinkInfo hyperlink =
+        new LazyOpenFileHyperlinkInfo(project, file, lineNumber - 1, columnNumber - 1);
 
     int startIx = matcher.start(1);
     int endIx = matcher.end(3);
@@ -81,24 +87,4 @@ class GenericFileMessageFilter implements Filter {
           : new Filter[0];
     }
   }
-
-  /**
-   * A trivial wrapper class to allow interrogating file, line, column results in unit tests
-   * (without setting up all the project, application services transitively required by
-   * OpenFileHyperlinkInfo).
-   */
-  @VisibleForTesting
-  static class CustomOpenFileHyperlinkInfo extends OpenFileHyperlinkInfo {
-
-    final VirtualFile vf;
-    final int line;
-    final int column;
-
-    private CustomOpenFileHyperlinkInfo(Project project, VirtualFile vf, int line, int column) {
-      super(project, vf, line, column);
-      this.vf = vf;
-      this.line = line;
-      this.column = column;
-    }
-  }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.run.filter;
+
+import com.google.idea.blaze.base.io.VirtualFileSystemProvider;
+import com.intellij.execution.filters.FileHyperlinkInfo;
+import com.intellij.openapi.fileEditor.OpenFileDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import java.io.File;
+import javax.annotation.Nullable;
+
+/**
+ * Opens a file printed to the console. Unlike {@link
+ * com.intellij.execution.filters.OpenFileHyperlinkInfo}, the file is only looked up in the VFS
+ * when the link is hovered or followed, not for every line of output.
+ */
+public final class LazyOpenFileHyperlinkInfo implements FileHyperlinkInfo {
+
+  private final Project project;
+  private final File file;
+  private final int line;
+  private final int column;
+
+  public LazyOpenFileHyperlinkInfo(Project project, File file, int line, int column) {
+    this.project = project;
+    this.file = file;
+    this.line = line;
+    this.column = column;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /** The 0-based line, or a negative number if unknown. */
+  public int getLine() {
+    return line;
+  }
+
+  /** The 0-based column, or a negative number if unknown. */
+  public int getColumn() {
+    return column;
+  }
+
+  @Nullable
+  @Override
+  public OpenFileDescriptor getDescriptor() {
+    VirtualFile vf =
+        VirtualFileSystemProvider.getInstance().getSystem().findFileByPath(file.getPath());
+    if (vf == null || !vf.isValid()) {
+      return null;
+    }
+    return new OpenFileDescriptor(project, vf, line, column);
+  }
+
+  @Override
+  public void navigate(Project project) {
+    OpenFileDescriptor descriptor = getDescriptor();
+    if (descriptor != null && descriptor.canNavigate()) {
+      descriptor.navigate(true);
+    }
+  }
+}
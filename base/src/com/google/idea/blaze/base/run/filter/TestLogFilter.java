@@ -18,9 +18,8 @@ package com.google.idea.blaze.base.run.filter;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.intellij.execution.filters.ConsoleFilterProvider;
 import com.intellij.execution.filters.Filter;
-import com.intellij.execution.filters.OpenFileHyperlinkInfo;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.vfs.VirtualFile;
+import java.io.File;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
@@ -32,30 +31,36 @@ class TestLogFilter implements Filter {
       Pattern.compile("^\\s*(/[^:\\s]+/testlogs/[^:\\s]+/test\\.log)\\s*$");
 
   private static final Pattern NEW_REGEX =
-      Pattern.compile(".*\\(see (/[^:\\s]+/testlogs/[^:\\s]+/test\\.log)\\)\\s*");
+      Pattern.compile("\\(see (/[^:\\s]+/testlogs/[^:\\s]+/test\\.log)\\)\\s*$");
 
   private final Project project;
+  private final ConsoleFileResolver fileResolver;
 
   TestLogFilter(Project project) {
     this.project = project;
+    this.fileResolver = new ConsoleFileResolver(project);
   }
 
   @Nullable
   @Override
   public Result applyFilter(String line, int entireLength) {
+    // both formats mention a test.log in a testlogs directory
+    if (!line.contains("/testlogs/") || !line.contains("test.log")) {
+      return null;
+    }
     Matcher matcher = OLD_REGEX.matcher(line);
     if (!matcher.matches()) {
       matcher = NEW_REGEX.matcher(line);
-    }
-    if (!matcher.matches()) {
-      return null;
+      if (!matcher.find()) {
+        return null;
+      }
     }
 
     String filePath = matcher.group(1);
     if (filePath == null) {
       return null;
     }
-    VirtualFile file = FileResolver.resolveToVirtualFile(project, filePath);
+    File file = fileResolver.resolveToFile(filePath);
     if (file == null) {
       return null;
     }
@@ -63,7 +68,7 @@ class TestLogFilter implements Filter {
     return new Result(
         matcher.start(1) + offset,
         matcher.end(1) + offset,
-        new OpenFileHyperlinkInfo(project, file, /* line= */ 0));
+        new LazyOpenFileHyperlinkInfo(project, file, /* line= */ 0, /* column= */ 0));
   }
 
   /** Provider for traceback filter */
@@ -19,6 +19,8 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.idea.blaze.base.async.executor.BlazeExecutor;
+import com.google.idea.blaze.base.async.executor.ExecutionLane;
 import com.google.idea.blaze.base.dependencies.TargetInfo;
 import com.google.idea.blaze.base.run.BlazeCommandRunConfiguration;
 import com.google.idea.blaze.base.run.ExecutorType;
@@ -35,7 +37,6 @@ import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiElement;
 import com.intellij.util.ui.UIUtil;
 import javax.annotation.Nullable;
-import org.jetbrains.ide.PooledThreadExecutor;
 
 /**
  * For situations where we appear to be in a recognized test context, but can't efficiently resolve
@@ -71,7 +72,7 @@ class PendingAsyncTestContext extends TestContext implements PendingRunConfigura
                   ? context
                   : new KnownTargetTestContext(t, sourceElement, testFilter, description);
             },
-            PooledThreadExecutor.INSTANCE);
+            BlazeExecutor.getInstance().getExecutor(ExecutionLane.INTERACTIVE));
     return new PendingAsyncTestContext(
         supportedExecutors, future, progressMessage, sourceElement, testFilter, description);
   }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.run.testmap;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
+import com.google.idea.blaze.base.ideinfo.TargetKey;
+import com.google.idea.blaze.base.model.primitives.Label;
+import com.google.idea.blaze.base.model.primitives.RuleType;
+import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
+import com.google.idea.blaze.base.scope.BlazeContext;
+import com.google.idea.blaze.base.sync.workspace.WorkingSet;
+import com.google.idea.blaze.base.targetmaps.TargetGraphIndex;
+import com.google.idea.blaze.base.targetmaps.TargetGraphIndex.ReverseClosure;
+import com.google.idea.blaze.base.vcs.BlazeVcsHandlerProvider;
+import com.google.idea.blaze.base.vcs.BlazeVcsHandlerProvider.BlazeVcsHandler;
+import com.intellij.openapi.project.Project;
+import java.io.File;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+
+/**
+ * Finds the test targets affected by the files changed in the working set, i.e. the tests which
+ * depend, directly or transitively, on a target owning a changed source or BUILD file.
+ *
+ * <p>The result is kept between calls. As long as the project isn't re-synced and files are only
+ * added to the working set, only the targets reachable from the newly changed files are visited.
+ */
+public final class AffectedTestsService {
+
+  private final Project project;
+
+  @Nullable private TargetGraphIndex index;
+  @Nullable private ReverseClosure closure;
+  private ImmutableSet<File> changedFiles = ImmutableSet.of();
+  private final Set<Label> affectedTests = new TreeSet<>();
+
+  public AffectedTestsService(Project project) {
+    this.project = project;
+  }
+
+  public static AffectedTestsService getInstance(Project project) {
+    return project.getService(AffectedTestsService.class);
+  }
+
+  /**
+   * Returns the affected test targets, sorted by label, or an empty list if the project has no
+   * VCS integration or no working set.
+   */
+  public ListenableFuture<ImmutableList<Label>> findAffectedTests(
+      BlazeContext context, ListeningExecutorService executor) {
+    BlazeVcsHandler vcsHandler = BlazeVcsHandlerProvider.vcsHandlerForProject(project);
+    if (vcsHandler == null) {
+      return Futures.immediateFuture(ImmutableList.of());
+    }
+    WorkspaceRoot workspaceRoot = WorkspaceRoot.fromProject(project);
+    return Futures.transform(
+        vcsHandler.getWorkingSet(context, executor),
+        workingSet -> update(workspaceRoot, workingSet),
+        executor);
+  }
+
+  /** Some VCS handlers, like the fallback one, have no working set; then no tests are affected. */
+  @VisibleForTesting
+  ImmutableList<Label> update(WorkspaceRoot workspaceRoot, @Nullable WorkingSet workingSet) {
+    if (workingSet == null) {
+      return ImmutableList.of();
+    }
+    return update(TargetGraphIndex.get(project), changedFiles(workspaceRoot, workingSet));
+  }
+
+  private static ImmutableSet<File> changedFiles(
+      WorkspaceRoot workspaceRoot, WorkingSet workingSet) {
+    // deleted files are still part of the synced target map, so changes to them count, too
+    return Stream.of(workingSet.addedFiles, workingSet.modifiedFiles, workingSet.deletedFiles)
+        .flatMap(ImmutableList::stream)
+        .map(workspaceRoot::fileForPath)
+        .collect(ImmutableSet.toImmutableSet());
+  }
+
+  @VisibleForTesting
+  synchronized ImmutableList<Label> update(TargetGraphIndex index, ImmutableSet<File> files) {
+    if (closure == null || index != this.index || !files.containsAll(changedFiles)) {
+      // re-synced, or files were reverted: the old closure may contain targets no longer affected
+      this.index = index;
+      closure = index.newReverseClosure();
+      changedFiles = ImmutableSet.of();
+      affectedTests.clear();
+    }
+    ImmutableList<TargetKey> reached =
+        closure.addFiles(
+            Sets.difference(files, changedFiles).immutableCopy(), /* includeBuildFiles= */ true);
+    for (TargetKey key : reached) {
+      if (isTest(index.getTargetMap().get(key))) {
+        affectedTests.add(key.label());
+      }
+    }
+    changedFiles = files;
+    return ImmutableList.copyOf(affectedTests);
+  }
+
+  private static boolean isTest(@Nullable TargetIdeInfo target) {
+    // test suites only bundle other tests, which are reached as well
+    return target != null
+        && target.getKey().isPlainTarget()
+        && target.getKind().getRuleType() == RuleType.TEST
+        && !target.getKind().getKindString().equals("test_suite");
+  }
+}
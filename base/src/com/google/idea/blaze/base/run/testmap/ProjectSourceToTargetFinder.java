@@ -15,19 +15,10 @@
  */
 package com.google.idea.blaze.base.run.testmap;
 
-import static com.google.common.collect.ImmutableSortedSet.toImmutableSortedSet;
-
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.util.concurrent.Futures;
 import com.google.idea.blaze.base.dependencies.TargetInfo;
-import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
-import com.google.idea.blaze.base.ideinfo.TargetMap;
-import com.google.idea.blaze.base.model.BlazeProjectData;
 import com.google.idea.blaze.base.model.primitives.RuleType;
 import com.google.idea.blaze.base.run.SourceToTargetFinder;
-import com.google.idea.blaze.base.sync.SyncCache;
-import com.google.idea.blaze.base.sync.workspace.ArtifactLocationDecoder;
 import com.intellij.openapi.project.Project;
 import java.io.File;
 import java.util.Collection;
@@ -39,7 +30,8 @@ import org.jetbrains.annotations.NotNull;
 /**
  * Used to locate tests from source files for things like right-clicks.
  *
- * <p>It's essentially a map from source file -> reachable test rules.
+ * <p>It's essentially a map from source file -> reachable test rules, kept by {@link
+ * ReachableTargetsIndex}.
  */
 public class ProjectSourceToTargetFinder implements SourceToTargetFinder {
 
@@ -47,29 +39,7 @@ public class ProjectSourceToTargetFinder implements SourceToTargetFinder {
   @NotNull
   public Future<@NotNull Collection<TargetInfo>> targetsForSourceFiles(
       Project project, Set<File> sourceFiles, Optional<RuleType> ruleType) {
-    FilteredTargetMap targetMap =
-        SyncCache.getInstance(project)
-            .get(ProjectSourceToTargetFinder.class, ProjectSourceToTargetFinder::computeTargetMap);
-    if (targetMap == null) {
-      return Futures.immediateFuture(ImmutableList.of());
-    }
-    ImmutableSortedSet<TargetInfo> targets =
-        targetMap.targetsForSourceFiles(sourceFiles).stream()
-            .map(TargetIdeInfo::toTargetInfo)
-            .filter(target -> ruleType.isEmpty() || target.getRuleType().equals(ruleType.get()))
-            .distinct()
-            .sorted(new TargetInfoComparator())
-            .collect(toImmutableSortedSet(new TargetInfoComparator()));
-    return Futures.immediateFuture(targets);
-  }
-
-  private static FilteredTargetMap computeTargetMap(Project project, BlazeProjectData projectData) {
-    return computeTargetMap(
-        project, projectData.artifactLocationDecoder(), projectData.targetMap());
-  }
-
-  private static FilteredTargetMap computeTargetMap(
-      Project project, ArtifactLocationDecoder decoder, TargetMap targetMap) {
-    return new FilteredTargetMap(project, decoder, targetMap, t -> true);
+    return Futures.immediateFuture(
+        ReachableTargetsIndex.getInstance(project).targetsForSourceFiles(sourceFiles, ruleType));
   }
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.run.testmap;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.idea.blaze.base.async.executor.BlazeExecutor;
+import com.google.idea.blaze.base.async.executor.ExecutionLane;
+import com.google.idea.blaze.base.dependencies.TargetInfo;
+import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
+import com.google.idea.blaze.base.ideinfo.TargetKey;
+import com.google.idea.blaze.base.model.primitives.RuleType;
+import com.google.idea.blaze.base.scope.BlazeContext;
+import com.google.idea.blaze.base.sync.SyncListener;
+import com.google.idea.blaze.base.sync.SyncMode;
+import com.google.idea.blaze.base.sync.SyncResult;
+import com.google.idea.blaze.base.sync.data.BlazeProjectDataManager;
+import com.google.idea.blaze.base.targetmaps.TargetGraphIndex;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import java.io.File;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
+
+/**
+ * The targets reachable from each source file through reverse dependencies, grouped by rule type.
+ *
+ * <p>Walks the shared {@link TargetGraphIndex} of the last sync, and keeps the result per source
+ * file until the next sync, so that the run line markers and run configuration producers of a
+ * file don't walk the graph once per gutter icon. The files open in editors are indexed in the
+ * background right after each sync.
+ */
+public final class ReachableTargetsIndex {
+
+  private static final Logger logger = Logger.getInstance(ReachableTargetsIndex.class);
+
+  /** The number of source files whose targets are kept. Each walk is cheap to repeat. */
+  private static final int MAX_CACHED_FILES = 1024;
+
+  private final Project project;
+
+  @Nullable private volatile Snapshot snapshot;
+
+  public ReachableTargetsIndex(Project project) {
+    this.project = project;
+  }
+
+  public static ReachableTargetsIndex getInstance(Project project) {
+    return project.getService(ReachableTargetsIndex.class);
+  }
+
+  /**
+   * Returns the targets of the given rule type (or of any type, if absent) reachable from the
+   * given source files, in the order of {@link TargetInfoComparator}.
+   */
+  public ImmutableSortedSet<TargetInfo> targetsForSourceFiles(
+      Collection<File> sourceFiles, Optional<RuleType> ruleType) {
+    if (BlazeProjectDataManager.getInstance(project).getBlazeProjectData() == null) {
+      return ImmutableSortedSet.of();
+    }
+    Snapshot snapshot = getSnapshot(TargetGraphIndex.get(project));
+    if (sourceFiles.size() == 1) {
+      return snapshot.get(sourceFiles.iterator().next()).get(ruleType);
+    }
+    ImmutableSortedSet.Builder<TargetInfo> result =
+        ImmutableSortedSet.orderedBy(new TargetInfoComparator());
+    for (File file : sourceFiles) {
+      result.addAll(snapshot.get(file).get(ruleType));
+    }
+    return result.build();
+  }
+
+  private Snapshot getSnapshot(TargetGraphIndex index) {
+    Snapshot current = snapshot;
+    if (current != null && current.index == index) {
+      return current;
+    }
+    synchronized (this) {
+      if (snapshot == null || snapshot.index != index) {
+        snapshot = new Snapshot(index);
+      }
+      return snapshot;
+    }
+  }
+
+  /** Indexes the given files, so that later lookups for them don't have to walk the graph. */
+  private void precompute(Collection<File> files) {
+    if (BlazeProjectDataManager.getInstance(project).getBlazeProjectData() == null) {
+      return;
+    }
+    Snapshot snapshot = getSnapshot(TargetGraphIndex.get(project));
+    for (File file : files) {
+      snapshot.get(file);
+    }
+  }
+
+  /** The reachable targets of each source file, for one {@link TargetGraphIndex}. */
+  private static final class Snapshot {
+    private final TargetGraphIndex index;
+    private final Cache<File, ReachableTargets> targets =
+        CacheBuilder.newBuilder().maximumSize(MAX_CACHED_FILES).build();
+
+    Snapshot(TargetGraphIndex index) {
+      this.index = index;
+    }
+
+    ReachableTargets get(File file) {
+      try {
+        return targets.get(file, () -> ReachableTargets.compute(index, file));
+      } catch (ExecutionException e) {
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+  }
+
+  /** The targets reachable from one source file. */
+  @VisibleForTesting
+  static final class ReachableTargets {
+    private static final ReachableTargets EMPTY =
+        new ReachableTargets(ImmutableSortedSet.of(), new EnumMap<>(RuleType.class));
+
+    private final ImmutableSortedSet<TargetInfo> all;
+    private final Map<RuleType, ImmutableSortedSet<TargetInfo>> byRuleType;
+
+    private ReachableTargets(
+        ImmutableSortedSet<TargetInfo> all,
+        Map<RuleType, ImmutableSortedSet<TargetInfo>> byRuleType) {
+      this.all = all;
+      this.byRuleType = byRuleType;
+    }
+
+    static ReachableTargets compute(TargetGraphIndex index, File file) {
+      ImmutableList<TargetKey> keys =
+          index.newReverseClosure().addFiles(ImmutableSet.of(file), /* includeBuildFiles= */ false);
+      if (keys.isEmpty()) {
+        return EMPTY;
+      }
+      ImmutableSortedSet.Builder<TargetInfo> all =
+          ImmutableSortedSet.orderedBy(new TargetInfoComparator());
+      Map<RuleType, ImmutableSortedSet.Builder<TargetInfo>> builders =
+          new EnumMap<>(RuleType.class);
+      for (TargetKey key : keys) {
+        TargetIdeInfo target = index.getTargetMap().get(key);
+        if (target == null) {
+          continue;
+        }
+        TargetInfo info = target.toTargetInfo();
+        all.add(info);
+        builders
+            .computeIfAbsent(
+                info.getRuleType(), t -> ImmutableSortedSet.orderedBy(new TargetInfoComparator()))
+            .add(info);
+      }
+      Map<RuleType, ImmutableSortedSet<TargetInfo>> byRuleType = new EnumMap<>(RuleType.class);
+      builders.forEach((ruleType, builder) -> byRuleType.put(ruleType, builder.build()));
+      return new ReachableTargets(all.build(), byRuleType);
+    }
+
+    ImmutableSortedSet<TargetInfo> get(Optional<RuleType> ruleType) {
+      return ruleType.isEmpty()
+          ? all
+          : byRuleType.getOrDefault(ruleType.get(), ImmutableSortedSet.of());
+    }
+  }
+
+  /** Indexes the files open in editors in the background once a sync has finished. */
+  static final class Precomputer implements SyncListener {
+    @Override
+    public void afterSync(
+        Project project,
+        BlazeContext context,
+        SyncMode syncMode,
+        SyncResult syncResult,
+        ImmutableSet<Integer> buildIds) {
+      if (!syncResult.successful() || project.isDisposed()) {
+        return;
+      }
+      ImmutableList<File> files =
+          ImmutableList.copyOf(FileEditorManager.getInstance(project).getOpenFiles()).stream()
+              .filter(VirtualFile::isInLocalFileSystem)
+              .map(f -> new File(f.getPath()))
+              .collect(ImmutableList.toImmutableList());
+      BlazeExecutor.getInstance()
+          .getExecutor(ExecutionLane.CPU)
+          .execute(
+              () -> {
+                try {
+                  if (!project.isDisposed()) {
+                    getInstance(project).precompute(files);
+                  }
+                } catch (RuntimeException e) {
+                  logger.warn("Failed to index the targets of open files", e);
+                }
+              });
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.run.testmap;
+
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.actions.BlazeProjectAction;
+import com.google.idea.blaze.base.async.FutureUtil;
+import com.google.idea.blaze.base.async.executor.BlazeExecutor;
+import com.google.idea.blaze.base.command.BlazeCommandName;
+import com.google.idea.blaze.base.model.primitives.Label;
+import com.google.idea.blaze.base.model.primitives.TargetExpression;
+import com.google.idea.blaze.base.run.BlazeCommandRunConfiguration;
+import com.google.idea.blaze.base.run.BlazeCommandRunConfigurationType;
+import com.google.idea.blaze.base.run.state.BlazeCommandRunConfigurationCommonState;
+import com.google.idea.blaze.base.scope.Scope;
+import com.google.idea.blaze.base.scope.scopes.IdeaLogScope;
+import com.google.idea.blaze.base.sync.data.BlazeProjectDataManager;
+import com.google.idea.common.actions.ActionPresentationHelper;
+import com.intellij.execution.RunManager;
+import com.intellij.execution.RunnerAndConfigurationSettings;
+import com.intellij.execution.executors.DefaultRunExecutor;
+import com.intellij.execution.runners.ExecutionUtil;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import javax.annotation.Nullable;
+
+/**
+ * Runs the tests affected by the locally changed files.
+ *
+ * <p>The tests are run through an "Affected tests" Blaze run configuration, whose targets are
+ * replaced each time the action runs, so it can also be re-run or edited like any other.
+ */
+public class RunAffectedTestsAction extends BlazeProjectAction {
+
+  private static final String TITLE = "Run Affected Tests";
+  private static final String CONFIGURATION_NAME = "Affected tests";
+
+  @Override
+  protected void updateForBlazeProject(Project project, AnActionEvent e) {
+    ActionPresentationHelper.of(e)
+        .disableIf(BlazeProjectDataManager.getInstance(project).getBlazeProjectData() == null)
+        .commit();
+  }
+
+  @Override
+  protected void actionPerformedInBlazeProject(Project project, AnActionEvent e) {
+    ProgressManager.getInstance()
+        .run(
+            new Task.Backgroundable(project, "Finding affected tests", /* canBeCancelled= */ true) {
+              @Override
+              public void run(ProgressIndicator indicator) {
+                ImmutableList<Label> tests = findAffectedTests(project);
+                if (tests != null) {
+                  ApplicationManager.getApplication()
+                      .invokeLater(() -> runTests(project, tests), project.getDisposed());
+                }
+              }
+            });
+  }
+
+  @Nullable
+  private static ImmutableList<Label> findAffectedTests(Project project) {
+    return Scope.root(
+        context -> {
+          context.push(new IdeaLogScope());
+          return FutureUtil.waitForFuture(
+                  context,
+                  AffectedTestsService.getInstance(project)
+                      .findAffectedTests(context, BlazeExecutor.getInstance().getExecutor()))
+              .withProgressMessage("Finding tests affected by the working set...")
+              .onError("Could not find the affected tests")
+              .run()
+              .result();
+        });
+  }
+
+  private static void runTests(Project project, ImmutableList<Label> tests) {
+    if (tests.isEmpty()) {
+      Messages.showInfoMessage(project, "No tests depend on the changed files.", TITLE);
+      return;
+    }
+    RunnerAndConfigurationSettings settings = getOrCreateConfiguration(project);
+    BlazeCommandRunConfiguration configuration =
+        (BlazeCommandRunConfiguration) settings.getConfiguration();
+    configuration.setTargets(ImmutableList.<TargetExpression>copyOf(tests));
+    BlazeCommandRunConfigurationCommonState state =
+        configuration.getHandlerStateIfType(BlazeCommandRunConfigurationCommonState.class);
+    if (state != null) {
+      state.getCommandState().setCommand(BlazeCommandName.TEST);
+    }
+    RunManager.getInstance(project).setSelectedConfiguration(settings);
+    ExecutionUtil.runConfiguration(settings, DefaultRunExecutor.getRunExecutorInstance());
+  }
+
+  private static RunnerAndConfigurationSettings getOrCreateConfiguration(Project project) {
+    RunManager runManager = RunManager.getInstance(project);
+    BlazeCommandRunConfigurationType type = BlazeCommandRunConfigurationType.getInstance();
+    RunnerAndConfigurationSettings settings =
+        runManager.findConfigurationByTypeAndName(type, CONFIGURATION_NAME);
+    if (settings == null) {
+      settings = runManager.createConfiguration(CONFIGURATION_NAME, type.getFactory());
+      runManager.addConfiguration(settings);
+    }
+    return settings;
+  }
+}
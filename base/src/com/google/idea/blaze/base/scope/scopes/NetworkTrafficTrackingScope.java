@@ -38,6 +38,14 @@ public class NetworkTrafficTrackingScope implements BlazeScope {
       this.bytesConsumed = bytesConsumed;
       this.reason = reason;
     }
+
+    public long getBytesConsumed() {
+      return bytesConsumed;
+    }
+
+    public String getReason() {
+      return reason;
+    }
   }
 
   private final AtomicLongMap<String> networkTrafficUsed = AtomicLongMap.create();
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.scope.scopes;
+
+import com.google.idea.blaze.base.async.executor.ExecutionLane;
+import com.google.idea.blaze.base.scope.BlazeContext;
+import com.google.idea.blaze.base.scope.BlazeScope;
+import com.google.idea.blaze.base.scope.OutputSink.Propagation;
+import com.google.idea.blaze.base.scope.scopes.NetworkTrafficTrackingScope.NetworkTrafficUsedOutput;
+import com.google.idea.blaze.base.sync.profiler.SyncTraceFiles;
+import com.google.idea.blaze.base.sync.profiler.SyncTraceRecorder;
+import com.google.idea.blaze.common.Output;
+import com.google.idea.blaze.common.PrintOutput;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import java.io.IOException;
+import java.nio.file.Path;
+import javax.annotation.Nullable;
+
+/**
+ * Records a trace of the work done within this scope, and writes it to disk when the scope ends.
+ *
+ * <p>Each {@link TimingScope} in a child context becomes a span of the trace, on the thread it ran
+ * on. Counters are added with {@link CounterOutput}.
+ */
+public class ProfilingScope implements BlazeScope {
+
+  private static final Logger logger = Logger.getInstance(ProfilingScope.class);
+
+  /** Output used to add to a counter of the trace, e.g. the number of files processed. */
+  public static class CounterOutput implements Output {
+    private final String name;
+    private final long delta;
+
+    public CounterOutput(String name, long delta) {
+      this.name = name;
+      this.delta = delta;
+    }
+  }
+
+  private final Project project;
+  private final String name;
+  private final SyncTraceRecorder recorder = new SyncTraceRecorder();
+  @Nullable private SyncTraceRecorder.Span span;
+
+  public ProfilingScope(Project project, String name) {
+    this.project = project;
+    this.name = name;
+  }
+
+  /** Returns the recorder of the closest enclosing {@link ProfilingScope}, if any. */
+  @Nullable
+  public static SyncTraceRecorder getRecorder(BlazeContext context) {
+    ProfilingScope scope = context.getScope(ProfilingScope.class);
+    return scope != null ? scope.recorder : null;
+  }
+
+  @Override
+  public void onScopeBegin(BlazeContext context) {
+    span = recorder.beginSpan(name, "sync");
+    context.addOutputSink(
+        CounterOutput.class,
+        output -> {
+          recorder.addToCounter(output.name, output.delta);
+          return Propagation.Continue;
+        });
+    context.addOutputSink(
+        NetworkTrafficUsedOutput.class,
+        output -> {
+          recorder.addToCounter(
+              "networkBytes:" + output.getReason(), output.getBytesConsumed());
+          return Propagation.Continue;
+        });
+  }
+
+  @Override
+  public void onScopeEnd(BlazeContext context) {
+    if (span != null) {
+      recorder.getCounters().forEach(span::putArg);
+      for (ExecutionLane lane : ExecutionLane.values()) {
+        span.putArg("lane:" + lane, lane.getStatistics().toString());
+      }
+      span.putArg("cancelled", context.isCancelled()).end();
+    }
+    try {
+      Path trace = SyncTraceFiles.write(project, recorder);
+      context.output(PrintOutput.log("Sync trace written to " + trace));
+    } catch (IOException e) {
+      logger.warn("Failed to write sync trace", e);
+    }
+  }
+}
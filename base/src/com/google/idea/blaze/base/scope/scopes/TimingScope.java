@@ -21,6 +21,7 @@ import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import com.google.idea.blaze.base.scope.BlazeContext;
 import com.google.idea.blaze.base.scope.BlazeScope;
 import com.google.idea.blaze.base.scope.scopes.TimingScopeListener.TimedEvent;
+import com.google.idea.blaze.base.sync.profiler.SyncTraceRecorder;
 import com.intellij.openapi.diagnostic.Logger;
 import java.time.Duration;
 import java.time.Instant;
@@ -55,6 +56,8 @@ public class TimingScope implements BlazeScope {
 
   private final List<TimingScope> children = Lists.newArrayList();
 
+  @Nullable private SyncTraceRecorder.Span span;
+
   public TimingScope(String name, EventType eventType) {
     this.name = name;
     this.eventType = eventType;
@@ -64,6 +67,10 @@ public class TimingScope implements BlazeScope {
   public void onScopeBegin(BlazeContext context) {
     startTime = Instant.now();
     parentScope = context.getParentScope(this);
+    SyncTraceRecorder recorder = ProfilingScope.getRecorder(context);
+    if (recorder != null) {
+      span = recorder.beginSpan(name, eventType.name());
+    }
 
     if (parentScope != null) {
       parentScope.children.add(this);
@@ -72,6 +79,9 @@ public class TimingScope implements BlazeScope {
 
   @Override
   public void onScopeEnd(BlazeContext context) {
+    if (span != null) {
+      span.putArg("cancelled", context.isCancelled()).end();
+    }
     if (context.isCancelled()) {
       duration = Optional.of(Duration.ZERO);
       return;
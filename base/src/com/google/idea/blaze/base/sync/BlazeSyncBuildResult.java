@@ -21,6 +21,7 @@ import com.google.idea.blaze.base.command.info.BlazeInfo;
 import com.google.idea.blaze.base.logging.utils.BuildPhaseSyncStats;
 import com.google.idea.blaze.base.model.BlazeConfigurationData;
 import com.google.idea.blaze.base.sync.aspects.BlazeBuildOutputs;
+import com.google.idea.blaze.base.sync.aspects.ShardOutputPreloader;
 import com.intellij.util.ObjectUtils;
 import javax.annotation.Nullable;
 
@@ -44,6 +45,8 @@ public abstract class BlazeSyncBuildResult {
                 .addAll(nextResult.getBuildPhaseStats())
                 .build())
         .setConfigurationData(ObjectUtils.coalesce(nextResult.getConfigurationData(), getConfigurationData()))
+        .setShardOutputPreloader(
+            ObjectUtils.coalesce(nextResult.getShardOutputPreloader(), getShardOutputPreloader()))
         .build();
   }
 
@@ -62,6 +65,10 @@ public abstract class BlazeSyncBuildResult {
 
   public abstract ImmutableList<BuildPhaseSyncStats> getBuildPhaseStats();
 
+  /** The IDE info files read while the build was still running, if any. */
+  @Nullable
+  public abstract ShardOutputPreloader getShardOutputPreloader();
+
   public static Builder builder() {
     return new AutoValue_BlazeSyncBuildResult.Builder().setBuildPhaseStats(ImmutableList.of());
   }
@@ -79,6 +86,8 @@ public abstract class BlazeSyncBuildResult {
 
     public abstract Builder setBuildPhaseStats(Iterable<BuildPhaseSyncStats> stats);
 
+    public abstract Builder setShardOutputPreloader(@Nullable ShardOutputPreloader preloader);
+
     public abstract BlazeSyncBuildResult build();
   }
 }
@@ -22,6 +22,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.idea.blaze.base.async.executor.BlazeExecutor;
 import com.google.idea.blaze.base.async.executor.ProgressiveTaskWithProgressIndicator;
 import com.google.idea.blaze.base.bazel.BuildSystem;
 import com.google.idea.blaze.base.bazel.BuildSystem.BuildInvoker;
@@ -60,6 +61,7 @@ import com.google.idea.blaze.base.sync.SyncScope.SyncCanceledException;
 import com.google.idea.blaze.base.sync.SyncScope.SyncFailedException;
 import com.google.idea.blaze.base.sync.aspects.BlazeBuildOutputs;
 import com.google.idea.blaze.base.sync.aspects.BlazeIdeInterface;
+import com.google.idea.blaze.base.sync.aspects.ShardOutputPreloader;
 import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy.OutputGroup;
 import com.google.idea.blaze.base.sync.projectview.ImportRoots;
 import com.google.idea.blaze.base.sync.sharding.BlazeBuildTargetSharder;
@@ -380,19 +382,36 @@ public final class BuildPhaseSyncTask {
       // We don't want blaze build errors to fail the whole sync
       context.setPropagatesErrors(false);
 
+      // with several shards, read the IDE info of each shard while the next ones are building
+      ShardOutputPreloader preloader =
+          shardedTargets.shardCount() > 1 && ShardOutputPreloader.isEnabled()
+              ? ShardOutputPreloader.create(
+                  project, syncParams.syncMode(), BlazeExecutor.getInstance().getExecutor())
+              : null;
+
       BlazeIdeInterface blazeIdeInterface = BlazeIdeInterface.getInstance();
-      return blazeIdeInterface.build(
-          project,
-          context,
-          workspaceRoot,
-          projectState.getBlazeVersionData(),
-          invoker,
-          projectViewSet,
-          shardedTargets,
-          projectState.getLanguageSettings(),
-          ImmutableSet.of(OutputGroup.RESOLVE, OutputGroup.INFO),
-          BlazeInvocationContext.SYNC_CONTEXT,
-          invokeParallel);
+      BlazeBuildOutputs outputs =
+          blazeIdeInterface.build(
+              project,
+              context,
+              workspaceRoot,
+              projectState.getBlazeVersionData(),
+              invoker,
+              projectViewSet,
+              shardedTargets,
+              projectState.getLanguageSettings(),
+              ImmutableSet.of(OutputGroup.RESOLVE, OutputGroup.INFO),
+              BlazeInvocationContext.SYNC_CONTEXT,
+              invokeParallel,
+              preloader != null ? preloader::onShardBuilt : null);
+      if (preloader != null) {
+        if (context.isCancelled()) {
+          preloader.cancel();
+        } else {
+          resultBuilder.setShardOutputPreloader(preloader);
+        }
+      }
+      return outputs;
     });
   }
 
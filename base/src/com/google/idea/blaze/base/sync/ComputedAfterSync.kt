@@ -0,0 +1,323 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync
+
+import com.google.common.annotations.VisibleForTesting
+import com.google.common.collect.ImmutableSet
+import com.google.idea.blaze.base.model.BlazeProjectData
+import com.google.idea.blaze.base.projectview.ProjectViewSet
+import com.google.idea.blaze.base.scope.BlazeContext
+import com.google.idea.blaze.base.settings.BlazeImportSettings
+import com.google.idea.blaze.base.sync.SyncCache.SyncCacheComputable
+import com.intellij.codeInsight.daemon.DaemonCodeAnalyzer
+import com.intellij.ide.projectView.ProjectView
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.components.Service
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.extensions.ExtensionPointName
+import com.intellij.openapi.fileEditor.FileEditorManager
+import com.intellij.openapi.progress.ProcessCanceledException
+import com.intellij.openapi.progress.coroutineToIndicator
+import com.intellij.openapi.project.Project
+import com.intellij.platform.ide.progress.withBackgroundProgress
+import com.intellij.psi.PsiManager
+import com.intellij.ui.EditorNotifications
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.currentCoroutineContext
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.job
+import kotlinx.coroutines.launch
+import java.util.EnumSet
+import java.util.concurrent.ConcurrentHashMap
+
+private val LOG = Logger.getInstance(ComputedAfterSync::class.java)
+
+/**
+ * Computes the [SyncCache] values read by editor features in the background after each sync.
+ *
+ * Editor features often run inside read actions, where computing such a value would freeze the
+ * IDE. They read it with [tryGet] instead, which never blocks: until the value is computed it
+ * returns null, and once it is, the editor features which got null are refreshed, so that they
+ * don't keep showing empty results. Nothing is computed while a sync is running, since it would
+ * be computed from the project data the sync is about to replace.
+ */
+@Service(Service.Level.PROJECT)
+class ComputedAfterSync(private val project: Project, private val scope: CoroutineScope) {
+
+  /**
+   * A [SyncCacheComputable] read by editor features, cached under its class. Register an instance
+   * with the `ComputedAfterSyncValue` extension point to have it computed after every sync, rather
+   * than when it is first read.
+   */
+  interface Value<T> : SyncCacheComputable<T> {
+    /** What to refresh when the value becomes available after a [tryGet] returned null. */
+    fun refreshes(): Set<Refresh>
+
+    companion object {
+      @JvmField
+      val EP_NAME: ExtensionPointName<Value<*>> =
+        ExtensionPointName.create("com.google.idea.blaze.ComputedAfterSyncValue")
+    }
+  }
+
+  /** The editor features which can show results derived from a [Value]. */
+  enum class Refresh {
+    /** Highlighting, inspections and line markers of the files open in editors. */
+    HIGHLIGHTING,
+    EDITOR_NOTIFICATIONS,
+    /** Nodes and decorations of the project view. */
+    PROJECT_VIEW,
+  }
+
+  /** Where the computations show their progress and what they refresh, replaced in tests. */
+  @VisibleForTesting
+  interface Host {
+    suspend fun <T> withProgress(block: suspend () -> T): T
+
+    /** Runs a blocking computation, cancelled along with the calling coroutine. */
+    suspend fun <T> compute(block: () -> T): T
+
+    fun refresh(refreshes: Set<Refresh>)
+  }
+
+  @set:VisibleForTesting
+  var host: Host = PlatformHost(project)
+
+  /** The values computed since the last sync, with null values stored as [NoValue]. */
+  private val values = ConcurrentHashMap<Class<*>, Any>()
+
+  /** Values read before they were computed, which are computed and refreshed next. */
+  private val missed = ConcurrentHashMap<Class<*>, Value<*>>()
+
+  private val lock = Any()
+
+  /** The running computation, guarded by [lock]. */
+  private var job: Job? = null
+
+  /** Whether a sync is running, guarded by [lock]. */
+  private var syncing = false
+
+  /** Counts the syncs, so that a cancelled computation can't store its value. */
+  private var generation = 0
+
+  /**
+   * Returns the value if it was already computed since the last sync. Otherwise returns null, and
+   * computes the value in the background, refreshing its [Value.refreshes] once it is ready. While
+   * a sync is running, the value is only computed once it completes.
+   */
+  fun <T> tryGet(value: Value<T?>): T? {
+    val key = value.javaClass
+    val result = values[key]
+    if (result != null) {
+      @Suppress("UNCHECKED_CAST")
+      return if (result === NoValue) null else result as T
+    }
+    missed.putIfAbsent(key, value)
+    synchronized(lock) {
+      if (job == null && !syncing) {
+        job = launch(emptyList())
+      }
+    }
+    return null
+  }
+
+  /** Cancels the running computation; nothing is computed until [start]. */
+  private fun pause() {
+    synchronized(lock) {
+      job?.cancel()
+      job = null
+      syncing = true
+      generation++
+    }
+  }
+
+  /** Forgets the values computed from the project data replaced by a sync. */
+  private fun invalidate() {
+    synchronized(lock) {
+      job?.cancel()
+      job = null
+      generation++
+      values.clear()
+    }
+  }
+
+  /** Computes all registered values, and any values missed in the meantime. */
+  private fun start() {
+    synchronized(lock) {
+      job?.cancel()
+      syncing = false
+      job = launch(Value.EP_NAME.extensionList)
+    }
+  }
+
+  /** Starts computing the given values, and then the missed ones. Called with [lock] held. */
+  private fun launch(registered: List<Value<*>>): Job {
+    val generation = generation
+    return scope.launch(Dispatchers.Default) {
+      val self = coroutineContext.job
+      val refreshes = EnumSet.noneOf(Refresh::class.java)
+      val completed =
+        try {
+          host.withProgress {
+            registered.all { compute(it, generation) } &&
+              computeMissed(generation, refreshes, self)
+          }
+        } finally {
+          // if it failed, the next read starts over
+          synchronized(lock) {
+            if (job === self) {
+              job = null
+            }
+          }
+        }
+      if (completed && refreshes.isNotEmpty()) {
+        host.refresh(refreshes)
+      }
+    }
+  }
+
+  /**
+   * Computes the missed values until none are left, collecting what they refresh. Returns false if
+   * the values became stale. A missed value stays recorded until it's stored, so that its readers
+   * are refreshed eventually.
+   */
+  private suspend fun computeMissed(
+    generation: Int,
+    refreshes: MutableSet<Refresh>,
+    self: Job,
+  ): Boolean {
+    while (true) {
+      for ((key, value) in missed) {
+        if (!compute(value, generation)) {
+          return false
+        }
+        refreshes.addAll(value.refreshes())
+        missed.remove(key, value)
+      }
+      synchronized(lock) {
+        if (missed.isEmpty()) {
+          if (job === self) {
+            job = null
+          }
+          return true
+        }
+      }
+    }
+  }
+
+  /** Computes and stores a value, returning false if it is stale by the time it's computed. */
+  private suspend fun compute(value: Value<*>, generation: Int): Boolean {
+    currentCoroutineContext().ensureActive()
+    val key = value.javaClass
+    if (values.containsKey(key)) {
+      return true
+    }
+    @Suppress("UNCHECKED_CAST")
+    val computable = value as Value<Any?>
+    val result =
+      try {
+        host.compute { SyncCache.getInstance(project).get(key, computable) }
+      } catch (e: CancellationException) {
+        throw e
+      } catch (e: ProcessCanceledException) {
+        throw e
+      } catch (e: Exception) {
+        // stored all the same, so that readers don't retry it over and over
+        LOG.warn("Failed to compute ${key.name}", e)
+        null
+      }
+    synchronized(lock) {
+      if (generation != this.generation) {
+        return false
+      }
+      values[key] = result ?: NoValue
+      return true
+    }
+  }
+
+  /** Stands in for a computed null value. */
+  private object NoValue
+
+  private class PlatformHost(private val project: Project) : Host {
+    override suspend fun <T> withProgress(block: suspend () -> T): T =
+      withBackgroundProgress(project, "Indexing project targets") { block() }
+
+    override suspend fun <T> compute(block: () -> T): T = coroutineToIndicator { block() }
+
+    override fun refresh(refreshes: Set<Refresh>) {
+      ApplicationManager.getApplication().invokeLater(
+        {
+          if (Refresh.HIGHLIGHTING in refreshes) {
+            val psiManager = PsiManager.getInstance(project)
+            val daemonCodeAnalyzer = DaemonCodeAnalyzer.getInstance(project)
+            for (file in FileEditorManager.getInstance(project).openFiles) {
+              if (file.isValid) {
+                psiManager.findFile(file)?.let(daemonCodeAnalyzer::restart)
+              }
+            }
+          }
+          if (Refresh.EDITOR_NOTIFICATIONS in refreshes) {
+            EditorNotifications.getInstance(project).updateAllNotifications()
+          }
+          if (Refresh.PROJECT_VIEW in refreshes) {
+            ProjectView.getInstance(project).refresh()
+          }
+        },
+        project.disposed,
+      )
+    }
+  }
+
+  internal class Scheduler : SyncListener {
+    override fun onSyncStart(project: Project, context: BlazeContext?, syncMode: SyncMode?) {
+      // values computed now would be derived from the project data the sync replaces
+      getInstance(project).pause()
+    }
+
+    override fun onSyncComplete(
+      project: Project,
+      context: BlazeContext?,
+      importSettings: BlazeImportSettings?,
+      projectViewSet: ProjectViewSet?,
+      buildIds: ImmutableSet<Int>?,
+      blazeProjectData: BlazeProjectData?,
+      syncMode: SyncMode?,
+      syncResult: SyncResult?
+    ) {
+      getInstance(project).invalidate()
+    }
+
+    override fun afterSync(
+      project: Project,
+      context: BlazeContext?,
+      syncMode: SyncMode?,
+      syncResult: SyncResult?,
+      buildIds: ImmutableSet<Int>?
+    ) {
+      getInstance(project).start()
+    }
+  }
+
+  companion object {
+    @JvmStatic
+    fun getInstance(project: Project): ComputedAfterSync {
+      return project.getService(ComputedAfterSync::class.java)
+    }
+  }
+}
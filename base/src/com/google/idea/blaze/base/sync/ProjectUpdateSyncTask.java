@@ -16,6 +16,7 @@
 package com.google.idea.blaze.base.sync;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.idea.blaze.base.async.FutureUtil;
 import com.google.idea.blaze.base.async.FutureUtil.FutureResult;
@@ -24,6 +25,7 @@ import com.google.idea.blaze.base.filecache.FileCaches;
 import com.google.idea.blaze.base.filecache.RemoteOutputsCache;
 import com.google.idea.blaze.base.ideinfo.TargetMap;
 import com.google.idea.blaze.base.io.VirtualFileSystemProvider;
+import com.google.idea.blaze.base.logging.EventLoggingService;
 import com.google.idea.blaze.base.model.BlazeConfigurationData;
 import com.google.idea.blaze.base.model.BlazeLibrary;
 import com.google.idea.blaze.base.model.BlazeProjectData;
@@ -250,7 +252,21 @@ final class ProjectUpdateSyncTask {
             .onError("Prefetch failed")
             .run();
     if (result.success()) {
-      long prefetched = result.result().bytesPrefetched();
+      PrefetchStats stats = result.result();
+      logger.info(
+          String.format(
+              "Prefetch: %d files fetched, %d recently fetched, %d missing",
+              stats.filesFetched(), stats.ledgerHits(), stats.filesSkipped()));
+      long prefetched = stats.bytesPrefetched();
+      EventLoggingService.getInstance()
+          .logEvent(
+              ProjectUpdateSyncTask.class,
+              "prefetch",
+              ImmutableMap.of(
+                  "fetched", String.valueOf(stats.filesFetched()),
+                  "recently_fetched", String.valueOf(stats.ledgerHits()),
+                  "missing", String.valueOf(stats.filesSkipped()),
+                  "bytes", String.valueOf(prefetched)));
       if (prefetched > 0) {
         context.output(new NetworkTrafficUsedOutput(prefetched, "prefetch"));
       }
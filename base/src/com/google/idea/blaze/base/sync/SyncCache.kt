@@ -26,10 +26,15 @@ import com.google.idea.blaze.base.sync.data.BlazeProjectDataManager
 import com.google.idea.blaze.base.util.LockCriticalSection
 import com.google.idea.blaze.base.util.LockCriticalSection.TryLockResult.Acquired
 import com.intellij.openapi.components.Service
+import com.intellij.openapi.extensions.ExtensionPointName
 import com.intellij.openapi.project.Project
 import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.runBlocking
+import java.io.DataInput
+import java.io.DataOutput
+import java.io.IOException
 
 /** Computes a cache on the project data.  */
 @Service(Service.Level.PROJECT)
@@ -39,10 +44,38 @@ class SyncCache(private val project: Project, private val scope: CoroutineScope)
     fun compute(project: Project, projectData: BlazeProjectData): T?
   }
 
+  /**
+   * A [SyncCacheComputable] whose values are also written to disk, so that they can be restored
+   * after a restart instead of being computed again. Values are cached under the class of the
+   * computable. Register an instance with the `PersistentSyncCacheComputable` extension point to
+   * have it restored in the background when the project is opened.
+   */
+  interface PersistentSyncCacheComputable<T> : SyncCacheComputable<T> {
+    /** The name of the snapshot file. Change it whenever the serialized form changes. */
+    fun snapshotName(): String
+
+    @Throws(IOException::class)
+    fun write(projectData: BlazeProjectData, value: T, out: DataOutput)
+
+    /**
+     * Reads a value written by [write] for a project data with the same target map, whose artifact
+     * locations decode against the same roots.
+     */
+    @Throws(IOException::class)
+    fun read(projectData: BlazeProjectData, input: DataInput): T
+
+    companion object {
+      @JvmField
+      val EP_NAME: ExtensionPointName<PersistentSyncCacheComputable<*>> =
+        ExtensionPointName.create("com.google.idea.blaze.PersistentSyncCacheComputable")
+    }
+  }
+
   private data class Data(val cache: MutableMap<Any, Any?>)
 
   private val data = Data(Maps.newConcurrentMap<Any, Any>())
   private val section = LockCriticalSection<Data>(data)
+  private val snapshots = SyncCacheSnapshots(project, scope)
 
   /**
    * Tries to get a value from the cache. If cache can't be acquired immediately,
@@ -78,12 +111,51 @@ class SyncCache(private val project: Project, private val scope: CoroutineScope)
         BlazeProjectDataManager.getInstance(project).getBlazeProjectData()
           ?: return@withLockInterruptible null
 
-      val value = computable.compute(project, blazeProjectData)
+      val value = if (computable is PersistentSyncCacheComputable<T?>) {
+        snapshots.read(computable, blazeProjectData)
+          ?: computable.compute(project, blazeProjectData)?.also {
+            snapshots.write(computable, blazeProjectData, it)
+          }
+      } else {
+        computable.compute(project, blazeProjectData)
+      }
       cache[key] = value
       value
     }
   }
 
+  /** Like [get], with the class of the computable as the key. */
+  fun <T> get(computable: PersistentSyncCacheComputable<T?>): T? {
+    return get(computable.javaClass, computable)
+  }
+
+  /** Like [tryGet], with the class of the computable as the key. */
+  fun <T> tryGet(computable: PersistentSyncCacheComputable<T?>): T? {
+    return tryGet(computable.javaClass, computable)
+  }
+
+  /**
+   * Restores the values of the registered [PersistentSyncCacheComputable]s from their snapshots
+   * in the background. Values without a valid snapshot are left to be computed on first use.
+   */
+  private fun restoreSnapshots() {
+    if (!SyncCacheSnapshots.isEnabled()) {
+      return
+    }
+    for (computable in PersistentSyncCacheComputable.EP_NAME.extensionList) {
+      scope.launch(Dispatchers.IO) {
+        section.withLock {
+          if (cache.containsKey(computable.javaClass)) {
+            return@withLock
+          }
+          val blazeProjectData =
+            BlazeProjectDataManager.getInstance(project).getBlazeProjectData() ?: return@withLock
+          snapshots.read(computable, blazeProjectData)?.let { cache[computable.javaClass] = it }
+        }
+      }
+    }
+  }
+
   @VisibleForTesting
   fun clear() {
     // use of raw runBlocking here because we're called by
@@ -109,6 +181,10 @@ class SyncCache(private val project: Project, private val scope: CoroutineScope)
     ) {
       val syncCache = getInstance(project)
       syncCache.clear()
+      if (syncMode == SyncMode.STARTUP) {
+        // the project data was loaded from disk, so the snapshots written for it are still valid
+        syncCache.restoreSnapshots()
+      }
     }
   }
 
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync
+
+import com.google.common.hash.HashCode
+import com.google.common.hash.Hashing
+import com.google.idea.blaze.base.model.BlazeProjectData
+import com.google.idea.blaze.base.settings.BlazeImportSettingsManager
+import com.google.idea.blaze.base.sync.SyncCache.PersistentSyncCacheComputable
+import com.google.idea.blaze.base.sync.data.BlazeDataStorage
+import com.google.idea.common.experiments.BoolExperiment
+import com.intellij.openapi.application.ApplicationManager
+import com.intellij.openapi.diagnostic.Logger
+import com.intellij.openapi.progress.ProcessCanceledException
+import com.intellij.openapi.project.Project
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.launch
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.lang.ref.WeakReference
+import java.nio.file.Files
+import java.nio.file.NoSuchFileException
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.util.zip.GZIPInputStream
+import java.util.zip.GZIPOutputStream
+
+private val LOG = Logger.getInstance(SyncCacheSnapshots::class.java)
+
+private val snapshotsEnabled = BoolExperiment("blaze.sync.cache.snapshots", true)
+
+/**
+ * Stores the values of [PersistentSyncCacheComputable]s next to the project data.
+ *
+ * Each snapshot starts with a fingerprint of the project data it was computed from, and is only
+ * read back for a project data with the same fingerprint. The project data carries no sync id, so
+ * the fingerprint stands in for one: a sync that changes any target changes the fingerprint. Values
+ * may hold files decoded from artifact locations, so the roots those are resolved against are part
+ * of the fingerprint as well.
+ */
+internal class SyncCacheSnapshots(private val project: Project, private val scope: CoroutineScope) {
+
+  /** The fingerprint of the last project data seen, which is not kept alive by it. */
+  @Volatile
+  private var fingerprint: Pair<WeakReference<BlazeProjectData>, HashCode>? = null
+
+  /** Reads the snapshot of the given computable, or returns null if there is no valid one. */
+  fun <T> read(computable: PersistentSyncCacheComputable<T>, projectData: BlazeProjectData): T? {
+    val file = getFile(computable) ?: return null
+    try {
+      val stream = GZIPInputStream(Files.newInputStream(file))
+      DataInputStream(BufferedInputStream(stream)).use { input ->
+        if (input.readInt() != FORMAT_VERSION) {
+          return null
+        }
+        val bytes = ByteArray(input.readUnsignedByte())
+        input.readFully(bytes)
+        if (HashCode.fromBytes(bytes) != fingerprint(projectData)) {
+          return null
+        }
+        return computable.read(projectData, input)
+      }
+    } catch (e: NoSuchFileException) {
+      return null
+    } catch (e: ProcessCanceledException) {
+      throw e
+    } catch (e: Exception) {
+      LOG.warn("Could not read ${computable.snapshotName()} snapshot", e)
+      return null
+    }
+  }
+
+  /** Writes the snapshot of the given computable in the background. */
+  fun <T : Any> write(
+    computable: PersistentSyncCacheComputable<T?>,
+    projectData: BlazeProjectData,
+    value: T,
+  ) {
+    val file = getFile(computable) ?: return
+    scope.launch(Dispatchers.IO) {
+      try {
+        writeFile(file) { out ->
+          out.writeInt(FORMAT_VERSION)
+          val bytes = fingerprint(projectData).asBytes()
+          out.writeByte(bytes.size)
+          out.write(bytes)
+          computable.write(projectData, value, out)
+        }
+      } catch (e: ProcessCanceledException) {
+        throw e
+      } catch (e: Exception) {
+        LOG.warn("Could not write ${computable.snapshotName()} snapshot", e)
+      }
+    }
+  }
+
+  private fun getFile(computable: PersistentSyncCacheComputable<*>): Path? {
+    if (!isEnabled()) {
+      return null
+    }
+    val importSettings =
+      BlazeImportSettingsManager.getInstance(project).getImportSettings() ?: return null
+    return BlazeDataStorage.getProjectCacheDir(project, importSettings)
+      .toPath()
+      .resolve(SNAPSHOT_DIRECTORY)
+      .resolve(computable.snapshotName() + ".dat.gz")
+  }
+
+  private fun fingerprint(projectData: BlazeProjectData): HashCode {
+    fingerprint?.let { (data, hash) -> if (data.get() === projectData) return hash }
+    return computeFingerprint(projectData).also { fingerprint = WeakReference(projectData) to it }
+  }
+
+  companion object {
+    private const val FORMAT_VERSION = 2
+    private const val SNAPSHOT_DIRECTORY = "sync_cache"
+
+    @JvmStatic
+    fun isEnabled(): Boolean {
+      return snapshotsEnabled.value && !ApplicationManager.getApplication().isUnitTestMode
+    }
+
+    /**
+     * Hashes the parts of a project data that identify it across restarts: the order and keys of
+     * its targets and when each was last synced, and the roots artifact locations are decoded
+     * against.
+     */
+    private fun computeFingerprint(projectData: BlazeProjectData): HashCode {
+      val hasher = Hashing.murmur3_128().newHasher()
+      hasher.putUnencodedChars(projectData.blazeInfo().executionRoot.path)
+      hasher.putBytes(projectData.workspacePathResolver().toProto().toByteArray())
+      val targetMap = projectData.targetMap()
+      hasher.putInt(targetMap.size())
+      for (target in targetMap.targets()) {
+        hasher.putUnencodedChars(target.key.toString())
+        hasher.putUnencodedChars(target.kind.kindString)
+        hasher.putLong(target.syncTime?.toEpochMilli() ?: 0)
+        hasher.putInt(target.dependencies.size)
+        hasher.putInt(target.sources.size)
+      }
+      return hasher.hash()
+    }
+
+    private fun writeFile(file: Path, body: (DataOutputStream) -> Unit) {
+      Files.createDirectories(file.parent)
+      val temp = Files.createTempFile(file.parent, file.fileName.toString(), ".tmp")
+      try {
+        DataOutputStream(BufferedOutputStream(GZIPOutputStream(Files.newOutputStream(temp))))
+          .use(body)
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+      } finally {
+        Files.deleteIfExists(temp)
+      }
+    }
+  }
+}
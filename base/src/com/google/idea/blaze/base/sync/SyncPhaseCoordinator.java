@@ -58,6 +58,7 @@ import com.google.idea.blaze.base.scope.scopes.NetworkTrafficTrackingScope;
 import com.google.idea.blaze.base.scope.scopes.NotificationScope;
 import com.google.idea.blaze.base.scope.scopes.PerformanceWarningScope;
 import com.google.idea.blaze.base.scope.scopes.ProblemsViewScope;
+import com.google.idea.blaze.base.scope.scopes.ProfilingScope;
 import com.google.idea.blaze.base.scope.scopes.ProgressIndicatorScope;
 import com.google.idea.blaze.base.scope.scopes.SharedStringPoolScope;
 import com.google.idea.blaze.base.scope.scopes.TimingScope;
@@ -78,6 +79,7 @@ import com.google.idea.blaze.base.sync.aspects.storage.AspectStorageService;
 import com.google.idea.blaze.base.sync.data.BlazeDataStorage;
 import com.google.idea.blaze.base.sync.data.BlazeProjectDataManager;
 import com.google.idea.blaze.base.sync.libraries.BlazeLibraryCollector;
+import com.google.idea.blaze.base.sync.profiler.SyncTraceFiles;
 import com.google.idea.blaze.base.sync.projectstructure.ModuleFinder;
 import com.google.idea.blaze.base.toolwindow.Task;
 import com.google.idea.blaze.base.util.SaveUtil;
@@ -703,6 +705,10 @@ public final class SyncPhaseCoordinator {
     }
     context.push(new ProgressIndicatorScope(indicator));
     context.push(new NetworkTrafficTrackingScope());
+    if (SyncTraceFiles.isEnabled()) {
+      // pushed after NetworkTrafficTrackingScope, so it sees network traffic outputs first
+      context.push(new ProfilingScope(project, task.getName()));
+    }
     context.push(new SharedStringPoolScope());
 
     BlazeUserSettings userSettings = BlazeUserSettings.getInstance();
@@ -31,6 +31,7 @@ import com.google.idea.blaze.base.sync.projectview.WorkspaceLanguageSettings;
 import com.google.idea.blaze.base.sync.sharding.ShardedTargetList;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.project.Project;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 
 /** A blaze build interface used for mocking out the blaze layer in tests. */
@@ -60,6 +61,40 @@ public interface BlazeIdeInterface {
    *
    * @param outputGroups Set of {@link OutputGroup} to be generated in the build.
    */
+  default BlazeBuildOutputs build(
+      Project project,
+      BlazeContext context,
+      WorkspaceRoot workspaceRoot,
+      BlazeVersionData blazeVersion,
+      BuildInvoker invoker,
+      ProjectViewSet projectViewSet,
+      ShardedTargetList shardedTargets,
+      WorkspaceLanguageSettings workspaceLanguageSettings,
+      ImmutableSet<OutputGroup> outputGroups,
+      BlazeInvocationContext blazeInvocationContext,
+      boolean invokeParallel) {
+    return build(
+        project,
+        context,
+        workspaceRoot,
+        blazeVersion,
+        invoker,
+        projectViewSet,
+        shardedTargets,
+        workspaceLanguageSettings,
+        outputGroups,
+        blazeInvocationContext,
+        invokeParallel,
+        /* onShardBuilt= */ null);
+  }
+
+  /**
+   * Invokes a blaze build for the given output groups.
+   *
+   * @param outputGroups Set of {@link OutputGroup} to be generated in the build.
+   * @param onShardBuilt If non-null, called with the outputs of each shard as soon as it finishes,
+   *     possibly while other shards are still building.
+   */
   BlazeBuildOutputs build(
       Project project,
       BlazeContext context,
@@ -71,5 +106,6 @@ public interface BlazeIdeInterface {
       WorkspaceLanguageSettings workspaceLanguageSettings,
       ImmutableSet<OutputGroup> outputGroups,
       BlazeInvocationContext blazeInvocationContext,
-      boolean invokeParallel);
+      boolean invokeParallel,
+      @Nullable Consumer<BlazeBuildOutputs> onShardBuilt);
 }
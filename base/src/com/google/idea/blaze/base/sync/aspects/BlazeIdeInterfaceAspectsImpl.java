@@ -17,6 +17,7 @@ package com.google.idea.blaze.base.sync.aspects;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
@@ -30,9 +31,11 @@ import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.devtools.intellij.ideinfo.IntellijIdeInfo;
 import com.google.idea.blaze.base.async.FutureUtil;
 import com.google.idea.blaze.base.async.executor.BlazeExecutor;
+import com.google.idea.blaze.base.async.executor.ExecutionLane;
 import com.google.idea.blaze.base.bazel.BuildSystem.BuildInvoker;
 import com.google.idea.blaze.base.buildview.BazelExecService;
 import com.google.idea.blaze.base.command.BlazeCommand;
@@ -44,6 +47,7 @@ import com.google.idea.blaze.base.command.buildresult.BuildResult;
 import com.google.idea.blaze.base.command.buildresult.LocalFileArtifact;
 import com.google.idea.blaze.base.command.buildresult.RemoteOutputArtifact;
 import com.google.idea.blaze.base.command.info.BlazeConfigurationHandler;
+import com.google.idea.blaze.base.filecache.ArtifactStateTable;
 import com.google.idea.blaze.base.filecache.ArtifactsDiff;
 import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
 import com.google.idea.blaze.base.ideinfo.TargetKey;
@@ -71,6 +75,8 @@ import com.google.idea.blaze.base.scope.output.PerformanceWarning;
 import com.google.idea.blaze.base.scope.output.StatusOutput;
 import com.google.idea.blaze.base.scope.output.SummaryOutput;
 import com.google.idea.blaze.base.scope.output.SummaryOutput.Prefix;
+import com.google.idea.blaze.base.scope.scopes.ProfilingScope;
+import com.google.idea.blaze.base.scope.scopes.ProfilingScope.CounterOutput;
 import com.google.idea.blaze.base.scope.scopes.TimingScope;
 import com.google.idea.blaze.base.scope.scopes.TimingScope.EventType;
 import com.google.idea.blaze.base.scope.scopes.ToolWindowScope;
@@ -81,7 +87,9 @@ import com.google.idea.blaze.base.sync.BuildPhaseSyncTask;
 import com.google.idea.blaze.base.sync.SyncProjectState;
 import com.google.idea.blaze.base.command.buildresult.BuildResult.Status;
 import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy;
+import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy.IdeInfoFormat;
 import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy.OutputGroup;
+import com.google.idea.blaze.base.sync.profiler.SyncTraceRecorder;
 import com.google.idea.blaze.base.sync.projectview.ImportRoots;
 import com.google.idea.blaze.base.sync.projectview.LanguageSupport;
 import com.google.idea.blaze.base.sync.projectview.WorkspaceLanguageSettings;
@@ -102,7 +110,9 @@ import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.util.registry.Registry;
 import com.intellij.pom.NavigatableAdapter;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -120,8 +130,10 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -214,10 +226,22 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
             .distinct()
             .collect(toImmutableList());
 
+    // entries of IDE info bundles are diffed once their bundles are read, see IdeInfoBundleDiff
+    ArtifactStateTable prevFileState = null;
+    Map<String, IdeInfoBundleEntryState> prevBundleEntries = new HashMap<>();
+    if (prevState != null) {
+      prevFileState =
+          prevState.ideInfoFileState.filter(state -> !(state instanceof IdeInfoBundleEntryState));
+      for (ArtifactState state : prevState.ideInfoFileState.states()) {
+        if (state instanceof IdeInfoBundleEntryState) {
+          prevBundleEntries.put(state.getKey(), (IdeInfoBundleEntryState) state);
+        }
+      }
+    }
+
     ArtifactsDiff diff;
     try {
-      diff =
-          ArtifactsDiff.diffArtifacts(prevState != null ? prevState.ideInfoFileState : null, files);
+      diff = ArtifactsDiff.diffArtifacts(prevFileState, files);
     } catch (InterruptedException e) {
       throw new ProcessCanceledException(e);
     } catch (ExecutionException e) {
@@ -235,17 +259,28 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
                 "Total rules: %d, new/changed: %d, removed: %d",
                 targetCount, diff.getUpdatedOutputs().size(), removedCount)));
 
+    // files read while later build shards were still running needn't be fetched again
+    Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> preloaded =
+        getPreloadedFiles(buildResult.getShardOutputPreloader(), diff);
+    ImmutableList<OutputArtifactWithoutDigest> filesToFetch =
+        diff.getUpdatedOutputs().stream()
+            .filter(f -> !preloaded.containsKey(f.getBazelOutRelativePath()))
+            .collect(toImmutableList());
+    if (!preloaded.isEmpty()) {
+      context.output(
+          PrintOutput.log(
+              String.format(Locale.ROOT, "Read while building: %d", preloaded.size())));
+    }
+
     ListenableFuture<?> downloadArtifactsFuture =
         RemoteArtifactPrefetcher.getInstance()
             .downloadArtifacts(
                 /* projectName= */ project.getName(),
-                /* outputArtifacts= */ RemoteOutputArtifact.getRemoteArtifacts(
-                    diff.getUpdatedOutputs()));
+                /* outputArtifacts= */ RemoteOutputArtifact.getRemoteArtifacts(filesToFetch));
     ListenableFuture<?> loadFilesInJvmFuture =
         RemoteArtifactPrefetcher.getInstance()
             .loadFilesInJvm(
-                /* outputArtifacts= */ RemoteOutputArtifact.getRemoteArtifacts(
-                    diff.getUpdatedOutputs()));
+                /* outputArtifacts= */ RemoteOutputArtifact.getRemoteArtifacts(filesToFetch));
 
     if (!FutureUtil.waitForFuture(
             context, Futures.allAsList(downloadArtifactsFuture, loadFilesInJvmFuture))
@@ -259,7 +294,7 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
     ListenableFuture<?> fetchLocalFilesFuture =
         PrefetchService.getInstance()
             .prefetchFiles(
-                /* files= */ LocalFileArtifact.getLocalFiles(diff.getUpdatedOutputs()),
+                /* files= */ LocalFileArtifact.getLocalFiles(filesToFetch),
                 /* refetchCachedFiles= */ true,
                 /* fetchFileTypes= */ false);
     if (!FutureUtil.waitForFuture(context, fetchLocalFilesFuture)
@@ -283,6 +318,8 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
             context,
             prevState,
             diff,
+            preloaded,
+            prevBundleEntries,
             configHandler,
             projectState.getLanguageSettings(),
             importRoots,
@@ -306,18 +343,94 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
     return state;
   }
 
+  /**
+   * Returns the updated IDE info files which were already read during the build, keyed by their
+   * artifact key.
+   */
+  private static Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> getPreloadedFiles(
+      @Nullable ShardOutputPreloader preloader, ArtifactsDiff diff) {
+    if (preloader == null) {
+      return ImmutableMap.of();
+    }
+    try {
+      preloader.awaitRegistration();
+    } catch (InterruptedException e) {
+      throw new ProcessCanceledException(e);
+    }
+    Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> preloaded = new HashMap<>();
+    for (OutputArtifactWithoutDigest file : diff.getUpdatedOutputs()) {
+      String key = file.getBazelOutRelativePath();
+      ListenableFuture<IntellijIdeInfo.TargetIdeInfo> message =
+          preloader.get(key, diff.getNewState().get(key));
+      if (message != null) {
+        preloaded.put(key, message);
+      }
+    }
+    return preloaded;
+  }
+
+  /** Reads an IDE info file, unless it was already read during the build. */
+  private static ListenableFuture<IntellijIdeInfo.TargetIdeInfo> readAspectFile(
+      OutputArtifactWithoutDigest file,
+      @Nullable ListenableFuture<IntellijIdeInfo.TargetIdeInfo> preloaded,
+      ListeningExecutorService ioExecutor,
+      ListeningExecutorService cpuExecutor) {
+    if (preloaded == null) {
+      return readAspectFile(file, ioExecutor, cpuExecutor);
+    }
+    return Futures.whenAllComplete(preloaded)
+        .callAsync(
+            () -> {
+              try {
+                return Futures.immediateFuture(Futures.getDone(preloaded));
+              } catch (ExecutionException | CancellationException e) {
+                logger.warn(
+                    "Failed to preload " + file.getBazelOutRelativePath() + ", reading it again",
+                    e);
+                return readAspectFile(file, ioExecutor, cpuExecutor);
+              }
+            },
+            MoreExecutors.directExecutor());
+  }
+
+  /**
+   * Reads an IDE info file on the IO executor, and only decodes it on the CPU executor, so CPU
+   * threads never wait for the file system.
+   */
+  private static ListenableFuture<IntellijIdeInfo.TargetIdeInfo> readAspectFile(
+      OutputArtifactWithoutDigest file,
+      ListeningExecutorService ioExecutor,
+      ListeningExecutorService cpuExecutor) {
+    IdeInfoFormat format =
+        IdeInfoFormat.forFileName(file.getBazelOutRelativePath()).orElse(IdeInfoFormat.TEXT);
+    ListenableFuture<byte[]> content =
+        ioExecutor.submit(
+            () -> {
+              try (InputStream in = file.getInputStream()) {
+                return in.readAllBytes();
+              }
+            });
+    return Futures.transformAsync(
+        content,
+        bytes ->
+            Futures.immediateFuture(
+                AspectStrategy.readAspectFile(new ByteArrayInputStream(bytes), format)),
+        cpuExecutor);
+  }
+
   @Nullable
   private static TargetMapAndInterfaceState updateState(
       Project project,
       BlazeContext parentContext,
       @Nullable BlazeIdeInterfaceState prevState,
       ArtifactsDiff fileState,
+      Map<String, ListenableFuture<IntellijIdeInfo.TargetIdeInfo>> preloaded,
+      Map<String, IdeInfoBundleEntryState> prevBundleEntries,
       BlazeConfigurationHandler configHandler,
       WorkspaceLanguageSettings languageSettings,
       ImportRoots importRoots,
       boolean mergeWithOldState,
       @Nullable TargetMap oldTargetMap) {
-    AspectStrategy aspectStrategy = AspectStrategy.getInstance();
     Result<TargetMapAndInterfaceState> result =
         Scope.push(
             parentContext,
@@ -328,16 +441,62 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
               // ideally, we'd flush through a per-build sync time parsed from BEP. For now, though
               // just set an approximate, batched sync time.
               Instant syncTime = Instant.now();
-              Map<String, ArtifactState> nextFileState = new HashMap<>(fileState.getNewState());
+              // files are read on the IO lane, and only decoded on the CPU lane
+              ListeningExecutorService ioExecutor =
+                  BlazeExecutor.getInstance().getExecutor(ExecutionLane.IO);
+              ListeningExecutorService cpuExecutor =
+                  BlazeExecutor.getInstance().getExecutor(ExecutionLane.CPU);
+
+              List<OutputArtifactWithoutDigest> updatedFiles = new ArrayList<>();
+              List<OutputArtifactWithoutDigest> updatedBundles = new ArrayList<>();
+              for (OutputArtifactWithoutDigest file : fileState.getUpdatedOutputs()) {
+                (IdeInfoBundleDiff.isBundle(file.getBazelOutRelativePath())
+                        ? updatedBundles
+                        : updatedFiles)
+                    .add(file);
+              }
+              // if we're merging with the old state, bundles are never removed
+              Set<String> removedBundles =
+                  mergeWithOldState
+                      ? ImmutableSet.of()
+                      : fileState.getRemovedOutputs().stream()
+                          .map(ArtifactState::getKey)
+                          .filter(IdeInfoBundleDiff::isBundle)
+                          .collect(toImmutableSet());
+              IdeInfoBundleDiff bundleDiff;
+              try {
+                bundleDiff =
+                    IdeInfoBundleDiff.compute(
+                        prevBundleEntries, updatedBundles, removedBundles, ioExecutor);
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Result.error(null);
+              } catch (ExecutionException e) {
+                return Result.error(e);
+              }
+              if (!updatedBundles.isEmpty() || !removedBundles.isEmpty()) {
+                context.output(
+                    PrintOutput.log(
+                        String.format(Locale.ROOT,
+                            "Bundled rules: %d, new/changed: %d, removed: %d",
+                            bundleDiff.getNewState().size(),
+                            bundleDiff.getUpdatedEntries().size(),
+                            bundleDiff.getRemovedEntries().size())));
+              }
+
+              ArtifactStateTable nextFileState =
+                  fileState
+                      .getNewState()
+                      .overriddenBy(ArtifactStateTable.copyOf(bundleDiff.getNewState()));
 
               // If we're not removing we have to merge the old state
               // into the new one or we'll miss file removes next time
               if (mergeWithOldState && prevState != null) {
-                prevState.ideInfoFileState.forEach(nextFileState::putIfAbsent);
+                nextFileState = prevState.ideInfoFileState.overriddenBy(nextFileState);
               }
 
               BlazeIdeInterfaceState.Builder state = BlazeIdeInterfaceState.builder();
-              state.ideInfoFileState = ImmutableMap.copyOf(nextFileState);
+              state.ideInfoFileState = nextFileState;
 
               Map<TargetKey, TargetIdeInfo> targetMap = Maps.newHashMap();
               if (prevState != null && oldTargetMap != null) {
@@ -353,30 +512,69 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
                     targetMap.remove(key);
                   }
                 }
+                for (String removed : bundleDiff.getRemovedEntries()) {
+                  TargetKey key = state.ideInfoToTargetKey.remove(removed);
+                  if (key != null) {
+                    targetMap.remove(key);
+                  }
+                }
               }
 
               AtomicLong totalSizeLoaded = new AtomicLong(0);
               Set<LanguageClass> ignoredLanguages = Sets.newConcurrentHashSet();
-
-              ListeningExecutorService executor = BlazeExecutor.getInstance().getExecutor();
+              SyncTraceRecorder recorder = ProfilingScope.getRecorder(context);
 
               // Read protos from any new files
               List<ListenableFuture<TargetFilePair>> futures = Lists.newArrayList();
-              for (OutputArtifactWithoutDigest file : fileState.getUpdatedOutputs()) {
+              for (OutputArtifactWithoutDigest file : updatedFiles) {
+                ListenableFuture<IntellijIdeInfo.TargetIdeInfo> message =
+                    readAspectFile(
+                        file,
+                        preloaded.get(file.getBazelOutRelativePath()),
+                        ioExecutor,
+                        cpuExecutor);
                 futures.add(
-                    executor.submit(
+                    Futures.transform(
+                        message,
+                        m -> {
+                          try (SyncTraceRecorder.Span span =
+                              beginSpan(recorder, "ConvertAspectFile")) {
+                            totalSizeLoaded.addAndGet(file.getLength());
+                            TargetIdeInfo target =
+                                protoToTarget(
+                                    languageSettings,
+                                    importRoots,
+                                    m,
+                                    ignoredLanguages,
+                                    syncTime);
+                            return new TargetFilePair(
+                                file.getBazelOutRelativePath(),
+                                file.getConfigurationMnemonicForLegacySync(),
+                                target);
+                          }
+                        },
+                        cpuExecutor));
+              }
+              for (IdeInfoBundleDiff.Entry entry : bundleDiff.getUpdatedEntries()) {
+                futures.add(
+                    cpuExecutor.submit(
                         () -> {
-                          totalSizeLoaded.addAndGet(file.getLength());
-                          IntellijIdeInfo.TargetIdeInfo message =
-                              aspectStrategy.readAspectFile(file);
-                          TargetIdeInfo target =
-                              protoToTarget(
-                                  languageSettings,
-                                  importRoots,
-                                  message,
-                                  ignoredLanguages,
-                                  syncTime);
-                          return new TargetFilePair(file, target);
+                          try (SyncTraceRecorder.Span span =
+                              beginSpan(recorder, "ReadBundledAspectEntry")) {
+                            byte[] content = entry.content.getBytes(UTF_8);
+                            totalSizeLoaded.addAndGet(content.length);
+                            IntellijIdeInfo.TargetIdeInfo message =
+                                AspectStrategy.readAspectFile(
+                                    new ByteArrayInputStream(content), IdeInfoFormat.JSON);
+                            TargetIdeInfo target =
+                                protoToTarget(
+                                    languageSettings,
+                                    importRoots,
+                                    message,
+                                    ignoredLanguages,
+                                    syncTime);
+                            return new TargetFilePair(entry.key, entry.configuration, target);
+                          }
                         }));
               }
 
@@ -389,12 +587,11 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
               try {
                 for (TargetFilePair targetFilePair : Futures.allAsList(futures).get()) {
                   if (targetFilePair.target != null) {
-                    OutputArtifactWithoutDigest file = targetFilePair.file;
-                    String config = file.getConfigurationMnemonicForLegacySync();
+                    String config = targetFilePair.config;
                     configurations.add(config);
                     TargetKey key = targetFilePair.target.getKey();
                     if (targetMap.putIfAbsent(key, targetFilePair.target) == null) {
-                      state.ideInfoToTargetKey.forcePut(file.getBazelOutRelativePath(), key);
+                      state.ideInfoToTargetKey.forcePut(targetFilePair.artifactKey, key);
                     } else {
                       if (!newTargets.add(key)) {
                         duplicateTargetLabels++;
@@ -402,7 +599,7 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
                       // prioritize the default configuration over build order
                       if (Objects.equals(config, configHandler.defaultConfigurationPathComponent)) {
                         targetMap.put(key, targetFilePair.target);
-                        state.ideInfoToTargetKey.forcePut(file.getBazelOutRelativePath(), key);
+                        state.ideInfoToTargetKey.forcePut(targetFilePair.artifactKey, key);
                       }
                     }
                   }
@@ -418,7 +615,9 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
                   PrintOutput.log(
                       String.format(Locale.ROOT,
                           "Loaded %d aspect files, total size %dkB",
-                          fileState.getUpdatedOutputs().size(), totalSizeLoaded.get() / 1024)));
+                          futures.size(), totalSizeLoaded.get() / 1024)));
+              context.output(new CounterOutput("aspectFilesLoaded", futures.size()));
+              context.output(new CounterOutput("aspectBytesLoaded", totalSizeLoaded.get()));
               if (duplicateTargetLabels > 0) {
                 context.output(
                     new PerformanceWarning(
@@ -442,7 +641,9 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
               }
 
               // update sync time for unchanged targets
-              for (String artifactKey : fileState.getNewState().keySet()) {
+              for (String artifactKey :
+                  Iterables.concat(
+                      fileState.getNewState().keys(), bundleDiff.getNewState().keySet())) {
                 TargetKey targetKey = state.ideInfoToTargetKey.get(artifactKey);
                 TargetIdeInfo target = targetKey != null ? targetMap.get(targetKey) : null;
                 if (target != null) {
@@ -485,6 +686,13 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
     return true;
   }
 
+  /** Begins a span for a task running on another thread, if the sync is being profiled. */
+  @Nullable
+  private static SyncTraceRecorder.Span beginSpan(
+      @Nullable SyncTraceRecorder recorder, String name) {
+    return recorder != null ? recorder.beginSpan(name, SyncTraceRecorder.TASK_CATEGORY) : null;
+  }
+
   @Nullable
   private static TargetIdeInfo protoToTarget(
       WorkspaceLanguageSettings languageSettings,
@@ -569,11 +777,13 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
   }
 
   private static class TargetFilePair {
-    private final OutputArtifactWithoutDigest file;
+    private final String artifactKey;
+    private final String config;
     private final TargetIdeInfo target;
 
-    TargetFilePair(OutputArtifactWithoutDigest file, TargetIdeInfo target) {
-      this.file = file;
+    TargetFilePair(String artifactKey, String config, TargetIdeInfo target) {
+      this.artifactKey = artifactKey;
+      this.config = config;
       this.target = target;
     }
   }
@@ -590,7 +800,8 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
       WorkspaceLanguageSettings workspaceLanguageSettings,
       ImmutableSet<OutputGroup> outputGroups,
       BlazeInvocationContext blazeInvocationContext,
-      boolean invokeParallel) {
+      boolean invokeParallel,
+      @Nullable Consumer<BlazeBuildOutputs> onShardBuilt) {
     AspectStrategy aspectStrategy = AspectStrategy.getInstance();
 
     final Ref<BlazeBuildOutputs> combinedResult = new Ref<>();
@@ -680,6 +891,9 @@ public class BlazeIdeInterfaceAspectsImpl implements BlazeIdeInterface {
                               ? result
                               : combinedResult.get().updateOutputs(result));
                     }
+                    if (onShardBuilt != null) {
+                      onShardBuilt.accept(result);
+                    }
                     return result.buildResult();
                   } catch (BuildException e) {
                     context.handleException("Failed to build targets", e);
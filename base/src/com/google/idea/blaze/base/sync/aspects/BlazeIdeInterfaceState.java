@@ -23,11 +23,13 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.devtools.intellij.model.ProjectData;
 import com.google.devtools.intellij.model.ProjectData.LocalFileOrOutputArtifact;
+import com.google.devtools.intellij.model.ProjectData.LocalFileTable;
 import com.google.idea.blaze.base.filecache.ArtifactStateProtoConverter;
+import com.google.idea.blaze.base.filecache.ArtifactStateTable;
+import com.google.idea.blaze.base.filecache.LocalFileState;
 import com.google.idea.blaze.base.ideinfo.ProtoWrapper;
 import com.google.idea.blaze.base.ideinfo.TargetKey;
 import com.google.idea.blaze.common.artifact.ArtifactState;
-import java.util.Map;
 import java.util.Objects;
 import java.util.function.Predicate;
 
@@ -36,7 +38,7 @@ public final class BlazeIdeInterfaceState
     implements ProtoWrapper<ProjectData.BlazeIdeInterfaceState> {
 
   /** A mapping from artifact key to {@link ArtifactState} for all targets built during sync. */
-  final ImmutableMap<String, ArtifactState> ideInfoFileState;
+  final ArtifactStateTable ideInfoFileState;
 
   /**
    * A mapping from artifact key to {@link TargetKey} for only those targets which were added to the
@@ -48,16 +50,25 @@ public final class BlazeIdeInterfaceState
   final ImmutableBiMap<String, TargetKey> ideInfoFileToTargetKey;
 
   private BlazeIdeInterfaceState(
-      Map<String, ArtifactState> ideInfoFileState,
-      BiMap<String, TargetKey> ideInfoFileToTargetKey) {
-    this.ideInfoFileState = ImmutableMap.copyOf(ideInfoFileState);
+      ArtifactStateTable ideInfoFileState, BiMap<String, TargetKey> ideInfoFileToTargetKey) {
+    this.ideInfoFileState = ideInfoFileState;
     this.ideInfoFileToTargetKey = ImmutableBiMap.copyOf(ideInfoFileToTargetKey);
   }
 
   public static BlazeIdeInterfaceState fromProto(ProjectData.BlazeIdeInterfaceState proto) {
     ImmutableMap<String, TargetKey> targets =
         ProtoWrapper.map(proto.getFileToTargetMap(), Functions.identity(), TargetKey::fromProto);
-    ImmutableMap.Builder<String, ArtifactState> artifacts = ImmutableMap.builder();
+    LocalFileTable localFiles = proto.getLocalIdeInfoFiles();
+    ArtifactStateTable.Builder artifacts =
+        ArtifactStateTable.builder(
+            localFiles.getTimestampsCount() + proto.getIdeInfoFilesCount());
+    String path = "";
+    for (int i = 0; i < localFiles.getTimestampsCount(); i++) {
+      path =
+          path.substring(0, localFiles.getSharedPrefixLengths(i))
+              + localFiles.getPathSuffixes(i);
+      artifacts.put(path, new LocalFileState(path, localFiles.getTimestamps(i)));
+    }
     for (LocalFileOrOutputArtifact output : proto.getIdeInfoFilesList()) {
       ArtifactState state = ArtifactStateProtoConverter.fromProto(output);
       if (state == null) {
@@ -74,17 +85,44 @@ public final class BlazeIdeInterfaceState
         ProjectData.BlazeIdeInterfaceState.newBuilder()
             .putAllFileToTarget(
                 ProtoWrapper.map(ideInfoFileToTargetKey, Functions.identity(), TargetKey::toProto));
-    for (String key : ideInfoFileState.keySet()) {
-      proto.addIdeInfoFiles(ArtifactStateProtoConverter.toProto(ideInfoFileState.get(key)));
+    LocalFileTable.Builder localFiles = LocalFileTable.newBuilder();
+    String previousPath = "";
+    for (ArtifactState state : ideInfoFileState.states()) {
+      if (state.getClass() != LocalFileState.class) {
+        proto.addIdeInfoFiles(ArtifactStateProtoConverter.toProto(state));
+        continue;
+      }
+      // states are sorted by key, so consecutive paths share long prefixes
+      String path = state.getKey();
+      int shared = sharedPrefixLength(previousPath, path);
+      localFiles
+          .addSharedPrefixLengths(shared)
+          .addPathSuffixes(path.substring(shared))
+          .addTimestamps(((LocalFileState) state).getTimestamp());
+      previousPath = path;
+    }
+    if (localFiles.getTimestampsCount() > 0) {
+      proto.setLocalIdeInfoFiles(localFiles);
     }
     return proto.build();
   }
 
+  private static int sharedPrefixLength(String a, String b) {
+    int max = Math.min(a.length(), b.length());
+    int i = 0;
+    while (i < max && a.charAt(i) == b.charAt(i)) {
+      i++;
+    }
+    // don't split a surrogate pair, which would make the suffix invalid UTF-8
+    return i > 0 && Character.isHighSurrogate(a.charAt(i - 1)) ? i - 1 : i;
+  }
+
   public BlazeIdeInterfaceState filter(Predicate<TargetKey> targetsToKeep) {
     BiMap<String, TargetKey> filteredBiMap =
         Maps.filterValues(ideInfoFileToTargetKey, targetsToKeep::test);
     return new BlazeIdeInterfaceState(
-        Maps.filterKeys(ideInfoFileState, filteredBiMap::containsKey), filteredBiMap);
+        ideInfoFileState.filter(state -> filteredBiMap.containsKey(state.getKey())),
+        filteredBiMap);
   }
 
   @Override
@@ -110,7 +148,7 @@ public final class BlazeIdeInterfaceState
   }
 
   static class Builder {
-    ImmutableMap<String, ArtifactState> ideInfoFileState = null;
+    ArtifactStateTable ideInfoFileState = ArtifactStateTable.EMPTY;
     BiMap<String, TargetKey> ideInfoToTargetKey = HashBiMap.create();
 
     BlazeIdeInterfaceState build() {
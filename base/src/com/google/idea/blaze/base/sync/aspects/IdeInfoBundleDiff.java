@@ -0,0 +1,216 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.aspects;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy;
+import com.google.idea.blaze.common.artifact.OutputArtifactInfo;
+import com.google.idea.blaze.common.artifact.OutputArtifactWithoutDigest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Diffs the entries of updated IDE info bundles against the entries known from the previous sync.
+ *
+ * <p>Each bundle line holds the path of the target's own IDE info file and the JSON encoded IDE
+ * info, separated by a tab. Only bundles whose artifact changed are read at all. Within those, the
+ * JSON of each entry is digested and only entries that are new or whose digest changed keep their
+ * content, so unchanged targets are never decoded. Bundles of targets in the same package overlap,
+ * so every entry records the bundles it was seen in and is only removed once none of them is part
+ * of the build output anymore.
+ */
+final class IdeInfoBundleDiff {
+
+  private static final HashFunction ENTRY_DIGEST = Hashing.sha256();
+
+  /** A new or changed entry, still to be decoded. */
+  static final class Entry {
+    final String key;
+    final String configuration;
+    final String digest;
+    final String content;
+
+    Entry(String key, String configuration, String digest, String content) {
+      this.key = key;
+      this.configuration = configuration;
+      this.digest = digest;
+      this.content = content;
+    }
+  }
+
+  private final ImmutableMap<String, IdeInfoBundleEntryState> newState;
+  private final ImmutableList<Entry> updatedEntries;
+  private final ImmutableSet<String> removedEntries;
+
+  private IdeInfoBundleDiff(
+      ImmutableMap<String, IdeInfoBundleEntryState> newState,
+      ImmutableList<Entry> updatedEntries,
+      ImmutableSet<String> removedEntries) {
+    this.newState = newState;
+    this.updatedEntries = updatedEntries;
+    this.removedEntries = removedEntries;
+  }
+
+  static boolean isBundle(String bazelOutRelativePath) {
+    return bazelOutRelativePath.endsWith(AspectStrategy.IDE_INFO_BUNDLE_EXTENSION);
+  }
+
+  /**
+   * Reads the updated bundles in parallel and diffs their entries against {@code previous}.
+   *
+   * @param previous the entries of the previous sync, keyed by IDE info file path
+   * @param updatedBundles bundles that are new or changed since the previous sync
+   * @param removedBundles keys of bundles that are no longer part of the build output
+   */
+  static IdeInfoBundleDiff compute(
+      Map<String, IdeInfoBundleEntryState> previous,
+      Collection<? extends OutputArtifactWithoutDigest> updatedBundles,
+      Set<String> removedBundles,
+      ListeningExecutorService executor)
+      throws InterruptedException, ExecutionException {
+    List<ListenableFuture<List<Entry>>> futures = new ArrayList<>();
+    for (OutputArtifactWithoutDigest bundle : updatedBundles) {
+      futures.add(
+          executor.submit(
+              () -> {
+                try (InputStream in = bundle.getInputStream()) {
+                  return parse(in, previous);
+                }
+              }));
+    }
+    Map<String, List<Entry>> entriesByBundle = new LinkedHashMap<>();
+    List<List<Entry>> parsed = Futures.allAsList(futures).get();
+    int i = 0;
+    for (OutputArtifactWithoutDigest bundle : updatedBundles) {
+      entriesByBundle.put(bundle.getBazelOutRelativePath(), parsed.get(i++));
+    }
+    return merge(previous, entriesByBundle, removedBundles);
+  }
+
+  /**
+   * Parses the lines of a bundle. The content of entries whose digest is unchanged since the
+   * previous sync is dropped right away, so it doesn't need to be held in memory.
+   */
+  static List<Entry> parse(InputStream in, Map<String, IdeInfoBundleEntryState> previous)
+      throws IOException {
+    List<Entry> entries = new ArrayList<>();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF_8));
+    String line;
+    while ((line = reader.readLine()) != null) {
+      if (line.isEmpty()) {
+        continue;
+      }
+      int separator = line.indexOf('\t');
+      if (separator < 0) {
+        throw new IOException("Malformed IDE info bundle entry: " + line);
+      }
+      Path path = Path.of(line.substring(0, separator));
+      String key = OutputArtifactInfo.artifactPathToBazelOutRelativePath(path);
+      String json = line.substring(separator + 1);
+      String digest = ENTRY_DIGEST.hashString(json, UTF_8).toString();
+      IdeInfoBundleEntryState old = previous.get(key);
+      String content = old != null && old.getDigest().equals(digest) ? null : json;
+      entries.add(new Entry(key, configuration(path), digest, content));
+    }
+    return entries;
+  }
+
+  /** The path component related to the build configuration, as for regular IDE info files. */
+  private static String configuration(Path path) {
+    return (path.startsWith("bazel-out") || path.startsWith("blaze-out")) && path.getNameCount() >= 2
+        ? path.getName(1).toString()
+        : "";
+  }
+
+  static IdeInfoBundleDiff merge(
+      Map<String, IdeInfoBundleEntryState> previous,
+      Map<String, List<Entry>> entriesByBundle,
+      Set<String> removedBundles) {
+    Set<String> affectedBundles = new HashSet<>(removedBundles);
+    affectedBundles.addAll(entriesByBundle.keySet());
+
+    // drop the membership in affected bundles, the updated ones are re-added below
+    Map<String, Set<String>> bundles = new HashMap<>();
+    for (IdeInfoBundleEntryState state : previous.values()) {
+      Set<String> remaining = new HashSet<>(state.getBundles());
+      remaining.removeAll(affectedBundles);
+      bundles.put(state.getKey(), remaining);
+    }
+
+    Map<String, String> digests = new HashMap<>();
+    Map<String, Entry> updated = new LinkedHashMap<>();
+    for (Map.Entry<String, List<Entry>> bundle : entriesByBundle.entrySet()) {
+      for (Entry entry : bundle.getValue()) {
+        bundles.computeIfAbsent(entry.key, k -> new HashSet<>()).add(bundle.getKey());
+        digests.put(entry.key, entry.digest);
+        if (entry.content != null) {
+          updated.putIfAbsent(entry.key, entry);
+        }
+      }
+    }
+
+    ImmutableMap.Builder<String, IdeInfoBundleEntryState> newState = ImmutableMap.builder();
+    ImmutableSet.Builder<String> removed = ImmutableSet.builder();
+    for (Map.Entry<String, Set<String>> entry : bundles.entrySet()) {
+      String key = entry.getKey();
+      if (entry.getValue().isEmpty()) {
+        removed.add(key);
+        continue;
+      }
+      String digest = digests.containsKey(key) ? digests.get(key) : previous.get(key).getDigest();
+      newState.put(
+          key, new IdeInfoBundleEntryState(key, digest, ImmutableSet.copyOf(entry.getValue())));
+    }
+    return new IdeInfoBundleDiff(
+        newState.buildOrThrow(), ImmutableList.copyOf(updated.values()), removed.build());
+  }
+
+  /** The entries of all bundles still part of the build output. */
+  ImmutableMap<String, IdeInfoBundleEntryState> getNewState() {
+    return newState;
+  }
+
+  /** Entries that are new or whose digest changed, in bundle order. */
+  ImmutableList<Entry> getUpdatedEntries() {
+    return updatedEntries;
+  }
+
+  /** Keys of entries no longer contained in any bundle. */
+  ImmutableSet<String> getRemovedEntries() {
+    return removedEntries;
+  }
+}
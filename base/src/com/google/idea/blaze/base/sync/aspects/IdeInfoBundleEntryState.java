@@ -0,0 +1,110 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.aspects;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.devtools.intellij.model.ProjectData.IdeInfoBundleEntry;
+import com.google.devtools.intellij.model.ProjectData.LocalFileOrOutputArtifact;
+import com.google.idea.blaze.base.filecache.ArtifactStateProtoConverter;
+import com.google.idea.blaze.base.filecache.SerializableArtifactState;
+import com.google.idea.blaze.common.artifact.ArtifactState;
+import javax.annotation.Nullable;
+
+/**
+ * Sync state of a single target's IDE info read from IDE info bundles, rather than from its own
+ * aspect output file.
+ *
+ * <p>The key is the path the target's own IDE info file would have had, so targets are tracked the
+ * same way in both modes. The bundles containing the entry are recorded, so the entry can be
+ * dropped once none of them is part of the build output anymore.
+ */
+public final class IdeInfoBundleEntryState implements ArtifactState, SerializableArtifactState {
+
+  private final String key;
+  private final String digest;
+  private final ImmutableSet<String> bundles;
+
+  IdeInfoBundleEntryState(String key, String digest, ImmutableSet<String> bundles) {
+    this.key = key;
+    this.digest = digest;
+    this.bundles = bundles;
+  }
+
+  @Override
+  public String getKey() {
+    return key;
+  }
+
+  String getDigest() {
+    return digest;
+  }
+
+  ImmutableSet<String> getBundles() {
+    return bundles;
+  }
+
+  IdeInfoBundleEntryState withBundles(ImmutableSet<String> bundles) {
+    return new IdeInfoBundleEntryState(key, digest, bundles);
+  }
+
+  @Override
+  public boolean isMoreRecent(ArtifactState output) {
+    return !(output instanceof IdeInfoBundleEntryState)
+        || !digest.equals(((IdeInfoBundleEntryState) output).digest);
+  }
+
+  @Override
+  public LocalFileOrOutputArtifact serializeToProto() {
+    return LocalFileOrOutputArtifact.newBuilder()
+        .setIdeInfoBundleEntry(
+            IdeInfoBundleEntry.newBuilder()
+                .setKey(key)
+                .setDigest(digest)
+                .addAllBundles(bundles))
+        .build();
+  }
+
+  @Override
+  public int hashCode() {
+    return key.hashCode();
+  }
+
+  /** Entries with the same key are equal, as for other {@link ArtifactState}s. */
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof IdeInfoBundleEntryState)) {
+      return false;
+    }
+    return key.equals(((IdeInfoBundleEntryState) obj).key);
+  }
+
+  /** Implementation of {@link ArtifactStateProtoConverter} for {@link IdeInfoBundleEntryState}. */
+  public static class ProtoConverter implements ArtifactStateProtoConverter {
+    @Override
+    @Nullable
+    public ArtifactState parseProto(LocalFileOrOutputArtifact proto) {
+      if (!proto.hasIdeInfoBundleEntry()) {
+        return null;
+      }
+      IdeInfoBundleEntry entry = proto.getIdeInfoBundleEntry();
+      return new IdeInfoBundleEntryState(
+          entry.getKey(), entry.getDigest(), ImmutableSet.copyOf(entry.getBundlesList()));
+    }
+  }
+}
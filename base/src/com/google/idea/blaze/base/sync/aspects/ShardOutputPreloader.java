@@ -0,0 +1,237 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.aspects;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.devtools.intellij.ideinfo.IntellijIdeInfo;
+import com.google.idea.blaze.base.command.buildresult.LocalFileArtifact;
+import com.google.idea.blaze.base.command.buildresult.RemoteOutputArtifact;
+import com.google.idea.blaze.base.filecache.ArtifactStateTable;
+import com.google.idea.blaze.base.filecache.ArtifactsDiff;
+import com.google.idea.blaze.base.model.BlazeProjectData;
+import com.google.idea.blaze.base.prefetch.PrefetchService;
+import com.google.idea.blaze.base.prefetch.RemoteArtifactPrefetcher;
+import com.google.idea.blaze.base.sync.SyncMode;
+import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy;
+import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy.OutputGroup;
+import com.google.idea.blaze.base.sync.data.BlazeProjectDataManager;
+import com.google.idea.blaze.common.artifact.ArtifactState;
+import com.google.idea.blaze.common.artifact.OutputArtifactWithoutDigest;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.registry.Registry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import javax.annotation.Nullable;
+
+/**
+ * Fetches and parses the IDE info files of each build shard as soon as the shard finishes, while
+ * later shards are still building.
+ *
+ * <p>The project update phase then only reads the files which weren't preloaded. A preloaded file
+ * is only used if its {@link ArtifactState} still matches the one seen by the update phase, so
+ * preloading never changes the result of a sync, only how soon it's available.
+ *
+ * <p>Only fetching and parsing are pipelined. The parsed targets are still merged into the target
+ * map once all shards are built, since resolving duplicate targets across configurations and
+ * removing the targets of deleted files needs the outputs of the whole build.
+ */
+public final class ShardOutputPreloader {
+
+  private static final Logger logger = Logger.getInstance(ShardOutputPreloader.class);
+
+  /** A file being fetched and parsed, as of the given state. */
+  private static final class PreloadedFile {
+    final ArtifactState state;
+    final ListenableFuture<IntellijIdeInfo.TargetIdeInfo> message;
+
+    PreloadedFile(ArtifactState state, ListenableFuture<IntellijIdeInfo.TargetIdeInfo> message) {
+      this.state = state;
+      this.message = message;
+    }
+  }
+
+  /** Reads an IDE info file once it has been fetched. */
+  @VisibleForTesting
+  interface Fetcher {
+    ListenableFuture<?> fetch(List<OutputArtifactWithoutDigest> files);
+
+    IntellijIdeInfo.TargetIdeInfo read(OutputArtifactWithoutDigest file) throws Exception;
+  }
+
+  @Nullable private final ArtifactStateTable previousState;
+  private final ListeningExecutorService executor;
+  private final Fetcher fetcher;
+
+  private final Map<String, PreloadedFile> files = new ConcurrentHashMap<>();
+
+  /** Completes once the files of each finished shard have been diffed and registered. */
+  private final List<ListenableFuture<?>> registrations = new CopyOnWriteArrayList<>();
+
+  @VisibleForTesting
+  ShardOutputPreloader(
+      @Nullable ArtifactStateTable previousState,
+      ListeningExecutorService executor,
+      Fetcher fetcher) {
+    this.previousState = previousState;
+    this.executor = executor;
+    this.fetcher = fetcher;
+  }
+
+  /** Whether shard outputs are processed while later shards are still building. */
+  public static boolean isEnabled() {
+    return Registry.is("bazel.sync.pipelined.shards");
+  }
+
+  /**
+   * Creates a preloader comparing the outputs of each shard to the last synced state, so that
+   * unchanged files aren't read. For full syncs all files are read.
+   */
+  public static ShardOutputPreloader create(
+      Project project, SyncMode syncMode, ListeningExecutorService executor) {
+    ArtifactStateTable previousState = null;
+    if (syncMode != SyncMode.FULL) {
+      BlazeProjectData data = BlazeProjectDataManager.getInstance(project).getBlazeProjectData();
+      BlazeIdeInterfaceState state =
+          data != null ? data.targetData().ideInterfaceState : null;
+      previousState = state != null ? state.ideInfoFileState : null;
+    }
+    String projectName = project.getName();
+    AspectStrategy aspectStrategy = AspectStrategy.getInstance();
+    return new ShardOutputPreloader(
+        previousState,
+        executor,
+        new Fetcher() {
+          @Override
+          public ListenableFuture<?> fetch(List<OutputArtifactWithoutDigest> files) {
+            ImmutableList<RemoteOutputArtifact> remoteFiles =
+                RemoteOutputArtifact.getRemoteArtifacts(files);
+            return Futures.allAsList(
+                RemoteArtifactPrefetcher.getInstance().downloadArtifacts(projectName, remoteFiles),
+                RemoteArtifactPrefetcher.getInstance().loadFilesInJvm(remoteFiles),
+                PrefetchService.getInstance()
+                    .prefetchFiles(
+                        LocalFileArtifact.getLocalFiles(files),
+                        /* refetchCachedFiles= */ true,
+                        /* fetchFileTypes= */ false));
+          }
+
+          @Override
+          public IntellijIdeInfo.TargetIdeInfo read(OutputArtifactWithoutDigest file)
+              throws Exception {
+            return aspectStrategy.readAspectFile(file);
+          }
+        });
+  }
+
+  /** Starts reading the IDE info files of a finished shard, without waiting for them. */
+  public void onShardBuilt(BlazeBuildOutputs shardOutputs) {
+    ImmutableList<OutputArtifactWithoutDigest> infoFiles =
+        shardOutputs
+            .getOutputGroupArtifactsLegacySyncOnly(
+                group -> group.startsWith(OutputGroup.INFO.prefix))
+            .stream()
+            .filter(
+                f -> AspectStrategy.ASPECT_OUTPUT_FILE_PREDICATE.test(f.getBazelOutRelativePath()))
+            // bundles are diffed entry by entry, see IdeInfoBundleDiff
+            .filter(f -> !IdeInfoBundleDiff.isBundle(f.getBazelOutRelativePath()))
+            .distinct()
+            .collect(toImmutableList());
+    preload(infoFiles);
+  }
+
+  @VisibleForTesting
+  void preload(ImmutableList<OutputArtifactWithoutDigest> infoFiles) {
+    if (infoFiles.isEmpty()) {
+      return;
+    }
+    registrations.add(
+        executor.submit(
+            () -> {
+              ArtifactsDiff diff = ArtifactsDiff.diffArtifacts(previousState, infoFiles);
+              register(diff);
+              return null;
+            }));
+  }
+
+  private void register(ArtifactsDiff diff) {
+    ImmutableList<OutputArtifactWithoutDigest> updated = diff.getUpdatedOutputs();
+    if (updated.isEmpty()) {
+      return;
+    }
+    ListenableFuture<?> fetched = fetcher.fetch(updated);
+    for (OutputArtifactWithoutDigest file : updated) {
+      String key = file.getBazelOutRelativePath();
+      ArtifactState state = diff.getNewState().get(key);
+      if (state == null) {
+        continue;
+      }
+      files.put(
+          key,
+          new PreloadedFile(
+              state, Futures.transform(fetched, unused -> read(file), executor)));
+    }
+  }
+
+  private IntellijIdeInfo.TargetIdeInfo read(OutputArtifactWithoutDigest file) {
+    try {
+      return fetcher.read(file);
+    } catch (Exception e) {
+      throw new IllegalStateException("Failed to read " + file.getBazelOutRelativePath(), e);
+    }
+  }
+
+  /** Waits until the files of all finished shards have been registered. */
+  void awaitRegistration() throws InterruptedException {
+    try {
+      Futures.whenAllComplete(registrations).call(() -> null, MoreExecutors.directExecutor()).get();
+    } catch (ExecutionException e) {
+      // failed registrations only mean the affected files are read by the update phase
+      logger.warn("Failed to preload shard outputs", e);
+    }
+  }
+
+  /**
+   * Returns the parsed IDE info of a file, if it was preloaded in the given state. Otherwise the
+   * caller should read the file itself.
+   */
+  @Nullable
+  ListenableFuture<IntellijIdeInfo.TargetIdeInfo> get(String key, @Nullable ArtifactState state) {
+    PreloadedFile file = files.get(key);
+    if (file == null || state == null) {
+      return null;
+    }
+    // ArtifactState#equals only compares keys, so compare the versions instead
+    boolean sameVersion = !file.state.isMoreRecent(state) && !state.isMoreRecent(file.state);
+    return sameVersion ? file.message : null;
+  }
+
+  /** Stops preloading, e.g. if the sync is cancelled. */
+  public void cancel() {
+    registrations.forEach(f -> f.cancel(true));
+    files.values().forEach(f -> f.message.cancel(true));
+  }
+}
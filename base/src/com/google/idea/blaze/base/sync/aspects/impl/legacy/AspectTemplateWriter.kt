@@ -103,7 +103,9 @@ class AspectTemplateWriter : AspectWriter {
     return ImmutableMap.of(
       "bazel8OrAbove", if (isAtLeastBazel8) "true" else "false",
       "bazel9OrAbove", if (isAtLeastBazel9) "true" else "false",
-      "isPythonEnabled", if (isPythonEnabled) "true" else "false"
+      "isPythonEnabled", if (isPythonEnabled) "true" else "false",
+      "ideInfoFormat", LegacyAspectStrategy.ideInfoFormat().aspectValue,
+      "ideInfoBundle", if (LegacyAspectStrategy.bundlesIdeInfo()) "True" else "False"
     )
   }
 
@@ -21,6 +21,7 @@ import com.google.idea.blaze.base.model.primitives.LanguageClass
 import com.google.idea.blaze.base.sync.aspects.storage.AspectStorageService
 import com.google.idea.blaze.base.sync.aspects.storage.AspectWriter
 import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy
+import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy.IdeInfoFormat
 import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy.OutputGroup
 import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategyProvider
 import com.intellij.openapi.project.Project
@@ -41,6 +42,18 @@ class LegacyAspectStrategy : AspectStrategy() {
     }
   }
 
+  companion object {
+    /** The IDE info format the templated aspect is configured to write. */
+    @JvmStatic
+    fun ideInfoFormat(): IdeInfoFormat {
+      return if (Registry.`is`("bazel.sync.aspect.json.output")) IdeInfoFormat.JSON else IdeInfoFormat.TEXT
+    }
+
+    /** Whether the templated aspect is configured to bundle IDE info files. */
+    @JvmStatic
+    fun bundlesIdeInfo(): Boolean = Registry.`is`("bazel.sync.aspect.bundle.output")
+  }
+
   override fun getName(): String = "AspectStrategySkylarkBazel"
 
   override fun prefix(): Path = Path.of("legacy")
@@ -59,6 +72,10 @@ class LegacyAspectStrategy : AspectStrategy() {
     return resolve(project, "intellij_info_bundled.bzl").map { "--aspects=$it%intellij_info_aspect" }
   }
 
+  override fun getIdeInfoFormat(): IdeInfoFormat = ideInfoFormat()
+
+  override fun bundlesIdeInfo(): Boolean = Companion.bundlesIdeInfo()
+
   override fun genericOutputGroup(outputGroup: OutputGroup): ImmutableList<String> {
     return if (outputGroup == OutputGroup.INFO) ImmutableList.of("${outputGroup.prefix}-generic") else ImmutableList.of()
   }
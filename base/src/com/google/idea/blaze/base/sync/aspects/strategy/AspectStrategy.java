@@ -46,8 +46,46 @@ import java.util.function.Predicate;
  */
 public abstract class AspectStrategy {
 
+  /**
+   * The output group holding the IDE info bundles of the requested targets, see {@link
+   * #bundlesIdeInfo()}.
+   */
+  public static final String IDE_INFO_BUNDLE_OUTPUT_GROUP = "intellij-info-bundle";
+
+  public static final String IDE_INFO_BUNDLE_EXTENSION = ".intellij-info.bundle";
+
   public static final Predicate<String> ASPECT_OUTPUT_FILE_PREDICATE =
-      str -> str.endsWith(".intellij-info.txt");
+      str -> IdeInfoFormat.forFileName(str).isPresent() || str.endsWith(IDE_INFO_BUNDLE_EXTENSION);
+
+  /**
+   * The encoding of the per-target IDE info files written by the aspect. The format is chosen when
+   * the aspect is materialized, and the file extension tells the two apart when reading outputs.
+   */
+  public enum IdeInfoFormat {
+    /** Protobuf text format, written with {@code proto.encode_text}. */
+    TEXT("text", ".intellij-info.txt"),
+    /** JSON, written with {@code json.encode}. Considerably cheaper to decode. */
+    JSON("json", ".intellij-info.json");
+
+    /** The value passed to the aspect. */
+    public final String aspectValue;
+
+    public final String fileExtension;
+
+    IdeInfoFormat(String aspectValue, String fileExtension) {
+      this.aspectValue = aspectValue;
+      this.fileExtension = fileExtension;
+    }
+
+    public static Optional<IdeInfoFormat> forFileName(String fileName) {
+      for (IdeInfoFormat format : values()) {
+        if (fileName.endsWith(format.fileExtension)) {
+          return Optional.of(format);
+        }
+      }
+      return Optional.empty();
+    }
+  }
 
   /**
    * A Blaze output group created by the aspect.
@@ -121,6 +159,9 @@ public abstract class AspectStrategy {
    * Collects the names of output groups created by the aspect for the given {@link OutputGroup} and languages.
    */
   protected final ImmutableList<String> getOutputGroups(OutputGroup outputGroup, Set<LanguageClass> activeLanguages) {
+    if (outputGroup == OutputGroup.INFO && bundlesIdeInfo()) {
+      return ImmutableList.of(IDE_INFO_BUNDLE_OUTPUT_GROUP);
+    }
     final var builder = ImmutableList.<String>builder();
     genericOutputGroup(outputGroup).forEach(builder::add);
 
@@ -152,12 +193,41 @@ public abstract class AspectStrategy {
         .addBlazeFlags("--output_groups=" + Joiner.on(',').join(groups));
   }
 
+  /**
+   * The format this strategy's aspect writes IDE info files in. Outputs are always read according
+   * to their file extension, so outputs left over from a previous format are still understood.
+   */
+  public IdeInfoFormat getIdeInfoFormat() {
+    return IdeInfoFormat.TEXT;
+  }
+
+  /**
+   * Whether the aspect packs the IDE info of targets into bundle files instead of building one IDE
+   * info file per target. A bundle holds the targets of one package reachable from a requested
+   * target or from a dependency in another package, one entry per target.
+   */
+  public boolean bundlesIdeInfo() {
+    return false;
+  }
+
   public final IntellijIdeInfo.TargetIdeInfo readAspectFile(BlazeArtifact file) throws IOException {
+    final var format =
+        IdeInfoFormat.forFileName(file.getArtifactPath().toString()).orElse(IdeInfoFormat.TEXT);
     try (InputStream inputStream = file.getInputStream()) {
-      final var  builder = IntellijIdeInfo.TargetIdeInfo.newBuilder();
+      return readAspectFile(inputStream, format);
+    }
+  }
+
+  public static IntellijIdeInfo.TargetIdeInfo readAspectFile(InputStream inputStream, IdeInfoFormat format)
+      throws IOException {
+    final var builder = IntellijIdeInfo.TargetIdeInfo.newBuilder();
+    final var reader = new InputStreamReader(inputStream, UTF_8);
+    if (format == IdeInfoFormat.JSON) {
+      IdeInfoJsonDecoder.merge(reader, builder);
+    } else {
       final var parser = TextFormat.Parser.newBuilder().setAllowUnknownFields(true).build();
-      parser.merge(new InputStreamReader(inputStream, UTF_8), builder);
-      return builder.build();
+      parser.merge(reader, builder);
     }
+    return builder.build();
   }
 }
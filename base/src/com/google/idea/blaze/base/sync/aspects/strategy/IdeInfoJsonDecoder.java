@@ -0,0 +1,155 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.aspects.strategy;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Decodes IDE info files written by the aspect with {@code json.encode}.
+ *
+ * <p>The aspect builds the same struct for both output formats, so the JSON objects use the proto
+ * field names, enums are encoded as numbers and maps as objects. The input is read as a stream of
+ * tokens and merged into the builder directly, without building an intermediate JSON tree.
+ * Unknown fields are skipped, mirroring the text format parser.
+ */
+final class IdeInfoJsonDecoder {
+
+  private IdeInfoJsonDecoder() {}
+
+  static void merge(Reader reader, Message.Builder builder) throws IOException {
+    JsonReader json = new JsonReader(reader);
+    try {
+      mergeMessage(json, builder);
+    } catch (IllegalStateException | JsonParseException | NumberFormatException e) {
+      throw new IOException("Malformed IDE info: " + e.getMessage(), e);
+    }
+  }
+
+  private static void mergeMessage(JsonReader json, Message.Builder builder) throws IOException {
+    Descriptor descriptor = builder.getDescriptorForType();
+    json.beginObject();
+    while (json.hasNext()) {
+      String name = json.nextName();
+      FieldDescriptor field = descriptor.findFieldByName(name);
+      if (field == null || json.peek() == JsonToken.NULL) {
+        json.skipValue();
+        continue;
+      }
+      if (field.isMapField()) {
+        mergeMap(json, builder, field);
+      } else if (field.isRepeated()) {
+        mergeRepeated(json, builder, field);
+      } else if (field.getJavaType() == FieldDescriptor.JavaType.MESSAGE) {
+        mergeMessage(json, builder.getFieldBuilder(field));
+      } else {
+        builder.setField(field, readValue(json, builder, field));
+      }
+    }
+    json.endObject();
+  }
+
+  private static void mergeRepeated(JsonReader json, Message.Builder builder, FieldDescriptor field)
+      throws IOException {
+    if (json.peek() != JsonToken.BEGIN_ARRAY) {
+      // like the text format, accept a single value for a repeated field
+      builder.addRepeatedField(field, readValue(json, builder, field));
+      return;
+    }
+    json.beginArray();
+    while (json.hasNext()) {
+      builder.addRepeatedField(field, readValue(json, builder, field));
+    }
+    json.endArray();
+  }
+
+  private static void mergeMap(JsonReader json, Message.Builder builder, FieldDescriptor field)
+      throws IOException {
+    Descriptor entryType = field.getMessageType();
+    FieldDescriptor keyField = entryType.findFieldByName("key");
+    FieldDescriptor valueField = entryType.findFieldByName("value");
+    json.beginObject();
+    while (json.hasNext()) {
+      Message.Builder entry = builder.newBuilderForField(field);
+      entry.setField(keyField, parseMapKey(json.nextName(), keyField));
+      entry.setField(valueField, readValue(json, entry, valueField));
+      builder.addRepeatedField(field, entry.build());
+    }
+    json.endObject();
+  }
+
+  private static Object readValue(JsonReader json, Message.Builder parent, FieldDescriptor field)
+      throws IOException {
+    switch (field.getJavaType()) {
+      case MESSAGE:
+        Message.Builder message = parent.newBuilderForField(field);
+        mergeMessage(json, message);
+        return message.build();
+      case STRING:
+        return json.nextString();
+      case INT:
+        return json.nextInt();
+      case LONG:
+        return json.nextLong();
+      case FLOAT:
+        return (float) json.nextDouble();
+      case DOUBLE:
+        return json.nextDouble();
+      case BOOLEAN:
+        return json.nextBoolean();
+      case ENUM:
+        return readEnum(json, field);
+      case BYTE_STRING:
+        return ByteString.copyFromUtf8(json.nextString());
+    }
+    throw new IOException("Unsupported field type for " + field.getFullName());
+  }
+
+  private static EnumValueDescriptor readEnum(JsonReader json, FieldDescriptor field)
+      throws IOException {
+    EnumValueDescriptor value =
+        json.peek() == JsonToken.NUMBER
+            ? field.getEnumType().findValueByNumber(json.nextInt())
+            : field.getEnumType().findValueByName(json.nextString());
+    if (value == null) {
+      throw new IOException("Unknown value for enum field " + field.getFullName());
+    }
+    return value;
+  }
+
+  private static Object parseMapKey(String key, FieldDescriptor keyField) throws IOException {
+    switch (keyField.getJavaType()) {
+      case STRING:
+        return key;
+      case INT:
+        return Integer.parseInt(key);
+      case LONG:
+        return Long.parseLong(key);
+      case BOOLEAN:
+        return Boolean.parseBoolean(key);
+      default:
+        throw new IOException("Unsupported map key type for " + keyField.getFullName());
+    }
+  }
+}
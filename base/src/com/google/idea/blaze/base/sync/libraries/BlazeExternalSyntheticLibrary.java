@@ -19,7 +19,11 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
-import com.google.idea.blaze.base.io.VfsUtils;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.idea.blaze.base.io.VirtualFileBatchResolver;
+import com.google.idea.blaze.base.io.VirtualFileBatchResolver.ResolvedFiles;
 import com.intellij.navigation.ItemPresentation;
 import com.intellij.openapi.roots.SyntheticLibrary;
 import com.intellij.openapi.vfs.VfsUtil;
@@ -27,7 +31,6 @@ import com.intellij.openapi.vfs.VirtualFile;
 import icons.BlazeIcons;
 import java.io.File;
 import java.util.Collection;
-import java.util.Objects;
 import java.util.Set;
 import javax.annotation.Nullable;
 import javax.swing.Icon;
@@ -40,11 +43,20 @@ public final class BlazeExternalSyntheticLibrary extends SyntheticLibrary
     implements ItemPresentation {
   private final String presentableText;
   private final ImmutableSet<File> files;
-  private final Set<VirtualFile> validFiles;
+  private final ListenableFuture<?> pendingFiles;
+
+  /**
+   * The valid library files. Rebuilt off the EDT and swapped when files are added, so that the
+   * frequent {@link #getSourceRoots()} lookups never block.
+   */
+  private volatile LibraryFileIndex validFiles;
 
   /**
    * Constructs library with an initial set of valid {@link VirtualFile}s.
    *
+   * <p>Files not yet known to the VFS are added once their directories have been refreshed
+   * asynchronously, see {@link #getPendingFiles()}.
+   *
    * @param presentableText user-facing text used to name the library. It's also used to implement
    *     equals, hashcode -- there must only be one instance per value of this text
    * @param files collection of files that this synthetic library is responsible for.
@@ -52,12 +64,26 @@ public final class BlazeExternalSyntheticLibrary extends SyntheticLibrary
   public BlazeExternalSyntheticLibrary(String presentableText, Collection<File> files) {
     this.presentableText = presentableText;
     this.files = ImmutableSet.copyOf(files);
-    this.validFiles =
-        Sets.newConcurrentHashSet(
-            files.stream()
-                .map(f -> VfsUtils.resolveVirtualFile(f, /* refreshIfNeeded= */ true))
-                .filter(Objects::nonNull)
-                .collect(toImmutableSet()));
+    ResolvedFiles resolved =
+        VirtualFileBatchResolver.getInstance().resolve(this.files, /* refreshIfNeeded= */ true);
+    this.validFiles = LibraryFileIndex.build(resolved.getResolved().values());
+    this.pendingFiles =
+        Futures.transform(
+            resolved.getRefreshed(),
+            refreshed -> {
+              addFiles(refreshed.values());
+              return null;
+            },
+            MoreExecutors.directExecutor());
+  }
+
+  private synchronized void addFiles(Collection<VirtualFile> added) {
+    validFiles = validFiles.withFiles(added);
+  }
+
+  /** Completes once the files that needed a VFS refresh have been added to the library. */
+  ListenableFuture<?> getPendingFiles() {
+    return pendingFiles;
   }
 
   @Nullable
@@ -67,25 +93,24 @@ public final class BlazeExternalSyntheticLibrary extends SyntheticLibrary
   }
 
   void removeInvalidFiles(Collection<VirtualFile> deletedFiles) {
-    if (deletedFiles.stream().anyMatch(VirtualFile::isDirectory)) {
-      validFiles.removeIf(f -> !f.isValid());
-    } else {
-      validFiles.removeAll(deletedFiles);
-    }
+    validFiles.removeAll(deletedFiles);
   }
 
   void restoreMissingFiles() {
-    if (validFiles.size() < files.size()) {
-      Sets.difference(
+    LibraryFileIndex current = validFiles;
+    if (current.size() < files.size()) {
+      Set<File> missing =
+          Sets.difference(
               files,
-              validFiles.stream()
+              current.stream()
                   .filter(VirtualFile::isValid)
                   .map(VfsUtil::virtualToIoFile)
-                  .collect(toImmutableSet()))
-          .stream()
-          .map(file -> VfsUtils.resolveVirtualFile(file, /* refreshIfNeeded= */ false))
-          .filter(Objects::nonNull)
-          .forEach(validFiles::add);
+                  .collect(toImmutableSet()));
+      addFiles(
+          VirtualFileBatchResolver.getInstance()
+              .resolve(missing, /* refreshIfNeeded= */ false)
+              .getResolved()
+              .values());
     }
   }
 
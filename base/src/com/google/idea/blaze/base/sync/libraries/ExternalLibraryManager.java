@@ -22,6 +22,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.idea.blaze.base.io.VirtualFileBatchResolver;
 import com.google.idea.blaze.base.model.BlazeProjectData;
 import com.google.idea.blaze.base.scope.BlazeContext;
 import com.google.idea.blaze.base.sync.BlazeSyncPlugin;
@@ -153,14 +156,28 @@ public class ExternalLibraryManager implements Disposable {
           manager.duringBlazeSync = false;
           if (!manager.libraries.isEmpty()) {
             // TODO(b/192431174): Consider not triggering `project roots have changed` events.
-            logger.info(
-                "External libraries have been attached to the project. Triggering a `project roots"
-                    + " have changed` event so the external libraries can be indexed.");
-            Transactions.submitWriteActionTransaction(
-                manager,
-                () ->
-                    ProjectRootManagerEx.getInstanceEx(project)
-                        .makeRootsChange(() -> {}, /* fileTypes= */ false, /* fireEvents= */ true));
+            // wait for library files that needed a VFS refresh, so they are indexed right away
+            Futures.whenAllComplete(
+                    manager.libraries.values().stream()
+                        .map(BlazeExternalSyntheticLibrary::getPendingFiles)
+                        .collect(toImmutableList()))
+                .run(
+                    () -> {
+                      logger.info(
+                          "Resolved external library files since startup. "
+                              + VirtualFileBatchResolver.getInstance().getStatistics());
+                      logger.info(
+                          "External libraries have been attached to the project. Triggering a"
+                              + " `project roots have changed` event so the external libraries"
+                              + " can be indexed.");
+                      Transactions.submitWriteActionTransaction(
+                          manager,
+                          () ->
+                              ProjectRootManagerEx.getInstanceEx(project)
+                                  .makeRootsChange(
+                                      () -> {}, /* fileTypes= */ false, /* fireEvents= */ true));
+                    },
+                    MoreExecutors.directExecutor());
           }
         }
       }
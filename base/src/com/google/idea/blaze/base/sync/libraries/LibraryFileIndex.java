@@ -0,0 +1,207 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.libraries;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Sets;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWithId;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The files of a {@link BlazeExternalSyntheticLibrary}, as a set answering {@link #contains} with a
+ * single bitmap lookup by VFS file id.
+ *
+ * <p>Membership is fixed when the index is built. Files can only be removed afterwards, by clearing
+ * their bit, so reads never take a lock. Files are also kept sorted by path, so all files under a
+ * deleted directory are found with a binary search.
+ */
+final class LibraryFileIndex extends AbstractSet<VirtualFile> {
+
+  /** Files with a VFS id, sorted by path. */
+  private final VirtualFile[] files;
+
+  private final String[] paths;
+  private final int[] ids;
+
+  /** Bit {@code id - minId} is set while the file with that id is in the index. */
+  private final AtomicLongArray present;
+
+  private final int minId;
+
+  /** Files from file systems without persistent ids, e.g. in-memory files. */
+  private final Set<VirtualFile> filesWithoutId;
+
+  private final AtomicInteger size;
+
+  private LibraryFileIndex(VirtualFile[] files, Set<VirtualFile> filesWithoutId) {
+    this.files = files;
+    this.filesWithoutId = filesWithoutId;
+    this.paths = new String[files.length];
+    this.ids = new int[files.length];
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    for (int i = 0; i < files.length; i++) {
+      paths[i] = files[i].getPath();
+      ids[i] = ((VirtualFileWithId) files[i]).getId();
+      min = Math.min(min, ids[i]);
+      max = Math.max(max, ids[i]);
+    }
+    this.minId = files.length > 0 ? min : 0;
+    this.present = new AtomicLongArray(files.length > 0 ? ((max - min) >>> 6) + 1 : 0);
+    for (int id : ids) {
+      int bit = id - minId;
+      present.set(bit >>> 6, present.get(bit >>> 6) | (1L << bit));
+    }
+    this.size = new AtomicInteger(files.length + filesWithoutId.size());
+  }
+
+  /** Builds an index of the given files, ignoring invalid and duplicate files. */
+  static LibraryFileIndex build(Collection<VirtualFile> files) {
+    Map<Integer, VirtualFile> filesById = new LinkedHashMap<>();
+    Set<VirtualFile> filesWithoutId = Sets.newConcurrentHashSet();
+    for (VirtualFile file : files) {
+      if (!file.isValid()) {
+        continue;
+      }
+      if (file instanceof VirtualFileWithId) {
+        filesById.putIfAbsent(((VirtualFileWithId) file).getId(), file);
+      } else {
+        filesWithoutId.add(file);
+      }
+    }
+    VirtualFile[] sorted = filesById.values().toArray(new VirtualFile[0]);
+    Arrays.sort(sorted, Comparator.comparing(VirtualFile::getPath));
+    return new LibraryFileIndex(sorted, filesWithoutId);
+  }
+
+  /** Returns a new index with the current files plus the given ones. */
+  LibraryFileIndex withFiles(Collection<VirtualFile> added) {
+    if (added.isEmpty()) {
+      return this;
+    }
+    return build(Sets.union(this, Sets.newHashSet(added)));
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (o instanceof VirtualFileWithId) {
+      return isPresent(((VirtualFileWithId) o).getId());
+    }
+    return !filesWithoutId.isEmpty() && filesWithoutId.contains(o);
+  }
+
+  private boolean isPresent(int id) {
+    long bit = (long) id - minId;
+    if (bit < 0 || (bit >>> 6) >= present.length()) {
+      return false;
+    }
+    return (present.get((int) (bit >>> 6)) & (1L << bit)) != 0;
+  }
+
+  /** Removes the given files, and for directories all files under them. */
+  void removeAll(Iterable<VirtualFile> deleted) {
+    for (VirtualFile file : deleted) {
+      if (file.isDirectory()) {
+        removeUnder(file.getPath());
+      }
+      if (file instanceof VirtualFileWithId) {
+        clear(((VirtualFileWithId) file).getId());
+      } else {
+        removeWithoutId(file);
+      }
+    }
+  }
+
+  private void removeUnder(String directory) {
+    String prefix = directory.endsWith("/") ? directory : directory + "/";
+    int i = Arrays.binarySearch(paths, prefix);
+    for (i = i < 0 ? -i - 1 : i; i < paths.length && paths[i].startsWith(prefix); i++) {
+      clear(ids[i]);
+    }
+    for (VirtualFile file : filesWithoutId.toArray(new VirtualFile[0])) {
+      if (file.getPath().startsWith(prefix)) {
+        removeWithoutId(file);
+      }
+    }
+  }
+
+  private void removeWithoutId(VirtualFile file) {
+    if (filesWithoutId.remove(file)) {
+      size.decrementAndGet();
+    }
+  }
+
+  private void clear(int id) {
+    int bit = id - minId;
+    if (!isPresent(id)) {
+      return;
+    }
+    long mask = 1L << bit;
+    long previous = present.getAndUpdate(bit >>> 6, word -> word & ~mask);
+    if ((previous & mask) != 0) {
+      size.decrementAndGet();
+    }
+  }
+
+  @Override
+  public int size() {
+    return size.get();
+  }
+
+  @Override
+  public Iterator<VirtualFile> iterator() {
+    Iterator<VirtualFile> withId =
+        new Iterator<VirtualFile>() {
+          private int next = advance(0);
+
+          private int advance(int from) {
+            while (from < files.length && !isPresent(ids[from])) {
+              from++;
+            }
+            return from;
+          }
+
+          @Override
+          public boolean hasNext() {
+            return next < files.length;
+          }
+
+          @Override
+          public VirtualFile next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            VirtualFile file = files[next];
+            next = advance(next + 1);
+            return file;
+          }
+        };
+    return filesWithoutId.isEmpty()
+        ? withId
+        : Iterators.concat(withId, Iterators.unmodifiableIterator(filesWithoutId.iterator()));
+  }
+}
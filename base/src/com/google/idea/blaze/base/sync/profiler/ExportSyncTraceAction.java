@@ -0,0 +1,68 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.profiler;
+
+import com.google.idea.blaze.base.actions.BlazeProjectAction;
+import com.google.idea.common.actions.ActionPresentationHelper;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/** Saves the trace of the last sync, to be opened with Perfetto or chrome://tracing. */
+public class ExportSyncTraceAction extends BlazeProjectAction implements DumbAware {
+
+  private static final String TITLE = "Export Sync Trace";
+
+  @Override
+  protected void updateForBlazeProject(Project project, AnActionEvent e) {
+    ActionPresentationHelper.of(e)
+        .disableIf(!SyncTraceFiles.isEnabled() || SyncTraceFiles.getLatest(project) == null)
+        .commit();
+  }
+
+  @Override
+  protected void actionPerformedInBlazeProject(Project project, AnActionEvent e) {
+    File latest = SyncTraceFiles.getLatest(project);
+    if (latest == null) {
+      Messages.showInfoMessage(project, "No sync trace has been recorded yet.", TITLE);
+      return;
+    }
+    FileSaverDescriptor descriptor =
+        new FileSaverDescriptor(
+            TITLE, "Open the saved trace with https://ui.perfetto.dev or chrome://tracing", "json");
+    VirtualFileWrapper target =
+        FileChooserFactory.getInstance()
+            .createSaveFileDialog(descriptor, project)
+            .save(latest.getName());
+    if (target == null) {
+      return;
+    }
+    try {
+      Files.copy(
+          latest.toPath(), target.getFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException ex) {
+      Messages.showErrorDialog(project, "Failed to export sync trace: " + ex.getMessage(), TITLE);
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.profiler;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.idea.common.experiments.BoolExperiment;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.project.Project;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/** Stores the sync traces of each project in the IDE log directory. */
+public final class SyncTraceFiles {
+
+  private static final BoolExperiment enabled =
+      new BoolExperiment("blaze.sync.trace.enabled", true);
+
+  /** The number of traces kept per project. */
+  private static final int MAX_TRACES = 10;
+
+  private static final DateTimeFormatter TIMESTAMP =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT);
+
+  private SyncTraceFiles() {}
+
+  public static boolean isEnabled() {
+    return enabled.getValue();
+  }
+
+  /** Writes the trace of a sync, and deletes the oldest traces of the project. */
+  public static Path write(Project project, SyncTraceRecorder recorder) throws IOException {
+    Path directory = getDirectory();
+    Files.createDirectories(directory);
+    Path trace =
+        directory.resolve(
+            String.format("%s-%s.json", prefix(project), LocalDateTime.now().format(TIMESTAMP)));
+    try (Writer writer = Files.newBufferedWriter(trace, UTF_8)) {
+      recorder.writeTo(writer);
+    }
+    List<File> traces = listTraces(project);
+    for (File old : traces.subList(Math.min(MAX_TRACES, traces.size()), traces.size())) {
+      Files.deleteIfExists(old.toPath());
+    }
+    return trace;
+  }
+
+  /** The most recent trace of the project, if any. */
+  @Nullable
+  public static File getLatest(Project project) {
+    List<File> traces = listTraces(project);
+    return traces.isEmpty() ? null : traces.get(0);
+  }
+
+  /** The traces of the project, newest first. */
+  private static List<File> listTraces(Project project) {
+    String prefix = prefix(project) + "-";
+    File[] files = getDirectory().toFile().listFiles();
+    if (files == null) {
+      return List.of();
+    }
+    return Arrays.stream(files)
+        .filter(f -> f.getName().startsWith(prefix) && f.getName().endsWith(".json"))
+        // timestamps in the names sort chronologically
+        .sorted(Comparator.comparing(File::getName).reversed())
+        .collect(Collectors.toList());
+  }
+
+  private static Path getDirectory() {
+    return Path.of(PathManager.getLogPath(), "sync-traces");
+  }
+
+  private static String prefix(Project project) {
+    return project.getLocationHash();
+  }
+}
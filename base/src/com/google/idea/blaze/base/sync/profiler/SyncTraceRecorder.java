@@ -0,0 +1,263 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.profiler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+/**
+ * Records the spans and counters of a single sync, and writes them in the Chrome trace event
+ * format, which can be opened with Perfetto (https://ui.perfetto.dev) or chrome://tracing.
+ *
+ * <p>Safe to use from any thread. Each span is attributed to the thread it began on.
+ */
+public final class SyncTraceRecorder {
+
+  /**
+   * The category of spans covering a single unit of work on an executor thread, e.g. reading one
+   * aspect output file. A sync can produce very many of them.
+   */
+  public static final String TASK_CATEGORY = "task";
+
+  /** Limits the size of a trace, in case of very large syncs. */
+  private static final int MAX_EVENTS = 200_000;
+
+  private static final LongSupplier USED_HEAP =
+      () -> Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+
+  private final Ticker ticker;
+  private final LongSupplier usedHeap;
+  private final long startNanos;
+
+  private final int maxEvents;
+  private final int maxDetailEvents;
+
+  private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger eventCount = new AtomicInteger();
+  private final AtomicInteger detailEventCount = new AtomicInteger();
+  private final AtomicInteger droppedEvents = new AtomicInteger();
+  private final Map<Long, String> threadNames = new ConcurrentHashMap<>();
+  private final Map<String, Long> counters = new ConcurrentHashMap<>();
+
+  public SyncTraceRecorder() {
+    this(Ticker.systemTicker(), USED_HEAP, MAX_EVENTS);
+  }
+
+  /**
+   * Task spans and counter updates may only use nine tenths of {@code maxEvents}. The rest is kept
+   * for the sync and phase spans, which are only recorded once they end, after all of their tasks.
+   */
+  @VisibleForTesting
+  SyncTraceRecorder(Ticker ticker, LongSupplier usedHeap, int maxEvents) {
+    this.ticker = ticker;
+    this.usedHeap = usedHeap;
+    this.maxEvents = maxEvents;
+    this.maxDetailEvents = maxEvents - maxEvents / 10;
+    this.startNanos = ticker.read();
+  }
+
+  /** A span of work on a single thread, recorded once {@link #end} is called. */
+  public final class Span implements AutoCloseable {
+    private final String name;
+    private final String category;
+    private final long threadId;
+    private final long beginNanos;
+    private final boolean isTask;
+    private final long beginHeap;
+    private final Map<String, Object> args = new LinkedHashMap<>();
+    private boolean ended;
+
+    private Span(String name, String category) {
+      Thread thread = Thread.currentThread();
+      this.name = name;
+      this.category = category;
+      this.threadId = thread.getId();
+      threadNames.putIfAbsent(threadId, thread.getName());
+      this.isTask = category.equals(TASK_CATEGORY);
+      // Tasks run concurrently, so the heap used by a single one can't be measured.
+      this.beginHeap = isTask ? 0 : usedHeap.getAsLong();
+      this.beginNanos = ticker.read();
+    }
+
+    /** Attaches a value shown with the span, e.g. the number of files processed. */
+    @CanIgnoreReturnValue
+    public synchronized Span putArg(String key, Object value) {
+      args.put(key, value);
+      return this;
+    }
+
+    /** Records the span. Only the first call has an effect. */
+    public void end() {
+      long endNanos = ticker.read();
+      Map<String, Object> eventArgs;
+      synchronized (this) {
+        if (ended) {
+          return;
+        }
+        ended = true;
+        if (!isTask) {
+          args.put("heapDeltaKb", (usedHeap.getAsLong() - beginHeap) / 1024);
+        }
+        eventArgs = new LinkedHashMap<>(args);
+      }
+      record(
+          isTask,
+          new Event(
+              name,
+              category,
+              'X',
+              micros(beginNanos),
+              TimeUnit.NANOSECONDS.toMicros(endNanos - beginNanos),
+              threadId,
+              eventArgs));
+    }
+
+    @Override
+    public void close() {
+      end();
+    }
+  }
+
+  /** Begins a span on the calling thread. */
+  public Span beginSpan(String name, String category) {
+    return new Span(name, category);
+  }
+
+  /**
+   * Adds to a running total, e.g. of bytes read. Each update is recorded as a counter event, shown
+   * as a graph over time.
+   */
+  public void addToCounter(String name, long delta) {
+    long total = counters.merge(name, delta, Long::sum);
+    Map<String, Object> args = new LinkedHashMap<>();
+    args.put(name, total);
+    record(
+        /* isDetail= */ true, new Event(name, "counter", 'C', micros(ticker.read()), 0, 0, args));
+  }
+
+  /** The current total of each counter. */
+  public Map<String, Long> getCounters() {
+    return counters;
+  }
+
+  private long micros(long nanos) {
+    return TimeUnit.NANOSECONDS.toMicros(nanos - startNanos);
+  }
+
+  private void record(boolean isDetail, Event event) {
+    if ((isDetail && detailEventCount.incrementAndGet() > maxDetailEvents)
+        || eventCount.incrementAndGet() > maxEvents) {
+      droppedEvents.incrementAndGet();
+      return;
+    }
+    events.add(event);
+  }
+
+  /** Writes the recorded events as a Chrome trace event JSON object. */
+  public void writeTo(Writer writer) throws IOException {
+    JsonWriter json = new JsonWriter(writer);
+    json.beginObject();
+    json.name("displayTimeUnit").value("ms");
+    json.name("traceEvents").beginArray();
+    for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+      json.beginObject();
+      json.name("name").value("thread_name");
+      json.name("ph").value("M");
+      json.name("pid").value(1);
+      json.name("tid").value(thread.getKey());
+      json.name("args").beginObject().name("name").value(thread.getValue()).endObject();
+      json.endObject();
+    }
+    for (Event event : events) {
+      event.writeTo(json);
+    }
+    json.endArray();
+    json.name("otherData").beginObject();
+    json.name("droppedEvents").value(droppedEvents.get());
+    json.endObject();
+    json.endObject();
+    json.flush();
+  }
+
+  private static final class Event {
+    private final String name;
+    private final String category;
+    private final char phase;
+    private final long timestampMicros;
+    private final long durationMicros;
+    private final long threadId;
+    @Nullable private final Map<String, Object> args;
+
+    Event(
+        String name,
+        String category,
+        char phase,
+        long timestampMicros,
+        long durationMicros,
+        long threadId,
+        @Nullable Map<String, Object> args) {
+      this.name = name;
+      this.category = category;
+      this.phase = phase;
+      this.timestampMicros = timestampMicros;
+      this.durationMicros = durationMicros;
+      this.threadId = threadId;
+      this.args = args;
+    }
+
+    void writeTo(JsonWriter json) throws IOException {
+      json.beginObject();
+      json.name("name").value(name);
+      json.name("cat").value(category);
+      json.name("ph").value(String.valueOf(phase));
+      json.name("ts").value(timestampMicros);
+      if (phase == 'X') {
+        json.name("dur").value(durationMicros);
+      }
+      json.name("pid").value(1);
+      json.name("tid").value(threadId);
+      if (args != null && !args.isEmpty()) {
+        json.name("args").beginObject();
+        for (Map.Entry<String, Object> arg : args.entrySet()) {
+          json.name(arg.getKey());
+          Object value = arg.getValue();
+          if (value instanceof Number) {
+            json.value((Number) value);
+          } else if (value instanceof Boolean) {
+            json.value((Boolean) value);
+          } else {
+            json.value(String.valueOf(value));
+          }
+        }
+        json.endObject();
+      }
+      json.endObject();
+    }
+  }
+}
@@ -31,6 +31,7 @@ import com.google.idea.blaze.base.sync.projectview.ImportRoots;
 import com.google.idea.blaze.base.sync.projectview.SourceTestConfig;
 import com.google.idea.blaze.base.sync.projectview.WorkspaceFileFinder;
 import com.google.idea.blaze.base.util.UrlUtil;
+import com.google.idea.blaze.base.util.WorkspacePathTrie;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ContentEntry;
 import com.intellij.openapi.roots.ModifiableRootModel;
@@ -159,24 +160,19 @@ public class ContentEntryEditor {
 
   private static Multimap<WorkspacePath, WorkspacePath> sortExcludesByRootDirectory(
       Collection<WorkspacePath> rootDirectories, Collection<WorkspacePath> excludedDirectories) {
+    WorkspacePathTrie.Builder<WorkspacePath> roots = WorkspacePathTrie.builder();
+    for (WorkspacePath rootDirectory : rootDirectories) {
+      roots.put(rootDirectory, rootDirectory);
+    }
+    WorkspacePathTrie<WorkspacePath> rootTrie = roots.build();
 
     Multimap<WorkspacePath, WorkspacePath> result = ArrayListMultimap.create();
     for (WorkspacePath exclude : excludedDirectories) {
-      rootDirectories.stream()
-          .filter(rootDirectory -> isUnderRootDirectory(rootDirectory, exclude.relativePath()))
-          .findFirst()
-          .ifPresent(foundWorkspacePath -> result.put(foundWorkspacePath, exclude));
+      WorkspacePath rootDirectory = rootTrie.findDeepest(exclude);
+      if (rootDirectory != null) {
+        result.put(rootDirectory, exclude);
+      }
     }
     return result;
   }
-
-  private static boolean isUnderRootDirectory(WorkspacePath rootDirectory, String relativePath) {
-    if (rootDirectory.isWorkspaceRoot()) {
-      return true;
-    }
-    String rootDirectoryString = rootDirectory.toString();
-    return relativePath.startsWith(rootDirectoryString)
-        && (relativePath.length() == rootDirectoryString.length()
-            || (relativePath.charAt(rootDirectoryString.length()) == '/'));
-  }
 }
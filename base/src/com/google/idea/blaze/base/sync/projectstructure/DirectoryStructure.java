@@ -15,14 +15,14 @@
  */
 package com.google.idea.blaze.base.sync.projectstructure;
 
-import com.google.common.base.Function;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableMap.Builder;
-import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.idea.blaze.base.async.executor.BlazeExecutor;
+import com.google.idea.blaze.base.async.executor.ExecutionLane;
 import com.google.idea.blaze.base.io.FileOperationProvider;
 import com.google.idea.blaze.base.model.primitives.WorkspacePath;
 import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
@@ -30,13 +30,18 @@ import com.google.idea.blaze.base.prefetch.FetchExecutor;
 import com.google.idea.blaze.base.projectview.ProjectViewSet;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.google.idea.blaze.base.sync.projectview.ImportRoots;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
 
 /**
  * Directory structure representation used by {@link ContentEntryEditor}.
@@ -46,6 +51,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class DirectoryStructure {
 
+  private static final Logger logger = Logger.getInstance(DirectoryStructure.class);
+
   final ImmutableMap<WorkspacePath, DirectoryStructure> directories;
 
   private DirectoryStructure(ImmutableMap<WorkspacePath, DirectoryStructure> directories) {
@@ -75,100 +82,147 @@ public class DirectoryStructure {
       ProjectViewSet projectViewSet,
       AtomicBoolean cancelled)
       throws ExecutionException, InterruptedException {
-    FileOperationProvider fileOperationProvider = FileOperationProvider.getInstance();
     ImportRoots importRoots =
         ImportRoots.builder(workspaceRoot, Blaze.getBuildSystemName(project))
             .add(projectViewSet)
             .build();
-    Collection<WorkspacePath> rootDirectories = importRoots.rootDirectories();
-    Set<WorkspacePath> excludeDirectories = importRoots.excludeDirectories();
-    List<ListenableFuture<PathStructurePair>> futures =
-        Lists.newArrayListWithExpectedSize(rootDirectories.size());
-    for (WorkspacePath rootDirectory : rootDirectories) {
-      futures.add(
-          walkDirectoryStructure(
-              workspaceRoot,
-              excludeDirectories,
-              fileOperationProvider,
-              FetchExecutor.EXECUTOR,
-              rootDirectory,
-              cancelled));
-    }
-    ImmutableMap.Builder<WorkspacePath, DirectoryStructure> result = ImmutableMap.builder();
-    for (PathStructurePair pair : Futures.allAsList(futures).get()) {
-      if (pair != null) {
-        result.put(pair.path, pair.directoryStructure);
-      }
-    }
-    return new DirectoryStructure(result.build());
+    DirectoryStructureCache cache = DirectoryStructureCache.getInstance(project);
+    DirectoryStructure result =
+        walk(
+            workspaceRoot,
+            importRoots.rootDirectories(),
+            importRoots.excludeDirectories(),
+            FileOperationProvider.getInstance(),
+            cache,
+            BlazeExecutor.getInstance().getExecutor(ExecutionLane.IO),
+            cancelled);
+    logger.debug("Directory structure computed. " + cache.getStatistics());
+    return result;
   }
 
-  private static ListenableFuture<PathStructurePair> walkDirectoryStructure(
+  /**
+   * Walks the given root directories, skipping excluded directories. Directories unchanged since
+   * the previous walk aren't listed again, their subdirectories are taken from the cache.
+   *
+   * <p>Each directory is listed by a separate task on the given executor. Tasks never wait for
+   * each other, so the walk can't deadlock on an executor which limits concurrent tasks, such as
+   * {@link ExecutionLane#IO}.
+   */
+  @VisibleForTesting
+  static DirectoryStructure walk(
       WorkspaceRoot workspaceRoot,
+      Collection<WorkspacePath> rootDirectories,
       Set<WorkspacePath> excludeDirectories,
       FileOperationProvider fileOperationProvider,
-      ListeningExecutorService executorService,
-      WorkspacePath workspacePath,
-      AtomicBoolean cancelled) {
-    if (cancelled.get() || excludeDirectories.contains(workspacePath)) {
-      return Futures.immediateFuture(null);
+      DirectoryStructureCache cache,
+      Executor executor,
+      AtomicBoolean cancelled)
+      throws ExecutionException, InterruptedException {
+    Walker walker =
+        new Walker(
+            workspaceRoot, excludeDirectories, fileOperationProvider, cache, executor, cancelled);
+    DirectoryStructure result = walker.walkAll(rootDirectories).get();
+    if (!cancelled.get()) {
+      cache.retainAll(walker.visited);
     }
-    File file = workspaceRoot.fileForPath(workspacePath);
-    if (!fileOperationProvider.isDirectory(file)) {
-      return Futures.immediateFuture(null);
+    return result;
+  }
+
+  /** State shared by all tasks of a single walk. */
+  private static class Walker {
+    final WorkspaceRoot workspaceRoot;
+    final Set<WorkspacePath> excludeDirectories;
+    final FileOperationProvider fileOperationProvider;
+    final DirectoryStructureCache cache;
+    final Executor executor;
+    final AtomicBoolean cancelled;
+    final Set<WorkspacePath> visited = ConcurrentHashMap.newKeySet();
+
+    Walker(
+        WorkspaceRoot workspaceRoot,
+        Set<WorkspacePath> excludeDirectories,
+        FileOperationProvider fileOperationProvider,
+        DirectoryStructureCache cache,
+        Executor executor,
+        AtomicBoolean cancelled) {
+      this.workspaceRoot = workspaceRoot;
+      this.excludeDirectories = excludeDirectories;
+      this.fileOperationProvider = fileOperationProvider;
+      this.cache = cache;
+      this.executor = executor;
+      this.cancelled = cancelled;
     }
-    ListenableFuture<File[]> childrenFuture =
-        executorService.submit(() -> fileOperationProvider.listFiles(file));
-    return Futures.transformAsync(
-        childrenFuture,
-        children -> {
-          if (cancelled.get() || children == null) {
-            return Futures.immediateFuture(null);
-          }
-          List<ListenableFuture<PathStructurePair>> futures =
-              Lists.newArrayListWithExpectedSize(children.length);
-          for (File child : children) {
-            WorkspacePath childWorkspacePath;
-            try {
-              childWorkspacePath = workspaceRoot.workspacePathFor(child);
-            } catch (IllegalArgumentException e) {
-              // stop at directories with unhandled characters.
-              continue;
+
+    /** Builds the structure below the given directories, walking each on its own task. */
+    ListenableFuture<DirectoryStructure> walkAll(Collection<WorkspacePath> directories) {
+      ImmutableList<WorkspacePath> directoryList = ImmutableList.copyOf(directories);
+      List<ListenableFuture<DirectoryStructure>> futures =
+          new ArrayList<>(directoryList.size());
+      for (WorkspacePath directory : directoryList) {
+        futures.add(Futures.submitAsync(() -> walk(directory), executor));
+      }
+      return Futures.transform(
+          Futures.allAsList(futures),
+          structures -> {
+            ImmutableMap.Builder<WorkspacePath, DirectoryStructure> result =
+                ImmutableMap.builder();
+            for (int i = 0; i < directoryList.size(); i++) {
+              if (structures.get(i) != null) {
+                result.put(directoryList.get(i), structures.get(i));
+              }
             }
-            futures.add(
-                walkDirectoryStructure(
-                    workspaceRoot,
-                    excludeDirectories,
-                    fileOperationProvider,
-                    executorService,
-                    childWorkspacePath,
-                    cancelled));
-          }
-          return Futures.transform(
-              Futures.allAsList(futures),
-              (Function<List<PathStructurePair>, PathStructurePair>)
-                  pairs -> {
-                    Builder<WorkspacePath, DirectoryStructure> result = ImmutableMap.builder();
-                    for (PathStructurePair pair : pairs) {
-                      if (pair != null) {
-                        result.put(pair.path, pair.directoryStructure);
-                      }
-                    }
-                    return new PathStructurePair(
-                        workspacePath, new DirectoryStructure(result.build()));
-                  },
-              executorService);
-        },
-        executorService);
-  }
+            return new DirectoryStructure(result.buildKeepingLast());
+          },
+          MoreExecutors.directExecutor());
+    }
 
-  private static class PathStructurePair {
-    final WorkspacePath path;
-    final DirectoryStructure directoryStructure;
+    /**
+     * Lists a single directory, then walks its subdirectories. The result is null if the directory
+     * is excluded or not a readable directory.
+     */
+    private ListenableFuture<DirectoryStructure> walk(WorkspacePath directory) {
+      if (cancelled.get() || excludeDirectories.contains(directory)) {
+        return Futures.immediateFuture(null);
+      }
+      ImmutableList<WorkspacePath> subdirectories = listSubdirectories(directory);
+      if (subdirectories == null) {
+        return Futures.immediateFuture(null);
+      }
+      visited.add(directory);
+      return walkAll(subdirectories);
+    }
 
-    PathStructurePair(WorkspacePath path, DirectoryStructure directoryStructure) {
-      this.path = path;
-      this.directoryStructure = directoryStructure;
+    /**
+     * Returns the subdirectories of the given directory, or null if it's not a readable directory.
+     */
+    @Nullable
+    ImmutableList<WorkspacePath> listSubdirectories(WorkspacePath workspacePath) {
+      File file = workspaceRoot.fileForPath(workspacePath);
+      long modifiedTime = fileOperationProvider.getFileModifiedTime(file);
+      DirectoryStructureCache.CachedDirectory cached =
+          cache.getIfUnchanged(workspacePath, modifiedTime);
+      if (cached != null) {
+        return cached.subdirectories;
+      }
+      List<File> children =
+          fileOperationProvider.isDirectory(file)
+              ? fileOperationProvider.listSubdirectories(file)
+              : null;
+      if (children == null) {
+        cache.remove(workspacePath);
+        return null;
+      }
+      ImmutableList.Builder<WorkspacePath> subdirectories = ImmutableList.builder();
+      for (File child : children) {
+        try {
+          subdirectories.add(workspaceRoot.workspacePathFor(child));
+        } catch (IllegalArgumentException e) {
+          // stop at directories with unhandled characters.
+        }
+      }
+      ImmutableList<WorkspacePath> result = subdirectories.build();
+      cache.put(workspacePath, modifiedTime, result);
+      return result;
     }
   }
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.projectstructure;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
+import com.google.idea.blaze.base.settings.Blaze;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileContentChangeEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Remembers the subdirectories of each directory visited by {@link DirectoryStructure}, so that
+ * subsequent syncs only list directories which changed.
+ *
+ * <p>A cached listing is reused while the directory's modification time is unchanged, and no VFS
+ * event touched it since it was listed.
+ */
+public final class DirectoryStructureCache implements Disposable {
+
+  /** The subdirectories of a directory, as of the given modification time. */
+  static final class CachedDirectory {
+    final long modifiedTime;
+    final ImmutableList<WorkspacePath> subdirectories;
+
+    CachedDirectory(long modifiedTime, ImmutableList<WorkspacePath> subdirectories) {
+      this.modifiedTime = modifiedTime;
+      this.subdirectories = subdirectories;
+    }
+  }
+
+  private final Map<WorkspacePath, CachedDirectory> directories = new ConcurrentHashMap<>();
+  private final Set<WorkspacePath> dirty = ConcurrentHashMap.newKeySet();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public static DirectoryStructureCache getInstance(Project project) {
+    return project.getService(DirectoryStructureCache.class);
+  }
+
+  DirectoryStructureCache(Project project) {
+    project
+        .getMessageBus()
+        .connect(this)
+        .subscribe(VirtualFileManager.VFS_CHANGES, new DirectoryListener(project));
+  }
+
+  @VisibleForTesting
+  DirectoryStructureCache() {}
+
+  /**
+   * Returns the cached listing of a directory if it's still valid for the given modification time,
+   * otherwise null.
+   */
+  @Nullable
+  CachedDirectory getIfUnchanged(WorkspacePath directory, long modifiedTime) {
+    boolean wasDirty = dirty.remove(directory);
+    CachedDirectory cached = directories.get(directory);
+    if (cached == null || wasDirty || modifiedTime == 0 || cached.modifiedTime != modifiedTime) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return cached;
+  }
+
+  void put(
+      WorkspacePath directory, long modifiedTime, ImmutableList<WorkspacePath> subdirectories) {
+    directories.put(directory, new CachedDirectory(modifiedTime, subdirectories));
+  }
+
+  void remove(WorkspacePath directory) {
+    directories.remove(directory);
+  }
+
+  /** Drops directories which were not visited by the last walk, e.g. after a project view edit. */
+  void retainAll(Set<WorkspacePath> visited) {
+    directories.keySet().retainAll(visited);
+  }
+
+  /** Forces the given directory to be listed again on the next sync. */
+  void invalidate(WorkspacePath directory) {
+    dirty.add(directory);
+  }
+
+  @VisibleForTesting
+  int size() {
+    return directories.size();
+  }
+
+  /** Counters of cache hits and misses since startup, for logging and tests. */
+  String getStatistics() {
+    return String.format(
+        "cached directories: %d, hits: %d, misses: %d",
+        directories.size(), hits.get(), misses.get());
+  }
+
+  @Override
+  public void dispose() {
+    directories.clear();
+    dirty.clear();
+  }
+
+  /**
+   * Marks directories whose children were added, removed or renamed. This covers changes within
+   * the file system's modification time granularity, which the modification time check misses.
+   */
+  private class DirectoryListener implements BulkFileListener {
+
+    private final Project project;
+
+    DirectoryListener(Project project) {
+      this.project = project;
+    }
+
+    @Override
+    public void after(List<? extends VFileEvent> events) {
+      if (directories.isEmpty() || !Blaze.isBlazeProject(project)) {
+        return;
+      }
+      WorkspaceRoot workspaceRoot = WorkspaceRoot.fromProjectSafe(project);
+      if (workspaceRoot == null) {
+        return;
+      }
+      for (VFileEvent event : events) {
+        if (event instanceof VFileContentChangeEvent) {
+          continue;
+        }
+        invalidateWithParent(workspaceRoot, event.getPath());
+        if (event instanceof VFileMoveEvent) {
+          VirtualFile oldParent = ((VFileMoveEvent) event).getOldParent();
+          if (oldParent != null) {
+            invalidateDirectory(workspaceRoot, new File(oldParent.getPath()));
+          }
+        }
+      }
+    }
+
+    private void invalidateWithParent(WorkspaceRoot workspaceRoot, String path) {
+      File file = new File(path);
+      invalidateDirectory(workspaceRoot, file);
+      File parent = file.getParentFile();
+      if (parent != null) {
+        invalidateDirectory(workspaceRoot, parent);
+      }
+    }
+
+    private void invalidateDirectory(WorkspaceRoot workspaceRoot, File directory) {
+      WorkspacePath path = workspaceRoot.workspacePathForSafe(directory);
+      if (path != null && directories.containsKey(path)) {
+        invalidate(path);
+      }
+    }
+  }
+}
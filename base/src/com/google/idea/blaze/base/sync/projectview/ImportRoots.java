@@ -38,6 +38,7 @@ import com.google.idea.blaze.base.projectview.section.sections.ViewProjectRootSe
 import com.google.idea.blaze.base.settings.Blaze;
 import com.google.idea.blaze.base.settings.BuildSystemName;
 import com.google.idea.blaze.base.sync.data.BlazeDataStorage;
+import com.google.idea.blaze.base.util.WorkspacePathTrie;
 import com.google.idea.blaze.base.util.WorkspacePathUtil;
 import com.google.idea.common.experiments.BoolExperiment;
 import com.intellij.openapi.project.Project;
@@ -45,7 +46,6 @@ import com.intellij.openapi.util.io.FileUtil;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
-import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -326,6 +326,8 @@ public final class ImportRoots {
     private final ImmutableSet<WorkspacePath> rootDirectories;
     private final ImmutableSet<WorkspacePath> excludeDirectories;
     private final ImmutableSet<WorkspacePath> excludePathsForBazelQuery;
+    /** Maps root directories to true and exclude directories to false. */
+    private final WorkspacePathTrie<Boolean> containment;
 
     @VisibleForTesting
     ProjectDirectoriesHelper(
@@ -335,27 +337,21 @@ public final class ImportRoots {
       this.rootDirectories = ImmutableSet.copyOf(rootDirectories);
       this.excludeDirectories = ImmutableSet.copyOf(excludeDirectories);
       this.excludePathsForBazelQuery = ImmutableSet.copyOf(excludePathsForBazelQuery);
+      // excludes are added last, so they win over a root directory with the same path
+      this.containment =
+          WorkspacePathTrie.<Boolean>builder()
+              .putAll(this.rootDirectories, true)
+              .putAll(this.excludeDirectories, false)
+              .build();
     }
 
+    /**
+     * Returns true if the path is under a root directory and not under an exclude directory. Root
+     * directories under an exclude directory are dropped when building {@link ImportRoots}, so the
+     * deepest matching directory decides.
+     */
     boolean containsWorkspacePath(WorkspacePath workspacePath) {
-      boolean included = false;
-      boolean excluded = false;
-      for (WorkspacePath rootDirectory : rootDirectories) {
-        included = included || isSubdirectory(rootDirectory, workspacePath);
-      }
-      for (WorkspacePath excludeDirectory : excludeDirectories) {
-        excluded = excluded || isSubdirectory(excludeDirectory, workspacePath);
-      }
-      return included && !excluded;
-    }
-
-    private static boolean isSubdirectory(WorkspacePath ancestor, WorkspacePath descendant) {
-      if (ancestor.isWorkspaceRoot()) {
-        return true;
-      }
-      Path ancestorPath = FileSystems.getDefault().getPath(ancestor.relativePath());
-      Path descendantPath = FileSystems.getDefault().getPath(descendant.relativePath());
-      return descendantPath.startsWith(ancestorPath);
+      return Boolean.TRUE.equals(containment.findDeepest(workspacePath));
     }
   }
 }
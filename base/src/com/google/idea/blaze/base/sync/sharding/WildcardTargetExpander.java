@@ -16,7 +16,6 @@
 package com.google.idea.blaze.base.sync.sharding;
 
 import static com.google.common.base.Verify.verify;
-import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -49,11 +48,9 @@ import com.google.idea.blaze.exception.BuildException;
 import com.google.idea.common.experiments.BoolExperiment;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.Project;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -230,10 +227,9 @@ public class WildcardTargetExpander {
             : t -> handledRulesPredicate.test(t.ruleType) || explicitTargets.contains(t.label);
 
     BlazeQueryLabelKindParser outputProcessor = new BlazeQueryLabelKindParser(filter);
-    try (InputStream queryResultStream = buildBinary.invokeQuery(builder, context)) {
-      new BufferedReader(new InputStreamReader(queryResultStream, UTF_8))
-          .lines()
-          .forEach(outputProcessor::processLine);
+    // stream the output, parsing targets while the query is still running
+    try (InputStream queryResultStream = buildBinary.invokeQueryStreaming(builder, context)) {
+      outputProcessor.processOutput(queryResultStream);
     } catch (IOException | BuildException e) {
       Logger.getInstance(WildcardTargetExpander.class)
           .warn("Error running blaze query to expand the input target pattern", e);
@@ -28,7 +28,10 @@ import java.io.IOException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
 
 /** Decodes intellij_ide_info.proto ArtifactLocation file paths */
@@ -38,6 +41,15 @@ public final class ArtifactLocationDecoderImpl implements ArtifactLocationDecode
   private final WorkspacePathResolver pathResolver;
   private final RemoteOutputArtifacts remoteOutputs;
 
+  /**
+   * The real paths of external repository roots (artifact root paths) which are symlinks into the
+   * main workspace, e.g. for local_repository overrides, or empty for roots which aren't. A new
+   * decoder is created for each sync together with its {@link BlazeInfo}, which scopes the cache
+   * to the current execution root.
+   */
+  private final Map<String, Optional<File>> externalRootsInMainWorkspace =
+      new ConcurrentHashMap<>();
+
   public ArtifactLocationDecoderImpl(
       BlazeInfo blazeInfo,
       WorkspacePathResolver pathResolver,
@@ -92,22 +104,46 @@ public final class ArtifactLocationDecoderImpl implements ArtifactLocationDecode
   }
 
   private @Nullable File tryToResolveExternalArtifactToMainWorkspace(ArtifactLocation artifactLocation) {
-    if (artifactLocation.isExternal()) {
-      try {
-        File realFile = blazeInfo.getExecutionRoot().toPath()
-            .resolve(artifactLocation.getExecutionRootRelativePath()).toRealPath().toFile();
-        if (pathResolver.getWorkspacePath(realFile) != null) {
-          return realFile;
+    if (!artifactLocation.isExternal()) {
+      return null;
+    }
+    if (!artifactLocation.rootPath().isEmpty()) {
+      // a repository root in the main workspace is resolved once, its files derived from it
+      Optional<File> root =
+          externalRootsInMainWorkspace.computeIfAbsent(
+              artifactLocation.rootPath(), this::resolveToMainWorkspace);
+      if (root.isPresent()) {
+        File file = new File(root.get(), artifactLocation.relativePath());
+        if (file.exists()) {
+          return file;
         }
-      } catch (NoSuchFileException ignore) {
-        // this is ok as it might not exist
-      } catch (IOException ioException) {
-        LOG.warn("Failed to resolve real path for " + artifactLocation.getExecutionRootRelativePath() +
-                "\n" + ioException.getClass().getSimpleName() + ": " + ioException.getMessage());
-        LOG.trace(ioException);
       }
     }
-    return null;
+    // other repositories may still link single files into the workspace, e.g. a
+    // new_local_repository, whose root is a real directory of symlinks
+    return resolveToMainWorkspace(artifactLocation.getExecutionRootRelativePath()).orElse(null);
+  }
+
+  /**
+   * Resolves the symlinks of an execution root relative path, returning the real path if it is in
+   * the main workspace.
+   */
+  private Optional<File> resolveToMainWorkspace(String executionRootRelativePath) {
+    try {
+      File realFile =
+          blazeInfo.getExecutionRoot().toPath()
+              .resolve(executionRootRelativePath).toRealPath().toFile();
+      if (pathResolver.getWorkspacePath(realFile) != null) {
+        return Optional.of(realFile);
+      }
+    } catch (NoSuchFileException ignore) {
+      // this is ok as it might not exist
+    } catch (IOException ioException) {
+      LOG.warn("Failed to resolve real path for " + executionRootRelativePath +
+              "\n" + ioException.getClass().getSimpleName() + ": " + ioException.getMessage());
+      LOG.trace(ioException);
+    }
+    return Optional.empty();
   }
 
   @Override
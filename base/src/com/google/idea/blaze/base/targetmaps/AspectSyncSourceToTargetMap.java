@@ -25,14 +25,24 @@ import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
 import com.google.idea.blaze.base.ideinfo.TargetKey;
 import com.google.idea.blaze.base.model.BlazeProjectData;
 import com.google.idea.blaze.base.model.primitives.Label;
+import com.google.idea.blaze.base.sync.ComputedAfterSync;
+import com.google.idea.blaze.base.sync.ComputedAfterSync.Refresh;
 import com.google.idea.blaze.base.sync.SyncCache;
+import com.google.idea.blaze.base.sync.SyncCache.PersistentSyncCacheComputable;
 import com.google.idea.blaze.base.sync.data.BlazeProjectDataManager;
 import com.google.idea.blaze.base.sync.workspace.ArtifactLocationDecoder;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import javax.annotation.Nullable;
 
 /** Maps source files to their respective targets */
@@ -77,21 +87,16 @@ public class AspectSyncSourceToTargetMap implements SourceToTargetMap {
 
   @Nullable
   private ImmutableMultimap<File, TargetKey> getSourceToTargetMap() {
-    var syncCache = SyncCache.getInstance(project);
-
     if (ApplicationManager.getApplication().isReadAccessAllowed()) {
       // we might be called from a non-cancellable read action, and this leads
       // to a freeze as computeSourceToTargetMap is blocking. This is an
       // ijplatform issue as cancellable read actions should be used, but there
       // are still usages of the old noncancellable one. So in case of read action
-      // we do not compute the map and just trying to get the computed version and
-      // schedule computation if needed
-      return syncCache.tryGet(AspectSyncSourceToTargetMap.class, AspectSyncSourceToTargetMap::computeSourceToTargetMap);
+      // we only use the computed version; editors are refreshed once it's ready
+      return ComputedAfterSync.getInstance(project).tryGet(new Computable());
     }
 
-    return syncCache.get(
-            AspectSyncSourceToTargetMap.class,
-            AspectSyncSourceToTargetMap::computeSourceToTargetMap);
+    return SyncCache.getInstance(project).get(new Computable());
   }
 
   @SuppressWarnings("unused")
@@ -112,4 +117,62 @@ public class AspectSyncSourceToTargetMap implements SourceToTargetMap {
     }
     return sourceToTargetMap.build();
   }
+
+  /**
+   * Computes the source to target map after each sync, keeping it in a snapshot across restarts.
+   */
+  static final class Computable
+      implements PersistentSyncCacheComputable<ImmutableMultimap<File, TargetKey>>,
+          ComputedAfterSync.Value<ImmutableMultimap<File, TargetKey>> {
+
+    @Override
+    public ImmutableMultimap<File, TargetKey> compute(
+        Project project, BlazeProjectData blazeProjectData) {
+      return computeSourceToTargetMap(project, blazeProjectData);
+    }
+
+    @Override
+    public Set<Refresh> refreshes() {
+      // line markers, editor notifications and project view decorations all depend on it
+      return EnumSet.allOf(Refresh.class);
+    }
+
+    @Override
+    public String snapshotName() {
+      return "source_to_target_v1";
+    }
+
+    @Override
+    public void write(
+        BlazeProjectData blazeProjectData,
+        ImmutableMultimap<File, TargetKey> sourceToTargetMap,
+        DataOutput out)
+        throws IOException {
+      TargetKeyIndex index = new TargetKeyIndex(blazeProjectData.targetMap());
+      out.writeInt(sourceToTargetMap.keySet().size());
+      for (Map.Entry<File, Collection<TargetKey>> entry : sourceToTargetMap.asMap().entrySet()) {
+        out.writeUTF(entry.getKey().getPath());
+        out.writeInt(entry.getValue().size());
+        for (TargetKey key : entry.getValue()) {
+          out.writeInt(index.id(key));
+        }
+      }
+    }
+
+    @Override
+    public ImmutableMultimap<File, TargetKey> read(
+        BlazeProjectData blazeProjectData, DataInput in) throws IOException {
+      TargetKeyIndex index = new TargetKeyIndex(blazeProjectData.targetMap());
+      ImmutableMultimap.Builder<File, TargetKey> sourceToTargetMap = ImmutableMultimap.builder();
+      int files = in.readInt();
+      for (int i = 0; i < files; i++) {
+        File file = new File(in.readUTF());
+        int targets = in.readInt();
+        for (int j = 0; j < targets; j++) {
+          sourceToTargetMap.put(file, index.key(in.readInt()));
+        }
+      }
+      return sourceToTargetMap.build();
+    }
+  }
 }
@@ -23,14 +23,19 @@ import com.google.idea.blaze.base.ideinfo.TargetKey;
 import com.google.idea.blaze.base.ideinfo.TargetMap;
 import com.google.idea.blaze.base.model.BlazeProjectData;
 import com.google.idea.blaze.base.sync.SyncCache;
+import com.google.idea.blaze.base.sync.SyncCache.PersistentSyncCacheComputable;
 import com.intellij.openapi.project.Project;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
 
 /** Handy class to create an reverse dep map of all targets */
 public class ReverseDependencyMap {
   public static ImmutableMultimap<TargetKey, TargetKey> get(Project project) {
     ImmutableMultimap<TargetKey, TargetKey> map =
-        SyncCache.getInstance(project)
-            .get(ReverseDependencyMap.class, ReverseDependencyMap::createRdepsMap);
+        SyncCache.getInstance(project).get(new Computable());
     return map != null ? map : ImmutableMultimap.of();
   }
 
@@ -50,4 +55,52 @@ public class ReverseDependencyMap {
     }
     return builder.build();
   }
+
+  /** Computes the reverse dependency map, keeping it in a snapshot across restarts. */
+  @VisibleForTesting
+  static final class Computable
+      implements PersistentSyncCacheComputable<ImmutableMultimap<TargetKey, TargetKey>> {
+
+    @Override
+    public ImmutableMultimap<TargetKey, TargetKey> compute(
+        Project project, BlazeProjectData projectData) {
+      return createRdepsMap(project, projectData);
+    }
+
+    @Override
+    public String snapshotName() {
+      return "rdeps_v1";
+    }
+
+    @Override
+    public void write(
+        BlazeProjectData projectData, ImmutableMultimap<TargetKey, TargetKey> rdeps, DataOutput out)
+        throws IOException {
+      TargetKeyIndex index = new TargetKeyIndex(projectData.targetMap());
+      out.writeInt(rdeps.keySet().size());
+      for (Map.Entry<TargetKey, Collection<TargetKey>> entry : rdeps.asMap().entrySet()) {
+        out.writeInt(index.id(entry.getKey()));
+        out.writeInt(entry.getValue().size());
+        for (TargetKey rdep : entry.getValue()) {
+          out.writeInt(index.id(rdep));
+        }
+      }
+    }
+
+    @Override
+    public ImmutableMultimap<TargetKey, TargetKey> read(
+        BlazeProjectData projectData, DataInput in) throws IOException {
+      TargetKeyIndex index = new TargetKeyIndex(projectData.targetMap());
+      ImmutableMultimap.Builder<TargetKey, TargetKey> builder = ImmutableMultimap.builder();
+      int keys = in.readInt();
+      for (int i = 0; i < keys; i++) {
+        TargetKey key = index.key(in.readInt());
+        int rdeps = in.readInt();
+        for (int j = 0; j < rdeps; j++) {
+          builder.put(key, index.key(in.readInt()));
+        }
+      }
+      return builder.build();
+    }
+  }
 }
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.targetmaps;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.ideinfo.ArtifactLocation;
+import com.google.idea.blaze.base.ideinfo.Dependency;
+import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
+import com.google.idea.blaze.base.ideinfo.TargetKey;
+import com.google.idea.blaze.base.ideinfo.TargetMap;
+import com.google.idea.blaze.base.model.BlazeProjectData;
+import com.google.idea.blaze.base.sync.SyncCache;
+import com.google.idea.blaze.base.sync.workspace.ArtifactLocationDecoder;
+import com.intellij.openapi.project.Project;
+import java.io.File;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A compact index of the target graph of the last sync, for walking reverse dependencies.
+ *
+ * <p>Targets are numbered, the reverse dependencies of all targets are stored in two int arrays,
+ * and each source and BUILD file maps to the numbers of the targets it belongs to. A walk only
+ * touches these arrays and a {@link BitSet}, so it is cheap even on large target maps.
+ */
+public final class TargetGraphIndex {
+
+  private static final int[] NO_TARGETS = new int[0];
+
+  private static final TargetGraphIndex EMPTY =
+      new TargetGraphIndex(
+          new TargetMap(ImmutableMap.of()),
+          new TargetKey[0],
+          ImmutableMap.of(),
+          new int[1],
+          NO_TARGETS,
+          ImmutableMap.of(),
+          ImmutableMap.of());
+
+  private final TargetMap targetMap;
+  private final TargetKey[] targets;
+  private final Map<TargetKey, Integer> ids;
+
+  /**
+   * The reverse dependencies of target {@code i} are {@code rdeps[rdepsStart[i]]} up to, but not
+   * including, {@code rdeps[rdepsStart[i + 1]]}.
+   */
+  private final int[] rdepsStart;
+
+  private final int[] rdeps;
+  private final ImmutableMap<File, int[]> sourceOwners;
+  private final ImmutableMap<File, int[]> buildFileOwners;
+
+  private TargetGraphIndex(
+      TargetMap targetMap,
+      TargetKey[] targets,
+      Map<TargetKey, Integer> ids,
+      int[] rdepsStart,
+      int[] rdeps,
+      ImmutableMap<File, int[]> sourceOwners,
+      ImmutableMap<File, int[]> buildFileOwners) {
+    this.targetMap = targetMap;
+    this.targets = targets;
+    this.ids = ids;
+    this.rdepsStart = rdepsStart;
+    this.rdeps = rdeps;
+    this.sourceOwners = sourceOwners;
+    this.buildFileOwners = buildFileOwners;
+  }
+
+  /** Returns the index of the project's target map, computing it if necessary. */
+  public static TargetGraphIndex get(Project project) {
+    TargetGraphIndex index =
+        SyncCache.getInstance(project).get(TargetGraphIndex.class, TargetGraphIndex::create);
+    return index != null ? index : EMPTY;
+  }
+
+  private static TargetGraphIndex create(Project project, BlazeProjectData projectData) {
+    return create(projectData.targetMap(), projectData.artifactLocationDecoder());
+  }
+
+  @VisibleForTesting
+  public static TargetGraphIndex create(TargetMap targetMap, ArtifactLocationDecoder decoder) {
+    ImmutableList<TargetIdeInfo> infos = targetMap.targets().asList();
+    int count = infos.size();
+    TargetKey[] targets = new TargetKey[count];
+    Map<TargetKey, Integer> ids = new HashMap<>(count * 4 / 3 + 1);
+    for (int i = 0; i < count; i++) {
+      targets[i] = infos.get(i).getKey();
+      ids.put(targets[i], i);
+    }
+
+    int[][] deps = new int[count][];
+    int[] rdepsStart = new int[count + 1];
+    Map<File, int[]> sourceOwners = new HashMap<>();
+    Map<File, int[]> buildFileOwners = new HashMap<>();
+    for (int i = 0; i < count; i++) {
+      TargetIdeInfo target = infos.get(i);
+      deps[i] = dependencyIds(target, ids);
+      for (int dep : deps[i]) {
+        rdepsStart[dep + 1]++;
+      }
+      for (ArtifactLocation source : target.getSources()) {
+        addOwner(sourceOwners, decoder.resolveSource(source), i);
+      }
+      if (target.getBuildFile() != null) {
+        addOwner(buildFileOwners, decoder.resolveSource(target.getBuildFile()), i);
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      rdepsStart[i + 1] += rdepsStart[i];
+    }
+    int[] rdeps = new int[rdepsStart[count]];
+    int[] next = Arrays.copyOf(rdepsStart, count);
+    for (int i = 0; i < count; i++) {
+      for (int dep : deps[i]) {
+        rdeps[next[dep]++] = i;
+      }
+    }
+    return new TargetGraphIndex(
+        targetMap,
+        targets,
+        ids,
+        rdepsStart,
+        rdeps,
+        ImmutableMap.copyOf(sourceOwners),
+        ImmutableMap.copyOf(buildFileOwners));
+  }
+
+  /** The ids of the dependencies of a target which are in the target map, without duplicates. */
+  private static int[] dependencyIds(TargetIdeInfo target, Map<TargetKey, Integer> ids) {
+    Collection<Dependency> dependencies = target.getDependencies();
+    int[] result = new int[dependencies.size()];
+    int size = 0;
+    for (Dependency dependency : dependencies) {
+      Integer id = ids.get(dependency.getTargetKey());
+      if (id != null) {
+        result[size++] = id;
+      }
+    }
+    if (size < 2) {
+      return Arrays.copyOf(result, size);
+    }
+    Arrays.sort(result, 0, size);
+    int unique = 1;
+    for (int i = 1; i < size; i++) {
+      if (result[i] != result[unique - 1]) {
+        result[unique++] = result[i];
+      }
+    }
+    return Arrays.copyOf(result, unique);
+  }
+
+  private static void addOwner(Map<File, int[]> owners, @Nullable File file, int target) {
+    if (file == null) {
+      return;
+    }
+    int[] existing = owners.get(file);
+    if (existing == null) {
+      owners.put(file, new int[] {target});
+    } else if (existing[existing.length - 1] != target) {
+      int[] updated = Arrays.copyOf(existing, existing.length + 1);
+      updated[existing.length] = target;
+      owners.put(file, updated);
+    }
+  }
+
+  /** The target map this index was built from. */
+  public TargetMap getTargetMap() {
+    return targetMap;
+  }
+
+  /** The number of targets in the index. */
+  public int size() {
+    return targets.length;
+  }
+
+  /** Whether the given file is a source or BUILD file of at least one target. */
+  public boolean hasOwners(File file) {
+    return sourceOwners.containsKey(file) || buildFileOwners.containsKey(file);
+  }
+
+  /** Returns a new, empty {@link ReverseClosure} over this index. */
+  public ReverseClosure newReverseClosure() {
+    return new ReverseClosure();
+  }
+
+  /**
+   * A set of targets closed under reverse dependencies: whenever it contains a target, it also
+   * contains all targets depending on it.
+   *
+   * <p>It can grow as more files are added; each target is visited at most once over its lifetime,
+   * so adding files one at a time costs no more than adding them all at once.
+   */
+  public final class ReverseClosure {
+
+    private final BitSet reached = new BitSet(targets.length);
+    private final int[] queue = new int[targets.length];
+    private int queueEnd;
+
+    private ReverseClosure() {}
+
+    /**
+     * Adds the targets owning the given files, and all targets depending on them. If {@code
+     * includeBuildFiles} is set, a changed BUILD file counts as a change to all targets it
+     * declares.
+     *
+     * @return the targets which weren't in the closure before, in the order they were reached
+     */
+    public ImmutableList<TargetKey> addFiles(Collection<File> files, boolean includeBuildFiles) {
+      int start = queueEnd;
+      for (File file : files) {
+        enqueueAll(sourceOwners.getOrDefault(file, NO_TARGETS));
+        if (includeBuildFiles) {
+          enqueueAll(buildFileOwners.getOrDefault(file, NO_TARGETS));
+        }
+      }
+      return walkFrom(start);
+    }
+
+    /** Adds the given targets, and all targets depending on them. */
+    public ImmutableList<TargetKey> addTargets(Collection<TargetKey> keys) {
+      int start = queueEnd;
+      for (TargetKey key : keys) {
+        Integer id = ids.get(key);
+        if (id != null) {
+          enqueue(id);
+        }
+      }
+      return walkFrom(start);
+    }
+
+    /** Whether the closure contains the given target. */
+    public boolean contains(TargetKey key) {
+      Integer id = ids.get(key);
+      return id != null && reached.get(id);
+    }
+
+    /** The number of targets in the closure. */
+    public int size() {
+      return queueEnd;
+    }
+
+    private ImmutableList<TargetKey> walkFrom(int start) {
+      for (int head = start; head < queueEnd; head++) {
+        int target = queue[head];
+        for (int i = rdepsStart[target]; i < rdepsStart[target + 1]; i++) {
+          enqueue(rdeps[i]);
+        }
+      }
+      ImmutableList.Builder<TargetKey> added =
+          ImmutableList.builderWithExpectedSize(queueEnd - start);
+      for (int i = start; i < queueEnd; i++) {
+        added.add(targets[queue[i]]);
+      }
+      return added.build();
+    }
+
+    private void enqueueAll(int[] owners) {
+      for (int id : owners) {
+        enqueue(id);
+      }
+    }
+
+    private void enqueue(int id) {
+      if (!reached.get(id)) {
+        reached.set(id);
+        queue[queueEnd++] = id;
+      }
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.targetmaps;
+
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.ideinfo.TargetKey;
+import com.google.idea.blaze.base.ideinfo.TargetMap;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Numbers the targets of a {@link TargetMap} by their position in it, so that snapshots of values
+ * derived from the target map can store targets as ints.
+ */
+final class TargetKeyIndex {
+  private final ImmutableList<TargetKey> keys;
+  private final Map<TargetKey, Integer> ids;
+
+  TargetKeyIndex(TargetMap targetMap) {
+    keys = targetMap.map().keySet().asList();
+    ids = new HashMap<>(keys.size() * 2);
+    for (int i = 0; i < keys.size(); i++) {
+      ids.put(keys.get(i), i);
+    }
+  }
+
+  int id(TargetKey key) throws IOException {
+    Integer id = ids.get(key);
+    if (id == null) {
+      throw new IOException("Target not in the target map: " + key);
+    }
+    return id;
+  }
+
+  TargetKey key(int id) throws IOException {
+    if (id < 0 || id >= keys.size()) {
+      throw new IOException("Invalid target id: " + id);
+    }
+    return keys.get(id);
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.util;
+
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * An immutable trie over the segments of workspace relative directories, each directory carrying
+ * a value.
+ *
+ * <p>{@link #findDeepest} returns the value of the deepest directory containing a path, i.e. the
+ * longest matching prefix, in time proportional to the path length and without allocating. This
+ * replaces comparing a path against each of a collection of directories in turn.
+ */
+public final class WorkspacePathTrie<V> {
+
+  private static final String[] NO_NAMES = new String[0];
+
+  private static final class Node<V> {
+    /** Sorted child names. */
+    private final String[] names;
+
+    private final Node<V>[] children;
+    @Nullable private final V value;
+
+    private Node(String[] names, Node<V>[] children, @Nullable V value) {
+      this.names = names;
+      this.children = children;
+      this.value = value;
+    }
+  }
+
+  private final Node<V> root;
+
+  private WorkspacePathTrie(Node<V> root) {
+    this.root = root;
+  }
+
+  public static <V> Builder<V> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Returns the value of the deepest directory containing the given path (or equal to it), or null
+   * if no directory contains it.
+   */
+  @Nullable
+  public V findDeepest(WorkspacePath path) {
+    return findDeepest(path.relativePath());
+  }
+
+  /**
+   * Returns the value of the deepest directory containing the given workspace relative path (or
+   * equal to it), or null if no directory contains it.
+   */
+  @Nullable
+  public V findDeepest(String relativePath) {
+    Node<V> node = root;
+    V deepest = node.value;
+    int length = relativePath.length();
+    int start = 0;
+    while (start < length) {
+      int end = relativePath.indexOf('/', start);
+      if (end < 0) {
+        end = length;
+      }
+      if (end > start) {
+        node = findChild(node, relativePath, start, end);
+        if (node == null) {
+          break;
+        }
+        if (node.value != null) {
+          deepest = node.value;
+        }
+      }
+      start = end + 1;
+    }
+    return deepest;
+  }
+
+  @Nullable
+  private static <V> Node<V> findChild(Node<V> node, String path, int start, int end) {
+    int low = 0;
+    int high = node.names.length - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compareSegment(node.names[mid], path, start, end);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return node.children[mid];
+      }
+    }
+    return null;
+  }
+
+  /** Compares {@code name} with {@code path[start, end)}, consistently with {@link String#compareTo}. */
+  private static int compareSegment(String name, String path, int start, int end) {
+    int segmentLength = end - start;
+    int n = Math.min(name.length(), segmentLength);
+    for (int i = 0; i < n; i++) {
+      int diff = name.charAt(i) - path.charAt(start + i);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return name.length() - segmentLength;
+  }
+
+  /** Builder for {@link WorkspacePathTrie}. Later values replace earlier ones for the same path. */
+  public static final class Builder<V> {
+
+    private static final class MutableNode<V> {
+      private final TreeMap<String, MutableNode<V>> children = new TreeMap<>();
+      @Nullable private V value;
+    }
+
+    private final MutableNode<V> root = new MutableNode<>();
+
+    private Builder() {}
+
+    @CanIgnoreReturnValue
+    public Builder<V> put(WorkspacePath directory, V value) {
+      MutableNode<V> node = root;
+      for (String segment : directory.relativePath().split("/")) {
+        if (!segment.isEmpty()) {
+          node = node.children.computeIfAbsent(segment, s -> new MutableNode<>());
+        }
+      }
+      node.value = value;
+      return this;
+    }
+
+    @CanIgnoreReturnValue
+    public Builder<V> putAll(Iterable<WorkspacePath> directories, V value) {
+      for (WorkspacePath directory : directories) {
+        put(directory, value);
+      }
+      return this;
+    }
+
+    public WorkspacePathTrie<V> build() {
+      return new WorkspacePathTrie<>(freeze(root));
+    }
+
+    private static <V> Node<V> freeze(MutableNode<V> node) {
+      if (node.children.isEmpty()) {
+        return new Node<>(NO_NAMES, newArray(0), node.value);
+      }
+      String[] names = new String[node.children.size()];
+      Node<V>[] children = newArray(names.length);
+      int i = 0;
+      for (Map.Entry<String, MutableNode<V>> child : node.children.entrySet()) {
+        names[i] = child.getKey();
+        children[i] = freeze(child.getValue());
+        i++;
+      }
+      return new Node<>(names, children, node.value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Node<V>[] newArray(int size) {
+      return (Node<V>[]) new Node<?>[size];
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.async.executor;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link InstrumentedExecutorService} and {@link LaneStatistics}. */
+@RunWith(JUnit4.class)
+public class InstrumentedExecutorServiceTest {
+
+  private long nanos;
+  private final Ticker ticker =
+      new Ticker() {
+        @Override
+        public long read() {
+          return nanos;
+        }
+      };
+
+  @Test
+  public void testRecordsRunTimes() {
+    InstrumentedExecutorService executor =
+        new InstrumentedExecutorService(MoreExecutors.newDirectExecutorService(), ticker, 0);
+
+    executor.execute(() -> nanos += TimeUnit.MILLISECONDS.toNanos(3));
+    executor.execute(() -> nanos += TimeUnit.MILLISECONDS.toNanos(100));
+
+    LaneStatistics statistics = executor.getStatistics();
+    assertThat(statistics.getCompletedCount()).isEqualTo(2);
+    assertThat(statistics.getQueueDepth()).isEqualTo(0);
+    assertThat(statistics.getActiveCount()).isEqualTo(0);
+    assertThat(statistics.getRunTimePercentileMillis(50)).isEqualTo(4);
+    assertThat(statistics.getRunTimePercentileMillis(99)).isEqualTo(128);
+    assertThat(statistics.getQueueTimePercentileMillis(50)).isEqualTo(1);
+  }
+
+  @Test
+  public void testLimitsConcurrentTasks() throws Exception {
+    ExecutorService delegate = Executors.newFixedThreadPool(8);
+    InstrumentedExecutorService executor =
+        new InstrumentedExecutorService(delegate, Ticker.systemTicker(), 2);
+    AtomicInteger running = new AtomicInteger();
+    List<Integer> maxRunning = new ArrayList<>();
+
+    for (int i = 0; i < 16; i++) {
+      executor.execute(
+          () -> {
+            int current = running.incrementAndGet();
+            synchronized (maxRunning) {
+              maxRunning.add(current);
+            }
+            try {
+              Thread.sleep(5);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+          });
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(maxRunning).hasSize(16);
+    assertThat(maxRunning.stream().mapToInt(Integer::intValue).max().getAsInt()).isAtMost(2);
+  }
+
+  @Test
+  public void testEmptyStatistics() {
+    LaneStatistics statistics =
+        new InstrumentedExecutorService(MoreExecutors.newDirectExecutorService(), ticker, 0)
+            .getStatistics();
+
+    assertThat(statistics.getRunTimePercentileMillis(50)).isEqualTo(-1);
+    assertThat(LaneStatistics.bucket(0)).isEqualTo(0);
+    assertThat(LaneStatistics.bucket(Long.MAX_VALUE)).isEqualTo(LaneStatistics.BUCKETS - 1);
+  }
+}
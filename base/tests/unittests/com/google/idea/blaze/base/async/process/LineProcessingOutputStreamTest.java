@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.async.process;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Strings;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link LineProcessingOutputStream}. */
+@RunWith(JUnit4.class)
+public class LineProcessingOutputStreamTest {
+
+  private final List<String> lines = new ArrayList<>();
+  private final LineProcessingOutputStream stream =
+      LineProcessingOutputStream.of(
+          line -> {
+            lines.add(line);
+            return true;
+          });
+
+  @Test
+  public void testLineBreaks() {
+    write("first\nsecond\r\nthird\rfourth\n\nunfinished");
+
+    assertThat(lines).containsExactly("first", "second", "third", "fourth", "").inOrder();
+  }
+
+  @Test
+  public void testLinesWrittenInParts() {
+    write("fir");
+    write("st\r");
+    write("\nsecond");
+    write("\n");
+
+    assertThat(lines).containsExactly("first", "second").inOrder();
+  }
+
+  @Test
+  public void testMultiByteCharacterSplitAcrossWrites() {
+    byte[] bytes = "café ✓\n".getBytes(UTF_8);
+    for (byte b : bytes) {
+      stream.write(b);
+    }
+
+    assertThat(lines).containsExactly("café ✓");
+  }
+
+  @Test
+  public void testLongLinesArePassedOnInParts() {
+    String longLine = Strings.repeat("é", LineProcessingOutputStream.MAX_LINE_LENGTH);
+    write(longLine);
+    write("\n");
+
+    assertThat(String.join("", lines)).isEqualTo(longLine);
+    assertThat(lines.size()).isGreaterThan(1);
+    for (String line : lines) {
+      assertThat(line.getBytes(UTF_8).length).isAtMost(LineProcessingOutputStream.MAX_LINE_LENGTH);
+    }
+  }
+
+  @Test
+  public void testNothingIsProcessedAfterClose() throws Exception {
+    stream.close();
+    write("line\n");
+
+    assertThat(lines).isEmpty();
+  }
+
+  private void write(String text) {
+    byte[] bytes = text.getBytes(UTF_8);
+    stream.write(bytes, 0, bytes.length);
+  }
+}
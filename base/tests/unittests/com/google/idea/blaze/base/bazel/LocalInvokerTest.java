@@ -0,0 +1,114 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.bazel;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.idea.blaze.base.scope.BlazeContext;
+import com.google.idea.blaze.base.scope.OutputSink;
+import com.google.idea.blaze.common.PrintOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link LocalInvoker}. */
+@RunWith(JUnit4.class)
+public class LocalInvokerTest {
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private final CountDownLatch stopped = new CountDownLatch(1);
+  private final AtomicBoolean queryCancelled = new AtomicBoolean();
+
+  /** Writes one byte, then runs until interrupted, like {@link ExternalTask} running a process. */
+  private final LocalInvoker.StreamingQuery endlessQuery =
+      (queryContext, stdout) -> {
+        try {
+          stdout.write(1);
+          stdout.flush();
+          new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+          // ExternalTask reports an interrupted process by cancelling its context
+          queryContext.setCancelled();
+          queryCancelled.set(queryContext.isCancelled());
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        } finally {
+          stopped.countDown();
+        }
+      };
+
+  @After
+  public void shutDownExecutor() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testClosingStreamEarlyStopsQueryWithoutCancellingCaller() throws Exception {
+    BlazeContext context = BlazeContext.create();
+
+    try (InputStream in = LocalInvoker.streamQuery(context, executor, endlessQuery)) {
+      assertThat(in.read()).isEqualTo(1);
+    }
+
+    assertThat(stopped.await(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(queryCancelled.get()).isTrue();
+    assertThat(context.isCancelled()).isFalse();
+  }
+
+  @Test
+  public void testCancellingCallerStopsQuery() throws Exception {
+    BlazeContext context = BlazeContext.create();
+
+    try (InputStream in = LocalInvoker.streamQuery(context, executor, endlessQuery)) {
+      assertThat(in.read()).isEqualTo(1);
+      context.setCancelled();
+
+      assertThat(stopped.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+  }
+
+  @Test
+  public void testQueryOutputIsForwardedToCaller() throws Exception {
+    BlazeContext context = BlazeContext.create();
+    List<String> printed = new CopyOnWriteArrayList<>();
+    context.addOutputSink(
+        PrintOutput.class,
+        output -> {
+          printed.add(output.getText());
+          return OutputSink.Propagation.Continue;
+        });
+
+    try (InputStream in =
+        LocalInvoker.streamQuery(
+            context,
+            executor,
+            (queryContext, stdout) -> queryContext.output(PrintOutput.log("Command: query")))) {
+      assertThat(in.read()).isEqualTo(-1);
+    }
+
+    assertThat(printed).containsExactly("Command: query");
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.bazel;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link QueryOutputPipe}. */
+@RunWith(JUnit4.class)
+public class QueryOutputPipeTest {
+
+  @Test
+  public void testOutputLargerThanBufferIsStreamed() throws Exception {
+    QueryOutputPipe pipe = new QueryOutputPipe(16);
+    byte[] data = new byte[1000];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    CompletableFuture<Void> writer = writeAsync(pipe, data, null);
+
+    byte[] read;
+    try (InputStream in = pipe.source()) {
+      read = ByteStreams.toByteArray(in);
+    }
+
+    writer.get(10, TimeUnit.SECONDS);
+    assertThat(read).isEqualTo(data);
+  }
+
+  @Test
+  public void testFailureIsReportedAfterOutput() throws Exception {
+    QueryOutputPipe pipe = new QueryOutputPipe(16);
+    BazelExitCodeException failure = new BazelExitCodeException("query failed", 7);
+    CompletableFuture<Void> writer = writeAsync(pipe, new byte[] {1, 2, 3}, failure);
+
+    InputStream in = pipe.source();
+    assertThat(in.read()).isEqualTo(1);
+    assertThat(in.read()).isEqualTo(2);
+    assertThat(in.read()).isEqualTo(3);
+    IOException e = assertThrows(IOException.class, in::read);
+
+    assertThat(e).hasCauseThat().isSameInstanceAs(failure);
+    writer.get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void testClosingSourceEarlyUnblocksWriter() throws Exception {
+    QueryOutputPipe pipe = new QueryOutputPipe(4);
+    CompletableFuture<Void> writer = writeAsync(pipe, new byte[100], null);
+
+    InputStream in = pipe.source();
+    assertThat(in.read()).isEqualTo(0);
+    in.close();
+
+    // the remaining output is discarded rather than blocking the command
+    writer.get(10, TimeUnit.SECONDS);
+    assertThrows(IOException.class, in::read);
+  }
+
+  private static CompletableFuture<Void> writeAsync(
+      QueryOutputPipe pipe, byte[] data, Throwable failure) {
+    return CompletableFuture.runAsync(
+        () -> {
+          try (OutputStream out = pipe.sink()) {
+            for (byte b : data) {
+              out.write(b);
+            }
+          } catch (IOException e) {
+            throw new RuntimeException(e);
+          }
+          pipe.finish(failure);
+        });
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.dependencies
+
+import com.google.common.collect.ImmutableListMultimap
+import com.google.common.truth.Truth.assertThat
+import com.google.common.util.concurrent.MoreExecutors
+import com.google.idea.blaze.base.BlazeTestCase
+import com.google.idea.blaze.base.dependencies.BlazeQuerySourceToTargetProvider.BlazeQuerySourceToTargetException
+import com.google.idea.blaze.base.model.primitives.Label
+import com.google.idea.blaze.base.model.primitives.WorkspacePath
+import org.junit.After
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/** Unit tests for [SourceToTargetQueryBroker]. */
+@RunWith(JUnit4::class)
+class SourceToTargetQueryBrokerTest : BlazeTestCase() {
+
+  private val scheduler = Executors.newSingleThreadScheduledExecutor()
+  private val batches = CopyOnWriteArrayList<List<Label>>()
+
+  @Volatile private var failQueries = false
+
+  private val runner = SourceToTargetQueryBroker.BatchQueryRunner { sources ->
+    batches.add(sources.toList())
+    if (failQueries) {
+      throw BlazeQuerySourceToTargetException("query failed", RuntimeException())
+    }
+    val result = ImmutableListMultimap.builder<Label, TargetInfo>()
+    for (source in sources) {
+      result.put(source, TargetInfo.builder(source.withTargetName("lib"), "java_library").build())
+    }
+    result.build()
+  }
+
+  private val broker =
+    SourceToTargetQueryBroker(runner, scheduler, MoreExecutors.directExecutor(), 50)
+
+  @After
+  fun shutDownScheduler() {
+    scheduler.shutdownNow()
+  }
+
+  @Test
+  fun requestsWithinWindow_areCoalescedIntoOneQuery() {
+    val a = Label.create("//foo:A.java")
+    val b = Label.create("//bar:B.java")
+
+    val futureA = broker.getTargetsBuildingSource(a)
+    val futureB = broker.getTargetsBuildingSource(b)
+
+    assertThat(labels(futureA.get(10, TimeUnit.SECONDS))).containsExactly("//foo:lib")
+    assertThat(labels(futureB.get(10, TimeUnit.SECONDS))).containsExactly("//bar:lib")
+    assertThat(batches).containsExactly(listOf(a, b))
+  }
+
+  @Test
+  fun duplicateRequests_shareOneQuery() {
+    val a = Label.create("//foo:A.java")
+
+    val first = broker.getTargetsBuildingSource(a)
+    val second = broker.getTargetsBuildingSource(a)
+
+    assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(second.get(10, TimeUnit.SECONDS))
+    assertThat(batches).containsExactly(listOf(a))
+  }
+
+  @Test
+  fun repeatedRequest_isServedFromCache() {
+    val a = Label.create("//foo:A.java")
+    broker.getTargetsBuildingSource(a).get(10, TimeUnit.SECONDS)
+
+    val cached = broker.getTargetsBuildingSource(a)
+
+    assertThat(cached.isDone).isTrue()
+    assertThat(labels(cached.get())).containsExactly("//foo:lib")
+    assertThat(batches).hasSize(1)
+  }
+
+  @Test
+  fun buildFileChange_invalidatesOnlyItsPackage() {
+    val a = Label.create("//foo:A.java")
+    val b = Label.create("//bar:B.java")
+    broker.getTargetsBuildingSource(a).get(10, TimeUnit.SECONDS)
+    broker.getTargetsBuildingSource(b).get(10, TimeUnit.SECONDS)
+    batches.clear()
+
+    broker.invalidatePackages(listOf(WorkspacePath("foo")))
+    broker.getTargetsBuildingSource(a).get(10, TimeUnit.SECONDS)
+    broker.getTargetsBuildingSource(b).get(10, TimeUnit.SECONDS)
+
+    assertThat(batches).containsExactly(listOf(a))
+  }
+
+  @Test
+  fun newBuildFile_invalidatesEnclosingPackages() {
+    val nested = Label.create("//foo:bar/A.java")
+    val root = Label.create("//:B.java")
+    val sibling = Label.create("//foobar:C.java")
+    val other = Label.create("//baz:D.java")
+    for (label in listOf(nested, root, sibling, other)) {
+      broker.getTargetsBuildingSource(label).get(10, TimeUnit.SECONDS)
+    }
+    batches.clear()
+
+    broker.invalidateEnclosingPackages(listOf(WorkspacePath("foo/bar")))
+    for (label in listOf(nested, root, sibling, other)) {
+      broker.getTargetsBuildingSource(label).get(10, TimeUnit.SECONDS)
+    }
+
+    assertThat(batches.flatten()).containsExactly(nested, root)
+  }
+
+  @Test
+  fun failedQuery_resolvesToNullAndIsNotCached() {
+    val a = Label.create("//foo:A.java")
+    failQueries = true
+
+    assertThat(broker.getTargetsBuildingSource(a).get(10, TimeUnit.SECONDS)).isNull()
+
+    failQueries = false
+    assertThat(labels(broker.getTargetsBuildingSource(a).get(10, TimeUnit.SECONDS)))
+      .containsExactly("//foo:lib")
+    assertThat(batches).hasSize(2)
+  }
+
+  private fun labels(targets: List<TargetInfo>): List<String> = targets.map { it.label.toString() }
+}
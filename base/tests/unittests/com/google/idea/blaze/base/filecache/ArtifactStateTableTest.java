@@ -0,0 +1,79 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.filecache;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ArtifactStateTable}. */
+@RunWith(JUnit4.class)
+public class ArtifactStateTableTest {
+
+  @Test
+  public void testBuilderSortsAndKeepsLastDuplicate() {
+    ArtifactStateTable table =
+        ArtifactStateTable.builder(4)
+            .put("c", new LocalFileState("c", 1))
+            .put("a", new LocalFileState("a", 1))
+            .put("b", new LocalFileState("b", 1))
+            .put("a", new LocalFileState("a", 2))
+            .build();
+
+    assertThat(table.keys()).containsExactly("a", "b", "c").inOrder();
+    assertThat(((LocalFileState) table.get("a")).getTimestamp()).isEqualTo(2);
+    assertThat(table.get("d")).isNull();
+    assertThat(table.containsKey("b")).isTrue();
+  }
+
+  @Test
+  public void testOverriddenBy() {
+    ArtifactStateTable base =
+        ArtifactStateTable.copyOf(
+            ImmutableMap.of("a", new LocalFileState("a", 1), "c", new LocalFileState("c", 1)));
+    ArtifactStateTable overrides =
+        ArtifactStateTable.copyOf(
+            ImmutableMap.of("b", new LocalFileState("b", 2), "c", new LocalFileState("c", 2)));
+
+    ArtifactStateTable merged = base.overriddenBy(overrides);
+
+    assertThat(merged.keys()).containsExactly("a", "b", "c").inOrder();
+    assertThat(((LocalFileState) merged.get("a")).getTimestamp()).isEqualTo(1);
+    assertThat(((LocalFileState) merged.get("c")).getTimestamp()).isEqualTo(2);
+    assertThat(base.overriddenBy(ArtifactStateTable.EMPTY)).isSameInstanceAs(base);
+    assertThat(ArtifactStateTable.EMPTY.overriddenBy(base)).isSameInstanceAs(base);
+  }
+
+  @Test
+  public void testFilter() {
+    ArtifactStateTable table =
+        ArtifactStateTable.copyOf(
+            ImmutableMap.of(
+                "a", new LocalFileState("a", 1),
+                "b", new LocalFileState("b", 2),
+                "c", new LocalFileState("c", 3)));
+
+    ArtifactStateTable filtered =
+        table.filter(state -> ((LocalFileState) state).getTimestamp() != 2);
+
+    assertThat(filtered.keys()).containsExactly("a", "c").inOrder();
+    assertThat(filtered.get("c")).isEqualTo(new LocalFileState("c", 3));
+    assertThat(table.filter(state -> true)).isSameInstanceAs(table);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.filecache;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.common.artifact.ArtifactState;
+import com.google.idea.blaze.common.artifact.OutputArtifactInfo;
+import com.google.idea.blaze.common.artifact.OutputArtifactWithoutDigest;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ArtifactsDiff}. */
+@RunWith(JUnit4.class)
+public class ArtifactsDiffTest {
+
+  @Test
+  public void testInitialDiffUpdatesEverything() throws Exception {
+    ArtifactsDiff diff =
+        ArtifactsDiff.diffArtifacts(null, ImmutableList.of(artifact("b", 1), artifact("a", 1)));
+
+    assertThat(diff.getNewState().keys()).containsExactly("a", "b").inOrder();
+    assertThat(paths(diff)).containsExactly("a", "b").inOrder();
+    assertThat(diff.getRemovedOutputs()).isEmpty();
+  }
+
+  @Test
+  public void testDiffFindsUpdatedAndRemovedOutputs() throws Exception {
+    ArtifactStateTable oldState =
+        ArtifactStateTable.copyOf(
+            ImmutableMap.of(
+                "a", new LocalFileState("a", 1),
+                "b", new LocalFileState("b", 1),
+                "d", new LocalFileState("d", 1)));
+
+    ArtifactsDiff diff =
+        ArtifactsDiff.diffArtifacts(
+            oldState, ImmutableList.of(artifact("a", 1), artifact("b", 2), artifact("c", 1)));
+
+    assertThat(diff.getNewState().keys()).containsExactly("a", "b", "c").inOrder();
+    assertThat(((LocalFileState) diff.getNewState().get("b")).getTimestamp()).isEqualTo(2);
+    assertThat(paths(diff)).containsExactly("b", "c").inOrder();
+    assertThat(diff.getRemovedOutputs()).containsExactly(new LocalFileState("d", 1));
+  }
+
+  @Test
+  public void testOutputsWithoutStateAreLeftOut() throws Exception {
+    OutputArtifactWithoutDigest missing = mock(OutputArtifactWithoutDigest.class);
+    when(missing.getBazelOutRelativePath()).thenReturn("b");
+    ArtifactStateTable oldState =
+        ArtifactStateTable.copyOf(ImmutableMap.of("b", new LocalFileState("b", 1)));
+
+    ArtifactsDiff diff =
+        ArtifactsDiff.diffArtifacts(oldState, ImmutableList.of(artifact("a", 1), missing));
+
+    assertThat(diff.getNewState().keys()).containsExactly("a");
+    assertThat(paths(diff)).containsExactly("a");
+    assertThat(diff.getRemovedOutputs()).containsExactly(new LocalFileState("b", 1));
+  }
+
+  private static ImmutableList<String> paths(ArtifactsDiff diff) {
+    return diff.getUpdatedOutputs().stream()
+        .map(OutputArtifactInfo::getBazelOutRelativePath)
+        .collect(ImmutableList.toImmutableList());
+  }
+
+  private static OutputArtifactWithoutDigest artifact(String path, long timestamp) {
+    OutputArtifactWithoutDigest artifact = mock(OutputArtifactWithoutDigest.class);
+    ArtifactState state = new LocalFileState(path, timestamp);
+    when(artifact.getBazelOutRelativePath()).thenReturn(path);
+    when(artifact.toArtifactState()).thenReturn(state);
+    return artifact;
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.ideinfo;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.Sets;
+import com.google.idea.blaze.base.BlazeTestCase;
+import com.google.idea.blaze.base.model.primitives.GenericBlazeRules;
+import com.google.idea.blaze.base.model.primitives.Kind;
+import com.google.idea.blaze.base.model.primitives.Kind.Provider;
+import com.intellij.openapi.extensions.impl.ExtensionPointImpl;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Measures the objects retained by {@link TargetIdeInfo}s read from their protos, as during sync.
+ */
+@RunWith(JUnit4.class)
+public class TargetIdeInfoInterningTest extends BlazeTestCase {
+
+  private static final int TARGET_COUNT = 2000;
+
+  @Override
+  protected void initTest(
+      @NotNull Container applicationServices, @NotNull Container projectServices) {
+    super.initTest(applicationServices, projectServices);
+    ExtensionPointImpl<Provider> kindProvider =
+        registerExtensionPoint(Kind.Provider.EP_NAME, Kind.Provider.class);
+    kindProvider.registerExtension(new GenericBlazeRules());
+    applicationServices.register(Kind.ApplicationState.class, new Kind.ApplicationState());
+  }
+
+  @Test
+  public void testGettersReturnRetainedInstances() {
+    TargetIdeInfo target = readTargets().get(0);
+
+    assertThat(target.getDependencies()).isSameInstanceAs(target.getDependencies());
+    assertThat(target.getTags()).isSameInstanceAs(target.getTags());
+    assertThat(target.getSources()).isSameInstanceAs(target.getSources());
+  }
+
+  @Test
+  public void testTargetsOfOnePackageShareTheirDependencies() {
+    List<TargetIdeInfo> targets = readTargets();
+
+    Set<Object> dependencies = Sets.newIdentityHashSet();
+    Set<Object> sources = Sets.newIdentityHashSet();
+    for (TargetIdeInfo target : targets) {
+      dependencies.addAll(target.getDependencies());
+      sources.addAll(target.getSources());
+    }
+
+    // without interning, every target would retain its own two dependencies
+    assertThat(dependencies).hasSize(2);
+    assertThat(sources).hasSize(TARGET_COUNT);
+  }
+
+  private static List<TargetIdeInfo> readTargets() {
+    List<TargetIdeInfo> targets = new ArrayList<>();
+    for (int i = 0; i < TARGET_COUNT; i++) {
+      TargetIdeInfo.Builder builder =
+          TargetIdeInfo.builder()
+              .setLabel("//pkg:target" + i)
+              .setKind("sh_library")
+              .setBuildFile(source("pkg/BUILD"))
+              .addSource(source("pkg/src" + i + ".sh"))
+              .addDependency("//base:lib")
+              .addRuntimeDep("//base:util")
+              .addTag("manual");
+      // round-trip through the proto, as targets are read from the aspect output
+      targets.add(TargetIdeInfo.fromProto(builder.build().toProto()));
+    }
+    return targets;
+  }
+
+  private static ArtifactLocation source(String relativePath) {
+    return ArtifactLocation.builder().setRelativePath(relativePath).setIsSource(true).build();
+  }
+}
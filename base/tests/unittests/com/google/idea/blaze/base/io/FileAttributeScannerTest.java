@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.io;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link FileAttributeScanner}. */
+@RunWith(JUnit4.class)
+public class FileAttributeScannerTest {
+
+  /** Uses the length of the file name as attribute, treating names of length 1 as invalid. */
+  private static final FileAttributeScanner.AttributeReader<File, Integer> NAME_LENGTH =
+      new FileAttributeScanner.AttributeReader<File, Integer>() {
+        @Override
+        public Integer getAttribute(File file) {
+          return file.getName().startsWith("missing") ? null : file.getName().length();
+        }
+
+        @Override
+        public boolean isValid(Integer attribute) {
+          return attribute != 1;
+        }
+      };
+
+  @Test
+  public void testReadAttributesSkipsMissingAndInvalidAttributes() throws Exception {
+    ImmutableMap<File, Integer> attributes =
+        FileAttributeScanner.readAttributes(
+            ImmutableList.of(
+                new File("/out/a/foo"),
+                new File("/out/a/x"),
+                new File("/out/b/missing"),
+                new File("/out/a/foo")),
+            NAME_LENGTH,
+            MoreExecutors.newDirectExecutorService());
+
+    assertThat(attributes).containsExactly(new File("/out/a/foo"), 3);
+  }
+
+  @Test
+  public void testBatchesKeepDirectoriesTogether() throws Exception {
+    List<File> files = new ArrayList<>();
+    for (int i = 0; i < FileAttributeScanner.BATCH_SIZE; i++) {
+      files.add(new File("/out/a", "file" + i));
+      files.add(new File("/out/b", "file" + i));
+    }
+
+    List<List<File>> batches = FileAttributeScanner.batchByDirectory(files, NAME_LENGTH);
+
+    assertThat(batches).hasSize(2);
+    assertThat(batches.get(0).stream().map(File::getParent).distinct())
+        .containsExactly("/out/a");
+    assertThat(batches.get(1).stream().map(File::getParent).distinct())
+        .containsExactly("/out/b");
+    assertThat(
+            FileAttributeScanner.readAttributes(
+                files, NAME_LENGTH, MoreExecutors.newDirectExecutorService()))
+        .hasSize(files.size());
+  }
+}
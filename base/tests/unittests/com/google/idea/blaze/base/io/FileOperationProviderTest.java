@@ -0,0 +1,66 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.io;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link FileOperationProvider}. */
+@RunWith(JUnit4.class)
+public class FileOperationProviderTest {
+
+  @Rule public TemporaryFolder tempDir = new TemporaryFolder();
+
+  private final FileOperationProvider files = new FileOperationProvider();
+
+  @Test
+  public void testListSubdirectoriesSkipsFiles() throws Exception {
+    File foo = tempDir.newFolder("foo");
+    File bar = tempDir.newFolder("bar");
+    tempDir.newFolder("foo", "nested");
+    tempDir.newFile("file.txt");
+
+    assertThat(files.listSubdirectories(tempDir.getRoot())).containsExactly(foo, bar);
+  }
+
+  @Test
+  public void testListSubdirectoriesFollowsLinks() throws Exception {
+    File target = tempDir.newFolder("target");
+    File link = new File(tempDir.getRoot(), "link");
+    Files.createSymbolicLink(link.toPath(), target.toPath());
+    File broken = new File(tempDir.getRoot(), "broken");
+    Files.createSymbolicLink(broken.toPath(), new File("gone").toPath());
+
+    assertThat(files.listSubdirectories(tempDir.getRoot())).containsExactly(target, link);
+  }
+
+  @Test
+  public void testListSubdirectoriesOfFileIsNull() throws Exception {
+    assertThat(files.listSubdirectories(tempDir.newFile("file.txt"))).isNull();
+  }
+
+  @Test
+  public void testListSubdirectoriesOfMissingDirectoryIsNull() {
+    assertThat(files.listSubdirectories(new File(tempDir.getRoot(), "missing"))).isNull();
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.io;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.intellij.mock.MockLocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.LightVirtualFile;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link VirtualFileBatchResolver}. */
+@RunWith(JUnit4.class)
+public class VirtualFileBatchResolverTest {
+
+  private final Set<String> cached = new HashSet<>();
+  private final Map<String, VirtualFile> onDisk = new HashMap<>();
+  private final Set<String> visibleAfterRefresh = new HashSet<>();
+  private final List<List<VirtualFile>> refreshes = new ArrayList<>();
+  private final List<Runnable> pendingRefreshes = new ArrayList<>();
+
+  private final MockLocalFileSystem fileSystem =
+      new MockLocalFileSystem() {
+        @Nullable
+        @Override
+        public VirtualFile findFileByPathIfCached(String path) {
+          return cached.contains(path) ? onDisk.get(path) : null;
+        }
+
+        @Nullable
+        @Override
+        public VirtualFile findFileByIoFile(File file) {
+          String path = file.getPath();
+          return visibleAfterRefresh.contains(path) ? null : onDisk.get(path);
+        }
+      };
+
+  private final VirtualFileBatchResolver resolver =
+      new VirtualFileBatchResolver(
+          () -> fileSystem,
+          (directories, onFinish) -> {
+            refreshes.add(directories);
+            pendingRefreshes.add(
+                () -> {
+                  visibleAfterRefresh.clear();
+                  onFinish.run();
+                });
+          });
+
+  @Test
+  public void testKnownFilesResolveWithoutRefresh() throws Exception {
+    File cachedFile = addFile("/root/a/cached.txt", true);
+    File uncachedFile = addFile("/root/a/uncached.txt", false);
+
+    VirtualFileBatchResolver.ResolvedFiles result =
+        resolver.resolve(List.of(cachedFile, uncachedFile), /* refreshIfNeeded= */ true);
+
+    assertThat(result.getResolved().keySet()).containsExactly(cachedFile, uncachedFile);
+    assertThat(result.getRefreshed().isDone()).isTrue();
+    assertThat(refreshes).isEmpty();
+    assertThat(resolver.getCachedHits()).isEqualTo(1);
+  }
+
+  @Test
+  public void testMissingFilesAreRefreshedOncePerDirectory() throws Exception {
+    addFile("/root/a", false);
+    addFile("/root/b", false);
+    File a1 = addNewFile("/root/a/1.txt");
+    File a2 = addNewFile("/root/a/2.txt");
+    File b1 = addNewFile("/root/b/1.txt");
+    File absent = new File("/root/b/absent.txt");
+
+    VirtualFileBatchResolver.ResolvedFiles result =
+        resolver.resolve(List.of(a1, a2, b1, absent), /* refreshIfNeeded= */ true);
+
+    assertThat(result.getResolved()).isEmpty();
+    assertThat(refreshes).hasSize(1);
+    assertThat(refreshes.get(0))
+        .containsExactly(onDisk.get("/root/a"), onDisk.get("/root/b"))
+        .inOrder();
+    assertThat(result.getRefreshed().isDone()).isFalse();
+
+    pendingRefreshes.forEach(Runnable::run);
+
+    assertThat(result.getAll().get().keySet()).containsExactly(a1, a2, b1);
+    assertThat(resolver.getResolvedAfterRefresh()).isEqualTo(3);
+  }
+
+  @Test
+  public void testNoRefreshUnlessRequested() {
+    File file = addNewFile("/root/a/1.txt");
+
+    VirtualFileBatchResolver.ResolvedFiles result =
+        resolver.resolve(List.of(file), /* refreshIfNeeded= */ false);
+
+    assertThat(result.getResolved()).isEmpty();
+    assertThat(result.getRefreshed().isDone()).isTrue();
+    assertThat(refreshes).isEmpty();
+  }
+
+  private File addFile(String path, boolean isCached) {
+    onDisk.put(path, new LightVirtualFile(new File(path).getName()));
+    if (isCached) {
+      cached.add(path);
+    }
+    return new File(path);
+  }
+
+  /** A file created on disk after its directory was loaded into the VFS. */
+  private File addNewFile(String path) {
+    addFile(path, false);
+    visibleAfterRefresh.add(path);
+    return new File(path);
+  }
+}
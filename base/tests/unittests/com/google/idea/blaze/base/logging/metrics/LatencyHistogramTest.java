@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.logging.metrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.Range;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link LatencyHistogram}. */
+@RunWith(JUnit4.class)
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketsCoverTheirDurations() {
+    for (long micros = 0; micros < 100_000; micros++) {
+      int bucket = LatencyHistogram.bucket(micros);
+      assertThat(LatencyHistogram.lowerBoundMicros(bucket)).isAtMost(micros);
+      assertThat(LatencyHistogram.lowerBoundMicros(bucket + 1)).isGreaterThan(micros);
+    }
+  }
+
+  @Test
+  public void testPowersOfTwoAreBucketBoundaries() {
+    for (int power = 0; power < 40; power++) {
+      long micros = 1L << power;
+      assertThat(LatencyHistogram.lowerBoundMicros(LatencyHistogram.bucket(micros)))
+          .isEqualTo(micros);
+    }
+  }
+
+  @Test
+  public void testLongDurationsShareTheLastBucket() {
+    assertThat(LatencyHistogram.bucket(Long.MAX_VALUE)).isEqualTo(LatencyHistogram.BUCKETS - 1);
+    assertThat(LatencyHistogram.bucket(1L << 50)).isEqualTo(LatencyHistogram.BUCKETS - 1);
+  }
+
+  @Test
+  public void testPercentilesWithinBucketError() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int millis = 1; millis <= 100; millis++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertThat(snapshot.getCount()).isEqualTo(100);
+    assertThat(snapshot.getSumMicros()).isEqualTo(5050_000);
+    assertThat(snapshot.getMaxMicros()).isEqualTo(100_000);
+    assertThat(snapshot.getPercentileMicros(50)).isIn(Range.closed(50_000L, 62_500L));
+    assertThat(snapshot.getPercentileMicros(99)).isIn(Range.closed(99_000L, 100_000L));
+    assertThat(snapshot.getPercentileMicros(100)).isEqualTo(100_000);
+  }
+
+  @Test
+  public void testEmptySnapshot() {
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+    assertThat(snapshot.getCount()).isEqualTo(0);
+    assertThat(snapshot.getPercentileMicros(50)).isEqualTo(0);
+  }
+
+  @Test
+  public void testCountBelow() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(1023));
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(1024));
+    histogram.record(TimeUnit.MICROSECONDS.toNanos(5000));
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertThat(snapshot.getCountBelow(10)).isEqualTo(1);
+    assertThat(snapshot.getCountBelow(11)).isEqualTo(2);
+    assertThat(snapshot.getCountBelow(13)).isEqualTo(3);
+  }
+}
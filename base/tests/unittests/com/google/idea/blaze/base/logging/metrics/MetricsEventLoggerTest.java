@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.logging.metrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.logging.metrics.MetricsRegistry.Sample;
+import com.google.idea.blaze.base.logging.metrics.MetricsRegistry.Type;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link MetricsEventLogger}. */
+@RunWith(JUnit4.class)
+public class MetricsEventLoggerTest {
+
+  private final MetricsRegistry registry = new MetricsRegistry();
+  private final MetricsEventLogger logger = new MetricsEventLogger(registry);
+
+  @Test
+  public void testEventWithDuration() {
+    logger.log(
+        MetricsEventLoggerTest.class,
+        "sync",
+        ImmutableMap.of("mode", "INCREMENTAL"),
+        TimeUnit.SECONDS.toNanos(2));
+    logger.log(
+        MetricsEventLoggerTest.class,
+        "sync",
+        ImmutableMap.of("mode", "INCREMENTAL"),
+        TimeUnit.SECONDS.toNanos(4));
+
+    ImmutableList<Sample> samples = registry.snapshot();
+
+    assertThat(samples).hasSize(2);
+    Sample duration = find(samples, MetricsEventLogger.DURATION, Type.HISTOGRAM);
+    assertThat(duration.getLabels()).containsExactly("event", "sync", "mode", "INCREMENTAL");
+    assertThat(duration.getValue()).isEqualTo(2);
+    assertThat(duration.getSumMillis()).isEqualTo(6000.0);
+    assertThat(find(samples, MetricsEventLogger.EVENTS, Type.COUNTER).getValue()).isEqualTo(2);
+  }
+
+  @Test
+  public void testNumericValuesAreNotLabels() {
+    logger.log(
+        MetricsEventLoggerTest.class,
+        "bep_outputs",
+        ImmutableMap.of("bytes", "1000", "host", "local"),
+        null);
+    logger.log(
+        MetricsEventLoggerTest.class,
+        "bep_outputs",
+        ImmutableMap.of("bytes", "500", "host", "local"),
+        null);
+
+    ImmutableList<Sample> samples = registry.snapshot();
+
+    assertThat(samples).hasSize(3);
+    assertThat(find(samples, MetricsEventLogger.EVENTS, Type.COUNTER).getLabels())
+        .containsExactly("event", "bep_outputs", "host", "local");
+    Sample total = find(samples, MetricsEventLogger.VALUES, Type.COUNTER);
+    assertThat(total.getLabels())
+        .containsExactly("event", "bep_outputs", "host", "local", "key", "bytes");
+    assertThat(total.getValue()).isEqualTo(1500);
+    assertThat(find(samples, MetricsEventLogger.LAST_VALUE, Type.GAUGE).getValue())
+        .isEqualTo(500);
+  }
+
+  @Test
+  public void testIdentifierValuesAreLabels() {
+    logger.log(
+        MetricsEventLoggerTest.class,
+        "command",
+        ImmutableMap.of("command", "build", "exit_code", "1"),
+        null);
+
+    ImmutableList<Sample> samples = registry.snapshot();
+
+    assertThat(samples).hasSize(1);
+    assertThat(find(samples, MetricsEventLogger.EVENTS, Type.COUNTER).getLabels())
+        .containsExactly("event", "command", "command", "build", "exit_code", "1");
+  }
+
+  private static Sample find(ImmutableList<Sample> samples, String name, Type type) {
+    return samples.stream()
+        .filter(sample -> sample.getName().equals(name) && sample.getType() == type)
+        .findFirst()
+        .get();
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.logging.metrics;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.idea.blaze.base.logging.metrics.MetricsRegistry.Sample;
+import com.google.idea.blaze.base.logging.metrics.MetricsRegistry.Type;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link MetricsRegistry} and {@link MetricsFormat}. */
+@RunWith(JUnit4.class)
+public class MetricsRegistryTest {
+
+  private final MetricsRegistry registry = new MetricsRegistry();
+
+  @Test
+  public void testSeriesAreKeyedByNameAndLabels() {
+    registry.increment("events", ImmutableMap.of("event", "sync"), 1);
+    registry.increment("events", ImmutableMap.of("event", "sync"), 2);
+    registry.increment("events", ImmutableMap.of("event", "build"), 1);
+    registry.setGauge("targets", ImmutableMap.of(), 10);
+    registry.setGauge("targets", ImmutableMap.of(), 7);
+
+    ImmutableList<Sample> samples = registry.snapshot();
+
+    assertThat(samples).hasSize(3);
+    assertThat(samples.get(0).getName()).isEqualTo("events");
+    assertThat(samples.get(0).getLabels()).containsExactly("event", "build");
+    assertThat(samples.get(0).getValue()).isEqualTo(1);
+    assertThat(samples.get(1).getLabels()).containsExactly("event", "sync");
+    assertThat(samples.get(1).getValue()).isEqualTo(3);
+    assertThat(samples.get(2).getType()).isEqualTo(Type.GAUGE);
+    assertThat(samples.get(2).getValue()).isEqualTo(7);
+  }
+
+  @Test
+  public void testSeriesPerMetricAreCapped() {
+    int extra = 10;
+    for (int i = 0; i < MetricsRegistry.MAX_SERIES_PER_METRIC + extra; i++) {
+      registry.increment("events", ImmutableMap.of("id", String.valueOf(i)), 1);
+    }
+    registry.increment("other", ImmutableMap.of(), 1);
+
+    ImmutableList<Sample> samples = registry.snapshot();
+
+    assertThat(samples).hasSize(MetricsRegistry.MAX_SERIES_PER_METRIC + 2);
+    Sample overflow =
+        samples.stream()
+            .filter(sample -> sample.getLabels().containsKey("overflow"))
+            .findFirst()
+            .get();
+    assertThat(overflow.getValue()).isEqualTo(extra);
+  }
+
+  @Test
+  public void testHistogramSample() {
+    for (int millis = 1; millis <= 100; millis++) {
+      registry.recordDuration("latency", ImmutableMap.of(), TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    Sample sample = registry.snapshot().get(0);
+
+    assertThat(sample.getType()).isEqualTo(Type.HISTOGRAM);
+    assertThat(sample.getValue()).isEqualTo(100);
+    assertThat(sample.getSumMillis()).isEqualTo(5050.0);
+    assertThat(sample.getPercentileMillis(90)).isAtLeast(90.0);
+    assertThat(sample.getPercentileMillis(90)).isAtMost(100.0);
+  }
+
+  @Test
+  public void testOpenMetricsFormat() throws IOException {
+    registry.increment("blaze_events", ImmutableMap.of("event", "sync \"full\""), 2);
+    registry.recordDuration("duration_seconds", ImmutableMap.of(), 2_000_000);
+
+    String output = write(MetricsFormat.OPENMETRICS);
+
+    assertThat(output).contains("# TYPE blaze_events counter\n");
+    assertThat(output).contains("blaze_events_total{event=\"sync \\\"full\\\"\"} 2\n");
+    assertThat(output).contains("# TYPE duration_seconds histogram\n");
+    assertThat(output).contains("duration_seconds_bucket{le=\"0.001024\"} 0\n");
+    assertThat(output).contains("duration_seconds_bucket{le=\"0.004096\"} 1\n");
+    assertThat(output).contains("duration_seconds_bucket{le=\"+Inf\"} 1\n");
+    assertThat(output).contains("duration_seconds_count 1\n");
+    assertThat(output).contains("duration_seconds_sum 0.002000\n");
+    assertThat(output).endsWith("# EOF\n");
+  }
+
+  @Test
+  public void testJsonFormat() throws IOException {
+    registry.increment("events", ImmutableMap.of("event", "sync"), 2);
+    registry.recordDuration("latency", ImmutableMap.of(), TimeUnit.MILLISECONDS.toNanos(3));
+
+    JsonObject json = JsonParser.parseString(write(MetricsFormat.JSON)).getAsJsonObject();
+    JsonArray metrics = json.getAsJsonArray("metrics");
+
+    assertThat(json.has("timestamp")).isTrue();
+    assertThat(metrics.size()).isEqualTo(2);
+    JsonObject counter = metrics.get(0).getAsJsonObject();
+    assertThat(counter.get("name").getAsString()).isEqualTo("events");
+    assertThat(counter.get("type").getAsString()).isEqualTo("counter");
+    assertThat(counter.getAsJsonObject("labels").get("event").getAsString()).isEqualTo("sync");
+    assertThat(counter.get("value").getAsLong()).isEqualTo(2);
+    JsonObject histogram = metrics.get(1).getAsJsonObject();
+    assertThat(histogram.get("count").getAsLong()).isEqualTo(1);
+    assertThat(histogram.get("sumMillis").getAsDouble()).isEqualTo(3.0);
+    assertThat(histogram.get("maxMillis").getAsDouble()).isEqualTo(3.0);
+    assertThat(histogram.has("value")).isFalse();
+  }
+
+  private String write(MetricsFormat format) throws IOException {
+    StringWriter out = new StringWriter();
+    format.write(registry.snapshot(), out);
+    return out.toString();
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.prefetch;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link PrefetchLedger}. */
+@RunWith(JUnit4.class)
+public class PrefetchLedgerTest {
+
+  private static final long REFETCH_PERIOD = 1000;
+
+  @Rule public TemporaryFolder tempDir = new TemporaryFolder();
+
+  @Test
+  public void testUnchangedFileIsNotRefetched() {
+    PrefetchLedger ledger = new PrefetchLedger(REFETCH_PERIOD);
+    assertThat(ledger.checkAndRecord("/a/b", 10, 20, 0)).isTrue();
+    assertThat(ledger.checkAndRecord("/a/b", 10, 20, 500)).isFalse();
+  }
+
+  @Test
+  public void testModifiedFileIsRefetched() {
+    PrefetchLedger ledger = new PrefetchLedger(REFETCH_PERIOD);
+    assertThat(ledger.checkAndRecord("/a/b", 10, 20, 0)).isTrue();
+    assertThat(ledger.checkAndRecord("/a/b", 11, 20, 100)).isTrue();
+    assertThat(ledger.checkAndRecord("/a/b", 11, 21, 200)).isTrue();
+  }
+
+  @Test
+  public void testExpiredEntryIsRefetched() {
+    PrefetchLedger ledger = new PrefetchLedger(REFETCH_PERIOD);
+    assertThat(ledger.checkAndRecord("/a/b", 10, 20, 0)).isTrue();
+    assertThat(ledger.checkAndRecord("/a/b", 10, 20, REFETCH_PERIOD)).isTrue();
+  }
+
+  @Test
+  public void testPathsWithCollidingHashCodesAreTrackedSeparately() {
+    // "Aa" and "BB" have the same String hash code
+    PrefetchLedger ledger = new PrefetchLedger(REFETCH_PERIOD);
+    assertThat(ledger.checkAndRecord("/Aa", 1, 1, 0)).isTrue();
+    assertThat(ledger.checkAndRecord("/BB", 1, 1, 0)).isTrue();
+  }
+
+  @Test
+  public void testRetainOnlyDropsUnrequestedAndExpiredEntries() {
+    PrefetchLedger ledger = new PrefetchLedger(REFETCH_PERIOD);
+    ledger.checkAndRecord("/kept", 1, 1, 500);
+    ledger.checkAndRecord("/expired", 1, 1, 0);
+    ledger.checkAndRecord("/unrequested", 1, 1, 500);
+
+    PrefetchLedger pruned =
+        ledger.retainOnly(ImmutableList.of("/kept", "/expired", "/missing"), 1200);
+
+    assertThat(pruned.size()).isEqualTo(1);
+    assertThat(pruned.checkAndRecord("/kept", 1, 1, 1200)).isFalse();
+  }
+
+  @Test
+  public void testSaveAndLoadRoundTrip() throws Exception {
+    PrefetchLedger ledger = new PrefetchLedger(REFETCH_PERIOD);
+    ledger.checkAndRecord("/a/b", 10, 20, 0);
+    ledger.checkAndRecord("/a/c", 30, 40, 0);
+    File file = new File(tempDir.getRoot(), "ledger/prefetch_ledger.dat");
+    ledger.save(file);
+
+    PrefetchLedger loaded = PrefetchLedger.load(file, REFETCH_PERIOD);
+
+    assertThat(loaded.size()).isEqualTo(2);
+    assertThat(loaded.checkAndRecord("/a/b", 10, 20, 100)).isFalse();
+    assertThat(loaded.checkAndRecord("/a/c", 30, 41, 100)).isTrue();
+  }
+
+  @Test
+  public void testSaveReplacesPreviousLedger() throws Exception {
+    File file = new File(tempDir.getRoot(), "prefetch_ledger.dat");
+    PrefetchLedger first = new PrefetchLedger(REFETCH_PERIOD);
+    first.checkAndRecord("/a", 1, 1, 0);
+    first.checkAndRecord("/b", 1, 1, 0);
+    first.save(file);
+    PrefetchLedger second = new PrefetchLedger(REFETCH_PERIOD);
+    second.checkAndRecord("/c", 1, 1, 0);
+    second.save(file);
+
+    PrefetchLedger loaded = PrefetchLedger.load(file, REFETCH_PERIOD);
+
+    assertThat(loaded.size()).isEqualTo(1);
+    assertThat(loaded.isFresh("/c", 100)).isTrue();
+    assertThat(tempDir.getRoot().list()).asList().containsExactly("prefetch_ledger.dat");
+  }
+
+  @Test
+  public void testIsFreshOnlyChecksFetchTime() {
+    PrefetchLedger ledger = new PrefetchLedger(REFETCH_PERIOD);
+    ledger.checkAndRecord("/a/b", 10, 20, 0);
+
+    assertThat(ledger.isFresh("/a/b", REFETCH_PERIOD - 1)).isTrue();
+    assertThat(ledger.isFresh("/a/b", REFETCH_PERIOD)).isFalse();
+    assertThat(ledger.isFresh("/a/c", 0)).isFalse();
+  }
+
+  @Test
+  public void testLoadMissingFileReturnsEmptyLedger() throws Exception {
+    PrefetchLedger loaded =
+        PrefetchLedger.load(new File(tempDir.getRoot(), "missing.dat"), REFETCH_PERIOD);
+    assertThat(loaded.size()).isEqualTo(0);
+  }
+
+  @Test
+  public void testMergeKeepsMostRecentEntry() {
+    PrefetchLedger ledger = new PrefetchLedger(REFETCH_PERIOD);
+    ledger.checkAndRecord("/a", 1, 1, 100);
+    PrefetchLedger persisted = new PrefetchLedger(REFETCH_PERIOD);
+    persisted.checkAndRecord("/a", 2, 2, 50);
+    persisted.checkAndRecord("/b", 1, 1, 50);
+
+    ledger.mergeFrom(persisted);
+
+    assertThat(ledger.size()).isEqualTo(2);
+    assertThat(ledger.checkAndRecord("/a", 1, 1, 200)).isFalse();
+    assertThat(ledger.checkAndRecord("/b", 1, 1, 200)).isFalse();
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.run.filter;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Ticker;
+import com.google.idea.blaze.base.BlazeTestCase;
+import com.google.idea.blaze.base.io.FileOperationProvider;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ConsoleFileResolver}. */
+@RunWith(JUnit4.class)
+public class ConsoleFileResolverTest extends BlazeTestCase {
+
+  private final Set<File> existingFiles = new HashSet<>();
+  private final List<String> resolvedPaths = new ArrayList<>();
+  private long nanos = 0;
+
+  private ConsoleFileResolver resolver;
+
+  @Override
+  protected void initTest(Container applicationServices, Container projectServices) {
+    registerExtensionPoint(FileResolver.EP_NAME, FileResolver.class)
+        .registerExtension(
+            (project, path) -> {
+              resolvedPaths.add(path);
+              return new File("/root", path);
+            });
+    applicationServices.register(
+        FileOperationProvider.class,
+        new FileOperationProvider() {
+          @Override
+          public boolean exists(File file) {
+            return existingFiles.contains(file);
+          }
+        });
+    resolver =
+        new ConsoleFileResolver(
+            project,
+            new Ticker() {
+              @Override
+              public long read() {
+                return nanos;
+              }
+            });
+  }
+
+  @Test
+  public void testExistingFileIsResolvedOnce() {
+    existingFiles.add(new File("/root/foo/bar.cc"));
+
+    assertThat(resolver.resolveToFile("foo/bar.cc")).isEqualTo(new File("/root/foo/bar.cc"));
+    assertThat(resolver.resolveToFile("foo/bar.cc")).isEqualTo(new File("/root/foo/bar.cc"));
+
+    assertThat(resolvedPaths).containsExactly("foo/bar.cc");
+  }
+
+  @Test
+  public void testFileWhichDoesNotExistIsNotResolved() {
+    assertThat(resolver.resolveToFile("foo/bar.cc")).isNull();
+    assertThat(resolver.resolveToFile("foo/bar.cc")).isNull();
+
+    assertThat(resolvedPaths).containsExactly("foo/bar.cc");
+  }
+
+  @Test
+  public void testFileCreatedLaterIsResolvedOnceTheMissExpires() {
+    assertThat(resolver.resolveToFile("foo/bar.cc")).isNull();
+    existingFiles.add(new File("/root/foo/bar.cc"));
+    assertThat(resolver.resolveToFile("foo/bar.cc")).isNull();
+
+    nanos += ConsoleFileResolver.MISS_EXPIRY.toNanos();
+
+    assertThat(resolver.resolveToFile("foo/bar.cc")).isEqualTo(new File("/root/foo/bar.cc"));
+    assertThat(resolvedPaths).containsExactly("foo/bar.cc", "foo/bar.cc");
+  }
+}
@@ -18,12 +18,14 @@ package com.google.idea.blaze.base.run.filter;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.idea.blaze.base.BlazeTestCase;
+import com.google.idea.blaze.base.io.FileOperationProvider;
 import com.google.idea.blaze.base.io.VirtualFileSystemProvider;
-import com.google.idea.blaze.base.run.filter.GenericFileMessageFilter.CustomOpenFileHyperlinkInfo;
 import com.intellij.execution.filters.Filter.Result;
 import com.intellij.mock.MockLocalFileSystem;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 import org.junit.After;
@@ -37,17 +39,31 @@ public class GenericFileMessageFilterTest extends BlazeTestCase {
 
   private static final File mockFile = new File("filename");
   private static final Map<String, File> filePathToFile = new HashMap<>();
+  private static final List<String> resolvedPaths = new ArrayList<>();
 
   @Override
   protected void initTest(Container applicationServices, Container projectServices) {
     registerExtensionPoint(FileResolver.EP_NAME, FileResolver.class)
-        .registerExtension((project, path) -> filePathToFile.get(path));
+        .registerExtension(
+            (project, path) -> {
+              resolvedPaths.add(path);
+              return filePathToFile.get(path);
+            });
     applicationServices.register(VirtualFileSystemProvider.class, MockLocalFileSystem::new);
+    applicationServices.register(
+        FileOperationProvider.class,
+        new FileOperationProvider() {
+          @Override
+          public boolean exists(File file) {
+            return file.equals(mockFile);
+          }
+        });
   }
 
   @After
   public final void doTearDown() {
     filePathToFile.clear();
+    resolvedPaths.clear();
   }
 
   @Test
@@ -74,15 +90,38 @@ public class GenericFileMessageFilterTest extends BlazeTestCase {
     assertThat(findMatch("file/path.go:10: string")).isNull();
   }
 
+  @Test
+  public void testIgnoreUnresolvedFile() {
+    assertThat(findMatch("unknown/file/path.go:10:50: error")).isNull();
+  }
+
+  @Test
+  public void testIgnoreFileWhichDoesNotExist() {
+    filePathToFile.put("deleted/file/path.go", new File("deleted"));
+    assertThat(findMatch("deleted/file/path.go:10:50: error")).isNull();
+  }
+
+  @Test
+  public void testResolvesEachPathOnce() {
+    filePathToFile.put("file/path.go", mockFile);
+    GenericFileMessageFilter filter = new GenericFileMessageFilter(project);
+    String line = "file/path.go:10:50: error";
+
+    assertThat(filter.applyFilter(line, line.length())).isNotNull();
+    assertThat(filter.applyFilter(line, line.length())).isNotNull();
+
+    assertThat(resolvedPaths).containsExactly("file/path.go");
+  }
+
   private void assertHasMatch(String text, int line, int column) {
     Result result = findMatch(text);
     assertThat(result).isNotNull();
-    assertThat(result.getFirstHyperlinkInfo()).isInstanceOf(CustomOpenFileHyperlinkInfo.class);
+    assertThat(result.getFirstHyperlinkInfo()).isInstanceOf(LazyOpenFileHyperlinkInfo.class);
 
-    CustomOpenFileHyperlinkInfo link = (CustomOpenFileHyperlinkInfo) result.getFirstHyperlinkInfo();
-    assertThat(link.vf).isNotNull();
-    assertThat(link.line).isEqualTo(line - 1);
-    assertThat(link.column).isEqualTo(column - 1);
+    LazyOpenFileHyperlinkInfo link = (LazyOpenFileHyperlinkInfo) result.getFirstHyperlinkInfo();
+    assertThat(link.getFile()).isEqualTo(mockFile);
+    assertThat(link.getLine()).isEqualTo(line - 1);
+    assertThat(link.getColumn()).isEqualTo(column - 1);
   }
 
   @Nullable
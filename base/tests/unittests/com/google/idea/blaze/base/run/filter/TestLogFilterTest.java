@@ -18,9 +18,9 @@ package com.google.idea.blaze.base.run.filter;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.idea.blaze.base.BlazeTestCase;
+import com.google.idea.blaze.base.io.FileOperationProvider;
 import com.google.idea.blaze.base.io.VirtualFileSystemProvider;
 import com.intellij.execution.filters.Filter.Result;
-import com.intellij.execution.filters.OpenFileHyperlinkInfo;
 import com.intellij.mock.MockLocalFileSystem;
 import java.io.File;
 import java.util.HashMap;
@@ -43,6 +43,14 @@ public class TestLogFilterTest extends BlazeTestCase {
     registerExtensionPoint(FileResolver.EP_NAME, FileResolver.class)
         .registerExtension((project, path) -> filePathToFile.get(path));
     applicationServices.register(VirtualFileSystemProvider.class, MockLocalFileSystem::new);
+    applicationServices.register(
+        FileOperationProvider.class,
+        new FileOperationProvider() {
+          @Override
+          public boolean exists(File file) {
+            return file.equals(mockFile);
+          }
+        });
   }
 
   @After
@@ -92,6 +100,15 @@ public class TestLogFilterTest extends BlazeTestCase {
     assertLinksToMockFile(match);
   }
 
+  @Test
+  public void testNewFormatWithLineBreak() {
+    filePathToFile.put("/absolute/path/testlogs/file/test.log", mockFile);
+    Result match =
+        findMatch(
+            "FAIL: //some/path/to/target:TestTarget (see /absolute/path/testlogs/file/test.log)\n");
+    assertLinksToMockFile(match);
+  }
+
   @Nullable
   private Result findMatch(String line) {
     return new TestLogFilter(project).applyFilter(line, line.length());
@@ -99,9 +116,9 @@ public class TestLogFilterTest extends BlazeTestCase {
 
   private void assertLinksToMockFile(@Nullable Result result) {
     assertThat(result).isNotNull();
-    assertThat(result.getFirstHyperlinkInfo()).isInstanceOf(OpenFileHyperlinkInfo.class);
+    assertThat(result.getFirstHyperlinkInfo()).isInstanceOf(LazyOpenFileHyperlinkInfo.class);
 
-    OpenFileHyperlinkInfo link = (OpenFileHyperlinkInfo) result.getFirstHyperlinkInfo();
-    assertThat(link.getVirtualFile().getName()).isEqualTo(mockFile.getName());
+    LazyOpenFileHyperlinkInfo link = (LazyOpenFileHyperlinkInfo) result.getFirstHyperlinkInfo();
+    assertThat(link.getFile().getName()).isEqualTo(mockFile.getName());
   }
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.run.testmap;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.idea.blaze.base.BlazeTestCase;
+import com.google.idea.blaze.base.ideinfo.ArtifactLocation;
+import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
+import com.google.idea.blaze.base.ideinfo.TargetMap;
+import com.google.idea.blaze.base.ideinfo.TargetMapBuilder;
+import com.google.idea.blaze.base.model.primitives.GenericBlazeRules;
+import com.google.idea.blaze.base.model.primitives.Kind;
+import com.google.idea.blaze.base.model.primitives.Kind.Provider;
+import com.google.idea.blaze.base.model.primitives.Label;
+import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
+import com.google.idea.blaze.base.sync.workspace.ArtifactLocationDecoder;
+import com.google.idea.blaze.base.targetmaps.TargetGraphIndex;
+import com.intellij.openapi.extensions.impl.ExtensionPointImpl;
+import java.io.File;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link AffectedTestsService}. */
+@RunWith(JUnit4.class)
+public class AffectedTestsServiceTest extends BlazeTestCase {
+
+  private AffectedTestsService service;
+  private TargetMap targetMap;
+  private ArtifactLocationDecoder decoder;
+
+  @Override
+  protected void initTest(
+      @NotNull Container applicationServices, @NotNull Container projectServices) {
+    super.initTest(applicationServices, projectServices);
+    ExtensionPointImpl<Provider> kindProvider =
+        registerExtensionPoint(Kind.Provider.EP_NAME, Kind.Provider.class);
+    kindProvider.registerExtension(new GenericBlazeRules());
+    applicationServices.register(Kind.ApplicationState.class, new Kind.ApplicationState());
+
+    targetMap =
+        TargetMapBuilder.builder()
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(source("lib/BUILD"))
+                    .setLabel("//lib:a")
+                    .setKind("sh_library")
+                    .addSource(source("lib/a.sh")))
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(source("lib/BUILD"))
+                    .setLabel("//lib:b")
+                    .setKind("sh_library")
+                    .addSource(source("lib/b.sh")))
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(source("lib/BUILD"))
+                    .setLabel("//lib:a_test")
+                    .setKind("sh_test")
+                    .addDependency("//lib:a"))
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(source("app/BUILD"))
+                    .setLabel("//app:b_test")
+                    .setKind("sh_test")
+                    .addDependency("//lib:b"))
+            .build();
+    decoder = mock(ArtifactLocationDecoder.class);
+    when(decoder.resolveSource(any()))
+        .thenAnswer(
+            invocation -> file(invocation.<ArtifactLocation>getArgument(0).relativePath()));
+    service = new AffectedTestsService(project);
+  }
+
+  @Test
+  public void testNoWorkingSetAffectsNoTests() {
+    assertThat(service.update(new WorkspaceRoot(new File("/workspace")), null)).isEmpty();
+  }
+
+  @Test
+  public void testAddedFilesExtendTheAffectedTests() {
+    TargetGraphIndex index = TargetGraphIndex.create(targetMap, decoder);
+
+    assertThat(service.update(index, files("lib/b.sh"))).containsExactly(label("//app:b_test"));
+    assertThat(service.update(index, files("lib/b.sh", "lib/a.sh")))
+        .containsExactly(label("//app:b_test"), label("//lib:a_test"))
+        .inOrder();
+  }
+
+  @Test
+  public void testRevertedFilesStartOver() {
+    TargetGraphIndex index = TargetGraphIndex.create(targetMap, decoder);
+    service.update(index, files("lib/b.sh", "lib/a.sh"));
+
+    assertThat(service.update(index, files("lib/a.sh"))).containsExactly(label("//lib:a_test"));
+  }
+
+  @Test
+  public void testNewIndexStartsOver() {
+    service.update(TargetGraphIndex.create(targetMap, decoder), files("lib/b.sh"));
+
+    TargetGraphIndex resynced = TargetGraphIndex.create(targetMap, decoder);
+    assertThat(service.update(resynced, files("lib/b.sh", "lib/BUILD")))
+        .containsExactly(label("//app:b_test"), label("//lib:a_test"))
+        .inOrder();
+  }
+
+  private static ImmutableSet<File> files(String... relativePaths) {
+    ImmutableSet.Builder<File> files = ImmutableSet.builder();
+    for (String relativePath : relativePaths) {
+      files.add(file(relativePath));
+    }
+    return files.build();
+  }
+
+  private static ArtifactLocation source(String relativePath) {
+    return ArtifactLocation.builder().setRelativePath(relativePath).setIsSource(true).build();
+  }
+
+  private static File file(String relativePath) {
+    return new File("/workspace", relativePath);
+  }
+
+  private static Label label(String label) {
+    return Label.create(label);
+  }
+}
@@ -66,6 +66,7 @@ public class TestMapTest extends BlazeTestCase {
     mockBlazeProjectDataManager = new MockBlazeProjectDataManager();
     projectServices.register(BlazeProjectDataManager.class, mockBlazeProjectDataManager);
     projectServices.register(SyncCache.class, new SyncCache(project, GlobalScope.INSTANCE));
+    projectServices.register(ReachableTargetsIndex.class, new ReachableTargetsIndex(project));
     BlazeImportSettingsManager importSettingsManager = new BlazeImportSettingsManager(project);
     BlazeImportSettings settings =
         new BlazeImportSettings("", "", "", "", BuildSystemName.Blaze, ProjectType.ASPECT_SYNC);
@@ -270,6 +271,77 @@ public class TestMapTest extends BlazeTestCase {
         .containsExactly(Label.create("//test:test"));
   }
 
+  @Test
+  public void testRecomputedAfterSync() throws Exception {
+    mockBlazeProjectDataManager.targetMap =
+        TargetMapBuilder.builder()
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(sourceRoot("test/BUILD"))
+                    .setLabel("//test:test")
+                    .setKind("sh_test")
+                    .addSource(sourceRoot("test/Test.java")))
+            .build();
+    SourceToTargetFinder.findTargetsForSourceFile(
+        project, new File("/test/Test.java"), Optional.of(RuleType.TEST));
+
+    mockBlazeProjectDataManager.targetMap =
+        TargetMapBuilder.builder()
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(sourceRoot("test/BUILD"))
+                    .setLabel("//test:test2")
+                    .setKind("sh_test")
+                    .addSource(sourceRoot("test/Test.java")))
+            .build();
+    SyncCache.getInstance(project).clear();
+
+    Collection<TargetInfo> targets =
+        SourceToTargetFinder.findTargetsForSourceFile(
+            project, new File("/test/Test.java"), Optional.of(RuleType.TEST));
+
+    assertThat(targets.stream().map(t -> t.label).collect(Collectors.toList()))
+        .containsExactly(Label.create("//test:test2"));
+  }
+
+  @Test
+  public void testRuleTypeFilter() throws Exception {
+    mockBlazeProjectDataManager.targetMap =
+        TargetMapBuilder.builder()
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(sourceRoot("test/BUILD"))
+                    .setLabel("//test:test")
+                    .setKind("sh_test")
+                    .addDependency("//test:lib"))
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(sourceRoot("test/BUILD"))
+                    .setLabel("//test:lib")
+                    .setKind("sh_library")
+                    .addSource(sourceRoot("test/Lib.java")))
+            .build();
+    File source = new File("/test/Lib.java");
+
+    assertThat(
+            SourceToTargetFinder.findTargetsForSourceFile(
+                    project, source, Optional.of(RuleType.LIBRARY))
+                .stream()
+                .map(t -> t.label)
+                .collect(Collectors.toList()))
+        .containsExactly(Label.create("//test:lib"));
+    assertThat(
+            SourceToTargetFinder.findTargetsForSourceFile(project, source, Optional.empty())
+                .stream()
+                .map(t -> t.label)
+                .collect(Collectors.toList()))
+        .containsExactly(Label.create("//test:lib"), Label.create("//test:test"));
+    assertThat(
+            SourceToTargetFinder.findTargetsForSourceFile(
+                project, source, Optional.of(RuleType.BINARY)))
+        .isEmpty();
+  }
+
   private ArtifactLocation sourceRoot(String relativePath) {
     return ArtifactLocation.builder().setRelativePath(relativePath).setIsSource(true).build();
   }
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.idea.blaze.base.BlazeTestCase;
+import com.google.idea.blaze.base.model.BlazeProjectData;
+import com.google.idea.blaze.base.model.MockBlazeProjectDataBuilder;
+import com.google.idea.blaze.base.model.MockBlazeProjectDataManager;
+import com.google.idea.blaze.base.sync.ComputedAfterSync.Refresh;
+import com.google.idea.blaze.base.sync.data.BlazeProjectDataManager;
+import com.intellij.openapi.extensions.impl.ExtensionPointImpl;
+import com.intellij.openapi.project.Project;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import kotlin.coroutines.Continuation;
+import kotlin.jvm.functions.Function0;
+import kotlin.jvm.functions.Function1;
+import kotlinx.coroutines.GlobalScope;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ComputedAfterSync}. */
+@RunWith(JUnit4.class)
+public class ComputedAfterSyncTest extends BlazeTestCase {
+
+  private final BlockingQueue<Set<Refresh>> refreshes = new LinkedBlockingQueue<>();
+  private final AtomicInteger finishedRuns = new AtomicInteger();
+  private final RegisteredValue registered = new RegisteredValue();
+  private final ReadValue read = new ReadValue();
+
+  private ComputedAfterSync computedAfterSync;
+  private SyncCache syncCache;
+  private ComputedAfterSync.Scheduler scheduler;
+
+  @Override
+  protected void initTest(
+      @NotNull Container applicationServices, @NotNull Container projectServices) {
+    super.initTest(applicationServices, projectServices);
+    projectServices.register(
+        BlazeProjectDataManager.class,
+        new MockBlazeProjectDataManager(MockBlazeProjectDataBuilder.builder().build()));
+    syncCache = new SyncCache(project, GlobalScope.INSTANCE);
+    projectServices.register(SyncCache.class, syncCache);
+    computedAfterSync = new ComputedAfterSync(project, GlobalScope.INSTANCE);
+    computedAfterSync.setHost(new FakeHost());
+    projectServices.register(ComputedAfterSync.class, computedAfterSync);
+    @SuppressWarnings("unchecked")
+    Class<ComputedAfterSync.Value<?>> valueClass =
+        (Class<ComputedAfterSync.Value<?>>) (Class<?>) ComputedAfterSync.Value.class;
+    ExtensionPointImpl<ComputedAfterSync.Value<?>> ep =
+        registerExtensionPoint(ComputedAfterSync.Value.EP_NAME, valueClass);
+    ep.registerExtension(registered, testDisposable);
+    scheduler = new ComputedAfterSync.Scheduler();
+  }
+
+  @Test
+  public void testMissedValueIsComputedInTheBackgroundAndRefreshed() throws Exception {
+    assertThat(computedAfterSync.tryGet(read)).isNull();
+
+    assertThat(refreshes.poll(10, SECONDS)).containsExactly(Refresh.HIGHLIGHTING);
+    assertThat(computedAfterSync.tryGet(read)).isEqualTo("read");
+    assertThat(read.computed.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testRegisteredValuesAreComputedAfterSync() throws Exception {
+    runSync();
+
+    waitFor(() -> finishedRuns.get() == 1);
+    assertThat(registered.computed.get()).isEqualTo(1);
+    assertThat(computedAfterSync.tryGet(registered)).isEqualTo("registered");
+    // nobody read the value before it was ready, so there is nothing to refresh
+    assertThat(refreshes.poll(200, MILLISECONDS)).isNull();
+  }
+
+  @Test
+  public void testNothingIsComputedWhileSyncing() throws Exception {
+    scheduler.onSyncStart(project, null, null);
+
+    assertThat(computedAfterSync.tryGet(read)).isNull();
+    Thread.sleep(200);
+    assertThat(read.computed.get()).isEqualTo(0);
+
+    completeSync();
+    assertThat(refreshes.poll(10, SECONDS)).containsExactly(Refresh.HIGHLIGHTING);
+    assertThat(computedAfterSync.tryGet(read)).isEqualTo("read");
+  }
+
+  @Test
+  public void testValueComputedBeforeSyncStartIsDiscardedAndRecomputed() throws Exception {
+    read.blocked = new CountDownLatch(1);
+    assertThat(computedAfterSync.tryGet(read)).isNull();
+    assertThat(read.started.await(10, SECONDS)).isTrue();
+
+    // the running computation is cancelled, and its value is from the old project data
+    scheduler.onSyncStart(project, null, null);
+    read.blocked.countDown();
+    Thread.sleep(200);
+    assertThat(computedAfterSync.tryGet(read)).isNull();
+    assertThat(refreshes).isEmpty();
+
+    completeSync();
+    assertThat(refreshes.poll(10, SECONDS)).containsExactly(Refresh.HIGHLIGHTING);
+    assertThat(computedAfterSync.tryGet(read)).isEqualTo("read");
+    assertThat(read.computed.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testValuesAreKeptUntilSyncCompletes() throws Exception {
+    computedAfterSync.tryGet(read);
+    assertThat(refreshes.poll(10, SECONDS)).isNotNull();
+
+    scheduler.onSyncStart(project, null, null);
+    assertThat(computedAfterSync.tryGet(read)).isEqualTo("read");
+
+    scheduler.onSyncComplete(project, null, null, null, null, null, null, null);
+    assertThat(computedAfterSync.tryGet(read)).isNull();
+  }
+
+  private void runSync() {
+    scheduler.onSyncStart(project, null, null);
+    completeSync();
+  }
+
+  private void completeSync() {
+    scheduler.onSyncComplete(project, null, null, null, null, null, null, null);
+    // as done by ClearSyncCache
+    syncCache.clear();
+    scheduler.afterSync(project, null, null, null, null);
+  }
+
+  private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+    for (int i = 0; i < 1000 && !condition.getAsBoolean(); i++) {
+      Thread.sleep(10);
+    }
+    assertThat(condition.getAsBoolean()).isTrue();
+  }
+
+  private final class FakeHost implements ComputedAfterSync.Host {
+    @Override
+    public <T> Object withProgress(
+        Function1<? super Continuation<? super T>, ?> block,
+        Continuation<? super T> continuation) {
+      Object result = block.invoke(continuation);
+      finishedRuns.incrementAndGet();
+      return result;
+    }
+
+    @Override
+    public <T> Object compute(Function0<? extends T> block, Continuation<? super T> continuation) {
+      return block.invoke();
+    }
+
+    @Override
+    public void refresh(Set<Refresh> refreshes) {
+      ComputedAfterSyncTest.this.refreshes.add(EnumSet.copyOf(refreshes));
+    }
+  }
+
+  private static final class RegisteredValue implements ComputedAfterSync.Value<String> {
+    final AtomicInteger computed = new AtomicInteger();
+
+    @Override
+    public String compute(Project project, BlazeProjectData projectData) {
+      computed.incrementAndGet();
+      return "registered";
+    }
+
+    @Override
+    public Set<Refresh> refreshes() {
+      return EnumSet.of(Refresh.PROJECT_VIEW);
+    }
+  }
+
+  private static final class ReadValue implements ComputedAfterSync.Value<String> {
+    final AtomicInteger computed = new AtomicInteger();
+    final CountDownLatch started = new CountDownLatch(1);
+    volatile CountDownLatch blocked = new CountDownLatch(0);
+
+    @Override
+    public String compute(Project project, BlazeProjectData projectData) {
+      computed.incrementAndGet();
+      started.countDown();
+      try {
+        blocked.await(10, SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return "read";
+    }
+
+    @Override
+    public Set<Refresh> refreshes() {
+      return EnumSet.of(Refresh.HIGHLIGHTING);
+    }
+  }
+}
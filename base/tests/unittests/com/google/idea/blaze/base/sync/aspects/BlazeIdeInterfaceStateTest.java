@@ -0,0 +1,60 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.aspects;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.devtools.intellij.model.ProjectData;
+import com.google.idea.blaze.base.filecache.ArtifactStateTable;
+import com.google.idea.blaze.base.filecache.LocalFileState;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link BlazeIdeInterfaceState}. */
+@RunWith(JUnit4.class)
+public class BlazeIdeInterfaceStateTest {
+
+  private static final String A = "k8-fastbuild/bin/foo/a.intellij-info.txt";
+  private static final String B = "k8-fastbuild/bin/foo/b.intellij-info.txt";
+  private static final String C = "k8-fastbuild/bin/foo/bar/c.intellij-info.txt";
+
+  @Test
+  public void testLocalFilesArePrefixCompressed() {
+    BlazeIdeInterfaceState.Builder builder = BlazeIdeInterfaceState.builder();
+    builder.ideInfoFileState =
+        ArtifactStateTable.copyOf(
+            ImmutableMap.of(
+                A, new LocalFileState(A, 1),
+                B, new LocalFileState(B, 2),
+                C, new LocalFileState(C, 3)));
+    BlazeIdeInterfaceState state = builder.build();
+
+    ProjectData.BlazeIdeInterfaceState proto = state.toProto();
+
+    assertThat(proto.getIdeInfoFilesList()).isEmpty();
+    assertThat(proto.getLocalIdeInfoFiles().getSharedPrefixLengthsList())
+        .containsExactly(0, A.indexOf("a."), A.indexOf("a.") + 1)
+        .inOrder();
+    assertThat(proto.getLocalIdeInfoFiles().getPathSuffixesList())
+        .containsExactly(A, "b.intellij-info.txt", "ar/c.intellij-info.txt")
+        .inOrder();
+    BlazeIdeInterfaceState restored = BlazeIdeInterfaceState.fromProto(proto);
+    assertThat(restored).isEqualTo(state);
+    assertThat(((LocalFileState) restored.ideInfoFileState.get(C)).getTimestamp()).isEqualTo(3);
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.aspects;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link IdeInfoBundleDiff}. */
+@RunWith(JUnit4.class)
+public class IdeInfoBundleDiffTest {
+
+  private static final String A = "k8-fastbuild/bin/foo/a.intellij-info.json";
+  private static final String B = "k8-fastbuild/bin/foo/b.intellij-info.json";
+  private static final String C = "k8-opt/bin/foo/c.intellij-info.json";
+
+  @Test
+  public void testParseDropsContentOfUnchangedEntries() throws Exception {
+    Map<String, IdeInfoBundleEntryState> previous =
+        ImmutableMap.of(
+            A, entry(A, digest("{\"kind\":\"a\"}"), "top"),
+            B, entry(B, digest("{\"kind\":\"x\"}"), "top"));
+
+    List<IdeInfoBundleDiff.Entry> entries =
+        parse(
+            previous,
+            line(A, "{\"kind\":\"a\"}"),
+            line(B, "{\"kind\":\"b\"}"),
+            line(C, "{\"kind\":\"c\"}"));
+
+    assertThat(entries).hasSize(3);
+    assertThat(entries.get(0).key).isEqualTo(A);
+    assertThat(entries.get(0).content).isNull();
+    assertThat(entries.get(1).content).isEqualTo("{\"kind\":\"b\"}");
+    assertThat(entries.get(2).configuration).isEqualTo("k8-opt");
+  }
+
+  @Test
+  public void testMalformedLineThrowsIOException() {
+    assertThrows(IOException.class, () -> parse(ImmutableMap.of(), "no-content"));
+  }
+
+  @Test
+  public void testEntriesAreRemovedWithTheirLastBundle() throws Exception {
+    Map<String, IdeInfoBundleEntryState> previous =
+        ImmutableMap.of(
+            A, entry(A, "1-2", "top1", "top2"),
+            B, entry(B, "3-4", "top1"),
+            C, entry(C, "5-6", "top2"));
+
+    IdeInfoBundleDiff diff =
+        IdeInfoBundleDiff.merge(previous, ImmutableMap.of(), ImmutableSet.of("top1"));
+
+    assertThat(diff.getRemovedEntries()).containsExactly(B);
+    assertThat(diff.getNewState().keySet()).containsExactly(A, C);
+    assertThat(diff.getNewState().get(A).getBundles()).containsExactly("top2");
+    assertThat(diff.getUpdatedEntries()).isEmpty();
+  }
+
+  @Test
+  public void testUpdatedBundleReplacesItsMembership() throws Exception {
+    Map<String, IdeInfoBundleEntryState> previous =
+        ImmutableMap.of(A, entry(A, digest("{}"), "top1"), B, entry(B, "3-4", "top1", "top2"));
+
+    Map<String, List<IdeInfoBundleDiff.Entry>> updated = new LinkedHashMap<>();
+    updated.put("top1", parse(previous, line(A, "{}"), line(C, "{\"kind\":\"c\"}")));
+
+    IdeInfoBundleDiff diff = IdeInfoBundleDiff.merge(previous, updated, ImmutableSet.of());
+
+    assertThat(diff.getRemovedEntries()).isEmpty();
+    assertThat(diff.getNewState().get(A).getBundles()).containsExactly("top1");
+    assertThat(diff.getNewState().get(B).getBundles()).containsExactly("top2");
+    assertThat(diff.getNewState().get(C).getDigest()).isEqualTo(digest("{\"kind\":\"c\"}"));
+    assertThat(diff.getUpdatedEntries()).hasSize(1);
+    assertThat(diff.getUpdatedEntries().get(0).key).isEqualTo(C);
+  }
+
+  @Test
+  public void testEntryStateChangesWithDigest() {
+    IdeInfoBundleEntryState state = entry(A, "1-2", "top");
+
+    assertThat(state.isMoreRecent(entry(A, "1-2", "other"))).isFalse();
+    assertThat(state.isMoreRecent(entry(A, "1-3", "top"))).isTrue();
+    assertThat(new IdeInfoBundleEntryState.ProtoConverter().parseProto(state.serializeToProto()))
+        .isEqualTo(state);
+  }
+
+  private static IdeInfoBundleEntryState entry(String key, String digest, String... bundles) {
+    return new IdeInfoBundleEntryState(key, digest, ImmutableSet.copyOf(bundles));
+  }
+
+  private static String line(String key, String content) {
+    return "bazel-out/" + key + "\t" + content;
+  }
+
+  private static String digest(String content) {
+    return Hashing.sha256().hashString(content, UTF_8).toString();
+  }
+
+  private static List<IdeInfoBundleDiff.Entry> parse(
+      Map<String, IdeInfoBundleEntryState> previous, String... lines) throws IOException {
+    byte[] content = String.join("\n", lines).getBytes(UTF_8);
+    return IdeInfoBundleDiff.parse(new ByteArrayInputStream(content), previous);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.aspects;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.devtools.intellij.ideinfo.IntellijIdeInfo;
+import com.google.idea.blaze.base.filecache.ArtifactStateTable;
+import com.google.idea.blaze.base.filecache.LocalFileState;
+import com.google.idea.blaze.common.artifact.OutputArtifactWithoutDigest;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ShardOutputPreloader}. */
+@RunWith(JUnit4.class)
+public class ShardOutputPreloaderTest {
+
+  private static final String A = "k8-fastbuild/bin/foo/a.intellij-info.txt";
+  private static final String B = "k8-fastbuild/bin/foo/b.intellij-info.txt";
+
+  private final List<String> read = new ArrayList<>();
+
+  private final ShardOutputPreloader.Fetcher fetcher =
+      new ShardOutputPreloader.Fetcher() {
+        @Override
+        public ListenableFuture<?> fetch(List<OutputArtifactWithoutDigest> files) {
+          return Futures.immediateFuture(null);
+        }
+
+        @Override
+        public IntellijIdeInfo.TargetIdeInfo read(OutputArtifactWithoutDigest file) {
+          read.add(file.getBazelOutRelativePath());
+          return IntellijIdeInfo.TargetIdeInfo.newBuilder()
+              .setKindString(file.getBazelOutRelativePath())
+              .build();
+        }
+      };
+
+  @Test
+  public void testOnlyChangedFilesArePreloaded() throws Exception {
+    ShardOutputPreloader preloader =
+        new ShardOutputPreloader(
+            ArtifactStateTable.copyOf(
+                ImmutableMap.of(A, new LocalFileState(A, 1), B, new LocalFileState(B, 1))),
+            MoreExecutors.newDirectExecutorService(),
+            fetcher);
+
+    preloader.preload(ImmutableList.of(artifact(A, 1), artifact(B, 2)));
+    preloader.awaitRegistration();
+
+    assertThat(read).containsExactly(B);
+    assertThat(preloader.get(A, new LocalFileState(A, 1))).isNull();
+    assertThat(preloader.get(B, new LocalFileState(B, 2)).get().getKindString()).isEqualTo(B);
+  }
+
+  @Test
+  public void testPreloadedFileIsIgnoredIfItChangedSince() throws Exception {
+    ShardOutputPreloader preloader =
+        new ShardOutputPreloader(null, MoreExecutors.newDirectExecutorService(), fetcher);
+
+    preloader.preload(ImmutableList.of(artifact(A, 1)));
+    preloader.awaitRegistration();
+
+    assertThat(preloader.get(A, new LocalFileState(A, 1))).isNotNull();
+    assertThat(preloader.get(A, new LocalFileState(A, 2))).isNull();
+    assertThat(preloader.get(A, null)).isNull();
+  }
+
+  private static OutputArtifactWithoutDigest artifact(String path, long timestamp) {
+    OutputArtifactWithoutDigest artifact = mock(OutputArtifactWithoutDigest.class);
+    when(artifact.getBazelOutRelativePath()).thenReturn(path);
+    when(artifact.toArtifactState()).thenReturn(new LocalFileState(path, timestamp));
+    return artifact;
+  }
+}
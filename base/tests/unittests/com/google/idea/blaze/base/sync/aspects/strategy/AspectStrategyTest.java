@@ -135,6 +135,31 @@ public class AspectStrategyTest extends BlazeTestCase {
             "intellij-compile-dart");
   }
 
+  @Test
+  public void testBundledInfoReplacesPerLanguageInfoGroups() {
+    Set<LanguageClass> activeLanguages = ImmutableSet.of(LanguageClass.JAVA);
+    AspectStrategy bundling =
+        new MockAspectStrategy() {
+          @Override
+          public boolean bundlesIdeInfo() {
+            return true;
+          }
+        };
+
+    BlazeCommand.Builder builder = emptyBuilder();
+    bundling.addAspectAndOutputGroups(
+        project,
+        builder,
+        ImmutableList.of(OutputGroup.INFO, OutputGroup.RESOLVE),
+        activeLanguages);
+    assertThat(getOutputGroups(builder))
+        .containsExactly("intellij-info-bundle", "intellij-resolve-java");
+    assertThat(
+            AspectStrategy.ASPECT_OUTPUT_FILE_PREDICATE.test(
+                "k8-fastbuild/bin/foo/bar-123.intellij-info.bundle"))
+        .isTrue();
+  }
+
   private BlazeCommand.Builder emptyBuilder() {
     return BlazeCommand.builder("/usr/bin/blaze", BlazeCommandName.BUILD);
   }
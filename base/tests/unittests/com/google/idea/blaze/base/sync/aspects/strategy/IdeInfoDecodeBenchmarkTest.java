@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.aspects.strategy;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+import static org.junit.Assume.assumeTrue;
+
+import com.google.devtools.intellij.ideinfo.IntellijIdeInfo;
+import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy.IdeInfoFormat;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Compares the decode throughput of the IDE info formats on real aspect outputs.
+ *
+ * <p>Skipped unless the {@code ide.info.benchmark.dir} system property points to a directory
+ * containing aspect outputs, e.g. a project's bazel-out after syncing once with and once without
+ * {@code bazel.sync.aspect.json.output}. Run with {@code --jvmopt=-Dide.info.benchmark.dir=...}.
+ */
+@RunWith(JUnit4.class)
+public class IdeInfoDecodeBenchmarkTest {
+
+  private static final int WARMUP_ITERATIONS = 3;
+  private static final int MEASURED_ITERATIONS = 10;
+
+  @Test
+  public void benchmarkDecodeThroughput() throws Exception {
+    String dir = System.getProperty("ide.info.benchmark.dir");
+    assumeTrue(dir != null);
+
+    Map<IdeInfoFormat, List<Path>> files = collectOutputs(Path.of(dir));
+    for (Map.Entry<IdeInfoFormat, List<Path>> entry : files.entrySet()) {
+      List<byte[]> contents = new ArrayList<>();
+      long totalBytes = 0;
+      for (Path file : entry.getValue()) {
+        byte[] content = Files.readAllBytes(file);
+        contents.add(content);
+        totalBytes += content.length;
+      }
+      for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+        decodeAll(contents, entry.getKey());
+      }
+      long start = System.nanoTime();
+      for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+        decodeAll(contents, entry.getKey());
+      }
+      double seconds = (System.nanoTime() - start) / 1e9 / MEASURED_ITERATIONS;
+      System.out.printf(
+          "%s: %d files, %.1f MB, %.1f ms per pass, %.1f MB/s, %.0f files/s%n",
+          entry.getKey(),
+          contents.size(),
+          totalBytes / 1e6,
+          seconds * 1000,
+          totalBytes / 1e6 / seconds,
+          contents.size() / seconds);
+    }
+
+    checkFormatsAgree(files.get(IdeInfoFormat.TEXT));
+  }
+
+  private static Map<IdeInfoFormat, List<Path>> collectOutputs(Path root) throws IOException {
+    Map<IdeInfoFormat, List<Path>> files = new EnumMap<>(IdeInfoFormat.class);
+    try (Stream<Path> paths = Files.walk(root)) {
+      paths.forEach(
+          path ->
+              IdeInfoFormat.forFileName(path.getFileName().toString())
+                  .ifPresent(
+                      format -> files.computeIfAbsent(format, f -> new ArrayList<>()).add(path)));
+    }
+    assertWithMessage("no aspect outputs found under " + root).that(files).isNotEmpty();
+    return files;
+  }
+
+  private static void decodeAll(List<byte[]> contents, IdeInfoFormat format) throws IOException {
+    for (byte[] content : contents) {
+      AspectStrategy.readAspectFile(new ByteArrayInputStream(content), format);
+    }
+  }
+
+  /** Outputs written for the same target in both formats must decode to the same message. */
+  private static void checkFormatsAgree(List<Path> textFiles) throws IOException {
+    if (textFiles == null) {
+      return;
+    }
+    String textExtension = IdeInfoFormat.TEXT.fileExtension;
+    for (Path textFile : textFiles) {
+      String name = textFile.getFileName().toString();
+      Path jsonFile =
+          textFile.resolveSibling(
+              name.substring(0, name.length() - textExtension.length())
+                  + IdeInfoFormat.JSON.fileExtension);
+      if (!Files.exists(jsonFile)) {
+        continue;
+      }
+      assertWithMessage(jsonFile.toString())
+          .that(read(jsonFile, IdeInfoFormat.JSON))
+          .isEqualTo(read(textFile, IdeInfoFormat.TEXT));
+    }
+  }
+
+  private static IntellijIdeInfo.TargetIdeInfo read(Path file, IdeInfoFormat format)
+      throws IOException {
+    try (var in = Files.newInputStream(file)) {
+      return AspectStrategy.readAspectFile(in, format);
+    }
+  }
+}
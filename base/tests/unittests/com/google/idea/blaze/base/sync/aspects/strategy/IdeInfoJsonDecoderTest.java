@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.aspects.strategy;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.devtools.intellij.ideinfo.IntellijIdeInfo;
+import com.google.idea.blaze.base.sync.aspects.strategy.AspectStrategy.IdeInfoFormat;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link IdeInfoJsonDecoder}. */
+@RunWith(JUnit4.class)
+public class IdeInfoJsonDecoderTest {
+
+  private static final String TEXT_OUTPUT =
+      String.join(
+          "\n",
+          "build_file_artifact_location {",
+          "  is_source: true",
+          "  relative_path: \"foo/BUILD\"",
+          "}",
+          "deps {",
+          "  dependency_type: RUNTIME",
+          "  target {",
+          "    label: \"//foo:dep\"",
+          "  }",
+          "}",
+          "key {",
+          "  configuration: \"k8-fastbuild\"",
+          "  label: \"//foo:bar\"",
+          "}",
+          "kind: \"java_library\"",
+          "tags: \"manual\"",
+          "tags: \"no-ide\"");
+
+  private static final String JSON_OUTPUT =
+      "{\"build_file_artifact_location\":{\"is_source\":true,\"relative_path\":\"foo/BUILD\"},"
+          + "\"deps\":[{\"dependency_type\":1,\"target\":{\"label\":\"//foo:dep\"}}],"
+          + "\"key\":{\"configuration\":\"k8-fastbuild\",\"label\":\"//foo:bar\"},"
+          + "\"kind\":\"java_library\",\"tags\":[\"manual\",\"no-ide\"]}";
+
+  @Test
+  public void testJsonMatchesTextFormat() throws Exception {
+    IntellijIdeInfo.TargetIdeInfo fromText = read(TEXT_OUTPUT, IdeInfoFormat.TEXT);
+    IntellijIdeInfo.TargetIdeInfo fromJson = read(JSON_OUTPUT, IdeInfoFormat.JSON);
+
+    assertThat(fromJson).isEqualTo(fromText);
+    assertThat(fromJson.getDeps(0).getDependencyType())
+        .isEqualTo(IntellijIdeInfo.Dependency.DependencyType.RUNTIME);
+  }
+
+  @Test
+  public void testUnknownFieldsAreSkipped() throws Exception {
+    IntellijIdeInfo.TargetIdeInfo info =
+        read(
+            "{\"kind\":\"java_library\",\"not_a_field\":{\"nested\":[1,{\"x\":null}]},"
+                + "\"tags\":[]}",
+            IdeInfoFormat.JSON);
+
+    assertThat(info.getKind()).isEqualTo("java_library");
+    assertThat(info.getTagsList()).isEmpty();
+  }
+
+  @Test
+  public void testMalformedInputThrowsIOException() {
+    assertThrows(IOException.class, () -> read("{\"kind\":[\"a\"", IdeInfoFormat.JSON));
+    assertThrows(IOException.class, () -> read("{\"kind\":{}}", IdeInfoFormat.JSON));
+  }
+
+  @Test
+  public void testFormatIsDerivedFromFileName() {
+    assertThat(IdeInfoFormat.forFileName("bazel-out/k8/bin/foo/bar-123.intellij-info.txt"))
+        .hasValue(IdeInfoFormat.TEXT);
+    assertThat(IdeInfoFormat.forFileName("bazel-out/k8/bin/foo/bar-123.intellij-info.json"))
+        .hasValue(IdeInfoFormat.JSON);
+    assertThat(IdeInfoFormat.forFileName("bazel-out/k8/bin/foo/bar.jar")).isEmpty();
+  }
+
+  private static IntellijIdeInfo.TargetIdeInfo read(String content, IdeInfoFormat format)
+      throws IOException {
+    return AspectStrategy.readAspectFile(new ByteArrayInputStream(content.getBytes(UTF_8)), format);
+  }
+}
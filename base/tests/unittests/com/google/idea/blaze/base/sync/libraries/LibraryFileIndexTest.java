@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.libraries;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.google.common.collect.ImmutableList;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWithId;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link LibraryFileIndex}. */
+@RunWith(JUnit4.class)
+public class LibraryFileIndexTest {
+
+  private int nextId = 100;
+
+  @Test
+  public void testContainsOnlyIndexedFiles() {
+    VirtualFile a = file("/out/a.ts");
+    VirtualFile b = file("/out/b.ts");
+    VirtualFile other = file("/out/other.ts");
+
+    LibraryFileIndex index = LibraryFileIndex.build(ImmutableList.of(a, b, a));
+
+    assertThat(index).containsExactly(a, b);
+    assertThat(index.contains(other)).isFalse();
+    assertThat(index.contains(directory("/out"))).isFalse();
+  }
+
+  @Test
+  public void testRemovedFilesAreCleared() {
+    VirtualFile a = file("/out/a.ts");
+    VirtualFile b = file("/out/b.ts");
+    LibraryFileIndex index = LibraryFileIndex.build(ImmutableList.of(a, b));
+
+    index.removeAll(ImmutableList.of(a, a));
+
+    assertThat(index.contains(a)).isFalse();
+    assertThat(index).containsExactly(b);
+    assertThat(index.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void testDeletedDirectoryRemovesFilesUnderIt() {
+    VirtualFile a = file("/out/dir/a.ts");
+    VirtualFile b = file("/out/dir/sub/b.ts");
+    VirtualFile c = file("/out/dir2/c.ts");
+    VirtualFile d = file("/out/d.ts");
+    LibraryFileIndex index = LibraryFileIndex.build(ImmutableList.of(d, c, b, a));
+
+    index.removeAll(ImmutableList.of(directory("/out/dir")));
+
+    assertThat(index).containsExactly(c, d);
+  }
+
+  @Test
+  public void testWithFilesKeepsCurrentFiles() {
+    VirtualFile a = file("/out/a.ts");
+    VirtualFile b = file("/out/b.ts");
+    VirtualFile c = file("/out/c.ts");
+    LibraryFileIndex index = LibraryFileIndex.build(ImmutableList.of(a, b));
+    index.removeAll(ImmutableList.of(b));
+
+    LibraryFileIndex updated = index.withFiles(ImmutableList.of(c));
+
+    assertThat(updated).containsExactly(a, c);
+    assertThat(index).containsExactly(a);
+  }
+
+  private VirtualFile file(String path) {
+    return mockFile(path, false);
+  }
+
+  private VirtualFile directory(String path) {
+    return mockFile(path, true);
+  }
+
+  private VirtualFile mockFile(String path, boolean isDirectory) {
+    VirtualFile file =
+        mock(VirtualFile.class, withSettings().extraInterfaces(VirtualFileWithId.class));
+    when(file.getPath()).thenReturn(path);
+    when(file.isValid()).thenReturn(true);
+    when(file.isDirectory()).thenReturn(isDirectory);
+    when(((VirtualFileWithId) file).getId()).thenReturn(nextId++);
+    return file;
+  }
+}
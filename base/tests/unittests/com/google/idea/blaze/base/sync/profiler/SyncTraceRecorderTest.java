@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.profiler;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Ticker;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link SyncTraceRecorder}. */
+@RunWith(JUnit4.class)
+public class SyncTraceRecorderTest {
+
+  private long nanos = 1_000_000;
+  private long heap = 10 * 1024;
+
+  private final SyncTraceRecorder recorder =
+      new SyncTraceRecorder(
+          new Ticker() {
+            @Override
+            public long read() {
+              return nanos;
+            }
+          },
+          () -> heap,
+          /* maxEvents= */ 20);
+
+  @Test
+  public void testSpansAreWrittenAsCompleteEvents() throws Exception {
+    SyncTraceRecorder.Span outer = recorder.beginSpan("Build phase", "Other");
+    nanos += TimeUnit.MILLISECONDS.toNanos(5);
+    try (SyncTraceRecorder.Span inner = recorder.beginSpan("BlazeBuild", "BlazeInvocation")) {
+      inner.putArg("targets", 3);
+      nanos += TimeUnit.MILLISECONDS.toNanos(20);
+      heap += 2048;
+    }
+    outer.end();
+    outer.end();
+
+    List<JsonObject> events = events("X");
+    assertThat(events).hasSize(2);
+    JsonObject inner = events.get(0);
+    assertThat(inner.get("name").getAsString()).isEqualTo("BlazeBuild");
+    assertThat(inner.get("cat").getAsString()).isEqualTo("BlazeInvocation");
+    assertThat(inner.get("ts").getAsLong()).isEqualTo(5000);
+    assertThat(inner.get("dur").getAsLong()).isEqualTo(20000);
+    assertThat(inner.getAsJsonObject("args").get("targets").getAsInt()).isEqualTo(3);
+    assertThat(inner.getAsJsonObject("args").get("heapDeltaKb").getAsLong()).isEqualTo(2);
+    JsonObject outerEvent = events.get(1);
+    assertThat(outerEvent.get("ts").getAsLong()).isEqualTo(0);
+    assertThat(outerEvent.get("dur").getAsLong()).isEqualTo(25000);
+    assertThat(events("M").get(0).getAsJsonObject("args").get("name").getAsString())
+        .isEqualTo(Thread.currentThread().getName());
+  }
+
+  @Test
+  public void testTaskSpansHaveNoHeapDelta() throws Exception {
+    try (SyncTraceRecorder.Span task =
+        recorder.beginSpan("ReadAspectFile", SyncTraceRecorder.TASK_CATEGORY)) {
+      task.putArg("bytes", 10);
+      heap += 2048;
+    }
+
+    JsonObject args = events("X").get(0).getAsJsonObject("args");
+    assertThat(args.has("heapDeltaKb")).isFalse();
+    assertThat(args.get("bytes").getAsInt()).isEqualTo(10);
+  }
+
+  @Test
+  public void testTaskSpansLeaveRoomForPhaseSpans() throws Exception {
+    SyncTraceRecorder.Span phase = recorder.beginSpan("Build phase", "Other");
+    for (int i = 0; i < 30; i++) {
+      recorder.beginSpan("ReadAspectFile", SyncTraceRecorder.TASK_CATEGORY).end();
+    }
+    phase.end();
+
+    List<JsonObject> spans = events("X");
+    assertThat(spans).hasSize(19);
+    assertThat(spans.get(18).get("name").getAsString()).isEqualTo("Build phase");
+    assertThat(otherData().get("droppedEvents").getAsInt()).isEqualTo(12);
+  }
+
+  @Test
+  public void testCountersAreCumulative() throws Exception {
+    recorder.addToCounter("filesLoaded", 10);
+    recorder.addToCounter("filesLoaded", 5);
+
+    List<JsonObject> counters = events("C");
+    assertThat(counters).hasSize(2);
+    assertThat(counters.get(1).getAsJsonObject("args").get("filesLoaded").getAsLong())
+        .isEqualTo(15);
+    assertThat(recorder.getCounters()).containsExactly("filesLoaded", 15L);
+  }
+
+  private JsonObject otherData() throws Exception {
+    return trace().getAsJsonObject("otherData");
+  }
+
+  private List<JsonObject> events(String phase) throws Exception {
+    JsonArray events = trace().getAsJsonArray("traceEvents");
+    List<JsonObject> result = new ArrayList<>();
+    for (JsonElement event : events) {
+      if (event.getAsJsonObject().get("ph").getAsString().equals(phase)) {
+        result.add(event.getAsJsonObject());
+      }
+    }
+    return result;
+  }
+
+  private JsonObject trace() throws Exception {
+    StringWriter writer = new StringWriter();
+    recorder.writeTo(writer);
+    return JsonParser.parseString(writer.toString()).getAsJsonObject();
+  }
+}
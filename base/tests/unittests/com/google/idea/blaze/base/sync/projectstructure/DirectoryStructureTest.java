@@ -0,0 +1,167 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.sync.projectstructure;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.idea.blaze.base.io.FileOperationProvider;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link DirectoryStructure}. */
+@RunWith(JUnit4.class)
+public class DirectoryStructureTest {
+
+  private final WorkspaceRoot workspaceRoot = new WorkspaceRoot(new File("/root"));
+  private final FakeFileOperationProvider files = new FakeFileOperationProvider();
+  private final DirectoryStructureCache cache = new DirectoryStructureCache();
+  // a single thread, so the walk fails to finish if any task waits for another
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testWalkSkipsExcludedDirectories() throws Exception {
+    files.addDirectories("java/com/foo", "java/com/bar", "java/com/generated/sub");
+
+    DirectoryStructure structure =
+        walk(ImmutableList.of(path("java")), ImmutableSet.of(path("java/com/generated")));
+
+    DirectoryStructure com = child(child(structure, "java"), "java/com");
+    assertThat(com.directories.keySet())
+        .containsExactly(path("java/com/foo"), path("java/com/bar"));
+  }
+
+  @Test
+  public void testUnchangedDirectoriesAreNotListedAgain() throws Exception {
+    files.addDirectories("java/com/foo", "java/com/bar");
+    walk(ImmutableList.of(path("java")), ImmutableSet.of());
+    files.listed.clear();
+
+    files.addDirectories("java/com/baz");
+    DirectoryStructure structure = walk(ImmutableList.of(path("java")), ImmutableSet.of());
+
+    assertThat(files.listed).containsExactly("/root/java/com", "/root/java/com/baz");
+    assertThat(child(child(structure, "java"), "java/com").directories).hasSize(3);
+  }
+
+  @Test
+  public void testInvalidatedDirectoryIsListedAgain() throws Exception {
+    files.addDirectories("java/com/foo");
+    walk(ImmutableList.of(path("java")), ImmutableSet.of());
+    files.listed.clear();
+
+    cache.invalidate(path("java/com"));
+    walk(ImmutableList.of(path("java")), ImmutableSet.of());
+
+    assertThat(files.listed).containsExactly("/root/java/com");
+  }
+
+  @Test
+  public void testDirectoriesNoLongerVisitedAreDropped() throws Exception {
+    files.addDirectories("java/com/foo", "javatests/com/foo");
+    walk(ImmutableList.of(path("java"), path("javatests")), ImmutableSet.of());
+    assertThat(cache.size()).isEqualTo(6);
+
+    walk(ImmutableList.of(path("java")), ImmutableSet.of());
+
+    assertThat(cache.size()).isEqualTo(3);
+  }
+
+  private DirectoryStructure walk(List<WorkspacePath> roots, Set<WorkspacePath> excludes)
+      throws Exception {
+    return DirectoryStructure.walk(
+        workspaceRoot,
+        roots,
+        excludes,
+        files,
+        cache,
+        executor,
+        new AtomicBoolean(false));
+  }
+
+  private static DirectoryStructure child(DirectoryStructure structure, String path) {
+    return structure.directories.get(path(path));
+  }
+
+  private static WorkspacePath path(String path) {
+    return new WorkspacePath(path);
+  }
+
+  /** An in-memory directory tree, whose modification times change when children are added. */
+  private static class FakeFileOperationProvider extends FileOperationProvider {
+    private final Map<String, List<File>> children = new ConcurrentHashMap<>();
+    private final Map<String, Long> modifiedTimes = new ConcurrentHashMap<>();
+    private final Set<String> listed = ConcurrentHashMap.newKeySet();
+    private long time = 1;
+
+    void addDirectories(String... paths) {
+      time++;
+      for (String path : paths) {
+        File file = new File("/root", path);
+        children.putIfAbsent(file.getPath(), new ArrayList<>());
+        modifiedTimes.put(file.getPath(), time);
+        while (file.getParentFile() != null) {
+          File parent = file.getParentFile();
+          boolean known = children.containsKey(parent.getPath());
+          children.computeIfAbsent(parent.getPath(), p -> new ArrayList<>()).add(file);
+          modifiedTimes.put(parent.getPath(), time);
+          if (known) {
+            break;
+          }
+          file = parent;
+        }
+      }
+    }
+
+    @Override
+    public boolean isDirectory(File file) {
+      return children.containsKey(file.getPath());
+    }
+
+    @Override
+    public long getFileModifiedTime(File file) {
+      return modifiedTimes.getOrDefault(file.getPath(), 0L);
+    }
+
+    @Nullable
+    @Override
+    public List<File> listSubdirectories(File file) {
+      listed.add(file.getPath());
+      List<File> result = children.get(file.getPath());
+      return result != null ? new ArrayList<>(result) : null;
+    }
+  }
+}
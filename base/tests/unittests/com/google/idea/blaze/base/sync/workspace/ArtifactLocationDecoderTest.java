@@ -16,9 +16,6 @@
 package com.google.idea.blaze.base.sync.workspace;
 
 import static com.google.common.truth.Truth.assertThat;
-import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
 import com.google.devtools.intellij.aspect.Common;
 import com.google.idea.blaze.base.BlazeTestCase;
@@ -28,7 +25,11 @@ import com.google.idea.blaze.base.model.RemoteOutputArtifacts;
 import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
@@ -39,6 +40,20 @@ public class ArtifactLocationDecoderTest extends BlazeTestCase {
   private static final String OUTPUT_BASE = "/path/to/_blaze_user/1234bf129e";
   private static final String EXECUTION_ROOT = OUTPUT_BASE + "/execroot/my_proj";
 
+  @Rule public TemporaryFolder tempDir = new TemporaryFolder();
+
+  private File workspace;
+  private File executionRoot;
+
+  @Before
+  public final void createDirectories() throws IOException {
+    File root = tempDir.getRoot().getCanonicalFile();
+    workspace = new File(root, "workspace");
+    executionRoot = new File(root, "execroot");
+    new File(executionRoot, "external").mkdirs();
+    workspace.mkdirs();
+  }
+
   @Test
   public void testGeneratedArtifact() {
     ArtifactLocation artifactLocation =
@@ -120,36 +135,61 @@ public class ArtifactLocationDecoderTest extends BlazeTestCase {
   }
 
   @Test
-  public void testResolveSourceToProjectWorkspace() throws IOException {
-    ArtifactLocation artifactLocation =
-        ArtifactLocation.fromProto(
-            Common.ArtifactLocation.newBuilder()
-                .setRelativePath("something.h")
-                .setRootPath("external/repo_name")
-                .setIsSource(true)
-                .setIsExternal(true)
-                .build());
-
-    BlazeInfo blazeInfo = mock(BlazeInfo.class, RETURNS_DEEP_STUBS);
-
-    File workspaceRootFile = new File("/workspace/root");
-    WorkspacePathResolver resolver =
-        new WorkspacePathResolverImpl(new WorkspaceRoot(workspaceRootFile));
+  public void testResolveSourceInOverriddenRepository() throws IOException {
+    // the repository root is a symlink to the workspace, e.g. for a local_repository override
+    File repo = newFile(workspace, "third_party/repo/a/A.java").getParentFile().getParentFile();
+    Files.createSymbolicLink(executionRoot.toPath().resolve("external/repo"), repo.toPath());
+    ArtifactLocationDecoder decoder = createDecoder();
+
+    assertThat(decoder.resolveSource(externalSource("external/repo", "a/A.java")))
+        .isEqualTo(new File(workspace, "third_party/repo/a/A.java"));
+    assertThat(decoder.decode(externalSource("external/repo", "a/A.java")))
+        .isEqualTo(new File(workspace, "third_party/repo/a/A.java"));
+    assertThat(decoder.resolveSource(externalSource("external/repo", "a/Missing.java"))).isNull();
+  }
 
-    ArtifactLocationDecoder decoder =
-        new ArtifactLocationDecoderImpl(
-            blazeInfo,
-            resolver,
-            RemoteOutputArtifacts.EMPTY);
+  @Test
+  public void testResolveSourceLinkedFromRepositoryDirectory() throws IOException {
+    // the repository root is a real directory of symlinks, e.g. for a new_local_repository
+    File source = newFile(workspace, "src/b/B.java");
+    File linkedSource = new File(executionRoot, "external/new_repo/b/B.java");
+    linkedSource.getParentFile().mkdirs();
+    Files.createSymbolicLink(linkedSource.toPath(), source.toPath());
+    newFile(executionRoot, "external/new_repo/c/C.java");
+    ArtifactLocationDecoder decoder = createDecoder();
+
+    assertThat(decoder.resolveSource(externalSource("external/new_repo", "b/B.java")))
+        .isEqualTo(source);
+    assertThat(decoder.resolveSource(externalSource("external/new_repo", "c/C.java"))).isNull();
+    assertThat(decoder.decode(externalSource("external/new_repo", "c/C.java")))
+        .isEqualTo(new File(executionRoot, "external/new_repo/c/C.java"));
+  }
 
-    when(blazeInfo.getExecutionRoot().toPath()
-        .resolve(artifactLocation.getExecutionRootRelativePath()).toRealPath()).thenReturn(
-        workspaceRootFile.toPath().resolve("something.h"));
+  private ArtifactLocationDecoder createDecoder() {
+    return new ArtifactLocationDecoderImpl(
+        BlazeInfo.createMockBlazeInfo(
+            tempDir.getRoot().getPath(),
+            executionRoot.getPath(),
+            executionRoot.getPath() + "/blaze-out/bin",
+            executionRoot.getPath() + "/blaze-out/genfiles"),
+        new WorkspacePathResolverImpl(new WorkspaceRoot(workspace)),
+        RemoteOutputArtifacts.EMPTY);
+  }
 
-    assertThat(decoder.resolveSource(artifactLocation))
-        .isEqualTo(workspaceRootFile.toPath().resolve("something.h").toFile());
+  private static File newFile(File directory, String path) throws IOException {
+    File file = new File(directory, path);
+    file.getParentFile().mkdirs();
+    file.createNewFile();
+    return file;
+  }
 
-    assertThat(decoder.decode(artifactLocation))
-        .isEqualTo(workspaceRootFile.toPath().resolve("something.h").toFile());
+  private static ArtifactLocation externalSource(String rootPath, String relativePath) {
+    return ArtifactLocation.fromProto(
+        Common.ArtifactLocation.newBuilder()
+            .setRelativePath(relativePath)
+            .setRootPath(rootPath)
+            .setIsSource(true)
+            .setIsExternal(true)
+            .build());
   }
 }
@@ -24,12 +24,18 @@ import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
 import com.google.idea.blaze.base.ideinfo.TargetKey;
 import com.google.idea.blaze.base.ideinfo.TargetMap;
 import com.google.idea.blaze.base.ideinfo.TargetMapBuilder;
+import com.google.idea.blaze.base.model.BlazeProjectData;
 import com.google.idea.blaze.base.model.MockBlazeProjectDataBuilder;
 import com.google.idea.blaze.base.model.primitives.GenericBlazeRules;
 import com.google.idea.blaze.base.model.primitives.Kind;
 import com.google.idea.blaze.base.model.primitives.Kind.Provider;
 import com.google.idea.blaze.base.model.primitives.Label;
 import com.intellij.openapi.extensions.impl.ExtensionPointImpl;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -206,6 +212,45 @@ public class ReverseDependencyMapTest extends BlazeTestCase {
             TargetKey.forPlainTarget(Label.create("//l:l5")));
   }
 
+  @Test
+  public void testSnapshotRoundTrip() throws IOException {
+    TargetMap targetMap =
+        TargetMapBuilder.builder()
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(sourceRoot("test/BUILD"))
+                    .setLabel("//l:l1")
+                    .setKind("proto_library")
+                    .addDependency("//l:l2")
+                    .addDependency("//l:l3"))
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(sourceRoot("test/BUILD"))
+                    .setLabel("//l:l2")
+                    .setKind("proto_library")
+                    .addDependency("//l:l3"))
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(sourceRoot("test/BUILD"))
+                    .setLabel("//l:l3")
+                    .setKind("proto_library"))
+            .build();
+    BlazeProjectData projectData =
+        MockBlazeProjectDataBuilder.builder().setTargetMap(targetMap).build();
+    ReverseDependencyMap.Computable computable = new ReverseDependencyMap.Computable();
+    ImmutableMultimap<TargetKey, TargetKey> reverseDependencies =
+        computable.compute(getProject(), projectData);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    computable.write(projectData, reverseDependencies, new DataOutputStream(bytes));
+    ImmutableMultimap<TargetKey, TargetKey> restored =
+        computable.read(
+            projectData, new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertThat(restored).isEqualTo(reverseDependencies);
+    assertThat(restored).hasSize(3);
+  }
+
   private static ArtifactLocation sourceRoot(String relativePath) {
     return ArtifactLocation.builder().setRelativePath(relativePath).setIsSource(true).build();
   }
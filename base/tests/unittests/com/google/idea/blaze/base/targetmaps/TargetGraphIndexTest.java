@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.targetmaps;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.BlazeTestCase;
+import com.google.idea.blaze.base.ideinfo.ArtifactLocation;
+import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
+import com.google.idea.blaze.base.ideinfo.TargetKey;
+import com.google.idea.blaze.base.ideinfo.TargetMap;
+import com.google.idea.blaze.base.ideinfo.TargetMapBuilder;
+import com.google.idea.blaze.base.model.primitives.GenericBlazeRules;
+import com.google.idea.blaze.base.model.primitives.Kind;
+import com.google.idea.blaze.base.model.primitives.Kind.Provider;
+import com.google.idea.blaze.base.model.primitives.Label;
+import com.google.idea.blaze.base.sync.workspace.ArtifactLocationDecoder;
+import com.google.idea.blaze.base.targetmaps.TargetGraphIndex.ReverseClosure;
+import com.intellij.openapi.extensions.impl.ExtensionPointImpl;
+import java.io.File;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link TargetGraphIndex}. */
+@RunWith(JUnit4.class)
+public class TargetGraphIndexTest extends BlazeTestCase {
+
+  private TargetGraphIndex index;
+
+  @Override
+  protected void initTest(
+      @NotNull Container applicationServices, @NotNull Container projectServices) {
+    super.initTest(applicationServices, projectServices);
+    ExtensionPointImpl<Provider> kindProvider =
+        registerExtensionPoint(Kind.Provider.EP_NAME, Kind.Provider.class);
+    kindProvider.registerExtension(new GenericBlazeRules());
+    applicationServices.register(Kind.ApplicationState.class, new Kind.ApplicationState());
+
+    TargetMap targetMap =
+        TargetMapBuilder.builder()
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(source("lib/BUILD"))
+                    .setLabel("//lib:a")
+                    .setKind("proto_library")
+                    .addSource(source("lib/a.proto")))
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(source("lib/BUILD"))
+                    .setLabel("//lib:b")
+                    .setKind("proto_library")
+                    .addSource(source("lib/b.proto"))
+                    .addDependency("//lib:a")
+                    .addDependency("//third_party:not_in_project"))
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(source("lib/BUILD"))
+                    .setLabel("//lib:a_test")
+                    .setKind("sh_test")
+                    .addDependency("//lib:a")
+                    .addRuntimeDep("//lib:a"))
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(source("app/BUILD"))
+                    .setLabel("//app:b_test")
+                    .setKind("sh_test")
+                    .addDependency("//lib:b"))
+            .addTarget(
+                TargetIdeInfo.builder()
+                    .setBuildFile(source("app/BUILD"))
+                    .setLabel("//app:unrelated_test")
+                    .setKind("sh_test"))
+            .build();
+    ArtifactLocationDecoder decoder = mock(ArtifactLocationDecoder.class);
+    when(decoder.resolveSource(any()))
+        .thenAnswer(
+            invocation -> file(invocation.<ArtifactLocation>getArgument(0).relativePath()));
+    index = TargetGraphIndex.create(targetMap, decoder);
+  }
+
+  @Test
+  public void testReachesTransitiveReverseDependencies() {
+    ReverseClosure closure = index.newReverseClosure();
+
+    assertThat(addSource(closure, "lib/a.proto"))
+        .containsExactly(
+            key("//lib:a"), key("//lib:b"), key("//lib:a_test"), key("//app:b_test"));
+    assertThat(closure.contains(key("//app:unrelated_test"))).isFalse();
+  }
+
+  @Test
+  public void testAddingFilesOnlyReturnsNewlyReachedTargets() {
+    ReverseClosure closure = index.newReverseClosure();
+
+    assertThat(addSource(closure, "lib/b.proto"))
+        .containsExactly(key("//lib:b"), key("//app:b_test"));
+    assertThat(addSource(closure, "lib/a.proto"))
+        .containsExactly(key("//lib:a"), key("//lib:a_test"));
+    assertThat(addSource(closure, "lib/a.proto")).isEmpty();
+    assertThat(closure.size()).isEqualTo(4);
+  }
+
+  @Test
+  public void testBuildFilesOnlyCountWhenIncluded() {
+    ReverseClosure closure = index.newReverseClosure();
+
+    assertThat(addSource(closure, "app/BUILD")).isEmpty();
+    assertThat(addFile(closure, "app/BUILD"))
+        .containsExactly(key("//app:b_test"), key("//app:unrelated_test"));
+  }
+
+  @Test
+  public void testUnknownFilesAndTargets() {
+    ReverseClosure closure = index.newReverseClosure();
+
+    assertThat(addFile(closure, "other/c.proto")).isEmpty();
+    assertThat(closure.addTargets(ImmutableList.of(key("//other:c")))).isEmpty();
+    assertThat(index.hasOwners(file("lib/a.proto"))).isTrue();
+    assertThat(index.hasOwners(file("other/c.proto"))).isFalse();
+    assertThat(index.size()).isEqualTo(5);
+  }
+
+  private static ImmutableList<TargetKey> addSource(ReverseClosure closure, String path) {
+    return closure.addFiles(ImmutableList.of(file(path)), /* includeBuildFiles= */ false);
+  }
+
+  private static ImmutableList<TargetKey> addFile(ReverseClosure closure, String path) {
+    return closure.addFiles(ImmutableList.of(file(path)), /* includeBuildFiles= */ true);
+  }
+
+  private static ArtifactLocation source(String relativePath) {
+    return ArtifactLocation.builder().setRelativePath(relativePath).setIsSource(true).build();
+  }
+
+  private static File file(String relativePath) {
+    return new File("/workspace", relativePath);
+  }
+
+  private static TargetKey key(String label) {
+    return TargetKey.forPlainTarget(Label.create(label));
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.base.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.idea.blaze.base.model.primitives.WorkspacePath;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link WorkspacePathTrie}. */
+@RunWith(JUnit4.class)
+public class WorkspacePathTrieTest {
+
+  @Test
+  public void testDeepestDirectoryWins() {
+    WorkspacePathTrie<String> trie =
+        WorkspacePathTrie.<String>builder()
+            .put(new WorkspacePath("java"), "include")
+            .put(new WorkspacePath("java/com/generated"), "exclude")
+            .put(new WorkspacePath("java/com/generated/keep"), "include again")
+            .build();
+
+    assertThat(trie.findDeepest("java")).isEqualTo("include");
+    assertThat(trie.findDeepest("java/com/foo")).isEqualTo("include");
+    assertThat(trie.findDeepest("java/com/generated")).isEqualTo("exclude");
+    assertThat(trie.findDeepest("java/com/generated/sub")).isEqualTo("exclude");
+    assertThat(trie.findDeepest("java/com/generated/keep/sub")).isEqualTo("include again");
+    assertThat(trie.findDeepest("javascript")).isNull();
+    assertThat(trie.findDeepest("")).isNull();
+  }
+
+  @Test
+  public void testSegmentsAreMatchedExactly() {
+    WorkspacePathTrie<Boolean> trie =
+        WorkspacePathTrie.<Boolean>builder()
+            .putAll(ImmutableList.of(new WorkspacePath("a/b"), new WorkspacePath("a/bc")), true)
+            .build();
+
+    assertThat(trie.findDeepest("a/b/c")).isTrue();
+    assertThat(trie.findDeepest("a/bc")).isTrue();
+    assertThat(trie.findDeepest("a/bcd")).isNull();
+    assertThat(trie.findDeepest("a/a")).isNull();
+    assertThat(trie.findDeepest("a")).isNull();
+  }
+
+  @Test
+  public void testWorkspaceRootContainsEverything() {
+    WorkspacePathTrie<Boolean> trie =
+        WorkspacePathTrie.<Boolean>builder()
+            .put(new WorkspacePath(""), true)
+            .put(new WorkspacePath("bazel-out"), false)
+            .build();
+
+    assertThat(trie.findDeepest("")).isTrue();
+    assertThat(trie.findDeepest("foo/bar")).isTrue();
+    assertThat(trie.findDeepest(new WorkspacePath("bazel-out/k8"))).isFalse();
+  }
+
+  @Test
+  public void testLaterValuesReplaceEarlierOnes() {
+    WorkspacePathTrie<Boolean> trie =
+        WorkspacePathTrie.<Boolean>builder()
+            .put(new WorkspacePath("foo"), true)
+            .put(new WorkspacePath("foo"), false)
+            .build();
+
+    assertThat(trie.findDeepest("foo/bar")).isFalse();
+  }
+}
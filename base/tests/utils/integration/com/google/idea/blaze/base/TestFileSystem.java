@@ -39,6 +39,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 
 /** Creates temp files for integration tests. */
@@ -199,6 +200,18 @@ public class TestFileSystem {
       return Arrays.stream(vf.getChildren()).map((f) -> new File(f.getPath())).toArray(File[]::new);
     }
 
+    @Override
+    public List<File> listSubdirectories(File file) {
+      VirtualFile vf = getVirtualFile(file);
+      if (vf == null || vf.getChildren() == null) {
+        return null;
+      }
+      return Arrays.stream(vf.getChildren())
+          .filter(VirtualFile::isDirectory)
+          .map((f) -> new File(f.getPath()))
+          .collect(Collectors.toList());
+    }
+
     @Override
     public long getFileModifiedTime(File file) {
       VirtualFile vf = getVirtualFile(file);
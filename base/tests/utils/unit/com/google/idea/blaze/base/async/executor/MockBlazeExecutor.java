@@ -34,4 +34,9 @@ public class MockBlazeExecutor extends BlazeExecutor {
   public ListeningExecutorService getExecutor() {
     return executor;
   }
+
+  @Override
+  public ListeningExecutorService getExecutor(ExecutionLane lane) {
+    return executor;
+  }
 }
@@ -211,6 +211,13 @@ public class BuildSystemProviderWrapper implements BuildSystemProvider {
       return inner.invokeQuery(blazeCommandBuilder, blazeContext);
     }
 
+    @Override
+    @MustBeClosed
+    public InputStream invokeQueryStreaming(
+        BlazeCommand.Builder blazeCommandBuilder, BlazeContext blazeContext) throws BuildException {
+      return inner.invokeQueryStreaming(blazeCommandBuilder, blazeContext);
+    }
+
     @Override
     @MustBeClosed
     public InputStream invokeInfo(BlazeCommand.Builder blazeCommandBuilder, BlazeContext blazeContext) throws BuildException {
@@ -15,21 +15,32 @@
  */
 package com.google.idea.blaze.clwb.oclang;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.ideinfo.ArtifactLocation;
 import com.google.idea.blaze.base.io.VirtualFileSystemProvider;
+import com.google.idea.blaze.base.logging.EventLoggingService;
 import com.google.idea.blaze.base.model.BlazeProjectData;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.google.idea.blaze.base.settings.BlazeImportSettings.ProjectType;
+import com.google.idea.blaze.base.sync.ComputedAfterSync;
+import com.google.idea.blaze.base.sync.ComputedAfterSync.Refresh;
 import com.google.idea.blaze.base.sync.data.BlazeProjectDataManager;
 import com.google.idea.blaze.base.sync.workspace.WorkspacePathResolver;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.jetbrains.cidr.lang.CustomHeaderProvider;
 import com.jetbrains.cidr.lang.preprocessor.OCResolveRootAndConfiguration;
 import com.jetbrains.cidr.lang.workspace.OCResolveConfiguration;
 import java.io.File;
+import java.util.EnumSet;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.Nullable;
 
 /**
@@ -42,8 +53,11 @@ import javax.annotation.Nullable;
  * non-generated files efficiently is very low hanging fruit. Including search roots like libc and
  * libc++, non-workspace-root-relative includes could be 35% of the header searches.
  *
- * <p>Ideally our aspect would record which generated files are used, and we could avoid FS
- * operations entirely.
+ * <p>Before probing the workspace root, includes are looked up in a {@link HeaderIncludeIndex}
+ * built from the headers and include directories recorded by the aspect, which also covers
+ * generated and external headers. Resolved headers are cached for the current sync, so repeated
+ * lookups of the same include avoid FS operations entirely. Includes the index doesn't know, or
+ * which resolve to different headers for different targets, take the regular search.
  */
 public class BlazeCustomHeaderProvider extends CustomHeaderProvider {
 
@@ -52,6 +66,40 @@ public class BlazeCustomHeaderProvider extends CustomHeaderProvider {
   private final ConcurrentMap<File, Optional<VirtualFile>> cachedWorkspaceRoots =
       new ConcurrentHashMap<>();
 
+  /**
+   * The include index of the current sync, with the headers resolved so far. Its statistics are
+   * logged when it's disposed, i.e. when it's replaced by the next sync's index or the project is
+   * closed.
+   */
+  private static final class IndexState implements Disposable {
+    final HeaderIncludeIndex index;
+    final ConcurrentMap<ArtifactLocation, VirtualFile> resolvedHeaders = new ConcurrentHashMap<>();
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+
+    IndexState(HeaderIncludeIndex index) {
+      this.index = index;
+    }
+
+    @Override
+    public void dispose() {
+      if (hits.get() + misses.get() == 0) {
+        return;
+      }
+      EventLoggingService.getInstance()
+          .logEvent(
+              BlazeCustomHeaderProvider.class,
+              "HeaderIncludeIndex",
+              ImmutableMap.of(
+                  "indexSize", Integer.toString(index.size()),
+                  "hits", Long.toString(hits.get()),
+                  "misses", Long.toString(misses.get())));
+    }
+  }
+
+  private final AtomicReference<IndexState> indexState =
+      new AtomicReference<>(new IndexState(HeaderIncludeIndex.EMPTY));
+
   @Override
   public boolean accepts(@Nullable OCResolveRootAndConfiguration rootAndConfig) {
     if (rootAndConfig == null || rootAndConfig.getConfiguration() == null) {
@@ -77,6 +125,10 @@ public class BlazeCustomHeaderProvider extends CustomHeaderProvider {
     if (data == null) {
       return null;
     }
+    VirtualFile indexedHeader = findIndexedHeader(project, data, includeString);
+    if (indexedHeader != null) {
+      return indexedHeader;
+    }
     WorkspacePathResolver workspacePathResolver = data.workspacePathResolver();
     Optional<VirtualFile> workspaceRoot = getWorkspaceRoot(includeString, workspacePathResolver);
     if (!workspaceRoot.isPresent()) {
@@ -89,6 +141,65 @@ public class BlazeCustomHeaderProvider extends CustomHeaderProvider {
     return file;
   }
 
+  @Nullable
+  private VirtualFile findIndexedHeader(
+      Project project, BlazeProjectData data, String includeString) {
+    // don't block header search while the index is computed, it's computed after each sync
+    HeaderIncludeIndex index = ComputedAfterSync.getInstance(project).tryGet(new IndexComputable());
+    if (index == null) {
+      return null;
+    }
+    IndexState state = getIndexState(project, index);
+    ArtifactLocation header = state.index.lookup(includeString);
+    if (header == null) {
+      state.misses.incrementAndGet();
+      return null;
+    }
+    state.hits.incrementAndGet();
+    VirtualFile file = state.resolvedHeaders.get(header);
+    if (file != null && file.isValid()) {
+      return file;
+    }
+    file =
+        VirtualFileSystemProvider.getInstance()
+            .getSystem()
+            .findFileByIoFile(data.artifactLocationDecoder().decode(header));
+    if (file == null || file.isDirectory()) {
+      return null;
+    }
+    state.resolvedHeaders.put(header, file);
+    return file;
+  }
+
+  /** Returns the state for the given index, replacing and logging the stats of a stale one. */
+  private IndexState getIndexState(Project project, HeaderIncludeIndex index) {
+    IndexState state = indexState.get();
+    if (state.index == index) {
+      return state;
+    }
+    IndexState newState = new IndexState(index);
+    if (!indexState.compareAndSet(state, newState)) {
+      return indexState.get();
+    }
+    Disposer.dispose(state);
+    // report this sync's statistics even if there's no further sync before the project closes
+    Disposer.tryRegister(project, newState);
+    return newState;
+  }
+
+  /** Builds the include index after each sync, re-resolving open files once it's ready. */
+  static final class IndexComputable implements ComputedAfterSync.Value<HeaderIncludeIndex> {
+    @Override
+    public HeaderIncludeIndex compute(Project project, BlazeProjectData projectData) {
+      return HeaderIncludeIndex.build(projectData.targetMap());
+    }
+
+    @Override
+    public Set<Refresh> refreshes() {
+      return EnumSet.of(Refresh.HIGHLIGHTING);
+    }
+  }
+
   private Optional<VirtualFile> getWorkspaceRoot(
       String includeString, WorkspacePathResolver workspacePathResolver) {
     File packageRoot = workspacePathResolver.findPackageRoot(includeString);
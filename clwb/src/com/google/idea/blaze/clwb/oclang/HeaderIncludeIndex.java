@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.clwb.oclang;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.idea.blaze.base.ideinfo.ArtifactLocation;
+import com.google.idea.blaze.base.ideinfo.CIdeInfo;
+import com.google.idea.blaze.base.ideinfo.TargetIdeInfo;
+import com.google.idea.blaze.base.ideinfo.TargetMap;
+import com.google.idea.blaze.base.model.primitives.ExecutionRootPath;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Maps include strings to the headers they resolve to, built from the compilation contexts
+ * recorded by the aspect.
+ *
+ * <p>An include string is indexed if a header's execution root relative path consists of one of
+ * the include directories of any target, followed by the include string. Include strings which
+ * resolve to more than one header (e.g. because the include directories differ between targets)
+ * are left out, so callers must fall back to a regular header search for them.
+ */
+final class HeaderIncludeIndex {
+
+  static final HeaderIncludeIndex EMPTY = new HeaderIncludeIndex(ImmutableMap.of());
+
+  private final ImmutableMap<String, ArtifactLocation> includeToHeader;
+
+  private HeaderIncludeIndex(ImmutableMap<String, ArtifactLocation> includeToHeader) {
+    this.includeToHeader = includeToHeader;
+  }
+
+  /** Returns the header the include string uniquely resolves to, or null if there's none. */
+  @Nullable
+  ArtifactLocation lookup(String includeString) {
+    return includeToHeader.get(includeString);
+  }
+
+  int size() {
+    return includeToHeader.size();
+  }
+
+  static HeaderIncludeIndex build(TargetMap targetMap) {
+    Set<ArtifactLocation> headers = new HashSet<>();
+    Set<String> includeDirectories = new HashSet<>();
+    for (TargetIdeInfo target : targetMap.targets()) {
+      CIdeInfo cIdeInfo = target.getcIdeInfo();
+      if (cIdeInfo == null) {
+        continue;
+      }
+      CIdeInfo.CompilationContext compilationContext = cIdeInfo.compilationContext();
+      headers.addAll(compilationContext.headers());
+      headers.addAll(cIdeInfo.ruleContext().headers());
+      headers.addAll(cIdeInfo.ruleContext().textualHeaders());
+      addIncludeDirectories(includeDirectories, compilationContext.includes());
+      addIncludeDirectories(includeDirectories, compilationContext.quoteIncludes());
+      addIncludeDirectories(includeDirectories, compilationContext.systemIncludes());
+    }
+    return build(headers, includeDirectories);
+  }
+
+  private static HeaderIncludeIndex build(
+      Collection<ArtifactLocation> headers, Set<String> includeDirectories) {
+    Map<String, ArtifactLocation> includeToHeader = new HashMap<>();
+    Set<String> ambiguous = new HashSet<>();
+    for (ArtifactLocation header : headers) {
+      String path = executionRootRelativePath(header);
+      if (includeDirectories.contains("")) {
+        add(includeToHeader, ambiguous, path, header);
+      }
+      for (int i = path.indexOf('/'); i != -1; i = path.indexOf('/', i + 1)) {
+        if (includeDirectories.contains(path.substring(0, i))) {
+          add(includeToHeader, ambiguous, path.substring(i + 1), header);
+        }
+      }
+    }
+    ambiguous.forEach(includeToHeader::remove);
+    return new HeaderIncludeIndex(ImmutableMap.copyOf(includeToHeader));
+  }
+
+  private static void add(
+      Map<String, ArtifactLocation> includeToHeader,
+      Set<String> ambiguous,
+      String includeString,
+      ArtifactLocation header) {
+    ArtifactLocation existing = includeToHeader.putIfAbsent(includeString, header);
+    if (existing != null && !existing.equals(header)) {
+      ambiguous.add(includeString);
+    }
+  }
+
+  private static void addIncludeDirectories(
+      Set<String> includeDirectories, Collection<ExecutionRootPath> paths) {
+    for (ExecutionRootPath path : paths) {
+      if (!path.isAbsolute()) {
+        includeDirectories.add(normalize(path.path().toString()));
+      }
+    }
+  }
+
+  private static String executionRootRelativePath(ArtifactLocation header) {
+    String rootPath = normalize(header.rootPath());
+    String relativePath = normalize(header.relativePath());
+    return rootPath.isEmpty() ? relativePath : rootPath + "/" + relativePath;
+  }
+
+  /** Uses '/' as separator, without leading "./" or trailing '/'. The workspace root is "". */
+  private static String normalize(String path) {
+    path = path.replace('\\', '/');
+    while (path.startsWith("./")) {
+      path = path.substring(2);
+    }
+    while (path.endsWith("/")) {
+      path = path.substring(0, path.length() - 1);
+    }
+    return path.equals(".") ? "" : path;
+  }
+}
@@ -18,6 +18,8 @@ package com.google.idea.blaze.clwb.oclang.run.producers;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.idea.blaze.base.async.executor.BlazeExecutor;
+import com.google.idea.blaze.base.async.executor.ExecutionLane;
 import com.google.idea.blaze.base.dependencies.TargetInfo;
 import com.google.idea.blaze.base.run.ExecutorType;
 import com.google.idea.blaze.base.run.TestTargetHeuristic;
@@ -38,7 +40,6 @@ import com.jetbrains.cidr.lang.psi.OCDeclarator;
 import com.jetbrains.cidr.lang.types.OCFunctionType;
 import java.util.concurrent.Executor;
 import javax.annotation.Nullable;
-import org.jetbrains.ide.PooledThreadExecutor;
 
 /**
  * Provides run configurations related to C/C++ test classes in Blaze.
@@ -76,7 +77,7 @@ class CppTestContextProvider implements TestContextProvider {
     Executor executor =
         ApplicationManager.getApplication().isUnitTestMode()
             ? MoreExecutors.directExecutor()
-            : PooledThreadExecutor.INSTANCE;
+            : BlazeExecutor.getInstance().getExecutor(ExecutionLane.INTERACTIVE);
     ListenableFuture<TargetInfo> ccTestFuture = Futures.transform(targetFuture,
         targetInfo -> {
           if (targetInfo.getKind().equals(RuleTypes.CC_TEST.getKind())) {
@@ -15,7 +15,8 @@
  */
 package com.google.idea.blaze.clwb.run;
 
-import com.google.idea.blaze.base.run.filter.FileResolver;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.idea.blaze.base.run.filter.ConsoleFileResolver;
 import com.google.idea.blaze.base.settings.Blaze;
 import com.intellij.execution.filters.ConsoleFilterProvider;
 import com.intellij.execution.filters.Filter;
@@ -42,15 +43,22 @@ public class BlazeCppPathConsoleFilter implements Filter, DumbAware {
 
   static final Pattern PATTERN = Pattern.compile("^(.*):([0-9]+)(: Failure)?$");
 
+  private static final String FAILURE_SUFFIX = ": Failure";
+
   private final Project project;
+  private final ConsoleFileResolver fileResolver;
 
   private BlazeCppPathConsoleFilter(Project project) {
     this.project = project;
+    this.fileResolver = new ConsoleFileResolver(project);
   }
 
   @Nullable
   @Override
   public Result applyFilter(String line, int entireLength) {
+    if (!mayMatch(line)) {
+      return null;
+    }
     Matcher matcher = PATTERN.matcher(line);
     if (!matcher.find()) {
       return null;
@@ -70,6 +78,23 @@ public class BlazeCppPathConsoleFilter implements Filter, DumbAware {
     return new Result(matcher.start() + offset, matcher.end() + offset, hyperlink);
   }
 
+  /**
+   * Whether the line ends with a line number or a failure, ignoring the line break. Checked before
+   * the pattern, which would otherwise backtrack through every line of output.
+   */
+  @VisibleForTesting
+  static boolean mayMatch(String line) {
+    int end = line.length();
+    while (end > 0 && (line.charAt(end - 1) == '\n' || line.charAt(end - 1) == '\r')) {
+      end--;
+    }
+    if (end == 0 || line.indexOf(':') < 0) {
+      return false;
+    }
+    return Character.isDigit(line.charAt(end - 1))
+        || line.startsWith(FAILURE_SUFFIX, end - FAILURE_SUFFIX.length());
+  }
+
   /** defaults to -1 if no line number can be parsed. */
   private static int parseLineNumber(@Nullable String string) {
     try {
@@ -82,7 +107,8 @@ public class BlazeCppPathConsoleFilter implements Filter, DumbAware {
   @Nullable
   private VirtualFile resolveFile(String relativePath) {
     try {
-      return FileResolver.resolveToVirtualFile(project, relativePath);
+      // the pattern matches a lot of text which isn't a path, so only existing files are linked
+      return fileResolver.resolveToVirtualFile(relativePath);
     } catch (IndexNotReadyException e) {
       // Filter was called in dumb mode.
       // Not a problem since the console will re-run the filters after exiting dumb mode.
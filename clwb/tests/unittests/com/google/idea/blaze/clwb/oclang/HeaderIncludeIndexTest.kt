@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.clwb.oclang
+
+import com.google.common.collect.ImmutableList
+import com.google.common.truth.Truth.assertThat
+import com.google.idea.blaze.base.ideinfo.ArtifactLocation
+import com.google.idea.blaze.base.ideinfo.CIdeInfo
+import com.google.idea.blaze.base.ideinfo.TargetIdeInfo
+import com.google.idea.blaze.base.ideinfo.TargetMapBuilder
+import com.google.idea.blaze.base.model.primitives.ExecutionRootPath
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+@RunWith(JUnit4::class)
+class HeaderIncludeIndexTest {
+
+  private val bin = "bazel-out/k8-fastbuild/bin"
+
+  private fun source(path: String): ArtifactLocation =
+    ArtifactLocation.builder().setRelativePath(path).setIsSource(true).build()
+
+  private fun generated(path: String): ArtifactLocation =
+    ArtifactLocation.builder().setRootPath(bin).setRelativePath(path).setIsSource(false).build()
+
+  private fun external(repo: String, path: String): ArtifactLocation =
+    ArtifactLocation.builder()
+      .setRootPath("external/$repo")
+      .setRelativePath(path)
+      .setIsSource(true)
+      .setIsExternal(true)
+      .build()
+
+  private fun target(
+    label: String,
+    headers: List<ArtifactLocation>,
+    quoteIncludes: List<String> = listOf(".", bin),
+    systemIncludes: List<String> = listOf(),
+  ): TargetIdeInfo.Builder {
+    val context = CIdeInfo.CompilationContext.builder()
+      .setHeaders(ImmutableList.copyOf(headers))
+      .setQuoteIncludes(ImmutableList.copyOf(quoteIncludes.map { ExecutionRootPath.create(it) }))
+      .setSystemIncludes(ImmutableList.copyOf(systemIncludes.map { ExecutionRootPath.create(it) }))
+      .build()
+    return TargetIdeInfo.builder()
+      .setLabel(label)
+      .setKind("cc_library")
+      .setCInfo(CIdeInfo.builder().setCompilationContext(context))
+  }
+
+  @Test
+  fun workspaceHeader_indexedByWorkspaceRelativePath() {
+    val header = source("foo/bar.h")
+    val index = HeaderIncludeIndex.build(
+      TargetMapBuilder.builder().addTarget(target("//foo:bar", listOf(header))).build()
+    )
+
+    assertThat(index.lookup("foo/bar.h")).isEqualTo(header)
+    assertThat(index.lookup("bar.h")).isNull()
+  }
+
+  @Test
+  fun generatedHeader_indexedRelativeToBinDirectory() {
+    val header = generated("foo/gen.h")
+    val index = HeaderIncludeIndex.build(
+      TargetMapBuilder.builder().addTarget(target("//foo:gen", listOf(header))).build()
+    )
+
+    assertThat(index.lookup("foo/gen.h")).isEqualTo(header)
+  }
+
+  @Test
+  fun externalHeader_indexedRelativeToSystemInclude() {
+    val header = external("zlib", "include/zlib.h")
+    val index = HeaderIncludeIndex.build(
+      TargetMapBuilder.builder()
+        .addTarget(
+          target("//foo:bar", listOf(header), systemIncludes = listOf("external/zlib/include"))
+        )
+        .build()
+    )
+
+    assertThat(index.lookup("zlib.h")).isEqualTo(header)
+  }
+
+  @Test
+  fun ambiguousInclude_isNotIndexed() {
+    val sourceHeader = source("foo/config.h")
+    val generatedHeader = generated("foo/config.h")
+    val index = HeaderIncludeIndex.build(
+      TargetMapBuilder.builder()
+        .addTarget(target("//foo:a", listOf(sourceHeader)))
+        .addTarget(target("//foo:b", listOf(generatedHeader)))
+        .build()
+    )
+
+    assertThat(index.lookup("foo/config.h")).isNull()
+  }
+
+  @Test
+  fun targetsWithoutCInfo_areIgnored() {
+    val index = HeaderIncludeIndex.build(
+      TargetMapBuilder.builder()
+        .addTarget(TargetIdeInfo.builder().setLabel("//java:lib").setKind("java_library"))
+        .build()
+    )
+
+    assertThat(index.size()).isEqualTo(0)
+  }
+}
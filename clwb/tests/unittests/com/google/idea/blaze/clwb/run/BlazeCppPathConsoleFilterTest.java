@@ -38,4 +38,14 @@ public class BlazeCppPathConsoleFilterTest {
                 .matches())
         .isTrue();
   }
+
+  @Test
+  public void testMayMatch() {
+    assertThat(BlazeCppPathConsoleFilter.mayMatch("foo/bar/test.cc:111: Failure\n")).isTrue();
+    assertThat(BlazeCppPathConsoleFilter.mayMatch("foo/bar/test.cc:111\r\n")).isTrue();
+    assertThat(BlazeCppPathConsoleFilter.mayMatch("Expected equality of these values:\n"))
+        .isFalse();
+    assertThat(BlazeCppPathConsoleFilter.mayMatch("1234\n")).isFalse();
+    assertThat(BlazeCppPathConsoleFilter.mayMatch("\n")).isFalse();
+  }
 }
@@ -18,6 +18,8 @@ package com.google.idea.blaze.javascript.run.producers;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.idea.blaze.base.async.executor.BlazeExecutor;
+import com.google.idea.blaze.base.async.executor.ExecutionLane;
 import com.google.idea.blaze.base.dependencies.TargetInfo;
 import com.google.idea.blaze.base.model.primitives.WorkspacePath;
 import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
@@ -48,7 +50,6 @@ import java.util.Arrays;
 import java.util.Objects;
 import java.util.Optional;
 import javax.annotation.Nullable;
-import org.jetbrains.ide.PooledThreadExecutor;
 
 class JavascriptTestContextProvider implements TestContextProvider {
   @Nullable
@@ -76,7 +77,7 @@ class JavascriptTestContextProvider implements TestContextProvider {
                 target != null && ReadAction.compute(() -> isTestFile(file)) ? target : null,
             ApplicationManager.getApplication().isUnitTestMode()
                 ? MoreExecutors.directExecutor()
-                : PooledThreadExecutor.INSTANCE);
+                : BlazeExecutor.getInstance().getExecutor(ExecutionLane.INTERACTIVE));
     return TestContext.builder(file, ExecutorType.DEBUG_UNSUPPORTED_TYPES)
         .setTarget(targetFuture)
         .setTestFilter(getTestFilter(file))
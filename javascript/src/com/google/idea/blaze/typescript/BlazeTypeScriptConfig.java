@@ -25,6 +25,7 @@ import com.google.idea.blaze.base.command.info.BlazeInfo;
 import com.google.idea.blaze.base.io.FileOperationProvider;
 import com.google.idea.blaze.base.io.InputStreamProvider;
 import com.google.idea.blaze.base.io.VfsUtils;
+import com.google.idea.blaze.base.io.VirtualFileBatchResolver;
 import com.google.idea.blaze.base.model.primitives.Label;
 import com.google.idea.blaze.base.model.primitives.WorkspaceRoot;
 import com.google.idea.blaze.base.settings.Blaze;
@@ -457,20 +458,24 @@ class BlazeTypeScriptConfig extends BlazeTypeScriptConfigCompat {
     }
     File baseFile = VfsUtil.virtualToIoFile(base);
     FileOperationProvider fOps = FileOperationProvider.getInstance();
-    return filesStrings.stream()
-        .map(f -> new File(baseFile, f))
-        .map(
-            f -> {
-              try {
-                return fOps.isSymbolicLink(f) ? fOps.readSymbolicLink(f) : f;
-              } catch (IOException e) {
-                logger.warn(e);
-                return f;
-              }
-            })
-        .map(f -> VfsUtils.resolveVirtualFile(f, /* refreshIfNeeded= */ false))
-        .filter(Objects::nonNull)
-        .collect(ImmutableList.toImmutableList());
+    ImmutableList<File> files =
+        filesStrings.stream()
+            .map(f -> new File(baseFile, f))
+            .map(
+                f -> {
+                  try {
+                    return fOps.isSymbolicLink(f) ? fOps.readSymbolicLink(f) : f;
+                  } catch (IOException e) {
+                    logger.warn(e);
+                    return f;
+                  }
+                })
+            .collect(ImmutableList.toImmutableList());
+    return VirtualFileBatchResolver.getInstance()
+        .resolve(files, /* refreshIfNeeded= */ false)
+        .getResolved()
+        .values()
+        .asList();
   }
 
   @Override
@@ -15,9 +15,12 @@
  */
 package com.google.idea.blaze.skylark.debugger.impl;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.devtools.build.lib.starlarkdebugging.StarlarkDebuggingProtos.DebugEvent;
 import com.google.devtools.build.lib.starlarkdebugging.StarlarkDebuggingProtos.DebugRequest;
 import com.intellij.openapi.diagnostic.Logger;
@@ -27,12 +30,25 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 import org.jetbrains.ide.PooledThreadExecutor;
 
+/**
+ * Client side of the Starlark debugging protocol.
+ *
+ * <p>Requests are written as soon as they're sent, and responses are matched to requests by
+ * sequence number, so any number of requests can be in flight at once.
+ */
 class DebugClientTransport implements Closeable {
 
   private static final Logger logger = Logger.getInstance(DebugClientTransport.class);
@@ -45,24 +61,32 @@ class DebugClientTransport implements Closeable {
 
   private static final int RETRY_DELAY_MILLIS = 200;
   private static final int RESPONSE_TIMEOUT_MILLIS = 30000;
-  private static final int RESPONSE_RECHECK_TIME_MILLIS = 1000;
 
   private static final String LOCAL_HOST = "localhost";
 
   private final int port;
-  private final SkylarkDebugProcess debugProcess;
+  private final Consumer<DebugEvent> eventHandler;
+  private final BooleanSupplier isProcessAlive;
 
   private final AtomicLong sequence = new AtomicLong(1);
-  private final Map<Long, DebugEvent> responseQueue = new HashMap<>();
+  private final Map<Long, SettableFuture<DebugEvent>> pendingResponses = new ConcurrentHashMap<>();
 
   @Nullable private Socket clientSocket;
   @Nullable private OutputStream requestStream;
   @Nullable private ListenableFuture<?> readTask;
   private volatile boolean isStopCalled = false;
+  private volatile boolean isEventStreamClosed = false;
 
   DebugClientTransport(SkylarkDebugProcess debugProcess, int port) {
+    this(port, debugProcess::handleEvent, debugProcess::isProcessAlive);
+  }
+
+  @VisibleForTesting
+  DebugClientTransport(
+      int port, Consumer<DebugEvent> eventHandler, BooleanSupplier isProcessAlive) {
     this.port = port;
-    this.debugProcess = debugProcess;
+    this.eventHandler = eventHandler;
+    this.isProcessAlive = isProcessAlive;
     Runtime.getRuntime().addShutdownHook(new Thread(this::close));
   }
 
@@ -71,7 +95,7 @@ class DebugClientTransport implements Closeable {
   }
 
   private boolean ignoreErrors() {
-    return !isConnected() || !debugProcess.isProcessAlive();
+    return !isConnected() || !isProcessAlive.getAsBoolean();
   }
 
   @Override
@@ -132,19 +156,60 @@ class DebugClientTransport implements Closeable {
    */
   @Nullable
   DebugEvent sendRequest(DebugRequest.Builder builder) {
+    return waitForResponse(sendRequestAsync(builder));
+  }
+
+  /**
+   * Sends a {@link DebugRequest} to the server without waiting for the response. The sequence
+   * number will be populated prior to sending the request.
+   *
+   * <p>The returned future fails if the request couldn't be sent, or the connection is closed
+   * before a response is received.
+   */
+  ListenableFuture<DebugEvent> sendRequestAsync(DebugRequest.Builder builder) {
+    OutputStream stream = requestStream;
+    if (stream == null) {
+      return Futures.immediateFailedFuture(
+          new IOException("Not connected to the Skylark debugger"));
+    }
     long seq = sequence.getAndIncrement();
     DebugRequest request = builder.setSequenceNumber(seq).build();
+    SettableFuture<DebugEvent> response = SettableFuture.create();
+    pendingResponses.put(seq, response);
+    response.addListener(() -> pendingResponses.remove(seq), MoreExecutors.directExecutor());
+    if (isEventStreamClosed) {
+      response.setException(new IOException("Connection to the Skylark debugger was closed"));
+      return response;
+    }
     try {
-      synchronized (requestStream) {
-        request.writeDelimitedTo(requestStream);
-        requestStream.flush();
+      synchronized (stream) {
+        request.writeDelimitedTo(stream);
+        stream.flush();
       }
-      return waitForResponse(seq);
-
     } catch (IOException e) {
       if (!ignoreErrors()) {
         logger.error("Error sending request to Skylark debugger", e);
       }
+      response.setException(e);
+    }
+    return response;
+  }
+
+  /**
+   * Blocks waiting for the result of an asynchronous request. Returns null if the request failed,
+   * no response was received within the timeout, or this thread was interrupted.
+   */
+  @Nullable
+  <T> T waitForResponse(Future<T> future) {
+    try {
+      return future.get(RESPONSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (TimeoutException e) {
+      future.cancel(false);
+      return null;
+    } catch (ExecutionException | CancellationException e) {
       return null;
     }
   }
@@ -152,6 +217,7 @@ class DebugClientTransport implements Closeable {
   private ListenableFuture<?> processEvents(InputStream eventStream) {
     ListeningExecutorService executor =
         MoreExecutors.listeningDecorator(PooledThreadExecutor.INSTANCE);
+    isEventStreamClosed = false;
     return executor.submit(
         () -> {
           try {
@@ -161,6 +227,8 @@ class DebugClientTransport implements Closeable {
               logger.error("Malformed event proto", e);
             }
             close();
+          } finally {
+            failPendingResponses();
           }
         });
   }
@@ -168,9 +236,13 @@ class DebugClientTransport implements Closeable {
   private void listenForEvents(InputStream eventStream) throws IOException {
     while (true) {
       DebugEvent event = DebugEvent.parseDelimitedFrom(eventStream);
+      if (event == null) {
+        // end of stream: the server closed the connection
+        return;
+      }
       if (event.getSequenceNumber() == 0) {
         // sequence number is 0 iff it's not a response to a DebugRequest: handle it immediately
-        debugProcess.handleEvent(event);
+        eventHandler.accept(event);
       } else {
         placeResponse(event.getSequenceNumber(), event);
       }
@@ -178,37 +250,18 @@ class DebugClientTransport implements Closeable {
   }
 
   private void placeResponse(long sequence, DebugEvent response) {
-    synchronized (responseQueue) {
-      responseQueue.put(sequence, response);
-      responseQueue.notifyAll();
+    SettableFuture<DebugEvent> future = pendingResponses.remove(sequence);
+    if (future != null) {
+      future.set(response);
     }
   }
 
-  /**
-   * Wait for a response from the debug server. Returns null if no response was received, or this
-   * thread was interrupted.
-   */
-  @Nullable
-  private DebugEvent waitForResponse(long sequence) {
-    DebugEvent response = null;
-    long startTime = System.currentTimeMillis();
-    synchronized (responseQueue) {
-      while (response == null && shouldWaitForResponse(startTime)) {
-        try {
-          responseQueue.wait(RESPONSE_RECHECK_TIME_MILLIS);
-        } catch (InterruptedException e) {
-          Thread.currentThread().interrupt();
-          return null;
-        }
-        response = responseQueue.remove(sequence);
-      }
+  /** Fails all requests still waiting for a response, once no more responses can arrive. */
+  private void failPendingResponses() {
+    isEventStreamClosed = true;
+    IOException closed = new IOException("Connection to the Skylark debugger was closed");
+    for (SettableFuture<DebugEvent> future : pendingResponses.values()) {
+      future.setException(closed);
     }
-    return response;
-  }
-
-  private boolean shouldWaitForResponse(long startTime) {
-    return clientSocket.isConnected()
-        && !readTask.isDone()
-        && System.currentTimeMillis() - startTime < RESPONSE_TIMEOUT_MILLIS;
   }
 }
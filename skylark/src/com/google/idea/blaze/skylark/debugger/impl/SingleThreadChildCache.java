@@ -16,10 +16,13 @@
 package com.google.idea.blaze.skylark.debugger.impl;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.devtools.build.lib.starlarkdebugging.StarlarkDebuggingProtos;
-import com.google.devtools.build.lib.starlarkdebugging.StarlarkDebuggingProtos.DebugEvent;
 import com.google.devtools.build.lib.starlarkdebugging.StarlarkDebuggingProtos.DebugRequest;
 import com.google.devtools.build.lib.starlarkdebugging.StarlarkDebuggingProtos.GetChildrenRequest;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -31,9 +34,12 @@ import javax.annotation.Nullable;
  */
 class SingleThreadChildCache {
 
+  /** The maximum number of values whose children are requested ahead of time in one batch. */
+  private static final int MAX_PREFETCHED_VALUES = 100;
+
   private final long threadId;
-  private final ConcurrentMap<Long, List<StarlarkDebuggingProtos.Value>> identifierToChildrenMap =
-      new ConcurrentHashMap<>();
+  private final ConcurrentMap<Long, ListenableFuture<List<StarlarkDebuggingProtos.Value>>>
+      identifierToChildrenMap = new ConcurrentHashMap<>();
 
   SingleThreadChildCache(long threadId) {
     this.threadId = threadId;
@@ -42,20 +48,47 @@ class SingleThreadChildCache {
   @Nullable
   List<StarlarkDebuggingProtos.Value> getChildren(
       DebugClientTransport transport, StarlarkDebuggingProtos.Value value) {
-    // protocol specifies a non-zero ID for values with children
-    if (!value.getHasChildren() || value.getId() == 0) {
+    if (!hasChildren(value)) {
       return ImmutableList.of();
     }
-    return identifierToChildrenMap.computeIfAbsent(
-        value.getId(), id -> queryChildren(transport, value));
+    ListenableFuture<List<StarlarkDebuggingProtos.Value>> future =
+        identifierToChildrenMap.computeIfAbsent(
+            value.getId(), id -> queryChildren(transport, id));
+    List<StarlarkDebuggingProtos.Value> children = transport.waitForResponse(future);
+    if (children == null) {
+      // don't cache failures, so the next request retries
+      identifierToChildrenMap.remove(value.getId(), future);
+    }
+    return children;
   }
 
-  @Nullable
-  private List<StarlarkDebuggingProtos.Value> queryChildren(
-      DebugClientTransport transport, StarlarkDebuggingProtos.Value value) {
+  /**
+   * Requests the children of the given values without waiting for the responses, so they're
+   * already available when the values are expanded. All requests are in flight at once.
+   */
+  void prefetchChildren(
+      DebugClientTransport transport, Collection<StarlarkDebuggingProtos.Value> values) {
+    values.stream()
+        .filter(SingleThreadChildCache::hasChildren)
+        .limit(MAX_PREFETCHED_VALUES)
+        .forEach(
+            value ->
+                identifierToChildrenMap.computeIfAbsent(
+                    value.getId(), id -> queryChildren(transport, id)));
+  }
+
+  private static boolean hasChildren(StarlarkDebuggingProtos.Value value) {
+    // protocol specifies a non-zero ID for values with children
+    return value.getHasChildren() && value.getId() != 0;
+  }
+
+  private ListenableFuture<List<StarlarkDebuggingProtos.Value>> queryChildren(
+      DebugClientTransport transport, long valueId) {
     GetChildrenRequest request =
-        GetChildrenRequest.newBuilder().setThreadId(threadId).setValueId(value.getId()).build();
-    DebugEvent response = transport.sendRequest(DebugRequest.newBuilder().setGetChildren(request));
-    return response == null ? null : response.getGetChildren().getChildrenList();
+        GetChildrenRequest.newBuilder().setThreadId(threadId).setValueId(valueId).build();
+    return Futures.transform(
+        transport.sendRequestAsync(DebugRequest.newBuilder().setGetChildren(request)),
+        response -> response.getGetChildren().getChildrenList(),
+        MoreExecutors.directExecutor());
   }
 }
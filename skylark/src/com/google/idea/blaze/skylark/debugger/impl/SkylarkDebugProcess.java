@@ -428,6 +428,14 @@ public class SkylarkDebugProcess extends XDebugProcess {
     return threadState.childCache.getChildren(transport, value);
   }
 
+  /** Requests the children of the given values ahead of time, without waiting for them. */
+  void prefetchChildren(long threadId, List<StarlarkDebuggingProtos.Value> values) {
+    PausedThreadState threadState = pausedThreads.get(threadId);
+    if (threadState != null) {
+      threadState.childCache.prefetchChildren(transport, values);
+    }
+  }
+
   void listFrames(long threadId, XExecutionStack.XStackFrameContainer container) {
     DebugEvent response =
         transport.sendRequest(
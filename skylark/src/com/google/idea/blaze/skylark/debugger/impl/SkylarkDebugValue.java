@@ -143,6 +143,8 @@ class SkylarkDebugValue extends XNamedValue {
                 return;
               }
               XValueChildrenList children = new XValueChildrenList(response.size());
+              // the children are likely to be expanded next, so query their children in parallel
+              frameContext.debugProcess.prefetchChildren(frameContext.threadId, response);
               response.forEach(v -> children.add(SkylarkDebugValue.fromProto(frameContext, v)));
               node.addChildren(children, true);
             });
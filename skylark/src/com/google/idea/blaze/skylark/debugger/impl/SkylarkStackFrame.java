@@ -131,6 +131,7 @@ class SkylarkStackFrame extends XStackFrame {
 
     @Override
     public void computeChildren(XCompositeNode node) {
+      debugProcess.prefetchChildren(threadId, scope.getBindingList());
       XValueChildrenList children = new XValueChildrenList(scope.getBindingCount());
       scope
           .getBindingList()
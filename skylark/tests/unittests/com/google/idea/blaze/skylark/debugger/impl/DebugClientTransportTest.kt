@@ -0,0 +1,214 @@
+/*
+ * Copyright 2026 The Bazel Authors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.idea.blaze.skylark.debugger.impl
+
+import com.google.common.truth.Truth.assertThat
+import com.google.devtools.build.lib.starlarkdebugging.StarlarkDebuggingProtos.DebugEvent
+import com.google.devtools.build.lib.starlarkdebugging.StarlarkDebuggingProtos.DebugRequest
+import com.google.devtools.build.lib.starlarkdebugging.StarlarkDebuggingProtos.GetChildrenRequest
+import com.google.devtools.build.lib.starlarkdebugging.StarlarkDebuggingProtos.GetChildrenResponse
+import com.google.devtools.build.lib.starlarkdebugging.StarlarkDebuggingProtos.ThreadContinuedEvent
+import com.google.devtools.build.lib.starlarkdebugging.StarlarkDebuggingProtos.Value
+import java.net.ServerSocket
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+import org.junit.After
+import org.junit.Assert.assertThrows
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+/** Tests [DebugClientTransport] and [SingleThreadChildCache] against an in-process debug server. */
+@RunWith(JUnit4::class)
+class DebugClientTransportTest {
+
+  private lateinit var server: FakeDebugServer
+  private lateinit var transport: DebugClientTransport
+  private val events = LinkedBlockingQueue<DebugEvent>()
+
+  @Before
+  fun setUp() {
+    server = FakeDebugServer()
+    transport = DebugClientTransport(server.port, events::add) { true }
+    assertThat(transport.waitForConnection()).isTrue()
+  }
+
+  @After
+  fun tearDown() {
+    transport.close()
+    server.close()
+  }
+
+  @Test
+  fun requestsArePipelined() {
+    // the server only responds once all three requests arrived, in reverse order
+    server.batchSize = 3
+
+    val futures = (1L..3L).map { transport.sendRequestAsync(getChildren(it)) }
+
+    for ((i, future) in futures.withIndex()) {
+      val response = future.get(10, TimeUnit.SECONDS)
+      assertThat(response.getChildren.childrenList.single().id).isEqualTo(childId(i + 1L))
+    }
+  }
+
+  @Test
+  fun blockingRequestReturnsMatchingResponse() {
+    val response = transport.sendRequest(getChildren(7))
+
+    assertThat(response).isNotNull()
+    assertThat(response!!.getChildren.childrenList.single().id).isEqualTo(childId(7))
+  }
+
+  @Test
+  fun unsolicitedEventsAreForwarded() {
+    server.sendEvent(
+      DebugEvent.newBuilder()
+        .setThreadContinued(ThreadContinuedEvent.newBuilder().setThreadId(1))
+        .build()
+    )
+
+    val event = events.poll(10, TimeUnit.SECONDS)
+    assertThat(event).isNotNull()
+    assertThat(event!!.threadContinued.threadId).isEqualTo(1)
+  }
+
+  @Test
+  fun pendingRequestsFailWhenConnectionCloses() {
+    server.batchSize = 2
+    val future = transport.sendRequestAsync(getChildren(1))
+    server.awaitRequests(1)
+
+    server.close()
+
+    val e = assertThrows(ExecutionException::class.java) { future.get(10, TimeUnit.SECONDS) }
+    assertThat(e).hasCauseThat().isInstanceOf(java.io.IOException::class.java)
+  }
+
+  @Test
+  fun prefetchedChildrenAreServedFromCache() {
+    val cache = SingleThreadChildCache(THREAD_ID)
+    val values = (1L..5L).map { value(it) }
+
+    cache.prefetchChildren(transport, values)
+    for (v in values) {
+      assertThat(cache.getChildren(transport, v)!!.single().id).isEqualTo(childId(v.id))
+    }
+
+    assertThat(server.requests.map { it.getChildren.valueId })
+      .containsExactlyElementsIn(values.map { it.id })
+  }
+
+  @Test
+  fun valuesWithoutChildrenAreNotRequested() {
+    val cache = SingleThreadChildCache(THREAD_ID)
+    val leaf = Value.newBuilder().setLabel("leaf").setId(3).setHasChildren(false).build()
+
+    cache.prefetchChildren(transport, listOf(leaf))
+
+    assertThat(cache.getChildren(transport, leaf)).isEmpty()
+    assertThat(server.requests).isEmpty()
+  }
+
+  private fun getChildren(valueId: Long): DebugRequest.Builder =
+    DebugRequest.newBuilder()
+      .setGetChildren(GetChildrenRequest.newBuilder().setThreadId(THREAD_ID).setValueId(valueId))
+
+  /**
+   * Speaks the server side of the Starlark debugging protocol, answering each GetChildren request
+   * with a single child. Responses are held back until [batchSize] requests arrived, then sent in
+   * reverse order.
+   */
+  private class FakeDebugServer : AutoCloseable {
+    private val serverSocket = ServerSocket(0)
+    private val pending = ArrayList<DebugRequest>()
+    private val lock = Object()
+    val requests = CopyOnWriteArrayList<DebugRequest>()
+    @Volatile var batchSize = 1
+
+    val port: Int
+      get() = serverSocket.localPort
+
+    private val connection = lazy { serverSocket.accept() }
+    private val thread = Thread(::serve).apply {
+      isDaemon = true
+      start()
+    }
+
+    private fun serve() {
+      try {
+        val input = connection.value.getInputStream()
+        while (true) {
+          val request = DebugRequest.parseDelimitedFrom(input) ?: return
+          requests.add(request)
+          synchronized(lock) {
+            pending.add(request)
+            if (pending.size >= batchSize) {
+              pending.asReversed().forEach { respond(it) }
+              pending.clear()
+            }
+          }
+        }
+      } catch (e: java.io.IOException) {
+        // connection closed
+      }
+    }
+
+    private fun respond(request: DebugRequest) {
+      val valueId = request.getChildren.valueId
+      sendEvent(
+        DebugEvent.newBuilder()
+          .setSequenceNumber(request.sequenceNumber)
+          .setGetChildren(GetChildrenResponse.newBuilder().addChildren(value(childId(valueId))))
+          .build()
+      )
+    }
+
+    fun sendEvent(event: DebugEvent) {
+      val output = connection.value.getOutputStream()
+      synchronized(output) {
+        event.writeDelimitedTo(output)
+        output.flush()
+      }
+    }
+
+    fun awaitRequests(count: Int) {
+      val deadline = System.currentTimeMillis() + 10_000
+      while (requests.size < count && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10)
+      }
+    }
+
+    override fun close() {
+      if (connection.isInitialized()) {
+        connection.value.close()
+      }
+      serverSocket.close()
+    }
+  }
+
+  private companion object {
+    const val THREAD_ID = 1L
+
+    fun childId(valueId: Long) = valueId * 100
+
+    fun value(id: Long): Value =
+      Value.newBuilder().setLabel("value$id").setId(id).setHasChildren(true).build()
+  }
+}